@@ -7,6 +7,9 @@
  */
 package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.security.ProviderException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,17 +21,28 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.ProcessorDescriptionCache;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.ProcessorDescriptionLoader;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.DaemonThreadFactory;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.CoreProcessorServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.ConfigurationServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Premise;
-import de.uniwuerzburg.zpd.ocr4all.application.spi.env.SystemCommand;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Target;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.BooleanField;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.DecimalField;
@@ -59,7 +73,31 @@ import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
  * <li>opt-resources: resources</li>
  * <li>docker-image: ocrd/all:maximum</li>
  * <li>docker-resources: /usr/local/share/ocrd-resources</li>
+ * <li>json-cache-folder: &lt;not set&gt;</li>
+ * <li>docker-ocrd-all-tool: &lt;ocrd-all-tool.json in ocr-d python
+ * package&gt;</li>
+ * <li>json-initialization-threads: 4</li>
+ * <li>json-initialization-timeout-seconds: 300</li>
  * </ul>
+ * If the JSON cache folder is set, the JSON processor descriptions are cached
+ * in this folder by docker image identifier, so that the docker image only
+ * needs to be run, if it changes. The opt folder can not be used for the cache,
+ * since it depends on the target, that is not available on initialization.
+ * <p>
+ * The JSON processor descriptions of all processors are loaded with a single
+ * docker container from the aggregated file <code>ocrd-all-tool.json</code> of
+ * the docker image. Only the processors, that are not available in this file,
+ * are run in their own container.
+ * <p>
+ * The service providers are initialized concurrently by a bounded number of
+ * threads, that is shared by all JSON service providers. The initialization
+ * timeout starts, when the initialization thread picks up the provider. The
+ * getters do not wait for a queued initialization and wait for a running one
+ * at most until it times out, so that they return without description in the
+ * meantime. The start waits at most for the initialization timeout. On
+ * timeout, the docker processes loading the description are canceled and their
+ * containers are removed, so that a hung docker image does not block the other
+ * service providers. The initialization time is reported in the advice.
  *
  * @author <a href="mailto:herbert.baier@uni-wuerzburg.de">Herbert Baier</a>
  * @version 1.0
@@ -76,7 +114,10 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 * @since 1.8
 	 */
 	private enum ServiceProviderCollection implements ConfigurationServiceProvider.CollectionKey {
-		json("json", "-J");
+		json("json", "-J"), jsonCacheFolder("json-cache-folder", null),
+		dockerOcrdAllTool("docker-ocrd-all-tool", null),
+		jsonInitializationThreads("json-initialization-threads", "4"),
+		jsonInitializationTimeoutSeconds("json-initialization-timeout-seconds", "300");
 
 		/**
 		 * The key.
@@ -135,35 +176,104 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 
 	}
 
+	/**
+	 * The maximal number of characters of the JSON processor descriptions, that
+	 * are loaded with the docker engine api.
+	 */
+	private static final int descriptionCharacters = 16 * 1024 * 1024;
+
+	/**
+	 * The executor for the background revalidation of the cached JSON processor
+	 * descriptions.
+	 */
+	private static final ExecutorService revalidation = Executors
+			.newSingleThreadExecutor(new DaemonThreadFactory("ocr4all-ocrd-json-revalidation"));
+
+	/**
+	 * The executor for the concurrent initialization of the service providers. It
+	 * is created on demand.
+	 */
+	private static ExecutorService initialization = null;
+
 	/**
 	 * The service provider name.
 	 */
 	private final boolean isResources;
 
+	/**
+	 * The running initialization. Null if not running.
+	 */
+	private volatile Future<Void> initializationTask = null;
+
+	/**
+	 * The time in milliseconds, at which the running initialization times out. 0
+	 * while the initialization is queued.
+	 */
+	private volatile long initializationDeadline = 0;
+
+	/**
+	 * The failure of the initialization. Null if the initialization did not fail.
+	 */
+	private volatile ProviderException initializationFailure = null;
+
+	/**
+	 * The name of the container, that loads the JSON processor description. Null
+	 * if not running.
+	 */
+	private volatile String initializationContainer = null;
+
+	/**
+	 * The docker engine api process, that loads the JSON processor description.
+	 * Null if not running.
+	 */
+	private volatile StreamingProcess initializationProcess = null;
+
+	/**
+	 * The native process, that loads the JSON processor description. Null if not
+	 * running.
+	 */
+	private volatile SystemProcess initializationNativeProcess = null;
+
+	/**
+	 * The duration of the initialization in milliseconds. -1 if not initialized.
+	 */
+	private volatile long initializationMilliseconds = -1;
+
 	/**
 	 * The ocr-d JSON processor description.
 	 */
-	protected String jsonProcessorDescription = null;
+	protected volatile String jsonProcessorDescription = null;
+
+	/**
+	 * The identifier of the docker image of the JSON processor description. Null
+	 * if unknown.
+	 */
+	private volatile String jsonDockerImageIdentifier = null;
 
 	/**
 	 * The service provider description.
 	 */
-	private String description = null;
+	private volatile String description = null;
 
 	/**
 	 * The service provider categories.
 	 */
-	private List<String> categories = null;
+	private volatile List<String> categories = null;
 
 	/**
 	 * The service provider steps.
 	 */
-	private List<String> steps = null;
+	private volatile List<String> steps = null;
 
 	/**
 	 * The model factory.
 	 */
-	private ModelFactory modelFactory = null;
+	private volatile ModelFactory modelFactory = null;
+
+	/**
+	 * The parameter descriptions of the JSON processor description.
+	 */
+	private volatile JsonNode parameterDescriptions = null;
 
 	/**
 	 * Creates an ocr-d service provider worker with JSON support and without
@@ -199,6 +309,17 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 		return super.getProvider() + "/json";
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.
+	 * OCRDServiceProviderWorker#getParameterDescriptions()
+	 */
+	@Override
+	protected JsonNode getParameterDescriptions() {
+		return parameterDescriptions;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -219,17 +340,319 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public void initializeCallback() throws ProviderException {
-		SystemProcess process = getDockerProcess();
+		// The timeout starts when the initialization is running
+		initializationDeadline = 0;
+
+		initializationTask = getInitializationExecutor(
+				getIntegerValue(ServiceProviderCollection.jsonInitializationThreads, 4)).submit(() -> {
+					final long start = System.currentTimeMillis();
+					initializationDeadline = start + getInitializationTimeout();
+
+					initializeDescription();
+
+					initializationMilliseconds = System.currentTimeMillis() - start;
+
+					return null;
+				});
+	}
+
+	/**
+	 * Returns the initialization timeout.
+	 * 
+	 * @return The initialization timeout in milliseconds.
+	 * @since 1.8
+	 */
+	private long getInitializationTimeout() {
+		return 1000L * Math.max(1, getIntegerValue(ServiceProviderCollection.jsonInitializationTimeoutSeconds, 300));
+	}
+
+	/**
+	 * Returns the executor for the concurrent initialization of the service
+	 * providers.
+	 * 
+	 * @param threads The number of threads. It is only used on creation.
+	 * @return The executor for the concurrent initialization.
+	 * @since 1.8
+	 */
+	private static synchronized ExecutorService getInitializationExecutor(int threads) {
+		if (initialization == null)
+			initialization = Executors.newFixedThreadPool(Math.max(1, threads),
+					new DaemonThreadFactory("ocr4all-ocrd-json-initialization"));
+
+		return initialization;
+	}
+
+	/**
+	 * Waits for the initialization to complete, at most until it times out. A
+	 * queued initialization is awaited at most for the initialization timeout.
+	 * If it timed out, the initialization is canceled and the container loading
+	 * the JSON processor description is removed. The failure is retained, so
+	 * that the provider is blocked and the failure is thrown on start.
+	 * 
+	 * @throws ProviderException Throws if the initialization failed or timed out.
+	 * @since 1.8
+	 */
+	private void awaitInitialization() throws ProviderException {
+		awaitInitialization(true);
+	}
+
+	/**
+	 * Waits for the initialization to complete, at most until it times out. If
+	 * it timed out, the initialization is canceled and the container loading the
+	 * JSON processor description is removed. The failure is retained, so that
+	 * the provider is blocked and the failure is thrown on start.
+	 * 
+	 * @param isQueued True if a queued initialization is awaited at most for the
+	 *                 initialization timeout. Otherwise, it is not awaited.
+	 * @throws ProviderException Throws if the initialization failed or timed out.
+	 * @since 1.8
+	 */
+	private void awaitInitialization(boolean isQueued) throws ProviderException {
+		final Future<Void> task = initializationTask;
+		if (task == null)
+			return;
+
+		long deadline = initializationDeadline;
+		if (deadline == 0 && !task.isDone()) {
+			if (!isQueued)
+				return;
+
+			deadline = System.currentTimeMillis() + getInitializationTimeout();
+		}
+
+		try {
+			task.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+
+			initializationFailure = null;
+		} catch (TimeoutException | CancellationException e) {
+			task.cancel(true);
+			removeInitializationContainer();
+
+			initializationFailure = new ProviderException(
+					"timeout loading JSON processor description of " + getProcessorIdentifier());
+
+			throw initializationFailure;
+		} catch (ExecutionException e) {
+			initializationFailure = e.getCause() instanceof ProviderException ? (ProviderException) e.getCause()
+					: new ProviderException(e.getCause().getMessage());
+
+			throw initializationFailure;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new ProviderException(
+					"interrupted loading JSON processor description of " + getProcessorIdentifier());
+		} finally {
+			if (task.isDone())
+				initializationTask = null;
+		}
+	}
+
+	/**
+	 * Removes the container, that loads the JSON processor description, or
+	 * cancels the native process. Troubles are ignored, since the container
+	 * terminated.
+	 * 
+	 * @since 1.8
+	 */
+	private void removeInitializationContainer() {
+		final StreamingProcess process = initializationProcess;
+		if (process != null)
+			process.cancel();
+
+		final SystemProcess nativeProcess = initializationNativeProcess;
+		if (nativeProcess != null)
+			nativeProcess.cancel();
+
+		final String container = initializationContainer;
+		if (container != null)
+			try {
+				getDockerProcess().execute(new ArrayList<>(Arrays.asList("rm", "-f", container)));
+			} catch (Exception e) {
+				// Nothing to do, the container terminated
+			}
+	}
+
+	/**
+	 * Waits for the running initialization to complete, at most until it times
+	 * out. A queued initialization is not awaited, so that the getters return
+	 * without description in the meantime. Troubles are ignored, since the JSON
+	 * processor description is not available in this case and the provider is
+	 * blocked.
+	 * 
+	 * @since 1.8
+	 */
+	private void awaitInitializationQuietly() {
+		try {
+			awaitInitialization(false);
+		} catch (ProviderException e) {
+			// Nothing to do, the description is not available
+		}
+	}
 
+	/**
+	 * Returns the value of the service provider collection key as integer.
+	 * 
+	 * @param key          The service provider collection key.
+	 * @param defaultValue The default value if the value is not an integer.
+	 * @return The value of the service provider collection key as integer.
+	 * @since 1.8
+	 */
+	private int getIntegerValue(ServiceProviderCollection key, int defaultValue) {
 		try {
-			process.execute(new ArrayList<>(Arrays.asList("run", "--rm", getDockerImage(), getProcessorIdentifier(),
-					ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.json))));
+			return Integer.parseInt(ConfigurationServiceProvider.getValue(configuration, key).trim());
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Initializes the provider loading the JSON processor description. It is
+	 * loaded from the cache if available, otherwise from the docker image.
+	 * 
+	 * @throws ProviderException Throws if the JSON processor description can not
+	 *                           be loaded.
+	 * @since 1.8
+	 */
+	private void initializeDescription() throws ProviderException {
+		// Native processors describe themselves without docker image
+		if (isNativeEngine()) {
+			initializeJSON(loadJSON());
+			jsonDockerImageIdentifier = null;
+
+			return;
+		}
+
+		final ProcessorDescriptionCache cache = getProcessorDescriptionCache();
+		final String imageIdentifier = cache == null ? null : getDockerImageIdentifier();
+
+		if (imageIdentifier != null) {
+			String json = cache.get(imageIdentifier, getProcessorIdentifier());
+
+			if (json != null) {
+				initializeJSON(json);
+				jsonDockerImageIdentifier = imageIdentifier;
+
+				return;
+			}
+		}
+
+		String json = ProcessorDescriptionLoader.getInstance().getDescription(() -> getDockerProcess(),
+				getDockerImage(),
+				ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.dockerOcrdAllTool),
+				getProcessorIdentifier(), getInitializationTimeout());
+
+		// The initialization was canceled on timeout
+		if (Thread.currentThread().isInterrupted())
+			throw new ProviderException(
+					"interrupted loading JSON processor description of " + getProcessorIdentifier());
+
+		if (json == null)
+			json = loadJSON();
+
+		initializeJSON(json);
+		jsonDockerImageIdentifier = imageIdentifier;
+
+		if (imageIdentifier != null && !json.isBlank())
+			try {
+				cache.put(imageIdentifier, getProcessorIdentifier(), json.trim());
+			} catch (IOException e) {
+				// Nothing to do, the description is loaded again on next initialization
+			}
+	}
+
+	/**
+	 * Returns the cache of the JSON processor descriptions.
+	 * 
+	 * @return The cache of the JSON processor descriptions. Null if the cache is
+	 *         disabled or the engine is native.
+	 * @since 1.8
+	 */
+	private ProcessorDescriptionCache getProcessorDescriptionCache() {
+		String folder = ConfigurationServiceProvider.getValue(configuration,
+				ServiceProviderCollection.jsonCacheFolder);
+
+		try {
+			return folder == null || folder.isBlank() || isNativeEngine() ? null
+					: new ProcessorDescriptionCache(Paths.get(folder.trim()));
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the identifier of the docker image.
+	 * 
+	 * @return The identifier of the docker image. Null if it can not be
+	 *         determined.
+	 * @since 1.8
+	 */
+	private String getDockerImageIdentifier() {
+		try {
+			return ProcessorDescriptionCache.getImageIdentifier(getDockerProcess(), getDockerImage());
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Loads the JSON processor description running the docker image or, if the
+	 * engine is native, the native processor executable. The docker image is run
+	 * with the docker engine api if the docker socket is set.
+	 * 
+	 * @return The JSON processor description.
+	 * @throws ProviderException Throws if the JSON processor description can not
+	 *                           be loaded.
+	 * @since 1.8
+	 */
+	private String loadJSON() throws ProviderException {
+		final String json = ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.json);
+
+		// The named container is removed if the initialization times out
+		final String container = "ocr4all-json-" + UUID.randomUUID().toString();
+
+		if (isDockerEngineApi()) {
+			// The complete description is retained in the output tail
+			StreamingProcess process = getDockerEngineProcess().configure(1000, 1000, descriptionCharacters);
+
+			try {
+				initializationProcess = process;
+
+				process.execute(Arrays.asList("run", "--rm", "--name", container, "--", getDockerImage(),
+						getProcessorIdentifier(), json), null, null);
+			} catch (Exception e) {
+				throw new ProviderException(e.getMessage());
+			} finally {
+				initializationProcess = null;
+			}
+
+			if (process.getExitValue() == 0)
+				return process.getStandardOutput();
+			else
+				throw new ProviderException(
+						process.getStandardError().trim() + " (process exit code " + process.getExitValue() + ")");
+		}
+
+		SystemProcess process = isNativeEngine() ? new SystemProcess(null, getNativeExecutable()) : getDockerProcess();
+
+		try {
+			if (isNativeEngine())
+				initializationNativeProcess = process;
+			else
+				initializationContainer = container;
+
+			process.execute(isNativeEngine() ? new ArrayList<>(Arrays.asList(json))
+					: new ArrayList<>(Arrays.asList("run", "--rm", "--name", container, getDockerImage(),
+							getProcessorIdentifier(), json)));
 		} catch (Exception e) {
 			throw new ProviderException(e.getMessage());
+		} finally {
+			initializationContainer = null;
+			initializationNativeProcess = null;
 		}
 
 		if (process.getExitValue() == 0)
-			initializeJSON(process.getStandardOutput());
+			return process.getStandardOutput();
 		else
 			throw new ProviderException(
 					process.getStandardError().trim() + " (process exit code " + process.getExitValue() + ")");
@@ -256,6 +679,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 				steps = getValueAsList("steps", root);
 
 				modelFactory = new ModelFactory(root);
+
+				parameterDescriptions = root.get("parameters");
 			} catch (JsonProcessingException e) {
 				throw new ProviderException("could not parse JSON processor description - " + e.getMessage());
 			}
@@ -292,8 +717,21 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public void startCallback() throws ProviderException {
-		if (modelFactory == null)
+		awaitInitialization();
+
+		// A failed initialization is thrown once more, the next start retries it
+		final ProviderException failure = initializationFailure;
+		if (failure != null && modelFactory == null) {
+			initializationFailure = null;
+
+			throw failure;
+		}
+
+		// The initialization is retried with the initialization timeout
+		if (modelFactory == null) {
 			initializeCallback();
+			awaitInitialization();
+		}
 	}
 
 	/*
@@ -304,7 +742,28 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public void restartCallback() throws ProviderException {
-		startCallback();
+		if (modelFactory != null && getProcessorDescriptionCache() != null)
+			revalidation.execute(() -> revalidate());
+		else
+			startCallback();
+	}
+
+	/**
+	 * Revalidates the JSON processor description. It is reinitialized if the
+	 * docker image has changed. Troubles are ignored, since the current
+	 * description remains valid until the next successful revalidation.
+	 * 
+	 * @since 1.8
+	 */
+	private void revalidate() {
+		final String imageIdentifier = getDockerImageIdentifier();
+
+		if (imageIdentifier != null && !imageIdentifier.equals(jsonDockerImageIdentifier))
+			try {
+				initializeDescription();
+			} catch (ProviderException e) {
+				// Nothing to do, the current description remains valid
+			}
 	}
 
 	/*
@@ -315,6 +774,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public Optional<String> getDescription(Locale locale) {
+		awaitInitializationQuietly();
+
 		return description == null ? super.getDescription(locale) : Optional.of(description);
 	}
 
@@ -326,6 +787,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public List<String> getCategories() {
+		awaitInitializationQuietly();
+
 		return categories;
 	}
 
@@ -337,6 +800,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public List<String> getSteps() {
+		awaitInitializationQuietly();
+
 		return steps;
 	}
 
@@ -348,7 +813,11 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public String getAdvice() {
-		return jsonProcessorDescription == null ? null : "JSON processor description:\n" + jsonProcessorDescription;
+		awaitInitializationQuietly();
+
+		return jsonProcessorDescription == null ? null
+				: "JSON processor description" + (initializationMilliseconds < 0 ? ""
+						: " (loaded in " + initializationMilliseconds + " ms)") + ":\n" + jsonProcessorDescription;
 	}
 
 	/*
@@ -360,8 +829,14 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public Premise getPremise(Target target) {
-		return configuration.isSystemCommandAvailable(SystemCommand.Type.docker) ? new Premise()
-				: new Premise(Premise.State.block, locale -> "The required 'docker' command is not available.");
+		awaitInitializationQuietly();
+
+		final ProviderException failure = initializationFailure;
+		if (failure != null && modelFactory == null)
+			return new Premise(Premise.State.block,
+					locale -> "The JSON processor description can not be loaded - " + failure.getMessage() + ".");
+
+		return getEnginePremise();
 	}
 
 	/**
@@ -421,6 +896,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public Model getModel(Target target) {
+		awaitInitializationQuietly();
+
 		return modelFactory == null ? null
 				: modelFactory.getModel(preModelEntries(target, modelFactory.getArguments()),
 						posModelEntries(target, modelFactory.getArguments()),
@@ -466,6 +943,8 @@ public abstract class JsonOCRDServiceProviderWorker extends OCRDServiceProviderW
 	 */
 	@Override
 	public Processor newProcessor() {
+		awaitInitializationQuietly();
+
 		return modelFactory == null ? null : new OCRDProcessorServiceProvider() {
 			/*
 			 * (non-Javadoc)
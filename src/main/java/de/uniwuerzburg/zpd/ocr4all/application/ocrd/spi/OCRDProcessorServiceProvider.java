@@ -10,6 +10,7 @@ package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi;
 import java.io.IOException;
 import java.util.List;
 
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.CoreProcessorServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
@@ -41,16 +42,7 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 	public void cancel() {
 		super.cancel();
 
-		if (dockerProcess.isStopContainerProcessSet()) {
-			try {
-				dockerProcess.getStopContainerProcess().execute(dockerProcess.getStopContainerProcessArguments());
-			} catch (IOException e) {
-				if (dockerProcess.isProcessSet())
-					dockerProcess.getProcess().cancel();
-
-			}
-		} else if (dockerProcess.isProcessSet())
-			dockerProcess.getProcess().cancel();
+		dockerProcess.stop();
 	}
 
 	/**
@@ -62,9 +54,15 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 	 */
 	protected class DockerProcess {
 		/**
-		 * The process.
+		 * The process. Its output is streamed while it is running.
+		 */
+		private StreamingProcess process = null;
+
+		/**
+		 * The system process of the former configuration. Its output is only
+		 * available after it terminated.
 		 */
-		private SystemProcess process = null;
+		private SystemProcess systemProcess = null;
 
 		/**
 		 * The system process to stop the container.
@@ -76,6 +74,17 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 		 */
 		private List<String> stopContainerProcessArguments = null;
 
+		/**
+		 * The processes, that are canceled to stop them. Null if not set.
+		 */
+		private List<StreamingProcess> processes = null;
+
+		/**
+		 * The callback to stop the processes before they are canceled, e.g. to
+		 * kill the commands executed in pooled containers. Null if not set.
+		 */
+		private Runnable stopCallback = null;
+
 		/**
 		 * Configure the docker process.
 		 * 
@@ -86,13 +95,68 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 		 *                                      stop the container.
 		 * @since 1.8
 		 */
-		public void configure(SystemProcess process, SystemProcess stopContainerProcess,
+		public void configure(StreamingProcess process, SystemProcess stopContainerProcess,
 				List<String> stopContainerProcessArguments) {
 			this.process = process;
+			systemProcess = null;
 
 			this.stopContainerProcess = stopContainerProcess;
 			this.stopContainerProcessArguments = this.stopContainerProcess == null ? null
 					: stopContainerProcessArguments;
+
+			processes = null;
+			stopCallback = null;
+		}
+
+		/**
+		 * Configure the docker process with a system process.
+		 * 
+		 * @param process                       The system process.
+		 * @param stopContainerProcess          The system process to stop the
+		 *                                      container.
+		 * @param stopContainerProcessArguments The arguments for the system process to
+		 *                                      stop the container.
+		 * @since 1.8
+		 * @deprecated The output of a system process is only available after it
+		 *             terminated. Use
+		 *             {@link #configure(StreamingProcess, SystemProcess, List)}
+		 *             instead.
+		 */
+		@Deprecated
+		public void configure(SystemProcess process, SystemProcess stopContainerProcess,
+				List<String> stopContainerProcessArguments) {
+			configure((StreamingProcess) null, stopContainerProcess, stopContainerProcessArguments);
+
+			systemProcess = process;
+		}
+
+		/**
+		 * Configure the docker process for processes, that run without container and
+		 * are stopped by canceling them.
+		 * 
+		 * @param processes The processes.
+		 * @since 1.8
+		 */
+		public void configure(List<StreamingProcess> processes) {
+			configure((StreamingProcess) null, null, null);
+
+			this.processes = processes;
+		}
+
+		/**
+		 * Configure the docker process for processes, that are stopped with the
+		 * callback and canceled afterwards. A single process is also set as the
+		 * process.
+		 * 
+		 * @param processes    The processes.
+		 * @param stopCallback The callback to stop the processes.
+		 * @since 1.8
+		 */
+		public void configure(List<StreamingProcess> processes, Runnable stopCallback) {
+			configure(processes.size() == 1 ? processes.get(0) : null, null, null);
+
+			this.processes = processes;
+			this.stopCallback = stopCallback;
 		}
 
 		/**
@@ -102,19 +166,45 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 		 * @since 1.8
 		 */
 		public boolean isProcessSet() {
-			return process != null;
+			return process != null || systemProcess != null;
 		}
 
 		/**
 		 * Returns the process.
 		 *
-		 * @return The process.
+		 * @return The process. Null if it is not set or a system process is set.
 		 * @since 1.8
 		 */
-		public SystemProcess getProcess() {
+		public StreamingProcess getStreamingProcess() {
 			return process;
 		}
 
+		/**
+		 * Returns the system process.
+		 * 
+		 * @return The system process. Null if it is not set or a process is set.
+		 * @since 1.8
+		 * @deprecated The processes are streamed. Use {@link #getStreamingProcess()}
+		 *             instead.
+		 */
+		@Deprecated
+		public SystemProcess getProcess() {
+			return systemProcess;
+		}
+
+		/**
+		 * Cancels the process or the system process if set.
+		 * 
+		 * @since 1.8
+		 */
+		private void cancelProcess() {
+			if (process != null)
+				process.cancel();
+
+			if (systemProcess != null)
+				systemProcess.cancel();
+		}
+
 		/**
 		 * Returns true if the system process to stop the container is set.
 		 *
@@ -145,5 +235,35 @@ public abstract class OCRDProcessorServiceProvider extends CoreProcessorServiceP
 			return stopContainerProcessArguments;
 		}
 
+		/**
+		 * Stops the docker process. The container is stopped if the system process
+		 * to stop the container is set. Otherwise, or if the container can not be
+		 * stopped, the process is canceled. The stop callback is run before the
+		 * processes are canceled.
+		 * 
+		 * @since 1.8
+		 */
+		public void stop() {
+			if (stopCallback != null)
+				try {
+					stopCallback.run();
+				} catch (RuntimeException e) {
+					// Nothing to do, the processes are canceled
+				}
+
+			if (isStopContainerProcessSet()) {
+				try {
+					getStopContainerProcess().execute(getStopContainerProcessArguments());
+				} catch (IOException e) {
+					cancelProcess();
+				}
+			} else
+				cancelProcess();
+
+			if (processes != null)
+				for (StreamingProcess process : processes)
+					process.cancel();
+		}
+
 	}
 }
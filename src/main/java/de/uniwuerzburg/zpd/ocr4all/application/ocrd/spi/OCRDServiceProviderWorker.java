@@ -8,7 +8,13 @@
 package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
@@ -16,24 +22,68 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.JsonOCRDServiceProviderWorker.ModelFieldCallback;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerEngineClient;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerEngineProcess;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.ProcessorDescriptionCache;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.ProcessorServerClient;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.ProcessorServerPool;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.DockerCliEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.DockerEngineApiEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.NativeEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.PodmanEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorServerEngine;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.AdmissionScheduler;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.CoreAllocator;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.DaemonThreadFactory;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FileRewriter;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FileUtils;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FolderMover;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.MetsFileLocations;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.MetsIndex;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.MetsMerger;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.MetsPages;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.PageCheckpoint;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.PageProgress;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.ResultCache;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StepFusion;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.Watchdog;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ServiceProviderCore;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.ConfigurationServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework;
+import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Premise;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.SystemCommand;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Target;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.Field;
@@ -54,7 +104,52 @@ import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
  * <li>docker-image: ocrd/all:maximum</li>
  * <li>docker-resources: /usr/local/share/ocrd-resources</li>
  * <li>docker-stop-wait-kill-seconds: 2</li>
+ * <li>docker-pool-size: 0</li>
+ * <li>docker-pool-idle-seconds: 600</li>
+ * <li>docker-pool-check-seconds: 60</li>
+ * <li>docker-pool-root: &lt;processor workspace&gt;</li>
+ * <li>page-parallelism: 1</li>
+ * <li>processor-threads: 1</li>
+ * <li>message-batch-lines: 100</li>
+ * <li>message-batch-milliseconds: 1000</li>
+ * <li>message-tail-kilobytes: 64</li>
+ * <li>timeout-seconds: 0</li>
+ * <li>inactivity-timeout-seconds: 0</li>
+ * <li>xml-parallelism: auto</li>
+ * <li>direct-output: false</li>
+ * <li>move-parallelism: auto</li>
+ * <li>scratch-folder: &lt;not set&gt;</li>
+ * <li>minimal-mounts: false</li>
+ * <li>engine: docker</li>
+ * <li>podman-command: podman</li>
+ * <li>native-folder: &lt;not set&gt;</li>
+ * <li>docker-socket: &lt;not set&gt;</li>
+ * <li>admission-cores: 0</li>
+ * <li>admission-memory-megabytes: 0</li>
+ * <li>cost-cores: &lt;processor threads&gt;</li>
+ * <li>cost-memory-megabytes: 0</li>
+ * <li>docker-cpus: &lt;not set&gt;</li>
+ * <li>docker-memory: &lt;not set&gt;</li>
+ * <li>docker-cpuset-cpus: &lt;not set&gt;</li>
+ * <li>thread-variables: false</li>
+ * <li>processor-server: false</li>
+ * <li>processor-server-database: mongodb://localhost:27017</li>
+ * <li>processor-server-data: &lt;processor workspace&gt;</li>
+ * <li>processor-server-job-pages: 10</li>
+ * <li>processor-server-idle-seconds: 600</li>
+ * <li>processor-server-start-seconds: 120</li>
+ * <li>processor-server-poll-milliseconds: 1000</li>
+ * <li>fused-steps: &lt;none&gt;</li>
+ * <li>fused-steps-ttl-seconds: 86400</li>
+ * <li>result-cache: &lt;none&gt;</li>
+ * <li>result-cache-megabytes: 10240</li>
+ * <li>result-cache-pages: true, only applied with a result cache</li>
+ * <li>resume-pages: 0</li>
  * </ul>
+ * The processor specific values override the general ones with keys prefixed by
+ * the processor identifier, e.g.
+ * <i>ocrd-calamari-recognize-page-parallelism</i>. The settings are described
+ * at the methods, that apply them.
  *
  * @author <a href="mailto:herbert.baier@uni-wuerzburg.de">Herbert Baier</a>
  * @version 1.0
@@ -71,6 +166,31 @@ public abstract class OCRDServiceProviderWorker extends ServiceProviderCore {
 	 */
 	protected static final String collectionName = "ocr-d";
 
+	/**
+	 * The environment variables, that limit the threads of the common libraries
+	 * used by the processors.
+	 */
+	private static final List<String> threadVariables = Arrays.asList("OMP_THREAD_LIMIT", "OMP_NUM_THREADS",
+			"OPENBLAS_NUM_THREADS", "MKL_NUM_THREADS", "NUMEXPR_NUM_THREADS", "TF_NUM_INTRAOP_THREADS",
+			"TF_NUM_INTEROP_THREADS");
+
+	/**
+	 * The port of the processor servers inside the docker containers, that is
+	 * published on a port of the loopback interface chosen by docker.
+	 */
+	private static final int processorServerContainerPort = 8080;
+
+	/**
+	 * The host name of the docker host inside the containers.
+	 */
+	private static final String dockerHost = "host.docker.internal";
+
+	/**
+	 * The pattern for the loopback host of the processor server database.
+	 */
+	private static final Pattern processorServerLoopbackPattern = Pattern
+			.compile("^([a-z+]+://(?:[^@/]*@)?)(?:localhost|127\\.0\\.0\\.1)(?=[:/,?]|$)");
+
 	/**
 	 * The JSON object mapper.
 	 */
@@ -91,7 +211,31 @@ public abstract class OCRDServiceProviderWorker extends ServiceProviderCore {
 		uid("uid", null), gid("gid", null), optFolder("opt-folder", "ocr-d"),
 		optResources("opt-resources", "resources"), dockerImage("docker-image", "ocrd/all:maximum"),
 		dockerResources("docker-resources", "/usr/local/share/ocrd-resources"),
-		dockerStopWaitKillSeconds("docker-stop-wait-kill-seconds", "2");
+		dockerStopWaitKillSeconds("docker-stop-wait-kill-seconds", "2"), dockerPoolSize("docker-pool-size", "0"),
+		dockerPoolIdleSeconds("docker-pool-idle-seconds", "600"),
+		dockerPoolCheckSeconds("docker-pool-check-seconds", "60"), dockerPoolRoot("docker-pool-root", null),
+		pageParallelism("page-parallelism", "1"),
+		processorThreads("processor-threads", "1"), messageBatchLines("message-batch-lines", "100"),
+		messageBatchMilliseconds("message-batch-milliseconds", "1000"),
+		messageTailKilobytes("message-tail-kilobytes", "64"), timeoutSeconds("timeout-seconds", "0"),
+		inactivityTimeoutSeconds("inactivity-timeout-seconds", "0"), xmlParallelism("xml-parallelism", "auto"),
+		directOutput("direct-output", "false"), moveParallelism("move-parallelism", "auto"),
+		scratchFolder("scratch-folder", null), minimalMounts("minimal-mounts", "false"),
+		engine("engine", "docker"), podmanCommand("podman-command", "podman"), nativeFolder("native-folder", null),
+		dockerSocket("docker-socket", null), admissionCores("admission-cores", "0"),
+		admissionMemoryMegabytes("admission-memory-megabytes", "0"), costCores("cost-cores", null),
+		costMemoryMegabytes("cost-memory-megabytes", "0"), dockerCpus("docker-cpus", null),
+		dockerMemory("docker-memory", null), dockerCpusetCpus("docker-cpuset-cpus", null),
+		threadVariables("thread-variables", "false"), processorServer("processor-server", "false"),
+		processorServerDatabase("processor-server-database", "mongodb://localhost:27017"),
+		processorServerData("processor-server-data", null), processorServerJobPages("processor-server-job-pages", "10"),
+		processorServerIdleSeconds("processor-server-idle-seconds", "600"),
+		processorServerStartSeconds("processor-server-start-seconds", "120"),
+		processorServerPollMilliseconds("processor-server-poll-milliseconds", "1000"),
+		fusedSteps("fused-steps", null), fusedStepsTtlSeconds("fused-steps-ttl-seconds", "86400"),
+		resultCache("result-cache", null),
+		resultCacheMegabytes("result-cache-megabytes", "10240"), resultCachePages("result-cache-pages", "true"),
+		resumePages("resume-pages", "0");
 
 		/**
 		 * The key.
@@ -150,6 +294,68 @@ public abstract class OCRDServiceProviderWorker extends ServiceProviderCore {
 
 	}
 
+	/**
+	 * Defines service provider collection keys for processors. The keys are the
+	 * keys of the general service provider collection prefixed by the processor
+	 * identifier and their default values are the values of the general keys.
+	 *
+	 * @author <a href="mailto:herbert.baier@uni-wuerzburg.de">Herbert Baier</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private class ProcessorCollectionKey implements ConfigurationServiceProvider.CollectionKey {
+		/**
+		 * The general service provider collection key.
+		 */
+		private final ServiceProviderCollection collection;
+
+		/**
+		 * Creates a service provider collection key for the processor.
+		 * 
+		 * @param collection The general service provider collection key.
+		 * @since 1.8
+		 */
+		private ProcessorCollectionKey(ServiceProviderCollection collection) {
+			super();
+
+			this.collection = collection;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework.
+		 * ServiceProviderCollectionKey#getName()
+		 */
+		@Override
+		public String getName() {
+			return collectionName;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework.
+		 * ServiceProviderCollectionKey#getKey()
+		 */
+		@Override
+		public String getKey() {
+			return getProcessorIdentifier() + "-" + collection.getKey();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework.
+		 * ServiceProviderCollectionKey#getDefaultValue()
+		 */
+		@Override
+		public String getDefaultValue() {
+			return ConfigurationServiceProvider.getValue(configuration, collection);
+		}
+
+	}
+
 	/**
 	 * The prefix of the message keys in the resource bundle.
 	 */
@@ -378,276 +584,3368 @@ public abstract class OCRDServiceProviderWorker extends ServiceProviderCore {
 	 * @since 1.8
 	 */
 	protected SystemProcess getDockerProcess(Framework framework) {
-		String dockerCommand = configuration.getSystemCommand(SystemCommand.Type.docker).getCommand().toString();
-
-		return new SystemProcess(framework == null ? null : framework.getProcessorWorkspace(), dockerCommand);
+		return new SystemProcess(framework == null ? null : framework.getProcessorWorkspace(), getDockerCommand());
 	}
 
 	/**
-	 * Returns the docker image.
+	 * Returns the command of the container engine, this means, the docker
+	 * command or the podman command.
 	 * 
-	 * @return The docker image.
+	 * @return The command of the container engine.
 	 * @since 1.8
 	 */
-	protected String getDockerImage() {
-		return configuration.getValue(ServiceProviderCollection.dockerImage);
+	protected String getDockerCommand() {
+		return "podman".equals(getEngine())
+				? ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.podmanCommand)
+				: configuration.getSystemCommand(SystemCommand.Type.docker).getCommand().toString();
 	}
 
 	/**
-	 * Returns the ocr-d arguments for the docker process.
+	 * Returns the engine, that executes the processor.
+	 * <p>
+	 * Podman is called with the podman command instead of the docker command.
+	 * The native engine runs the processor executables, that are installed on
+	 * the host, in the native folder or, if it is not set, on the path. They
+	 * run in the processor workspace in their own process group, that is killed
+	 * on cancellation, and find their resources in the opt resources folder
+	 * with the environment variable <i>XDG_DATA_HOME</i>. The native engine
+	 * ignores the settings, that only apply to containers, e.g. the scratch
+	 * folder, the minimal mounts and the docker container pool.
 	 * 
-	 * @param framework     The framework.
-	 * @param isResources   True if resources folder is required.
-	 * @param dockerName    The docker name.
-	 * @param arguments     The ocr-d processor arguments.
-	 * @param metsFileGroup The mets file group.
-	 * @return The ocr-d arguments for the docker process.
-	 * @throws JsonProcessingException Throws on processing (parsing, generating)
-	 *                                 JSON arguments that are not pure I/O
-	 *                                 problems.
+	 * @return The engine in lower case, this means, docker, podman or native.
 	 * @since 1.8
 	 */
-	protected List<String> getProcessorArguments(Framework framework, boolean isResources, String dockerName,
-			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup) throws JsonProcessingException {
-		// Get the effective system user/group id
-		String uid = configuration.getValue(ServiceProviderCollection.uid);
-		if (uid == null && framework.isUID())
-			uid = "" + framework.getUID();
-
-		if (uid != null) {
-			String gid = configuration.getValue(ServiceProviderCollection.gid);
-			if (gid == null && framework.isGID())
-				gid = "" + framework.getGID();
-
-			if (gid != null)
-				uid += ":" + gid;
-		}
+	protected String getEngine() {
+		String engine = getProcessorValue(ServiceProviderCollection.engine);
 
-		// Build the processor arguments
-		List<String> processorArguments = new ArrayList<>(Arrays.asList("run", "--rm", "--name", dockerName));
+		return engine == null || engine.isBlank() ? "docker" : engine.trim().toLowerCase();
+	}
 
-		if (uid != null)
-			processorArguments.addAll(Arrays.asList("-u", uid));
+	/**
+	 * Returns true if the processor is executed natively without container.
+	 * 
+	 * @return True if the processor is executed natively without container.
+	 * @since 1.8
+	 */
+	protected boolean isNativeEngine() {
+		return "native".equals(getEngine());
+	}
 
-		if (isResources) {
-			Path optResources = getOptResources(framework);
-			Path dockerResources = getDockerResources();
+	/**
+	 * Returns the engine, that executes the processor, this means, the docker
+	 * command line interface, the docker engine api if the docker socket is set,
+	 * podman, the native processor executable or, if enabled, the resident
+	 * processor server, that is started with one of the other engines.
+	 * 
+	 * @return The engine, that executes the processor.
+	 * @since 1.8
+	 */
+	protected ProcessorEngine getProcessorEngine() {
+		final int stopWaitSeconds = getIntegerValue(ServiceProviderCollection.dockerStopWaitKillSeconds, 2);
 
-			if (Files.isDirectory(optResources))
-				processorArguments
-						.addAll(Arrays.asList("-v", optResources.toString() + ":" + dockerResources.toString()));
-		}
+		final ProcessorEngine engine;
+		if (isNativeEngine())
+			engine = new NativeEngine(getNativeExecutable(), 1000L * stopWaitSeconds);
+		else if (isDockerEngineApi())
+			engine = new DockerEngineApiEngine(getDockerSocket(), stopWaitSeconds);
+		else if ("podman".equals(getEngine()))
+			engine = new PodmanEngine(getDockerCommand(), stopWaitSeconds);
+		else
+			engine = new DockerCliEngine(getDockerCommand(),
+					() -> configuration.isSystemCommandAvailable(SystemCommand.Type.docker), stopWaitSeconds);
 
-		processorArguments.addAll(Arrays.asList("-v", framework.getProcessorWorkspace().toString() + ":/data", "-w",
-				"/data", "--", getDockerImage(), getProcessorIdentifier(), "-I", metsFileGroup.getInput(), "-O",
-				metsFileGroup.getOutput()));
+		return isProcessorServer() ? new ProcessorServerEngine(engine) : engine;
+	}
 
-		if (arguments != null)
-			processorArguments.addAll(Arrays.asList("-p", objectMapper.writeValueAsString(arguments)));
+	/**
+	 * Returns the premise of the engine, that executes the processor. The
+	 * provider is blocked if the command of the engine is not available.
+	 * 
+	 * @return The premise of the engine.
+	 * @since 1.8
+	 */
+	protected Premise getEnginePremise() {
+		final ProcessorEngine engine = getProcessorEngine();
 
-		return processorArguments;
+		return engine.isAvailable() ? new Premise()
+				: new Premise(Premise.State.block,
+						locale -> "docker".equals(engine.getName()) ? getMessage(locale, "no.command.docker")
+								: getMessage(locale, "no.command.engine",
+										new Object[] { engine.getName(), engine.getCommand() }));
 	}
 
 	/**
-	 * Updates the processor messages.
+	 * Returns the parameter descriptions of the processor, this means, the
+	 * <i>parameters</i> of its ocr-d tool JSON description, that are used to
+	 * normalize the parameters of the fused steps before they are compared.
 	 * 
-	 * @param process        The system process.
-	 * @param standardOutput The callback for standard output.
-	 * @param standardError  The callback for standard error.
+	 * @return The parameter descriptions. Null if not available.
 	 * @since 1.8
 	 */
-	protected void updateProcessorMessages(SystemProcess process, Message standardOutput, Message standardError) {
-		if (process != null) {
-			String message = process.getStandardOutput();
-			if (!message.isBlank())
-				standardOutput.update(message.trim());
-
-			message = process.getStandardError();
-			if (!message.isBlank())
-				standardError.update(message.trim());
-		}
+	protected JsonNode getParameterDescriptions() {
+		return null;
 	}
 
 	/**
-	 * Runs the ocr-d processor without resources folder.
+	 * Returns the native processor executable.
 	 * 
-	 * @param framework            The framework.
-	 * @param arguments            The processor arguments.
-	 * @param unnecessaryArguments The unnecessary processor arguments. Null or
-	 *                             empty means that there are no unnecessary
-	 *                             processor arguments.
-	 * @param dockerProcess        The docker process.
-	 * @param runningState         The callback for processor running state.
-	 * @param execution            The callback for processor execution.
-	 * @param standardOutput       The callback for standard output.
-	 * @param standardError        The callback for standard error.
-	 * @param progress             The callback for progress.
-	 * @param baseProgress         The base progress.
-	 * @return The processor execution state.
+	 * @return The native processor executable.
 	 * @since 1.8
 	 */
-	protected ProcessServiceProvider.Processor.State run(Framework framework, Object arguments,
-			Set<String> unnecessaryArguments, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
-			ProcessorRunningState runningState, ProcessorExecution execution, Message standardOutput,
-			Message standardError, Progress progress, float baseProgress) {
+	protected String getNativeExecutable() {
+		String folder = getProcessorValue(ServiceProviderCollection.nativeFolder);
 
-		return run(framework, false, arguments, unnecessaryArguments, dockerProcess, runningState, execution,
-				standardOutput, standardError, progress, baseProgress);
+		return folder == null || folder.isBlank() ? getProcessorIdentifier()
+				: Paths.get(folder.trim(), getProcessorIdentifier()).toString();
 	}
 
 	/**
-	 * Runs the ocr-d processor.
+	 * Returns the native process, whose output is streamed while it is running.
+	 * It runs in the processor workspace in its own process group.
 	 * 
-	 * @param framework            The framework.
-	 * @param isResources          True if resources folder is required.
-	 * @param arguments            The processor arguments.
-	 * @param unnecessaryArguments The unnecessary processor arguments. Null or
-	 *                             empty means that there are no unnecessary
-	 *                             processor arguments.
-	 * @param dockerProcess        The docker process.
-	 * @param runningState         The callback for processor running state.
-	 * @param execution            The callback for processor execution.
-	 * @param standardOutput       The callback for standard output.
-	 * @param standardError        The callback for standard error.
-	 * @param progress             The callback for progress.
-	 * @param baseProgress         The base progress.
-	 * @return The processor execution state.
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The native process, whose output is streamed.
 	 * @since 1.8
 	 */
-	protected ProcessServiceProvider.Processor.State run(Framework framework, boolean isResources, Object arguments,
-			Set<String> unnecessaryArguments, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
-			ProcessorRunningState runningState, ProcessorExecution execution, Message standardOutput,
-			Message standardError, Progress progress, float baseProgress) {
-		try {
-			standardOutput.update("Using processor parameters " + objectMapper.writeValueAsString(arguments) + ".");
-		} catch (JsonProcessingException ex) {
-			standardError.update("Troubles creating JSON from parameters - " + ex.getMessage() + ".");
-		}
+	protected StreamingProcess getNativeStreamingProcess(Framework framework, boolean isResources) {
+		Map<String, String> environment = getThreadEnvironment();
 
-		if (unnecessaryArguments != null && !unnecessaryArguments.isEmpty())
-			standardOutput.update("Ignored unnecessary parameters: " + unnecessaryArguments + ".");
+		Path dataHome = isResources ? getNativeDataHome(framework) : null;
+		if (dataHome != null)
+			environment.put("XDG_DATA_HOME", dataHome.toString());
 
-		if (runningState.isCanceled())
-			return ProcessServiceProvider.Processor.State.canceled;
+		return getStreamingProcess(new NativeEngine(getNativeExecutable(),
+				1000L * getIntegerValue(ServiceProviderCollection.dockerStopWaitKillSeconds, 2)), framework,
+				environment);
+	}
 
-		progress.update(baseProgress);
+	/**
+	 * Returns the process of the engine, whose output is streamed while it is
+	 * running.
+	 * 
+	 * @param engine      The engine.
+	 * @param framework   The framework. If null, uses the working directory of the
+	 *                    current Java process.
+	 * @param environment The additional environment variables of native
+	 *                    processes. Null if not required.
+	 * @return The process of the engine, whose output is streamed.
+	 * @since 1.8
+	 */
+	private StreamingProcess getStreamingProcess(ProcessorEngine engine, Framework framework,
+			Map<String, String> environment) {
+		return engine.newProcess(framework == null ? null : framework.getProcessorWorkspace(), environment)
+				.configure(getIntegerValue(ServiceProviderCollection.messageBatchLines, 100),
+						getIntegerValue(ServiceProviderCollection.messageBatchMilliseconds, 1000),
+						1024 * getIntegerValue(ServiceProviderCollection.messageTailKilobytes, 64));
+	}
 
-		// Processor workspace path
-		final Path processorWorkspaceRelativePath = framework.getOutputRelativeProcessorWorkspace();
-		if (processorWorkspaceRelativePath == null) {
-			standardError.update("Inconsistent processor workspace path.");
+	/**
+	 * Returns the data home folder for native processors, this means, the hidden
+	 * folder <i>.xdg-data-home</i> in the opt resources parent folder, whose link
+	 * <i>ocrd-resources</i> points to the opt resources parent folder. This is
+	 * the layout, that the ocr-d processors expect in the environment variable
+	 * <i>XDG_DATA_HOME</i>.
+	 * 
+	 * @param framework The framework.
+	 * @return The data home folder. Null if the opt resources folder is not
+	 *         available.
+	 * @since 1.8
+	 */
+	private Path getNativeDataHome(Framework framework) {
+		final Path optResources = getOptResources(framework);
+		if (optResources == null || optResources.getParent() == null || !Files.isDirectory(optResources))
+			return null;
 
-			return ProcessServiceProvider.Processor.State.interrupted;
-		}
+		final Path dataHome = optResources.getParent().resolve(".xdg-data-home");
+		final Path link = dataHome.resolve("ocrd-resources");
 
-		final Path metsPath = framework.getMets();
-		if (metsPath == null) {
-			standardError.update("Missed required mets file path.");
+		try {
+			if (!Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+				Files.createDirectories(dataHome);
+				Files.createSymbolicLink(link, optResources.getParent().toAbsolutePath());
+			}
 
-			return ProcessServiceProvider.Processor.State.interrupted;
+			return dataHome;
+		} catch (IOException | UnsupportedOperationException e) {
+			return Files.exists(link) ? dataHome : null;
 		}
+	}
 
-		final MetsUtils.FrameworkFileGroup metsFileGroup = MetsUtils.getFileGroup(framework);
-		String dockerName = "ocr4all-" + UUID.randomUUID().toString();
+	/**
+	 * Returns the arguments for the native processor executable.
+	 * 
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param options       The additional ocr-d processor options. Null if not
+	 *                      required.
+	 * @return The arguments for the native processor executable.
+	 * @throws JsonProcessingException Throws on processing (parsing, generating)
+	 *                                 JSON arguments that are not pure I/O
+	 *                                 problems.
+	 * @since 1.8
+	 */
+	protected List<String> getNativeArguments(Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup,
+			List<String> options) throws JsonProcessingException {
+		List<String> command = getProcessorCommand(arguments, metsFileGroup, options);
 
-		List<String> processorArguments;
+		return new ArrayList<>(command.subList(1, command.size()));
+	}
 
-		try {
-			processorArguments = getProcessorArguments(framework, isResources, dockerName, arguments, metsFileGroup);
-		} catch (IOException e) {
-			standardError.update("troubles running " + getProcessorDescription() + " - " + e.getMessage() + ".");
+	/**
+	 * Returns the docker socket of the docker engine api.
+	 * <p>
+	 * If the docker socket is set, e.g. to <i>/var/run/docker.sock</i>, the
+	 * processor containers are created, attached, started, waited for and
+	 * stopped with the docker engine api over the unix socket instead of
+	 * forking the docker command. The output is streamed with the attach
+	 * endpoint. The docker socket is ignored by the native engine.
+	 * 
+	 * @return The docker socket. Null if not set or invalid.
+	 * @since 1.8
+	 */
+	protected Path getDockerSocket() {
+		String socket = getProcessorValue(ServiceProviderCollection.dockerSocket);
 
-			return ProcessServiceProvider.Processor.State.interrupted;
+		try {
+			return socket == null || socket.isBlank() ? null : Paths.get(socket.trim());
+		} catch (InvalidPathException e) {
+			return null;
 		}
+	}
 
-		dockerProcess.configure(getDockerProcess(framework), getDockerProcess(),
-				Arrays.asList("stop", "--time=" + ConfigurationServiceProvider.getValue(configuration,
-						ServiceProviderCollection.dockerStopWaitKillSeconds), dockerName));
-
-		standardOutput.update("Execute docker process '" + dockerProcess.getProcess().getCommand()
-				+ "' with parameters: " + processorArguments + ".");
-
-		ProcessServiceProvider.Processor.State state = null;
+	/**
+	 * Returns true if the docker processes are executed with the docker engine
+	 * api instead of the docker command.
+	 * 
+	 * @return True if the docker processes are executed with the docker engine
+	 *         api.
+	 * @since 1.8
+	 */
+	protected boolean isDockerEngineApi() {
+		return !isNativeEngine() && getDockerSocket() != null;
+	}
 
-		try {
-			dockerProcess.getProcess().execute(processorArguments);
+	/**
+	 * Returns the docker process, that is executed with the docker engine api.
+	 * 
+	 * @return The docker process, that is executed with the docker engine api.
+	 * @since 1.8
+	 */
+	protected DockerEngineProcess getDockerEngineProcess() {
+		return new DockerEngineProcess(new DockerEngineClient(getDockerSocket()),
+				getIntegerValue(ServiceProviderCollection.dockerStopWaitKillSeconds, 2));
+	}
 
-			updateProcessorMessages(dockerProcess.getProcess(), standardOutput, standardError);
+	/**
+	 * Returns the docker process, whose output is streamed while it is running.
+	 * <p>
+	 * The processor output is passed to the messages while the container is
+	 * running, line by line coalesced into batches of at most the message batch
+	 * lines, that are delayed at most the message batch milliseconds. Only the
+	 * tail of the output is retained in memory.
+	 * 
+	 * @param framework The framework. If null, uses the working directory of the
+	 *                  current Java process.
+	 * @return The docker process, whose output is streamed.
+	 * @since 1.8
+	 */
+	protected StreamingProcess getDockerStreamingProcess(Framework framework) {
+		final int stopWaitSeconds = getIntegerValue(ServiceProviderCollection.dockerStopWaitKillSeconds, 2);
 
-			if (runningState.isCanceled())
-				state = ProcessServiceProvider.Processor.State.canceled;
-			else if (dockerProcess.getProcess().getExitValue() != 0) {
-				standardError.update("Cannot run " + getProcessorDescription() + ", exit code "
-						+ dockerProcess.getProcess().getExitValue() + ".");
+		return getStreamingProcess(isDockerEngineApi() ? new DockerEngineApiEngine(getDockerSocket(), stopWaitSeconds)
+				: new DockerCliEngine(getDockerCommand(), () -> true, stopWaitSeconds), framework, null);
+	}
 
-				state = ProcessServiceProvider.Processor.State.interrupted;
-			}
-		} catch (IOException e) {
-			updateProcessorMessages(dockerProcess.getProcess(), standardOutput, standardError);
+	/**
+	 * Returns the process, that executes the processor with the engine. Its
+	 * output is streamed while it is running.
+	 * 
+	 * @param engine      The engine.
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The process, that executes the processor.
+	 * @since 1.8
+	 */
+	private StreamingProcess getProcessorStreamingProcess(ProcessorEngine engine, Framework framework,
+			boolean isResources) {
+		return engine.isContainer() ? getStreamingProcess(engine, framework, null)
+				: getNativeStreamingProcess(framework, isResources);
+	}
 
-			standardError.update("troubles running " + getProcessorDescription() + " - " + e.getMessage() + ".");
+	/**
+	 * Configures the docker process to stop the processes of the engine. The
+	 * containers are stopped with the container engine command, if the engine
+	 * requires it. Otherwise, the processes are canceled.
+	 * 
+	 * @param engine        The engine.
+	 * @param dockerProcess The docker process.
+	 * @param processes     The processes.
+	 * @param containers    The container names.
+	 * @since 1.8
+	 */
+	private void configure(ProcessorEngine engine, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			List<StreamingProcess> processes, List<String> containers) {
+		final List<String> stopArguments = engine.getStopArguments(containers);
 
-			state = ProcessServiceProvider.Processor.State.interrupted;
-		}
+		if (stopArguments == null) {
+			if (processes.size() == 1)
+				dockerProcess.configure(processes.get(0), null, null);
+			else
+				dockerProcess.configure(processes);
+		} else
+			dockerProcess.configure(processes.size() == 1 ? processes.get(0) : null, getDockerProcess(),
+					stopArguments);
+	}
+
+	/**
+	 * Returns the docker image.
+	 * 
+	 * @return The docker image.
+	 * @since 1.8
+	 */
+	protected String getDockerImage() {
+		return configuration.getValue(ServiceProviderCollection.dockerImage);
+	}
+
+	/**
+	 * Returns the value of the service provider collection key as integer.
+	 * 
+	 * @param key          The service provider collection key.
+	 * @param defaultValue The default value if the value is not an integer.
+	 * @return The value of the service provider collection key as integer.
+	 * @since 1.8
+	 */
+	private int getIntegerValue(ServiceProviderCollection key, int defaultValue) {
+		try {
+			return Integer.parseInt(ConfigurationServiceProvider.getValue(configuration, key).trim());
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns the processor specific value of the service provider collection key.
+	 * 
+	 * @param key The general service provider collection key.
+	 * @return The processor specific value. If it is not set, the general value.
+	 * @since 1.8
+	 */
+	private String getProcessorValue(ServiceProviderCollection key) {
+		return ConfigurationServiceProvider.getValue(configuration, new ProcessorCollectionKey(key));
+	}
+
+	/**
+	 * Returns the processor specific value of the service provider collection key
+	 * as integer.
+	 * 
+	 * @param key          The general service provider collection key.
+	 * @param defaultValue The default value if the value is not an integer.
+	 * @return The processor specific value as integer.
+	 * @since 1.8
+	 */
+	private int getProcessorIntegerValue(ServiceProviderCollection key, int defaultValue) {
+		try {
+			return Integer.parseInt(getProcessorValue(key).trim());
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns the number of page shards that are processed by concurrent
+	 * containers.
+	 * <p>
+	 * If it is <i>auto</i>, it is the number of available cores divided by the
+	 * processor threads.
+	 * 
+	 * @return The number of page shards. 1 if the pages should not be sharded.
+	 * @since 1.8
+	 */
+	protected int getPageParallelism() {
+		String parallelism = getProcessorValue(ServiceProviderCollection.pageParallelism);
+
+		if (parallelism != null && "auto".equalsIgnoreCase(parallelism.trim()))
+			return Math.max(1, Runtime.getRuntime().availableProcessors()
+					/ Math.max(1, getProcessorIntegerValue(ServiceProviderCollection.processorThreads, 1)));
+		else
+			return Math.max(1, getProcessorIntegerValue(ServiceProviderCollection.pageParallelism, 1));
+	}
+
+	/**
+	 * Returns true if the processor should write its output directly into the
+	 * snapshot sandbox.
+	 * <p>
+	 * If direct output is enabled, the output file group folder in the
+	 * processor workspace is a relative symbolic link to the snapshot sandbox,
+	 * so that the processors write their files directly into the snapshot
+	 * sandbox and the output folder need not be moved. The link is only created
+	 * if the snapshot sandbox is inside the processor workspace, since the
+	 * containers only see the processor workspace.
+	 * 
+	 * @return True if the processor should write its output directly into the
+	 *         snapshot sandbox.
+	 * @since 1.8
+	 */
+	protected boolean isDirectOutput() {
+		String directOutput = getProcessorValue(ServiceProviderCollection.directOutput);
+
+		return directOutput != null && Boolean.parseBoolean(directOutput.trim());
+	}
+
+	/**
+	 * Returns the output folder in the scratch folder. It only depends on the
+	 * processor workspace and the output file group, so that all containers of
+	 * the processor mount the same folder.
+	 * <p>
+	 * If the scratch folder is set, e.g. to <i>/dev/shm</i> or a local disk,
+	 * the output file group is mounted from the scratch folder into the
+	 * containers, so that the processors do not write their intermediate files
+	 * onto the workspace storage. The results are moved into the snapshot
+	 * sandbox after the run. The scratch folder takes precedence over the
+	 * direct output and it disables the docker container pool, since the mounts
+	 * of pooled containers can not change.
+	 * 
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @return The output folder in the scratch folder. Null if the scratch folder
+	 *         is not set, the engine is native or the processor server is
+	 *         enabled.
+	 * @since 1.8
+	 */
+	protected Path getScratchOutput(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup) {
+		String scratchFolder = getProcessorValue(ServiceProviderCollection.scratchFolder);
+
+		return scratchFolder == null || scratchFolder.isBlank() || isNativeEngine() || isProcessorServer() ? null
+				: Paths.get(scratchFolder.trim(),
+						"ocr4all-"
+								+ UUID.nameUUIDFromBytes(framework.getProcessorWorkspace().toAbsolutePath().toString()
+										.getBytes(StandardCharsets.UTF_8)).toString(),
+						metsFileGroup.getOutput());
+	}
+
+	/**
+	 * Returns true if the containers only mount the mets file, the folders of the
+	 * input pages and the output folder.
+	 * <p>
+	 * If minimal mounts are enabled, the containers do not mount the processor
+	 * workspace, but a copy of the mets file, the folders of the files on the
+	 * input pages read-only and the output folder. The folders of the files on
+	 * the input pages include the images, that are referenced by the input
+	 * files. The mets file is copied back after the run. Minimal mounts disable
+	 * the direct output and the docker container pool.
+	 * 
+	 * @return True if the containers only mount the mets file, the folders of the
+	 *         input pages and the output folder.
+	 * @since 1.8
+	 */
+	protected boolean isMinimalMounts() {
+		String minimalMounts = getProcessorValue(ServiceProviderCollection.minimalMounts);
+
+		return minimalMounts != null && Boolean.parseBoolean(minimalMounts.trim());
+	}
+
+	/**
+	 * Returns the folder, that is mounted as data folder into the containers if
+	 * minimal mounts are enabled. It is a hidden folder in the processor
+	 * workspace, that contains the copy of the mets file and the mount points.
+	 * 
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @return The data folder. Null if minimal mounts are disabled, the engine is
+	 *         native or the processor server is enabled.
+	 * @since 1.8
+	 */
+	protected Path getMountFolder(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup) {
+		return isMinimalMounts() && !isNativeEngine() && !isProcessorServer()
+				? framework.getProcessorWorkspace().resolve(".ocr4all-mounts-" + metsFileGroup.getOutput())
+				: null;
+	}
+
+	/**
+	 * Returns the mets file, that is processed by the containers.
+	 * 
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @return The mets file, that is processed by the containers. If minimal
+	 *         mounts are enabled, it is the copy in the mount folder.
+	 * @since 1.8
+	 */
+	private Path getProcessorMets(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup) {
+		final Path mountFolder = getMountFolder(framework, metsFileGroup);
+
+		return mountFolder == null ? framework.getMets()
+				: mountFolder.resolve(framework.getProcessorWorkspace().relativize(framework.getMets()).toString());
+	}
+
+	/**
+	 * Returns true if the docker container pool can be used for the processor
+	 * run, this means, it is enabled and the containers need no run specific
+	 * mounts.
+	 * 
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @return True if the docker container pool can be used.
+	 * @since 1.8
+	 */
+	private boolean isDockerContainerPool(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup) {
+		return isDockerContainerPool() && !isNativeEngine() && getScratchOutput(framework, metsFileGroup) == null
+				&& getMountFolder(framework, metsFileGroup) == null;
+	}
+
+	/**
+	 * Returns true if the docker container pool is enabled.
+	 * <p>
+	 * The docker container pool is disabled if its size is 0. Otherwise, it is
+	 * the maximal number of idle containers that are retained per docker image,
+	 * user, resource limits and pool root for reuse with <code>docker exec</code>,
+	 * see {@link #getDockerPoolRoot(Framework)}.
+	 * 
+	 * @return True if the docker container pool is enabled.
+	 * @since 1.8
+	 */
+	protected boolean isDockerContainerPool() {
+		return getIntegerValue(ServiceProviderCollection.dockerPoolSize, 0) > 0;
+	}
+
+	/**
+	 * Acquires a container from the docker container pool.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The container.
+	 * @throws IOException Throws if the container can not be started.
+	 * @since 1.8
+	 */
+	protected DockerContainerPool.Container acquireDockerContainer(Framework framework, boolean isResources)
+			throws IOException {
+		return acquireDockerContainer(framework, isResources, null);
+	}
+
+	/**
+	 * Acquires a running container of the docker container pool, that is
+	 * restricted to the cpuset.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @param cpuset      The cpuset of the container. Null if not restricted.
+	 * @return The container.
+	 * @throws IOException Throws if the container can not be started or
+	 *                     updated.
+	 * @since 1.8
+	 */
+	protected DockerContainerPool.Container acquireDockerContainer(Framework framework, boolean isResources,
+			String cpuset) throws IOException {
+		DockerContainerPool.Container container = DockerContainerPool.getInstance().acquire(
+				getDockerPoolContainerArguments(framework, isResources), getDockerImage(),
+				getDockerContainerPoolClient(), getIntegerValue(ServiceProviderCollection.dockerPoolSize, 0),
+				getIntegerValue(ServiceProviderCollection.dockerPoolIdleSeconds, 600),
+				getIntegerValue(ServiceProviderCollection.dockerPoolCheckSeconds, 60));
+
+		if (cpuset != null)
+			try {
+				container.updateCpuset(cpuset);
+			} catch (IOException e) {
+				DockerContainerPool.getInstance().release(container, false);
+
+				throw e;
+			}
+
+		return container;
+	}
+
+	/**
+	 * Returns the client, that manages the containers of the docker container
+	 * pool, this means, the docker engine api if the docker socket is set.
+	 * Otherwise, the docker command.
+	 * 
+	 * @return The client, that manages the containers of the docker container
+	 *         pool.
+	 * @since 1.8
+	 */
+	private DockerContainerPool.Client getDockerContainerPoolClient() {
+		return isDockerEngineApi() ? new DockerContainerPool.EngineApiClient(new DockerEngineClient(getDockerSocket()))
+				: new DockerContainerPool.CommandClient(() -> getDockerProcess());
+	}
+
+	/**
+	 * Returns the root folder, that is mounted into the containers of the docker
+	 * container pool.
+	 * <p>
+	 * The pool root is shared by the processor workspaces below it, e.g.
+	 * <i>/srv/ocr4all/data/workspace/projects</i>, so that their runs reuse the
+	 * same containers and execute the processors with the working directory of
+	 * their processor workspace. If it is not set or the processor workspace is
+	 * not below it, the processor workspace is mounted, this means, the
+	 * containers are only reused by the runs of the same processor workspace.
+	 * 
+	 * @param framework The framework.
+	 * @return The pool root.
+	 * @since 1.8
+	 */
+	protected Path getDockerPoolRoot(Framework framework) {
+		final Path workspace = framework.getProcessorWorkspace().toAbsolutePath().normalize();
+		final String root = getProcessorValue(ServiceProviderCollection.dockerPoolRoot);
+
+		try {
+			if (root != null && !root.isBlank()) {
+				final Path folder = Paths.get(root.trim()).toAbsolutePath().normalize();
+
+				if (workspace.startsWith(folder))
+					return folder;
+			}
+		} catch (InvalidPathException e) {
+			// The processor workspace is mounted
+		}
+
+		return workspace;
+	}
+
+	/**
+	 * Returns the docker run arguments for the containers of the docker
+	 * container pool, this means, the user, the mount of the pool root and the
+	 * resource limits. The pool key is built from them, so that they must not
+	 * depend on the processor workspace below the pool root.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The docker run arguments for the pooled containers.
+	 * @since 1.8
+	 */
+	private List<String> getDockerPoolContainerArguments(Framework framework, boolean isResources) {
+		List<String> containerArguments = getContainerUserArguments(framework, isResources);
+
+		containerArguments.addAll(Arrays.asList("-v", getDockerPoolRoot(framework).toString() + ":/data"));
+		containerArguments.addAll(getContainerLimitArguments());
+
+		return containerArguments;
+	}
+
+	/**
+	 * Returns the working directory of the processor workspace in the containers
+	 * of the docker container pool.
+	 * 
+	 * @param framework The framework.
+	 * @return The working directory in the pooled containers.
+	 * @since 1.8
+	 */
+	private String getDockerPoolWorkingDirectory(Framework framework) {
+		final String folder = getDockerPoolRoot(framework)
+				.relativize(framework.getProcessorWorkspace().toAbsolutePath().normalize()).toString();
+
+		return folder.isEmpty() ? "/data" : "/data/" + folder.replace('\\', '/');
+	}
+
+	/**
+	 * Configures the docker process to stop the processors executed in the
+	 * pooled containers. The executed commands are killed without stopping the
+	 * containers, that are evicted when they are released as not reusable.
+	 * Afterwards, the processes are canceled.
+	 * 
+	 * @param dockerProcess The docker process.
+	 * @param processes     The processes.
+	 * @param containers    The pooled containers.
+	 * @since 1.8
+	 */
+	private void configure(OCRDProcessorServiceProvider.DockerProcess dockerProcess, List<StreamingProcess> processes,
+			List<DockerContainerPool.Container> containers) {
+		final int waitSeconds = getIntegerValue(ServiceProviderCollection.dockerStopWaitKillSeconds, 2);
+
+		dockerProcess.configure(processes, () -> {
+			for (DockerContainerPool.Container container : containers)
+				container.kill(waitSeconds);
+		});
+	}
+
+	/**
+	 * Returns the docker run arguments for the container, this means, the user,
+	 * the mounts and the working directory.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The docker run arguments for the container.
+	 * @since 1.8
+	 */
+	protected List<String> getContainerArguments(Framework framework, boolean isResources) {
+		List<String> containerArguments = getContainerUserArguments(framework, isResources);
+
+		containerArguments.addAll(
+				Arrays.asList("-v", framework.getProcessorWorkspace().toString() + ":/data", "-w", "/data"));
+		containerArguments.addAll(getContainerLimitArguments());
+
+		return containerArguments;
+	}
+
+	/**
+	 * Returns the docker run arguments, that limit the resources of the
+	 * container, this means, the cpus, the memory, the fixed cpuset and the
+	 * thread variables.
+	 * <p>
+	 * The docker cpus, memory and cpuset cpus are passed with the docker run
+	 * options <i>--cpus</i>, <i>--memory</i> and <i>--cpuset-cpus</i>. They are
+	 * set per processor, e.g. <i>ocrd-tesserocr-recognize-docker-cpus</i>.
+	 * 
+	 * @return The docker run arguments, that limit the resources.
+	 * @since 1.8
+	 */
+	private List<String> getContainerLimitArguments() {
+		List<String> limitArguments = new ArrayList<>();
+
+		String cpus = getProcessorValue(ServiceProviderCollection.dockerCpus);
+		if (cpus != null && !cpus.isBlank())
+			limitArguments.addAll(Arrays.asList("--cpus", cpus.trim()));
+
+		String memory = getProcessorValue(ServiceProviderCollection.dockerMemory);
+		if (memory != null && !memory.isBlank())
+			limitArguments.addAll(Arrays.asList("--memory", memory.trim()));
+
+		String cpuset = getProcessorValue(ServiceProviderCollection.dockerCpusetCpus);
+		if (cpuset != null && !cpuset.isBlank() && !isAutoCpuset())
+			limitArguments.addAll(Arrays.asList("--cpuset-cpus", cpuset.trim()));
+
+		for (Map.Entry<String, String> variable : getThreadEnvironment().entrySet())
+			limitArguments.addAll(Arrays.asList("-e", variable.getKey() + "=" + variable.getValue()));
+
+		return limitArguments;
+	}
+
+	/**
+	 * Returns the environment variables, that limit the threads of the common
+	 * libraries to the processor threads.
+	 * <p>
+	 * If thread variables are enabled, the thread limits of the common
+	 * libraries, e.g. <i>OMP_THREAD_LIMIT</i> and
+	 * <i>TF_NUM_INTRAOP_THREADS</i>, are set to the processor threads, also for
+	 * the native engine.
+	 * 
+	 * @return The thread environment variables. Empty if the thread variables are
+	 *         disabled.
+	 * @since 1.8
+	 */
+	protected Map<String, String> getThreadEnvironment() {
+		Map<String, String> environment = new LinkedHashMap<>();
+
+		String isEnabled = getProcessorValue(ServiceProviderCollection.threadVariables);
+		if (isEnabled != null && Boolean.parseBoolean(isEnabled.trim())) {
+			final String threads = ""
+					+ Math.max(1, getProcessorIntegerValue(ServiceProviderCollection.processorThreads, 1));
+
+			for (String variable : threadVariables)
+				environment.put(variable, threads);
+		}
+
+		return environment;
+	}
+
+	/**
+	 * Returns true if the cores of the host are partitioned among the
+	 * concurrently running containers.
+	 * <p>
+	 * This is the case, if the docker cpuset cpus are <i>auto</i>. Every
+	 * container gets its own cores of the cores the process may run on, as many
+	 * as processor threads. Pooled containers are updated with the cpuset
+	 * before they are reused.
+	 * 
+	 * @return True if the cores are partitioned among the containers.
+	 * @since 1.8
+	 */
+	protected boolean isAutoCpuset() {
+		String cpuset = getProcessorValue(ServiceProviderCollection.dockerCpusetCpus);
+
+		return !isNativeEngine() && cpuset != null && "auto".equalsIgnoreCase(cpuset.trim());
+	}
+
+	/**
+	 * Allocates disjoint cores for the containers if the cores are partitioned
+	 * among the containers.
+	 * 
+	 * @param containers The number of containers.
+	 * @return The allocations of the containers, that have to be closed after the
+	 *         run. Empty if the cores are not partitioned.
+	 * @since 1.8
+	 */
+	private List<CoreAllocator.Allocation> allocateCores(int containers) {
+		List<CoreAllocator.Allocation> allocations = new ArrayList<>();
+
+		if (isAutoCpuset())
+			for (int i = 0; i < containers; i++)
+				allocations.add(CoreAllocator.getInstance()
+						.allocate(getProcessorIntegerValue(ServiceProviderCollection.processorThreads, 1)));
+
+		return allocations;
+	}
+
+	/**
+	 * Returns the cpuset of the container.
+	 * 
+	 * @param allocations The allocations of the containers.
+	 * @param index       The index of the container.
+	 * @return The cpuset of the container. Null if the cores are not partitioned.
+	 * @since 1.8
+	 */
+	private static String getCpuset(List<CoreAllocator.Allocation> allocations, int index) {
+		return index < allocations.size() ? allocations.get(index).getCpuset() : null;
+	}
+
+	/**
+	 * Returns the docker run arguments for the container of the processor run.
+	 * If minimal mounts are enabled, the mount folder is mounted as data folder
+	 * with the folders of the files on the input pages read-only and the output
+	 * folder. Otherwise, the processor workspace is mounted.
+	 * 
+	 * @param framework     The framework.
+	 * @param isResources   True if resources folder is required.
+	 * @param metsFileGroup The mets file group.
+	 * @return The docker run arguments for the container.
+	 * @throws IOException Throws if the mets file can not be read.
+	 * @since 1.8
+	 */
+	private List<String> getContainerArguments(Framework framework, boolean isResources,
+			MetsUtils.FrameworkFileGroup metsFileGroup) throws IOException {
+		final Path mountFolder = getMountFolder(framework, metsFileGroup);
+		if (mountFolder == null)
+			return getContainerArguments(framework, isResources);
+
+		final Path workspace = framework.getProcessorWorkspace();
+		final Path output = Paths.get(metsFileGroup.getOutput());
+
+		List<String> containerArguments = getContainerUserArguments(framework, isResources);
+		containerArguments.addAll(Arrays.asList("-v", mountFolder.toString() + ":/data", "-w", "/data"));
+		containerArguments.addAll(getContainerLimitArguments());
+
+		for (Path folder : getInputFolders(framework, metsFileGroup))
+			if (!folder.startsWith(output) && !output.startsWith(folder) && Files.exists(workspace.resolve(folder)))
+				containerArguments
+						.addAll(Arrays.asList("-v", workspace.resolve(folder).toString() + ":/data/" + folder + ":ro"));
+
+		if (getScratchOutput(framework, metsFileGroup) == null)
+			containerArguments
+					.addAll(Arrays.asList("-v", workspace.resolve(output).toString() + ":/data/" + output));
+
+		return containerArguments;
+	}
+
+	/**
+	 * Returns the folders of the files on the input pages relative to the
+	 * processor workspace, this means, the folders of the files of the input file
+	 * groups and of all files on the pages of the input file groups. Nested
+	 * folders are omitted as well as locations, that are not inside the processor
+	 * workspace or that can not be mounted.
+	 * 
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @return The folders of the files on the input pages.
+	 * @throws IOException Throws if the mets file can not be read.
+	 * @since 1.8
+	 */
+	private static List<Path> getInputFolders(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup)
+			throws IOException {
+		final MetsIndex index = MetsIndex.getInstance(framework.getMets());
+		final List<String> fileGroups = MetsPages.getFileGroups(metsFileGroup.getInput());
+
+		final Set<MetsIndex.File> files = new LinkedHashSet<>();
+		for (String fileGroup : fileGroups)
+			files.addAll(index.getFiles(fileGroup));
+		files.addAll(index.getPageFiles(index.getPageIdentifiers(fileGroups)));
+
+		final Set<Path> folders = new TreeSet<>();
+		for (MetsIndex.File file : files)
+			if (file.getLocation() != null && !file.getLocation().contains(":")
+					&& !file.getLocation().contains(",")) {
+				Path location = Paths.get(file.getLocation()).normalize();
+
+				if (!location.isAbsolute() && !location.toString().isEmpty() && !location.startsWith(".."))
+					folders.add(location.getParent() == null ? location : location.getParent());
+			}
+
+		List<Path> inputFolders = new ArrayList<>();
+		for (Path folder : folders) {
+			boolean isNested = false;
+			for (Path inputFolder : inputFolders)
+				if (folder.startsWith(inputFolder)) {
+					isNested = true;
+
+					break;
+				}
+
+			if (!isNested)
+				inputFolders.add(folder);
+		}
+
+		return inputFolders;
+	}
+
+	/**
+	 * Returns the docker run arguments for the user and resources of the
+	 * container.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The docker run arguments for the user and resources of the
+	 *         container.
+	 * @since 1.8
+	 */
+	private List<String> getContainerUserArguments(Framework framework, boolean isResources) {
+		// Get the effective system user/group id
+		String uid = configuration.getValue(ServiceProviderCollection.uid);
+		if (uid == null && framework.isUID())
+			uid = "" + framework.getUID();
+
+		if (uid != null) {
+			String gid = configuration.getValue(ServiceProviderCollection.gid);
+			if (gid == null && framework.isGID())
+				gid = "" + framework.getGID();
+
+			if (gid != null)
+				uid += ":" + gid;
+		}
+
+		// Build the container arguments
+		List<String> containerArguments = new ArrayList<>();
+
+		if (uid != null)
+			containerArguments.addAll(Arrays.asList("-u", uid));
+
+		if (isResources) {
+			Path optResources = getOptResources(framework);
+			Path dockerResources = getDockerResources();
+
+			if (Files.isDirectory(optResources))
+				containerArguments
+						.addAll(Arrays.asList("-v", optResources.toString() + ":" + dockerResources.toString()));
+		}
+
+		return containerArguments;
+	}
+
+	/**
+	 * Returns the ocr-d processor command, this means, the processor identifier
+	 * followed by its arguments.
+	 * 
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param options       The additional ocr-d processor options. Null if not
+	 *                      required.
+	 * @return The ocr-d processor command.
+	 * @throws JsonProcessingException Throws on processing (parsing, generating)
+	 *                                 JSON arguments that are not pure I/O
+	 *                                 problems.
+	 * @since 1.8
+	 */
+	protected List<String> getProcessorCommand(Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup,
+			List<String> options) throws JsonProcessingException {
+		List<String> command = new ArrayList<>(Arrays.asList(getProcessorIdentifier(), "-I",
+				metsFileGroup.getInput(), "-O", metsFileGroup.getOutput()));
+
+		if (options != null)
+			command.addAll(options);
+
+		if (arguments != null)
+			command.addAll(Arrays.asList("-p", objectMapper.writeValueAsString(arguments)));
+
+		return command;
+	}
+
+	/**
+	 * Returns the ocr-d arguments for the docker process.
+	 * 
+	 * @param framework     The framework.
+	 * @param isResources   True if resources folder is required.
+	 * @param dockerName    The docker name.
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @return The ocr-d arguments for the docker process.
+	 * @throws IOException Throws on processing (parsing, generating) JSON
+	 *                     arguments or if the mets file can not be read for
+	 *                     minimal mounts.
+	 * @since 1.8
+	 */
+	protected List<String> getProcessorArguments(Framework framework, boolean isResources, String dockerName,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup) throws IOException {
+		return getProcessorArguments(framework, isResources, dockerName, arguments, metsFileGroup, null);
+	}
+
+	/**
+	 * Returns the ocr-d arguments for the docker process.
+	 * 
+	 * @param framework     The framework.
+	 * @param isResources   True if resources folder is required.
+	 * @param dockerName    The docker name.
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param options       The additional ocr-d processor options. Null if not
+	 *                      required.
+	 * @return The ocr-d arguments for the docker process.
+	 * @throws IOException Throws on processing (parsing, generating) JSON
+	 *                     arguments or if the mets file can not be read for
+	 *                     minimal mounts.
+	 * @since 1.8
+	 */
+	protected List<String> getProcessorArguments(Framework framework, boolean isResources, String dockerName,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, List<String> options) throws IOException {
+		return getProcessorArguments(framework, isResources, dockerName, arguments, metsFileGroup, options, null);
+	}
+
+	/**
+	 * Returns the ocr-d arguments for the docker process, whose container is
+	 * restricted to the cpuset.
+	 * 
+	 * @param framework     The framework.
+	 * @param isResources   True if resources folder is required.
+	 * @param dockerName    The docker name.
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param options       The additional ocr-d processor options. Null if not
+	 *                      required.
+	 * @param cpuset        The cpuset of the container. Null if not restricted.
+	 * @return The ocr-d arguments for the docker process.
+	 * @throws IOException Throws on processing (parsing, generating) JSON
+	 *                     arguments or if the mets file can not be read for
+	 *                     minimal mounts.
+	 * @since 1.8
+	 */
+	protected List<String> getProcessorArguments(Framework framework, boolean isResources, String dockerName,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, List<String> options, String cpuset)
+			throws IOException {
+		List<String> processorArguments = new ArrayList<>(Arrays.asList("run", "--rm", "--name", dockerName));
+
+		processorArguments.addAll(getContainerArguments(framework, isResources, metsFileGroup));
+
+		if (cpuset != null)
+			processorArguments.addAll(Arrays.asList("--cpuset-cpus", cpuset));
+
+		Path scratchOutput = getScratchOutput(framework, metsFileGroup);
+		if (scratchOutput != null)
+			processorArguments.addAll(
+					Arrays.asList("-v", scratchOutput.toString() + ":/data/" + metsFileGroup.getOutput()));
+
+		processorArguments.addAll(Arrays.asList("--", getDockerImage()));
+		processorArguments.addAll(getProcessorCommand(arguments, metsFileGroup, options));
+
+		return processorArguments;
+	}
+
+	/**
+	 * Returns the ocr-d arguments for the docker process that executes the
+	 * processor in a running container of the docker container pool with the
+	 * working directory of the processor workspace.
+	 * 
+	 * @param framework     The framework.
+	 * @param container     The pooled container.
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param options       The additional ocr-d processor options. Null if not
+	 *                      required.
+	 * @return The ocr-d arguments for the docker process.
+	 * @throws JsonProcessingException Throws on processing (parsing, generating)
+	 *                                 JSON arguments that are not pure I/O
+	 *                                 problems.
+	 * @since 1.8
+	 */
+	protected List<String> getProcessorExecArguments(Framework framework, DockerContainerPool.Container container,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, List<String> options)
+			throws JsonProcessingException {
+		return container.getExecArguments(getDockerPoolWorkingDirectory(framework),
+				getProcessorCommand(arguments, metsFileGroup, options));
+	}
+
+	/**
+	 * Runs the ocr-d processor without resources folder.
+	 * 
+	 * @param framework            The framework.
+	 * @param arguments            The processor arguments.
+	 * @param unnecessaryArguments The unnecessary processor arguments. Null or
+	 *                             empty means that there are no unnecessary
+	 *                             processor arguments.
+	 * @param dockerProcess        The docker process.
+	 * @param runningState         The callback for processor running state.
+	 * @param execution            The callback for processor execution.
+	 * @param standardOutput       The callback for standard output.
+	 * @param standardError        The callback for standard error.
+	 * @param progress             The callback for progress.
+	 * @param baseProgress         The base progress.
+	 * @return The processor execution state.
+	 * @since 1.8
+	 */
+	protected ProcessServiceProvider.Processor.State run(Framework framework, Object arguments,
+			Set<String> unnecessaryArguments, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			ProcessorRunningState runningState, ProcessorExecution execution, Message standardOutput,
+			Message standardError, Progress progress, float baseProgress) {
+
+		return run(framework, false, arguments, unnecessaryArguments, dockerProcess, runningState, execution,
+				standardOutput, standardError, progress, baseProgress);
+	}
+
+	/**
+	 * Runs the ocr-d processor.
+	 * 
+	 * @param framework            The framework.
+	 * @param isResources          True if resources folder is required.
+	 * @param arguments            The processor arguments.
+	 * @param unnecessaryArguments The unnecessary processor arguments. Null or
+	 *                             empty means that there are no unnecessary
+	 *                             processor arguments.
+	 * @param dockerProcess        The docker process.
+	 * @param runningState         The callback for processor running state.
+	 * @param execution            The callback for processor execution.
+	 * @param standardOutput       The callback for standard output.
+	 * @param standardError        The callback for standard error.
+	 * @param progress             The callback for progress.
+	 * @param baseProgress         The base progress.
+	 * @return The processor execution state.
+	 * @since 1.8
+	 */
+	protected ProcessServiceProvider.Processor.State run(Framework framework, boolean isResources, Object arguments,
+			Set<String> unnecessaryArguments, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			ProcessorRunningState runningState, ProcessorExecution execution, Message standardOutput,
+			Message standardError, Progress progress, float baseProgress) {
+		try {
+			standardOutput.update("Using processor parameters " + objectMapper.writeValueAsString(arguments) + ".");
+		} catch (JsonProcessingException ex) {
+			standardError.update("Troubles creating JSON from parameters - " + ex.getMessage() + ".");
+		}
+
+		if (unnecessaryArguments != null && !unnecessaryArguments.isEmpty())
+			standardOutput.update("Ignored unnecessary parameters: " + unnecessaryArguments + ".");
+
+		if (runningState.isCanceled())
+			return ProcessServiceProvider.Processor.State.canceled;
+
+		progress.update(baseProgress);
+
+		// Processor workspace path
+		final Path processorWorkspaceRelativePath = framework.getOutputRelativeProcessorWorkspace();
+		if (processorWorkspaceRelativePath == null) {
+			standardError.update("Inconsistent processor workspace path.");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		final Path metsPath = framework.getMets();
+		if (metsPath == null) {
+			standardError.update("Missed required mets file path.");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		final MetsUtils.FrameworkFileGroup metsFileGroup = MetsUtils.getFileGroup(framework);
+		final String dockerName = "ocr4all-" + UUID.randomUUID().toString();
+
+		// The messages are updated concurrently by the threads streaming the output
+		final Object messageLock = new Object();
+		final Message processorOutput = content -> {
+			synchronized (messageLock) {
+				standardOutput.update(content);
+			}
+		};
+		final Message processorError = content -> {
+			synchronized (messageLock) {
+				standardError.update(content);
+			}
+		};
+
+		// The pages of the input file group
+		List<String> pages = null;
+		try {
+			pages = MetsPages.getPageIdentifiers(metsPath, MetsPages.getFileGroups(metsFileGroup.getInput()));
+		} catch (IOException e) {
+			standardOutput.update("Process the pages without page shards and page progress, since the mets file can "
+					+ "not be read - " + e.getMessage() + ".");
+		}
+
+		// The processor writes into the scratch folder or directly into the snapshot sandbox through a link
+		final Path outputFolder = Paths.get(framework.getProcessorWorkspace().toString(), metsFileGroup.getOutput());
+
+		// The complete pages of an interrupted run are not processed again
+		final PageCheckpoint checkpoint = getPageCheckpoint(framework, arguments, metsFileGroup, pages, outputFolder,
+				standardOutput);
+		final boolean isResumed = checkpoint != null && !checkpoint.getPages().isEmpty();
+		if (isResumed)
+			pages = pages.stream().filter(page -> !checkpoint.getPages().contains(page)).collect(Collectors.toList());
+
+		// The output may have been computed ahead by a fused predecessor step or cached for the same inputs
+		final OutputLookup lookup = lookupOutput(framework, isResources, arguments, metsFileGroup, pages, outputFolder,
+				processorWorkspaceRelativePath, isResumed, standardOutput);
+		final boolean isTakenOutput = lookup.isTaken();
+
+		// Only the changed pages are processed, the unchanged ones are carried forward after the run
+		final boolean isCarriedPages = !isTakenOutput && !lookup.cachedPageKeys.isEmpty();
+		if (isCarriedPages)
+			pages = getChangedPages(pages, lookup.cachedPageKeys, standardOutput);
+
+		// The completed pages are checkpointed after every batch
+		final List<List<String>> resumeBatches = isTakenOutput || checkpoint == null ? null
+				: getResumeBatches(pages, standardOutput);
+
+		// Split the pages into shards, the changed and checkpointed pages are always passed with the page
+		// identifier option
+		List<List<String>> shards = null;
+
+		final int pageParallelism = getPageParallelism();
+		if (!isTakenOutput && pages != null
+				&& (isCarriedPages || resumeBatches != null || pageParallelism > 1 && pages.size() > 1)) {
+			shards = MetsPages.split(pages, pageParallelism);
+
+			standardOutput.update("Process " + pages.size() + " pages in " + shards.size() + " page shards.");
+		}
+
+		final Path scratchOutput = isTakenOutput ? null : getScratchOutput(framework, metsFileGroup);
+		if (scratchOutput != null)
+			try {
+				prepareScratchOutput(scratchOutput);
+
+				standardOutput.update("Stage the processor output in the scratch folder " + scratchOutput + ".");
+			} catch (IOException e) {
+				standardError.update("troubles creating " + getProcessorDescription() + " scratch folder - "
+						+ e.getMessage() + ".");
+
+				return ProcessServiceProvider.Processor.State.interrupted;
+			}
+
+		// The containers only see the mets file, the folders of the input pages and the output folder
+		final Path mountFolder = isTakenOutput ? null : getMountFolder(framework, metsFileGroup);
+		if (mountFolder != null)
+			try {
+				prepareMountFolder(mountFolder, framework, metsFileGroup, scratchOutput == null ? outputFolder : null);
+
+				standardOutput.update("Mount only the mets file, the folders of the input pages and the output "
+						+ "folder into the containers.");
+			} catch (IOException e) {
+				standardError.update("troubles creating " + getProcessorDescription() + " mount folder - "
+						+ e.getMessage() + ".");
+
+				deleteMountFolder(mountFolder, framework, metsFileGroup);
+
+				return ProcessServiceProvider.Processor.State.interrupted;
+			}
+
+		final boolean isOutputLink = !isTakenOutput && scratchOutput == null && mountFolder == null
+				&& checkpoint == null && isDirectOutput()
+				&& linkOutput(outputFolder, framework.getOutput(), processorWorkspaceRelativePath, standardOutput);
+
+		// The processor folder of the output
+		final Path processorOutputFolder = scratchOutput != null ? scratchOutput
+				: (isOutputLink ? framework.getOutput() : outputFolder);
+
+		final Message pageProgress = getPageProgress(pages, shards == null ? 1 : shards.size(), processorOutput,
+				progress, baseProgress);
+
+		// The fused successor steps are executed together with the processor
+		final List<StepFusion.Step> fusedSteps = isTakenOutput || shards != null || scratchOutput != null
+				|| mountFolder != null ? Collections.emptyList()
+						: getFusedSteps(framework, metsFileGroup, standardOutput);
+
+		// The processor is not executed, if its output was taken
+		ProcessServiceProvider.Processor.State state = isTakenOutput ? null
+				: executeProcessor(framework, isResources, arguments, metsFileGroup, dockerName, pages, shards,
+						resumeBatches, checkpoint, dockerProcess, runningState, processorOutput, processorError,
+						pageProgress, progress, baseProgress, fusedSteps);
+
+		// Keep the outputs of the fused successor steps for them
+		if (!fusedSteps.isEmpty())
+			keepFusedOutputs(state == null, framework, metsFileGroup, processorWorkspaceRelativePath, fusedSteps,
+					standardOutput);
+
+		// Copy back the mets file of the containers
+		if (mountFolder != null)
+			state = copyBackMets(state, mountFolder, framework, metsFileGroup, standardError);
+
+		// The references in the xml files of the taken and carried outputs to their former locations
+		final Map<String, String> references = new LinkedHashMap<>();
+		if (isTakenOutput)
+			references.putAll(lookup.takenReferences);
+
+		// Carry the outputs of the unchanged pages forward
+		if (state == null && isCarriedPages)
+			state = carryUnchangedPages(lookup, references, framework, metsFileGroup, processorOutputFolder,
+					standardOutput, standardError);
+
+		if (state == null)
+			progress.update(0.097F);
+
+		state = updateXmlFiles(state, references, metsFileGroup, processorWorkspaceRelativePath,
+				processorOutputFolder, standardOutput, standardError);
+
+		if (state == null)
+			progress.update(0.098F);
+
+		state = moveOutput(state, framework, outputFolder, scratchOutput, isOutputLink, standardOutput,
+				standardError);
 
 		if (state == null)
-			progress.update(0.097F);
+			progress.update(0.099F);
+
+		state = updateMetsFile(state, metsPath, metsFileGroup, processorWorkspaceRelativePath, standardOutput,
+				standardError);
+
+		// The output was moved, hence the run can not be resumed anymore
+		if (state == null && checkpoint != null)
+			try {
+				checkpoint.delete();
+			} catch (IOException e) {
+				standardOutput.update("Troubles deleting the checkpoint of the completed pages - " + e.getMessage()
+						+ ".");
+			}
+
+		// Cache the output and the outputs of the processed pages for the steps with the same inputs
+		if (state == null && !isTakenOutput)
+			cacheOutput(lookup, pages, framework, metsFileGroup, processorWorkspaceRelativePath, standardOutput);
+
+		return state == null ? execution.complete() : state;
+	}
+
+	/**
+	 * Looks up the output, that was computed ahead by a fused predecessor step or
+	 * that is cached in the result cache for the same inputs. If the whole output
+	 * is not available, the unchanged pages are looked up in the result cache. If
+	 * all pages are unchanged, their outputs are carried forward to the output
+	 * folder. If an interrupted run is resumed, only the remaining pages are
+	 * looked up, since the output folder contains the complete pages.
+	 * 
+	 * @param framework                      The framework.
+	 * @param isResources                    True if resources folder is
+	 *                                       required.
+	 * @param arguments                      The processor arguments.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param pages                          The pages of the input file group.
+	 *                                       Null if unknown.
+	 * @param outputFolder                   The output folder in the processor
+	 *                                       workspace.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param isResumed                      True if an interrupted run is
+	 *                                       resumed.
+	 * @param standardOutput                 The callback for standard output.
+	 * @return The output lookup.
+	 * @since 1.8
+	 */
+	private OutputLookup lookupOutput(Framework framework, boolean isResources, Object arguments,
+			MetsUtils.FrameworkFileGroup metsFileGroup, List<String> pages, Path outputFolder,
+			Path processorWorkspaceRelativePath, boolean isResumed, Message standardOutput) {
+		// All pages of the interrupted run are complete
+		if (isResumed && pages.isEmpty())
+			return new OutputLookup(new LinkedHashMap<>(), null, null, null, new LinkedHashMap<>());
+
+		Map<String, String> takenReferences = isResumed ? null
+				: takeFusedOutput(framework, arguments, metsFileGroup, processorWorkspaceRelativePath,
+						standardOutput);
+
+		final ResultCache resultCache = takenReferences == null ? getResultCache() : null;
+		String resultCacheKey = null;
+		Map<String, String> pageKeys = null;
+		final Map<String, String> cachedPageKeys = new LinkedHashMap<>();
+		if (resultCache != null)
+			try {
+				final String resultCacheBase = getResultCacheBase(framework, isResources, arguments, metsFileGroup);
+
+				resultCacheKey = getResultCacheKey(framework, resultCacheBase, metsFileGroup, null);
+				if (!isResumed)
+					takenReferences = takeCachedOutput(resultCache, resultCacheKey, framework, metsFileGroup,
+							standardOutput);
+
+				// The pages with the same inputs need not be processed again
+				if (takenReferences == null && pages != null && isResultCachePages()) {
+					pageKeys = new LinkedHashMap<>();
+					for (String page : pages) {
+						final String key = getResultCacheKey(framework, resultCacheBase, metsFileGroup, page);
+
+						pageKeys.put(page, key);
+						if (resultCache.isCached(key))
+							cachedPageKeys.put(page, key);
+					}
+				}
+			} catch (IOException e) {
+				standardOutput.update("Ignored the result cache, since the inputs can not be hashed - "
+						+ e.getMessage() + ".");
+
+				pageKeys = null;
+				cachedPageKeys.clear();
+			}
+
+		// All pages are unchanged, the complete pages of a resumed run are kept in the output folder
+		if (!isResumed && !cachedPageKeys.isEmpty() && cachedPageKeys.size() == pages.size())
+			try {
+				takenReferences = carryCachedPages(resultCache, cachedPageKeys, framework, metsFileGroup,
+						outputFolder, standardOutput);
+			} catch (IOException e) {
+				standardOutput.update("Execute the processor for all pages, since the cached pages can not be carried "
+						+ "forward - " + e.getMessage() + ".");
+
+				deleteQuietly(outputFolder);
+				cachedPageKeys.clear();
+			}
+
+		return new OutputLookup(takenReferences, resultCache, resultCacheKey, pageKeys, cachedPageKeys);
+	}
+
+	/**
+	 * Returns the changed pages, this means, the pages whose outputs are not
+	 * cached. It is only called with a result cache, whose page outputs are
+	 * enabled.
+	 * 
+	 * @param pages          The pages of the input file group.
+	 * @param cachedPageKeys The result cache keys of the unchanged pages.
+	 * @param standardOutput The callback for standard output.
+	 * @return The changed pages.
+	 * @since 1.8
+	 */
+	private static List<String> getChangedPages(List<String> pages, Map<String, String> cachedPageKeys,
+			Message standardOutput) {
+		final List<String> changedPages = new ArrayList<>();
+		for (String page : pages)
+			if (!cachedPageKeys.containsKey(page))
+				changedPages.add(page);
+
+		standardOutput.update("Process " + changedPages.size() + " changed pages, the outputs of "
+				+ cachedPageKeys.size() + " unchanged pages are carried forward from the result cache.");
+
+		return changedPages;
+	}
+
+	/**
+	 * Returns the checkpoint of the completed pages, if the run processes the
+	 * pages in checkpointed batches. If a former run of the step was interrupted,
+	 * its output is reconciled with the checkpoint, so that only the remaining
+	 * pages are processed. If the run is not checkpointed, the output of the
+	 * interrupted run is discarded. A warning is reported, if the resume pages
+	 * are ignored.
+	 * 
+	 * @param framework      The framework.
+	 * @param arguments      The processor arguments.
+	 * @param metsFileGroup  The mets file group.
+	 * @param pages          The pages of the input file group. Null if unknown.
+	 * @param outputFolder   The output folder in the processor workspace.
+	 * @param standardOutput The callback for standard output.
+	 * @return The checkpoint with the complete pages of the interrupted run. Null
+	 *         if the run is not checkpointed.
+	 * @since 1.8
+	 */
+	private PageCheckpoint getPageCheckpoint(Framework framework, Object arguments,
+			MetsUtils.FrameworkFileGroup metsFileGroup, List<String> pages, Path outputFolder,
+			Message standardOutput) {
+		final Path workspace = framework.getProcessorWorkspace();
+
+		String ignored = null;
+		if (getResumePages() <= 0)
+			ignored = "";
+		else if (isProcessorServer())
+			ignored = "the processor server is enabled";
+		else if (pages == null)
+			ignored = "the pages are unknown";
+		else if (getScratchOutput(framework, metsFileGroup) != null)
+			ignored = "the scratch folder is set";
+		else if (getMountFolder(framework, metsFileGroup) != null)
+			ignored = "the minimal mounts are enabled";
+
+		if (ignored != null && !ignored.isEmpty())
+			standardOutput.update("Ignored the resume pages, since " + ignored + ".");
+
+		try {
+			if (ignored != null) {
+				if (PageCheckpoint.exists(workspace, metsFileGroup.getOutput())) {
+					PageCheckpoint.discard(workspace, framework.getMets(), metsFileGroup.getOutput(), outputFolder);
+					deleteQuietly(outputFolder);
+
+					standardOutput.update("Discarded the output of the interrupted run.");
+				}
+
+				return null;
+			}
+
+			final PageCheckpoint checkpoint = new PageCheckpoint(workspace, metsFileGroup.getOutput(),
+					getResumeKey(arguments, metsFileGroup));
+
+			if (PageCheckpoint.exists(workspace, metsFileGroup.getOutput())) {
+				checkpoint.reconcile(framework.getMets(), metsFileGroup.getOutput(), outputFolder);
+
+				if (checkpoint.getPages().isEmpty()) {
+					deleteQuietly(outputFolder);
+
+					standardOutput.update("Discarded the output of the interrupted run, since no page is complete.");
+				} else
+					standardOutput.update("Resume the interrupted run, the outputs of " + checkpoint.getPages().size()
+							+ " pages are complete.");
+			}
+
+			return checkpoint;
+		} catch (IOException e) {
+			standardOutput.update("Process all pages, since the output of the interrupted run can not be reconciled - "
+					+ e.getMessage() + ".");
+
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the key of the checkpointed runs of the step, this means, the
+	 * processor, the docker image, the parameters and the input file group.
+	 * 
+	 * @param arguments     The processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @return The key.
+	 * @throws IOException Throws if the parameters can not be serialized.
+	 * @since 1.8
+	 */
+	private String getResumeKey(Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup) throws IOException {
+		return String.join("\n", getProcessorIdentifier(), isNativeEngine() ? "native" : getDockerImage(),
+				objectMapper.writeValueAsString(arguments), metsFileGroup.getInput());
+	}
+
+	/**
+	 * Returns the batches of at most the resume pages, that are checkpointed.
+	 * 
+	 * @param pages          The pages to process.
+	 * @param standardOutput The callback for standard output.
+	 * @return The batches.
+	 * @since 1.8
+	 */
+	private List<List<String>> getResumeBatches(List<String> pages, Message standardOutput) {
+		final int resumePages = getResumePages();
+
+		final List<List<String>> batches = new ArrayList<>();
+		for (int i = 0; i < pages.size(); i += resumePages)
+			batches.add(pages.subList(i, Math.min(pages.size(), i + resumePages)));
+
+		standardOutput.update("Process the pages in " + batches.size() + " batches of at most " + resumePages
+				+ " pages, that are checkpointed.");
+
+		return batches;
+	}
+
+	/**
+	 * Creates the scratch folder of the output, that has to be empty.
+	 * 
+	 * @param scratchOutput The scratch folder of the output.
+	 * @throws IOException Throws if the scratch folder can not be created or it
+	 *                     is not empty.
+	 * @since 1.8
+	 */
+	private static void prepareScratchOutput(Path scratchOutput) throws IOException {
+		Files.createDirectories(scratchOutput);
+		try (Stream<Path> files = Files.list(scratchOutput)) {
+			if (files.findAny().isPresent())
+				throw new IOException("the folder " + scratchOutput + " is not empty");
+		}
+	}
+
+	/**
+	 * Prepares the mount folder, this means, copies the mets file and creates the
+	 * mount points of the output folder and the folders of the input pages in
+	 * advance, so that they are not owned by docker.
+	 * 
+	 * @param mountFolder   The mount folder.
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @param outputFolder  The output folder in the processor workspace. Null if
+	 *                      the output is staged in the scratch folder.
+	 * @throws IOException Throws if the mount folder can not be prepared.
+	 * @since 1.8
+	 */
+	private void prepareMountFolder(Path mountFolder, Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Path outputFolder) throws IOException {
+		final Path processorMets = getProcessorMets(framework, metsFileGroup);
+
+		Files.createDirectories(processorMets.getParent());
+		Files.copy(framework.getMets(), processorMets, StandardCopyOption.REPLACE_EXISTING);
+
+		if (outputFolder != null)
+			Files.createDirectories(outputFolder);
+
+		Files.createDirectories(mountFolder.resolve(metsFileGroup.getOutput()));
+		for (Path folder : getInputFolders(framework, metsFileGroup)) {
+			Path mountPoint = mountFolder.resolve(folder.toString());
+
+			if (Files.isDirectory(framework.getProcessorWorkspace().resolve(folder.toString())))
+				Files.createDirectories(mountPoint);
+			else if (Files.exists(framework.getProcessorWorkspace().resolve(folder.toString()))
+					&& !Files.exists(mountPoint)) {
+				Files.createDirectories(mountPoint.getParent());
+				Files.createFile(mountPoint);
+			}
+		}
+	}
+
+	/**
+	 * Executes the ocr-d processor after the containers are admitted, with the
+	 * processor server, in checkpointed batches, in page shards or in a single
+	 * container.
+	 * 
+	 * @param framework             The framework.
+	 * @param isResources           True if resources folder is required.
+	 * @param arguments             The processor arguments.
+	 * @param metsFileGroup         The mets file group.
+	 * @param dockerName            The docker name.
+	 * @param pages                 The pages to process. Null if unknown.
+	 * @param shards                The page shards. Null if the pages are not
+	 *                              sharded.
+	 * @param resumeBatches         The checkpointed batches. Null if the pages
+	 *                              are not checkpointed.
+	 * @param checkpoint            The checkpoint of the completed pages. Null
+	 *                              if the pages are not checkpointed.
+	 * @param dockerProcess         The docker process.
+	 * @param runningState          The callback for processor running state.
+	 * @param standardOutput        The callback for standard output.
+	 * @param standardError         The callback for standard error.
+	 * @param pageProgress          The callback for the page progress.
+	 * @param progress              The callback for progress.
+	 * @param baseProgress          The base progress.
+	 * @param fusedSteps            The fused successor steps.
+	 * @return Null if the processor was executed successfully. Otherwise, the
+	 *         processor execution state.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State executeProcessor(Framework framework, boolean isResources,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, String dockerName, List<String> pages,
+			List<List<String>> shards, List<List<String>> resumeBatches, PageCheckpoint checkpoint,
+			OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			ProcessorRunningState runningState, Message standardOutput, Message standardError, Message pageProgress,
+			Progress progress, float baseProgress, List<StepFusion.Step> fusedSteps) {
+		// Wait until the containers are admitted
+		final AdmissionScheduler.Admission admission;
+		try {
+			admission = admit(framework, shards == null ? 1 : shards.size(), runningState, standardOutput);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			standardError.update("troubles waiting for admission of " + getProcessorDescription() + ".");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		// The containers get disjoint cores if the cores are partitioned
+		List<CoreAllocator.Allocation> allocations = Collections.emptyList();
+		try {
+			if (runningState.isCanceled())
+				return ProcessServiceProvider.Processor.State.canceled;
+
+			if (getProcessorEngine().isProcessorServer())
+				return executeServer(framework, isResources, arguments, metsFileGroup, pages, dockerProcess,
+						runningState, standardOutput, standardError, progress, baseProgress);
+
+			allocations = allocateCores(shards == null ? 1 : shards.size());
+
+			if (resumeBatches == null)
+				return shards == null
+						? execute(framework, isResources, arguments, metsFileGroup, dockerName, allocations,
+								dockerProcess, runningState, standardOutput, standardError, pageProgress, fusedSteps)
+						: execute(framework, isResources, arguments, metsFileGroup, dockerName, shards, allocations,
+								dockerProcess, runningState, standardOutput, standardError, pageProgress);
+
+			if (!saveCheckpoint(checkpoint, Collections.emptyList(), standardError))
+				return ProcessServiceProvider.Processor.State.interrupted;
+
+			ProcessServiceProvider.Processor.State state = null;
+			for (int i = 0; i < resumeBatches.size() && state == null; i++) {
+				final List<String> batch = resumeBatches.get(i);
+
+				state = execute(framework, isResources, arguments, metsFileGroup, dockerName + "-b" + (i + 1),
+						MetsPages.split(batch, getPageParallelism()), allocations, dockerProcess, runningState,
+						standardOutput, standardError, pageProgress);
+
+				if (state == null && !saveCheckpoint(checkpoint, batch, standardError))
+					state = ProcessServiceProvider.Processor.State.interrupted;
+			}
+
+			return state;
+		} finally {
+			for (CoreAllocator.Allocation allocation : allocations)
+				allocation.close();
+
+			if (admission != null)
+				admission.close();
+		}
+	}
+
+	/**
+	 * Keeps the outputs of the fused successor steps for them, if the processor
+	 * was executed successfully. Otherwise, they are discarded.
+	 * 
+	 * @param isExecuted                     True if the processor was executed
+	 *                                       successfully.
+	 * @param framework                      The framework.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param fusedSteps                     The fused successor steps.
+	 * @param standardOutput                 The callback for standard output.
+	 * @since 1.8
+	 */
+	private void keepFusedOutputs(boolean isExecuted, Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Path processorWorkspaceRelativePath, List<StepFusion.Step> fusedSteps, Message standardOutput) {
+		if (!isExecuted) {
+			StepFusion.discard(framework.getProcessorWorkspace(), framework.getMets(), fusedSteps);
+
+			return;
+		}
+
+		try {
+			StepFusion.keep(framework.getProcessorWorkspace(), framework.getMets(), getDockerImage(),
+					metsFileGroup.getOutput(), processorWorkspaceRelativePath.toString(), fusedSteps);
+
+			standardOutput.update("Kept the outputs of " + fusedSteps.size() + " fused successor steps.");
+		} catch (IOException e) {
+			standardOutput.update("Discarded the outputs of the fused successor steps, since they can not be kept - "
+					+ e.getMessage() + ".");
+		}
+	}
+
+	/**
+	 * Copies back the mets file of the containers, if the processor was executed
+	 * successfully, and deletes the mount folder.
+	 * 
+	 * @param state         The processor execution state. Null if the processor
+	 *                      was executed successfully.
+	 * @param mountFolder   The mount folder.
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @param standardError The callback for standard error.
+	 * @return The processor execution state. Null if successful.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State copyBackMets(ProcessServiceProvider.Processor.State state,
+			Path mountFolder, Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Message standardError) {
+		if (state == null)
+			try {
+				final Path temporary = FileUtils.createSibling(framework.getMets());
+				try {
+					Files.copy(getProcessorMets(framework, metsFileGroup), temporary,
+							StandardCopyOption.REPLACE_EXISTING);
+
+					FileUtils.replace(temporary, framework.getMets());
+				} finally {
+					Files.deleteIfExists(temporary);
+				}
+			} catch (IOException e) {
+				standardError.update("troubles copying " + getProcessorDescription()
+						+ " mets file from mount folder - " + e.getMessage() + ".");
+
+				state = ProcessServiceProvider.Processor.State.interrupted;
+			}
+
+		deleteMountFolder(mountFolder, framework, metsFileGroup);
+
+		return state;
+	}
+
+	/**
+	 * Carries the outputs of the unchanged pages forward from the result cache.
+	 * 
+	 * @param lookup                The output lookup.
+	 * @param references            The references in the xml files of the
+	 *                              carried outputs to their former locations,
+	 *                              that are updated.
+	 * @param framework             The framework.
+	 * @param metsFileGroup         The mets file group.
+	 * @param processorOutputFolder The processor folder of the output.
+	 * @param standardOutput        The callback for standard output.
+	 * @param standardError         The callback for standard error.
+	 * @return Null if the outputs were carried forward. Otherwise, the processor
+	 *         execution state.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State carryUnchangedPages(OutputLookup lookup,
+			Map<String, String> references, Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Path processorOutputFolder, Message standardOutput, Message standardError) {
+		try {
+			references.putAll(carryCachedPages(lookup.resultCache, lookup.cachedPageKeys, framework, metsFileGroup,
+					processorOutputFolder, standardOutput));
+
+			return null;
+		} catch (IOException e) {
+			standardError.update("troubles carrying " + getProcessorDescription()
+					+ " outputs of the unchanged pages forward - " + e.getMessage() + ".");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+	}
+
+	/**
+	 * Updates the paths in the xml files of the output, this means, the
+	 * references to the taken and carried outputs and the output file group.
+	 * 
+	 * @param state                          The processor execution state. Null
+	 *                                       if successful so far.
+	 * @param references                     The references in the xml files of
+	 *                                       the taken and carried outputs to
+	 *                                       their former locations.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param processorOutputFolder          The processor folder of the output.
+	 * @param standardOutput                 The callback for standard output.
+	 * @param standardError                  The callback for standard error.
+	 * @return The processor execution state. Null if successful.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State updateXmlFiles(ProcessServiceProvider.Processor.State state,
+			Map<String, String> references, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Path processorWorkspaceRelativePath, Path processorOutputFolder, Message standardOutput,
+			Message standardError) {
+		standardOutput.update("Update paths in xml files.");
+		try {
+			final FileRewriter rewriter = new FileRewriter("=\"" + metsFileGroup.getOutput() + "/",
+					"=\"" + processorWorkspaceRelativePath.toString() + "/");
+
+			final List<Path> files = getFiles(processorOutputFolder, "xml");
+
+			// The references of the taken and carried outputs to their former locations
+			for (Map.Entry<String, String> reference : references.entrySet())
+				rewrite(files, new FileRewriter(reference.getKey(), reference.getValue()));
+
+			rewrite(files, rewriter);
+		} catch (IOException e) {
+			standardError
+					.update("troubles updating " + getProcessorDescription() + " xml files - " + e.getMessage() + ".");
+
+			if (state == null)
+				state = ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Moves the processor output directory to the snapshot sandbox or removes its
+	 * link to the snapshot sandbox.
+	 * 
+	 * @param state          The processor execution state. Null if successful so
+	 *                       far.
+	 * @param framework      The framework.
+	 * @param outputFolder   The output folder in the processor workspace.
+	 * @param scratchOutput  The scratch folder of the output. Null if not staged.
+	 * @param isOutputLink   True if the output folder is linked to the snapshot
+	 *                       sandbox.
+	 * @param standardOutput The callback for standard output.
+	 * @param standardError  The callback for standard error.
+	 * @return The processor execution state. Null if successful.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State moveOutput(ProcessServiceProvider.Processor.State state,
+			Framework framework, Path outputFolder, Path scratchOutput, boolean isOutputLink, Message standardOutput,
+			Message standardError) {
+		try {
+			if (isOutputLink) {
+				standardOutput.update("Remove link of processor output directory to snapshot sandbox.");
+
+				Files.delete(outputFolder);
+			} else {
+				standardOutput.update("Move processor output directory to snapshot sandbox.");
+
+				FolderMover.Result result = new FolderMover(getMoveParallelism())
+						.move(scratchOutput == null ? outputFolder : scratchOutput, framework.getOutput());
+
+				standardOutput.update("Moved " + result + ".");
+
+				// The empty mount point of the scratch folder
+				if (scratchOutput != null) {
+					Files.deleteIfExists(outputFolder);
+					deleteQuietly(scratchOutput.getParent());
+				}
+			}
+		} catch (IOException e) {
+			standardError.update("troubles moving " + getProcessorDescription()
+					+ " output directory to snapshot sandbox - " + e.getMessage() + ".");
+
+			if (state == null)
+				state = ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Updates the paths in the mets file and reports the files, that the
+	 * processor added to the output file group.
+	 * 
+	 * @param state                          The processor execution state. Null
+	 *                                       if successful so far.
+	 * @param metsPath                       The mets file.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param standardOutput                 The callback for standard output.
+	 * @param standardError                  The callback for standard error.
+	 * @return The processor execution state. Null if successful.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State updateMetsFile(ProcessServiceProvider.Processor.State state,
+			Path metsPath, MetsUtils.FrameworkFileGroup metsFileGroup, Path processorWorkspaceRelativePath,
+			Message standardOutput, Message standardError) {
+		standardOutput.update("Update paths in mets file.");
+		try {
+			final String prefix = metsFileGroup.getOutput() + "/";
+			final String replacement = processorWorkspaceRelativePath.toString() + "/";
+
+			final MetsIndex index = MetsIndex.getInstance(metsPath);
+
+			if (state == null) {
+				final List<MetsIndex.File> files = index.getFiles(metsFileGroup.getOutput());
+				final long filePages = files.stream().map(file -> file.getPage()).filter(page -> page != null)
+						.distinct().count();
+
+				standardOutput.update(files.isEmpty() ? "The processor did not add files to the output file group."
+						: "The processor added " + files.size() + " files on " + filePages
+								+ " pages to the output file group.");
+			}
+
+			// The mets file is only rewritten if it contains locations to update
+			if (index.isLocationPrefix(metsFileGroup.getOutput(), prefix) && MetsFileLocations
+					.replacePrefix(metsPath, metsFileGroup.getOutput(), prefix, replacement) > 0)
+				index.replaceLocationPrefix(metsPath, metsFileGroup.getOutput(), prefix, replacement);
+		} catch (IOException e) {
+			standardError
+					.update("troubles updating " + getProcessorDescription() + " mets file - " + e.getMessage() + ".");
+
+			if (state == null)
+				state = ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Caches the output for the steps with the same inputs and the outputs of the
+	 * processed pages for the steps, that only change other pages. The outputs of
+	 * the pages are only cached, if all files of the output file group are
+	 * assigned to pages. Troubles are reported and ignored, since they only
+	 * affect later runs.
+	 * 
+	 * @param lookup                         The output lookup.
+	 * @param pages                          The processed pages.
+	 * @param framework                      The framework.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param standardOutput                 The callback for standard output.
+	 * @since 1.8
+	 */
+	private void cacheOutput(OutputLookup lookup, List<String> pages, Framework framework,
+			MetsUtils.FrameworkFileGroup metsFileGroup, Path processorWorkspaceRelativePath, Message standardOutput) {
+		final ResultCache resultCache = lookup.resultCache;
+
+		if (lookup.resultCacheKey != null)
+			try {
+				resultCache.put(lookup.resultCacheKey, framework.getMets(), metsFileGroup.getOutput(),
+						framework.getOutput(), processorWorkspaceRelativePath.toString());
+
+				standardOutput.update("Cached the output in the result cache " + resultCache.getFolder() + ".");
+			} catch (IOException e) {
+				standardOutput.update("Troubles caching the output in the result cache - " + e.getMessage() + ".");
+			}
+
+		if (lookup.pageKeys != null)
+			try {
+				final List<MetsIndex.File> files = MetsIndex.getInstance(framework.getMets())
+						.getFiles(metsFileGroup.getOutput());
+
+				if (files.stream().allMatch(file -> file.getPage() != null)) {
+					final Map<String, String> keys = new LinkedHashMap<>();
+					for (String page : pages)
+						keys.put(page, lookup.pageKeys.get(page));
+
+					resultCache.putPages(keys, metsFileGroup.getOutput(), framework.getOutput(),
+							processorWorkspaceRelativePath.toString(), files);
+
+					standardOutput.update("Cached the outputs of " + keys.size() + " pages in the result cache "
+							+ resultCache.getFolder() + ".");
+				}
+			} catch (IOException e) {
+				standardOutput.update(
+						"Troubles caching the outputs of the pages in the result cache - " + e.getMessage() + ".");
+			}
+	}
+
+	/**
+	 * Deletes the mount folder, this means, the copy of the mets file and the
+	 * empty mount points. Files, that were written by the processor outside of
+	 * the mounts, are retained. Troubles are ignored.
+	 * 
+	 * @param mountFolder   The mount folder.
+	 * @param framework     The framework.
+	 * @param metsFileGroup The mets file group.
+	 * @since 1.8
+	 */
+	private void deleteMountFolder(Path mountFolder, Framework framework,
+			MetsUtils.FrameworkFileGroup metsFileGroup) {
+		try {
+			Files.deleteIfExists(getProcessorMets(framework, metsFileGroup));
+		} catch (IOException e) {
+			// Nothing to do, the mount folder is retained
+		}
+
+		if (!Files.isDirectory(mountFolder, LinkOption.NOFOLLOW_LINKS))
+			return;
+
+		// Mount points of files are empty files
+		try (Stream<Path> walk = Files.walk(mountFolder)) {
+			walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+							|| (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && Files.size(path) == 0))
+						Files.deleteIfExists(path);
+				} catch (IOException e) {
+					// Nothing to do, the path is not empty
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			// Nothing to do, the mount folder is retained
+		}
+	}
+
+	/**
+	 * Deletes the folder if it is empty. Troubles are ignored.
+	 * 
+	 * @param folder The folder.
+	 * @since 1.8
+	 */
+	private static void deleteQuietly(Path folder) {
+		try {
+			Files.deleteIfExists(folder);
+		} catch (IOException e) {
+			// Nothing to do, the folder is not empty
+		}
+	}
+
+	/**
+	 * Links the output folder in the processor workspace to the snapshot sandbox
+	 * with a relative symbolic link, so that the link can also be resolved in the
+	 * containers.
+	 * 
+	 * @param outputFolder                   The output folder in the processor
+	 *                                       workspace.
+	 * @param sandbox                        The snapshot sandbox.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param standardOutput                 The callback for standard output.
+	 * @return True if the output folder is linked to the snapshot sandbox.
+	 * @since 1.8
+	 */
+	private boolean linkOutput(Path outputFolder, Path sandbox, Path processorWorkspaceRelativePath,
+			Message standardOutput) {
+		final Path target = processorWorkspaceRelativePath.normalize();
+		if (target.isAbsolute() || target.toString().isEmpty() || target.startsWith("..")) {
+			standardOutput.update("Move the processor output directory, since the snapshot sandbox is not inside "
+					+ "the processor workspace.");
+
+			return false;
+		}
+
+		try {
+			if (Files.exists(outputFolder, LinkOption.NOFOLLOW_LINKS))
+				throw new IOException("the output directory " + outputFolder.getFileName() + " already exists");
+
+			Files.createDirectories(sandbox);
+			try (Stream<Path> files = Files.list(sandbox)) {
+				if (files.findAny().isPresent())
+					throw new IOException("the snapshot sandbox is not empty");
+			}
+
+			Files.createSymbolicLink(outputFolder, target);
+
+			standardOutput.update("Write the processor output directly into the snapshot sandbox.");
+
+			return true;
+		} catch (IOException | UnsupportedOperationException e) {
+			standardOutput.update("Move the processor output directory, since it can not be linked to the snapshot "
+					+ "sandbox - " + e.getMessage() + ".");
+
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the fused successor steps of the processor. They are not executed
+	 * by the native engine and the processor server.
+	 * <p>
+	 * The fused steps are configured per processor, e.g.
+	 * <i>ocrd-tesserocr-binarize-fused-steps:
+	 * [{"processor":"ocrd-tesserocr-deskew","parameters":{}}]</i>. They are the
+	 * successor steps in the same docker image, that are executed together with
+	 * the processor in a single <i>ocrd process</i> invocation, so that the
+	 * container is started and the mets file is parsed only once. They are only
+	 * executed by docker containers without page shards, scratch folder and
+	 * minimal mounts.
+	 * <p>
+	 * A successor step is only executed, if it matches the step of its
+	 * processor, that was recorded in the processor workspace when it found the
+	 * outputs computed ahead the last time. The successor steps from the first
+	 * mismatching one are not executed, since their outputs would be discarded.
+	 * 
+	 * @param framework      The framework.
+	 * @param metsFileGroup  The mets file group.
+	 * @param standardOutput The callback for standard output.
+	 * @return The fused successor steps. Empty if not configured or invalid.
+	 * @since 1.8
+	 */
+	private List<StepFusion.Step> getFusedSteps(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			Message standardOutput) {
+		final String fusedSteps = getProcessorValue(ServiceProviderCollection.fusedSteps);
+		if (fusedSteps == null || fusedSteps.isBlank() || isNativeEngine() || isProcessorServer())
+			return Collections.emptyList();
+
+		try {
+			List<StepFusion.Step> steps = StepFusion.getSteps(fusedSteps, metsFileGroup.getOutput());
+
+			for (int i = 0; i < steps.size(); i++) {
+				final List<String> mismatches = StepFusion.getRecordedMismatches(framework.getProcessorWorkspace(),
+						steps.get(i));
+
+				if (!mismatches.isEmpty()) {
+					standardOutput.update("Do not execute the fused successor steps from "
+							+ steps.get(i).getProcessor() + ", since the step of the processor does not match - "
+							+ String.join(", ", mismatches) + ".");
+
+					steps = steps.subList(0, i);
+					break;
+				}
+			}
+
+			if (!steps.isEmpty())
+				standardOutput.update("Execute the fused successor steps "
+						+ steps.stream().map(step -> step.getProcessor()).collect(Collectors.toList())
+						+ " together with the processor.");
+
+			return steps;
+		} catch (IOException e) {
+			standardOutput.update("Ignored the fused steps, since they are not valid - " + e.getMessage() + ".");
+
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Returns the <i>ocrd process</i> command, that executes the processor and
+	 * the fused successor steps.
+	 * 
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @param fusedSteps    The fused successor steps.
+	 * @return The <i>ocrd process</i> command.
+	 * @throws JsonProcessingException Throws on processing (parsing, generating)
+	 *                                 JSON arguments that are not pure I/O
+	 *                                 problems.
+	 * @since 1.8
+	 */
+	private List<String> getFusedCommand(Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup,
+			List<StepFusion.Step> fusedSteps) throws JsonProcessingException {
+		List<String> command = new ArrayList<>(Arrays.asList("ocrd", "process"));
+
+		command.add(StepFusion.getTask(getProcessorIdentifier(), metsFileGroup.getInput(), metsFileGroup.getOutput(),
+				objectMapper.writeValueAsString(arguments == null ? objectMapper.createObjectNode() : arguments)));
+
+		for (StepFusion.Step step : fusedSteps)
+			command.add(StepFusion.getTask(step.getProcessor(), step.getInput(), step.getFileGroup(),
+					objectMapper.writeValueAsString(step.getParameters())));
+
+		return command;
+	}
+
+	/**
+	 * Takes the output, that was computed ahead by a fused predecessor step, if
+	 * the processor, the docker image, the input file group and the arguments
+	 * match. Otherwise, the output computed ahead is discarded.
+	 * 
+	 * @param framework                      The framework.
+	 * @param arguments                      The ocr-d processor arguments.
+	 * @param metsFileGroup                  The mets file group.
+	 * @param processorWorkspaceRelativePath The snapshot sandbox relative to the
+	 *                                       processor workspace.
+	 * @param standardOutput                 The callback for standard output.
+	 * @return The targets and replacements of the references in the xml files of
+	 *         the output to the outputs of the former steps. Null if no output
+	 *         was taken.
+	 * @since 1.8
+	 */
+	private Map<String, String> takeFusedOutput(Framework framework, Object arguments,
+			MetsUtils.FrameworkFileGroup metsFileGroup, Path processorWorkspaceRelativePath,
+			Message standardOutput) {
+		StepFusion.cleanup(framework.getProcessorWorkspace(),
+				1000L * Math.max(0, getIntegerValue(ServiceProviderCollection.fusedStepsTtlSeconds, 86400)));
+
+		try {
+			final StepFusion.Chain chain = StepFusion.find(framework.getProcessorWorkspace(),
+					metsFileGroup.getInput());
+			if (chain == null)
+				return null;
+
+			// The fused predecessor steps only execute this processor, if it matches the record
+			try {
+				StepFusion.record(framework.getProcessorWorkspace(), getProcessorIdentifier(), arguments,
+						getParameterDescriptions());
+			} catch (IOException e) {
+				standardOutput.update("Troubles recording the step for the fused predecessor steps - "
+						+ e.getMessage() + ".");
+			}
+
+			final String mismatch;
+			if (isNativeEngine())
+				mismatch = "the processor is executed natively";
+			else if (isProcessorServer())
+				mismatch = "the processor server is enabled";
+			else if (!chain.getImage().equals(getDockerImage()))
+				mismatch = "the docker image " + getDockerImage() + " differs from " + chain.getImage();
+			else {
+				final List<String> mismatches = chain.getNext().getMismatches(getProcessorIdentifier(), arguments,
+						getParameterDescriptions());
+
+				mismatch = mismatches.isEmpty() ? null : "the step does not match - " + String.join(", ", mismatches);
+			}
+
+			if (mismatch != null) {
+				chain.discard();
+
+				standardOutput.update(
+						"Discarded the output computed ahead by the fused predecessor step, since " + mismatch + ".");
+
+				return null;
+			}
+
+			final Map<String, String> references = chain.take(framework.getProcessorWorkspace(),
+					framework.getMets(), metsFileGroup.getOutput(), processorWorkspaceRelativePath.toString());
+
+			standardOutput.update("Took the output computed ahead by the fused predecessor step.");
+
+			return references;
+		} catch (IOException e) {
+			standardOutput.update("Execute the processor, since the output computed ahead by the fused predecessor "
+					+ "step can not be taken - " + e.getMessage() + ".");
+
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the result cache of the processor.
+	 * <p>
+	 * A step with the same inputs links the cached output into its snapshot
+	 * sandbox and updates the mets file without starting a container. The
+	 * result cache keeps hard links, so it should be on the file system of the
+	 * workspaces. The least recently used outputs are evicted when the cache
+	 * exceeds its size in megabytes. The result cache can be disabled for
+	 * nondeterministic processors with an empty processor specific folder, e.g.
+	 * <i>ocrd-calamari-recognize-result-cache:</i>.
+	 * <p>
+	 * The detection of the changed pages depends on the result cache, since the
+	 * outputs of the unchanged pages are carried forward from it. Without result
+	 * cache, all pages are processed regardless of
+	 * {@link #isResultCachePages()}.
+	 * 
+	 * @return The result cache. Null if not set or invalid.
+	 * @since 1.8
+	 */
+	protected ResultCache getResultCache() {
+		String folder = getProcessorValue(ServiceProviderCollection.resultCache);
+
+		try {
+			return folder == null || folder.isBlank() ? null
+					: ResultCache.getInstance(Paths.get(folder.trim()), 1024L * 1024
+							* Math.max(0, getIntegerValue(ServiceProviderCollection.resultCacheMegabytes, 10240)));
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the outputs are also cached per page, so that only the
+	 * changed pages are processed again.
+	 * <p>
+	 * If a step with the same processor, image and parameters only changed some
+	 * pages, e.g. after a page was edited, the processor is only executed for
+	 * the changed pages with the page identifier option and the outputs of the
+	 * unchanged pages are carried forward from the result cache by hard links.
+	 * They can be disabled for processors, whose output on a page depends on
+	 * other pages, e.g. <i>ocrd-cis-postcorrect-result-cache-pages: false</i>.
+	 * <p>
+	 * The setting only applies if the result cache is set, see
+	 * {@link #getResultCache()}. Without result cache, the changed pages are not
+	 * detected and all pages are processed.
+	 * 
+	 * @return True if the outputs are also cached per page.
+	 * @since 1.8
+	 */
+	protected boolean isResultCachePages() {
+		String resultCachePages = getProcessorValue(ServiceProviderCollection.resultCachePages);
+
+		return resultCachePages != null && Boolean.parseBoolean(resultCachePages.trim());
+	}
+
+	/**
+	 * Returns the base of the keys of the result cache, this means, the hash of
+	 * the processor, the docker image identifier, the arguments, the input file
+	 * groups and the files in the resources folder with their contents.
+	 * 
+	 * @param framework     The framework.
+	 * @param isResources   True if resources folder is required.
+	 * @param arguments     The ocr-d processor arguments.
+	 * @param metsFileGroup The mets file group.
+	 * @return The base of the keys of the result cache.
+	 * @throws IOException Throws if the docker image can not be inspected or the
+	 *                     files can not be read.
+	 * @since 1.8
+	 */
+	private String getResultCacheBase(Framework framework, boolean isResources, Object arguments,
+			MetsUtils.FrameworkFileGroup metsFileGroup) throws IOException {
+		final ResultCache.Key key = new ResultCache.Key().add(getProcessorIdentifier())
+				.add(isNativeEngine() ? "native:" + getNativeExecutable()
+						: ProcessorDescriptionCache.getImageIdentifier(getDockerProcess(), getDockerImage()))
+				.add(objectMapper.writeValueAsString(arguments)).add(metsFileGroup.getInput());
+
+		final Path optResources = isResources ? getOptResources(framework) : null;
+		if (optResources != null && Files.isDirectory(optResources))
+			key.add(optResources.toString()).addFolder(optResources);
+
+		return key.get();
+	}
+
+	/**
+	 * Returns the key of the result cache, this means, the hash of the base and
+	 * the files of the input file groups with their contents. The key of a page
+	 * only contains the files on the page and the files, that are not assigned to
+	 * a page.
+	 * 
+	 * @param framework     The framework.
+	 * @param base          The base of the keys of the result cache.
+	 * @param metsFileGroup The mets file group.
+	 * @param page          The page identifier. Null for the key of all pages.
+	 * @return The key of the result cache.
+	 * @throws IOException Throws if the files can not be read.
+	 * @since 1.8
+	 */
+	private String getResultCacheKey(Framework framework, String base, MetsUtils.FrameworkFileGroup metsFileGroup,
+			String page) throws IOException {
+		final ResultCache.Key key = new ResultCache.Key().add(base).add(page);
+
+		final MetsIndex index = MetsIndex.getInstance(framework.getMets());
+		for (String fileGroup : MetsPages.getFileGroups(metsFileGroup.getInput())) {
+			key.add(fileGroup);
+
+			for (MetsIndex.File file : index.getFiles(fileGroup))
+				if (page == null || file.getPage() == null || page.equals(file.getPage())) {
+					key.add(file.getIdentifier()).add(file.getMimeType()).add(file.getPage()).add(file.getLocation());
+
+					// Remote files are only identified by their location
+					if (file.getLocation() != null && !file.getLocation().contains("://"))
+						key.addFile(framework.getProcessorWorkspace().resolve(file.getLocation()));
+				}
+		}
+
+		return key.get();
+	}
+
+	/**
+	 * Takes the cached output of the step with the same inputs.
+	 * 
+	 * @param resultCache    The result cache.
+	 * @param key            The key of the result cache.
+	 * @param framework      The framework.
+	 * @param metsFileGroup  The mets file group.
+	 * @param standardOutput The callback for standard output.
+	 * @return The targets and replacements of the references in the xml files of
+	 *         the output to its former location. Null if no output was taken.
+	 * @since 1.8
+	 */
+	private Map<String, String> takeCachedOutput(ResultCache resultCache, String key, Framework framework,
+			MetsUtils.FrameworkFileGroup metsFileGroup, Message standardOutput) {
+		try {
+			final String location = resultCache.take(key, framework.getMets(), metsFileGroup.getOutput(),
+					framework.getProcessorWorkspace().resolve(metsFileGroup.getOutput()));
+			if (location == null)
+				return null;
+
+			standardOutput.update("Took the cached output of a step with the same inputs from the result cache "
+					+ resultCache.getFolder() + ".");
+
+			return Map.of("=\"" + location + "/", "=\"" + metsFileGroup.getOutput() + "/");
+		} catch (IOException e) {
+			standardOutput.update(
+					"Execute the processor, since the cached output can not be taken - " + e.getMessage() + ".");
+
+			return null;
+		}
+	}
+
+	/**
+	 * Carries the outputs of the unchanged pages forward from the result cache.
+	 * 
+	 * @param resultCache    The result cache.
+	 * @param pageKeys       The keys of the result cache of the unchanged pages.
+	 *                       The key is the page identifier.
+	 * @param framework      The framework.
+	 * @param metsFileGroup  The mets file group.
+	 * @param output         The folder, that the processor writes its output to.
+	 * @param standardOutput The callback for standard output.
+	 * @return The targets and replacements of the references in the xml files of
+	 *         the carried outputs to their former locations.
+	 * @throws IOException Throws if the outputs can not be carried forward. In
+	 *                     this case, the mets file is not changed.
+	 * @since 1.8
+	 */
+	private Map<String, String> carryCachedPages(ResultCache resultCache, Map<String, String> pageKeys,
+			Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup, Path output, Message standardOutput)
+			throws IOException {
+		Files.createDirectories(output);
+
+		final Map<String, String> references = new LinkedHashMap<>();
+		for (String location : resultCache.takePages(pageKeys.values(), framework.getMets(),
+				metsFileGroup.getOutput(), output))
+			references.put("=\"" + location + "/", "=\"" + metsFileGroup.getOutput() + "/");
+
+		standardOutput.update("Carried the outputs of " + pageKeys.size()
+				+ " unchanged pages forward from the result cache " + resultCache.getFolder() + ".");
+
+		return references;
+	}
+
+	/**
+	 * Returns the number of pages, whose outputs are checkpointed, so that
+	 * interrupted runs can be resumed. The checkpoint is kept in the folder
+	 * <i>.ocr4all-resume</i> of the processor workspace and does not require the
+	 * result cache. With the processor server, the scratch folder or the minimal
+	 * mounts, the resume pages are ignored and a warning is reported.
+	 * <p>
+	 * The pages are processed in consecutive batches of at most the resume
+	 * pages, e.g. <i>ocrd-calamari-recognize-resume-pages: 50</i>, and the
+	 * completed pages are checkpointed after every batch. If the run is canceled
+	 * or interrupted, e.g. by a reboot of the node, a new run of the step with
+	 * the same processor, image, parameters and input reconciles the output
+	 * folder and the mets file group with the checkpoint, removes the partial
+	 * output of the interrupted batch and only processes the remaining pages. The
+	 * output of a run of another key is discarded. The timeouts apply to every
+	 * batch.
+	 * 
+	 * @return The number of pages of the checkpoint batches. 0 if the runs are
+	 *         not checkpointed.
+	 * @since 1.8
+	 */
+	protected int getResumePages() {
+		return Math.max(0, getProcessorIntegerValue(ServiceProviderCollection.resumePages, 0));
+	}
+
+	/**
+	 * Saves the checkpoint with the completed pages. Troubles are reported.
+	 * 
+	 * @param checkpoint    The checkpoint.
+	 * @param pages         The pages, that were completed in addition.
+	 * @param standardError The callback for standard error.
+	 * @return True if the checkpoint was saved.
+	 * @since 1.8
+	 */
+	private static boolean saveCheckpoint(PageCheckpoint checkpoint, List<String> pages, Message standardError) {
+		try {
+			checkpoint.save(pages);
+
+			return true;
+		} catch (IOException e) {
+			standardError.update("troubles saving the checkpoint of the completed pages - " + e.getMessage() + ".");
+
+			return false;
+		}
+	}
+
+	/**
+	 * Returns true if the processor is executed by a resident processor server.
+	 * <p>
+	 * If the processor server is enabled for a processor, e.g.
+	 * <i>ocrd-calamari-recognize-processor-server</i>, the processor is started
+	 * once as resident ocr-d processor server with the options <i>--type server
+	 * --address</i> and <i>--database</i>, so that its models are only loaded
+	 * once. There is one server per processor, engine, image, data folder and
+	 * resources folder. The runs submit jobs of at most the job pages over the
+	 * http api of the server and poll their state, that is reported as
+	 * progress. The servers need the MongoDB of the processor server database
+	 * and they are shut down after the idle time. The processor server ignores
+	 * the scratch folder, the minimal mounts and the resume pages.
+	 * 
+	 * @return True if the processor is executed by a resident processor server.
+	 * @since 1.8
+	 */
+	protected boolean isProcessorServer() {
+		String processorServer = getProcessorValue(ServiceProviderCollection.processorServer);
+
+		return processorServer != null && Boolean.parseBoolean(processorServer.trim());
+	}
+
+	/**
+	 * Returns the data folder of the processor servers, that contains the
+	 * processor workspaces.
+	 * 
+	 * @param framework The framework.
+	 * @return The data folder of the processor servers.
+	 * @since 1.8
+	 */
+	private Path getProcessorServerData(Framework framework) {
+		String folder = getProcessorValue(ServiceProviderCollection.processorServerData);
+
+		try {
+			if (folder != null && !folder.isBlank())
+				return Paths.get(folder.trim()).toAbsolutePath().normalize();
+		} catch (InvalidPathException e) {
+			// The processor workspace is used
+		}
+
+		return framework.getProcessorWorkspace().toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Returns the pool key of the processor server, this means, the processor,
+	 * the engine, the docker image, the data folder and the resources folder.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The pool key of the processor server.
+	 * @since 1.8
+	 */
+	private String getProcessorServerKey(Framework framework, boolean isResources) {
+		final Path optResources = isResources ? getOptResources(framework) : null;
+
+		return String.join("\u0000", getProcessorIdentifier(), getEngine(), isNativeEngine() ? "" : getDockerImage(),
+				getProcessorServerData(framework).toString(), optResources == null ? "" : optResources.toString());
+	}
+
+	/**
+	 * Returns the processor server database. For docker containers, the loopback
+	 * host of the database is replaced by the docker host, since the containers
+	 * do not use the host network.
+	 * 
+	 * @param isContainer True if the processor server runs in a docker
+	 *                    container.
+	 * @return The processor server database.
+	 * @since 1.8
+	 */
+	private String getProcessorServerDatabase(boolean isContainer) {
+		final String database = ConfigurationServiceProvider.getValue(configuration,
+				ServiceProviderCollection.processorServerDatabase);
+
+		return isContainer ? processorServerLoopbackPattern.matcher(database).replaceFirst("$1" + dockerHost)
+				: database;
+	}
+
+	/**
+	 * Starts a processor server. The native processor server listens on a free
+	 * port of the loopback interface. If the port was taken in the meantime, the
+	 * server terminates and the processor server pool starts it once more on
+	 * another port. Since the client checks the processor reported by the
+	 * server, another server, that took the port, is not taken for it. The
+	 * docker container listens on the processor server container port, that is
+	 * published on a port of the loopback interface chosen by docker, and mounts
+	 * the data folder at the same path. The native processor server is shut down
+	 * with its descendants.
+	 * 
+	 * @param framework   The framework.
+	 * @param isResources True if resources folder is required.
+	 * @return The instance of the started processor server.
+	 * @throws IOException Throws if the processor server can not be started.
+	 * @since 1.8
+	 */
+	private ProcessorServerPool.Instance startProcessorServer(Framework framework, boolean isResources)
+			throws IOException {
+		if (!getProcessorEngine().isContainer()) {
+			int port;
+			try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+				port = socket.getLocalPort();
+			}
+
+			final String address = InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+
+			List<String> command = new ArrayList<>(List.of(getNativeExecutable()));
+			command.addAll(Arrays.asList("--type", "server", "--address", address, "--database",
+					getProcessorServerDatabase(false)));
+
+			ProcessBuilder builder = new ProcessBuilder(command).directory(getProcessorServerData(framework).toFile())
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.DISCARD);
+
+			builder.environment().putAll(getThreadEnvironment());
+
+			Path dataHome = isResources ? getNativeDataHome(framework) : null;
+			if (dataHome != null)
+				builder.environment().put("XDG_DATA_HOME", dataHome.toString());
+
+			final Process process = builder.start();
+
+			final Runnable shutdown = () -> {
+				process.descendants().forEach(descendant -> descendant.destroy());
+				process.destroy();
+			};
+
+			return new ProcessorServerPool.Instance(
+					new ProcessorServerClient(URI.create("http://" + address), getProcessorIdentifier()), shutdown,
+					process::isAlive);
+		}
+
+		final String name = "ocr4all-server-" + UUID.randomUUID().toString();
+		final Path data = getProcessorServerData(framework);
+
+		List<String> arguments = new ArrayList<>(Arrays.asList("run", "-d", "--rm", "--name", name, "-p",
+				InetAddress.getLoopbackAddress().getHostAddress() + "::" + processorServerContainerPort,
+				"--add-host", dockerHost + ":host-gateway"));
+		arguments.addAll(getContainerUserArguments(framework, isResources));
+		arguments.addAll(Arrays.asList("-v", data.toString() + ":" + data.toString(), "-w", data.toString()));
+		arguments.addAll(getContainerLimitArguments());
+		arguments.addAll(Arrays.asList("--", getDockerImage(), getProcessorIdentifier()));
+		arguments.addAll(Arrays.asList("--type", "server", "--address", "0.0.0.0:" + processorServerContainerPort,
+				"--database", getProcessorServerDatabase(true)));
+
+		SystemProcess process = getDockerProcess();
+		process.execute(arguments);
+
+		if (process.getExitValue() != 0)
+			throw new IOException("cannot start processor server " + name + " - " + process.getStandardError().trim()
+					+ " (process exit code " + process.getExitValue() + ")");
+
+		final Runnable shutdown = () -> {
+			try {
+				getDockerProcess().execute(getStopContainerArguments(name));
+			} catch (IOException e) {
+				// Nothing to do, the container is removed when it stops
+			}
+		};
+
+		// The published port, e.g. 127.0.0.1:49153
+		final String address;
+		try {
+			process = getDockerProcess();
+			process.execute(new ArrayList<>(Arrays.asList("port", name, processorServerContainerPort + "/tcp")));
+
+			address = process.getExitValue() == 0 ? process.getStandardOutput().trim().lines().findFirst().orElse("")
+					: "";
+		} catch (IOException e) {
+			shutdown.run();
+
+			throw e;
+		}
+
+		final int index = address.lastIndexOf(':');
+		if (index < 0) {
+			shutdown.run();
+
+			throw new IOException("cannot determine the published port of processor server " + name);
+		}
+
+		return new ProcessorServerPool.Instance(
+				new ProcessorServerClient(URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+						+ ":" + address.substring(index + 1).trim()), getProcessorIdentifier()),
+				shutdown, () -> isContainerRunning(name));
+	}
+
+	/**
+	 * Returns true if the docker container is running. Since the processor
+	 * servers are started with <i>--rm</i>, a terminated container does not
+	 * exist anymore.
+	 * 
+	 * @param name The container name.
+	 * @return True if the docker container is running.
+	 * @since 1.8
+	 */
+	private boolean isContainerRunning(String name) {
+		try {
+			SystemProcess process = getDockerProcess();
+			process.execute(new ArrayList<>(Arrays.asList("inspect", "-f", "{{.State.Running}}", name)));
+
+			return process.getExitValue() == 0 && Boolean.parseBoolean(process.getStandardOutput().trim());
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Executes the ocr-d processor with the resident processor server. The pages
+	 * are submitted in jobs of at most the job pages one after the other and the
+	 * progress is updated, when a job is finished. A canceled or stopped run
+	 * shuts down the processor server, since its job can not be canceled.
+	 * 
+	 * @param framework      The framework.
+	 * @param isResources    True if resources folder is required.
+	 * @param arguments      The processor arguments.
+	 * @param metsFileGroup  The mets file group.
+	 * @param pages          The pages of the input file group. Null if unknown.
+	 * @param dockerProcess  The docker process.
+	 * @param runningState   The callback for processor running state.
+	 * @param standardOutput The callback for standard output.
+	 * @param standardError  The callback for standard error.
+	 * @param progress       The callback for progress.
+	 * @param baseProgress   The base progress.
+	 * @return Null if the processor was executed successfully. Otherwise, the
+	 *         processor execution state.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State executeServer(Framework framework, boolean isResources,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, List<String> pages,
+			OCRDProcessorServiceProvider.DockerProcess dockerProcess, ProcessorRunningState runningState,
+			Message standardOutput, Message standardError, Progress progress, float baseProgress) {
+		final Path data = getProcessorServerData(framework);
+		final Path mets = framework.getMets().toAbsolutePath().normalize();
+		if (!mets.startsWith(data)) {
+			standardError.update("troubles running " + getProcessorDescription() + " - the mets file " + mets
+					+ " is not inside the processor server data folder " + data + ".");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		// The jobs with at most the job pages
+		final List<List<String>> jobs = new ArrayList<>();
+		final int jobPages = getProcessorIntegerValue(ServiceProviderCollection.processorServerJobPages, 10);
+		if (pages == null || pages.isEmpty() || jobPages <= 0)
+			jobs.add(pages);
+		else
+			for (int i = 0; i < pages.size(); i += jobPages)
+				jobs.add(pages.subList(i, Math.min(pages.size(), i + jobPages)));
+
+		standardOutput.update("Start or reuse the processor server of " + getProcessorDescription() + ".");
+
+		ProcessorServerPool.Server server;
+		try {
+			server = ProcessorServerPool.getInstance().acquire(getProcessorServerKey(framework, isResources),
+					getProcessorIntegerValue(ServiceProviderCollection.processorServerIdleSeconds, 600),
+					getProcessorIntegerValue(ServiceProviderCollection.processorServerStartSeconds, 120),
+					() -> startProcessorServer(framework, isResources));
+		} catch (IOException e) {
+			standardError.update("troubles starting " + getProcessorDescription() + " processor server - "
+					+ e.getMessage() + ".");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		final ProcessorServerClient client = server.getClient();
+		final long pollMilliseconds = Math.max(100,
+				getProcessorIntegerValue(ServiceProviderCollection.processorServerPollMilliseconds, 1000));
+
+		// The watchdog does not stop a job, it only ends the polling
+		final AtomicLong lastActivity = new AtomicLong(System.currentTimeMillis());
+		dockerProcess.configure((StreamingProcess) null, null, null);
+		final Watchdog watchdog = getWatchdog(framework, metsFileGroup, lastActivity::get, dockerProcess).start();
+
+		ProcessServiceProvider.Processor.State state = null;
+		int processed = 0;
 
-		// Update paths in xml files
-		standardOutput.update("Update paths in xml files.");
 		try {
-			for (Path file : getFiles(
-					Paths.get(framework.getProcessorWorkspace().toString(), metsFileGroup.getOutput()), "xml"))
-				try (Stream<String> lines = Files.lines(file)) {
-					Files.write(file,
-							lines.map(line -> line.replace("=\"" + metsFileGroup.getOutput() + "/",
-									"=\"" + processorWorkspaceRelativePath.toString() + "/"))
-									.collect(Collectors.joining("\n")).getBytes());
+			for (List<String> job : jobs) {
+				final String identifier = client.submit(mets.toString(), metsFileGroup.getInput(),
+						metsFileGroup.getOutput(), job == null ? null : MetsPages.toPageIdentifierOption(job),
+						arguments);
+
+				standardOutput.update("Submitted job " + identifier + " to processor server " + client.getAddress()
+						+ (job == null ? "" : " for " + job.size() + " pages") + ".");
+
+				ProcessorServerClient.State jobState;
+				while ((jobState = client.getState(identifier)) == ProcessorServerClient.State.running) {
+					if (runningState.isCanceled() || watchdog.getReason() != null)
+						break;
+
+					Thread.sleep(pollMilliseconds);
+				}
+
+				if (runningState.isCanceled()) {
+					state = ProcessServiceProvider.Processor.State.canceled;
+					break;
+				} else if (watchdog.getReason() != null) {
+					state = getWatchdogState(watchdog, standardError);
+					break;
+				}
+
+				lastActivity.set(System.currentTimeMillis());
+
+				try {
+					String log = client.getLog(identifier);
+					if (log != null && !log.isBlank())
+						standardOutput.update(log.trim());
+				} catch (IOException e) {
+					// Nothing to do, the log is optional
 				}
+
+				if (jobState == ProcessorServerClient.State.failed) {
+					standardError.update("Cannot run " + getProcessorDescription() + ", processor server job "
+							+ identifier + " failed.");
+
+					state = ProcessServiceProvider.Processor.State.interrupted;
+					break;
+				}
+
+				if (job != null && pages != null) {
+					processed += job.size();
+
+					progress.update(baseProgress + (0.097F - baseProgress) * processed / pages.size());
+					standardOutput.update("Processed " + processed + " of " + pages.size() + " pages.");
+				}
+			}
 		} catch (IOException e) {
-			standardError
-					.update("troubles updating " + getProcessorDescription() + " xml files - " + e.getMessage() + ".");
+			standardError.update("troubles running " + getProcessorDescription() + " with processor server - "
+					+ e.getMessage() + ".");
 
-			if (state == null)
-				state = ProcessServiceProvider.Processor.State.interrupted;
+			state = ProcessServiceProvider.Processor.State.interrupted;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			standardError.update("troubles running " + getProcessorDescription()
+					+ " with processor server - the run was interrupted.");
+
+			state = ProcessServiceProvider.Processor.State.interrupted;
+		} finally {
+			watchdog.finish();
 		}
 
-		if (state == null)
-			progress.update(0.098F);
+		ProcessorServerPool.getInstance().release(server,
+				!runningState.isCanceled() && watchdog.getReason() == null);
+
+		return state;
+	}
+
+	/**
+	 * Executes the ocr-d processor in a docker container.
+	 * 
+	 * @param framework      The framework.
+	 * @param isResources    True if resources folder is required.
+	 * @param arguments      The processor arguments.
+	 * @param metsFileGroup  The mets file group.
+	 * @param dockerName     The docker name.
+	 * @param allocations    The core allocations of the container. Empty if the
+	 *                       cores are not partitioned.
+	 * @param dockerProcess  The docker process.
+	 * @param runningState   The callback for processor running state.
+	 * @param standardOutput The callback for standard output.
+	 * @param standardError  The callback for standard error.
+	 * @param pageProgress   The callback for the page progress of the processor
+	 *                       output. Null if not required.
+	 * @param fusedSteps     The fused successor steps, that are executed
+	 *                       together with the processor. Empty if not required.
+	 * @return Null if the processor was executed successfully. Otherwise, the
+	 *         processor execution state.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State execute(Framework framework, boolean isResources,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, String dockerName,
+			List<CoreAllocator.Allocation> allocations, OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			ProcessorRunningState runningState,
+			Message standardOutput, Message standardError, Message pageProgress, List<StepFusion.Step> fusedSteps) {
+		final ProcessorEngine engine = getProcessorEngine();
+		DockerContainerPool.Container container = null;
+		List<String> processorArguments;
 
-		// Move processor output directory to snapshot sandbox
-		standardOutput.update("Move processor output directory to snapshot sandbox.");
 		try {
-			Files.move(Paths.get(framework.getProcessorWorkspace().toString(), metsFileGroup.getOutput()),
-					framework.getOutput(), StandardCopyOption.REPLACE_EXISTING);
+			if (!engine.isContainer())
+				processorArguments = getNativeArguments(arguments, metsFileGroup, null);
+			else if (isDockerContainerPool(framework, metsFileGroup)) {
+				container = acquireDockerContainer(framework, isResources, getCpuset(allocations, 0));
+				dockerName = container.getName();
+
+				processorArguments = getProcessorExecArguments(framework, container, arguments, metsFileGroup, null);
+			} else
+				processorArguments = getProcessorArguments(framework, isResources, dockerName, arguments,
+						metsFileGroup, null, getCpuset(allocations, 0));
 
+			// The processor command is replaced by ocrd process with the fused successor steps
+			if (!fusedSteps.isEmpty()) {
+				final int command = getProcessorCommand(arguments, metsFileGroup, null).size();
+
+				standardOutput.update("Replace the processor command, this means, the last " + command
+						+ " arguments, by ocrd process, since " + fusedSteps.size()
+						+ " fused successor steps are executed together with the processor.");
+
+				processorArguments = new ArrayList<>(
+						processorArguments.subList(0, processorArguments.size() - command));
+				processorArguments.addAll(getFusedCommand(arguments, metsFileGroup, fusedSteps));
+			}
 		} catch (IOException e) {
-			standardError.update("troubles moving " + getProcessorDescription()
-					+ " output directory to snapshot sandbox - " + e.getMessage() + ".");
+			DockerContainerPool.getInstance().release(container, true);
+
+			standardError.update("troubles running " + getProcessorDescription() + " - " + e.getMessage() + ".");
+
+			return ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		final List<StreamingProcess> processes = List.of(getProcessorStreamingProcess(engine, framework, isResources));
+		if (container == null)
+			configure(engine, dockerProcess, processes, List.of(dockerName));
+		else
+			configure(dockerProcess, processes, List.of(container));
+
+		standardOutput.update("Execute " + engine.getName() + " process '"
+				+ dockerProcess.getStreamingProcess().getCommand() + "' with parameters: " + processorArguments + ".");
+
+		ProcessServiceProvider.Processor.State state = null;
+
+		final StreamingProcess process = dockerProcess.getStreamingProcess();
+		final Watchdog watchdog = getWatchdog(framework, metsFileGroup, () -> process.getLastActivity(), dockerProcess)
+				.start();
+
+		try {
+			process.execute(processorArguments, track(standardOutput, pageProgress), track(standardError, pageProgress));
+
+			if (runningState.isCanceled())
+				state = ProcessServiceProvider.Processor.State.canceled;
+			else if (watchdog.getReason() != null)
+				state = getWatchdogState(watchdog, standardError);
+			else if (dockerProcess.getStreamingProcess().getExitValue() != 0) {
+				standardError.update("Cannot run " + getProcessorDescription() + ", exit code "
+						+ dockerProcess.getStreamingProcess().getExitValue() + ".");
 
-			if (state == null)
 				state = ProcessServiceProvider.Processor.State.interrupted;
+			}
+		} catch (IOException e) {
+			standardError.update("troubles running " + getProcessorDescription() + " - " + e.getMessage() + ".");
+
+			state = ProcessServiceProvider.Processor.State.interrupted;
+		} finally {
+			watchdog.finish();
 		}
 
-		if (state == null)
-			progress.update(0.099F);
+		// A canceled or stopped run stops the pooled container
+		DockerContainerPool.getInstance().release(container,
+				!runningState.isCanceled() && watchdog.getReason() == null);
 
-		// Update paths in mets file
-		standardOutput.update("Update paths in mets file.");
-		try (Stream<String> lines = Files.lines(metsPath)) {
-			Files.write(metsPath,
-					lines.map(line -> line.replace("=\"" + metsFileGroup.getOutput() + "/",
-							"=\"" + processorWorkspaceRelativePath.toString() + "/")).collect(Collectors.joining("\n"))
-							.getBytes());
+		return state;
+	}
+
+	/**
+	 * Executes the ocr-d processor for the page shards in concurrent docker
+	 * containers. Every container works on its own copy of the mets file, that are
+	 * merged into the mets file afterwards. If a page shard fails, the other ones
+	 * are stopped, so that the failure is reported without waiting for them.
+	 * 
+	 * @param framework      The framework.
+	 * @param isResources    True if resources folder is required.
+	 * @param arguments      The processor arguments.
+	 * @param metsFileGroup  The mets file group.
+	 * @param dockerName     The docker name.
+	 * @param shards         The page shards.
+	 * @param allocations    The core allocations of the page shard containers.
+	 *                       Empty if the cores are not partitioned.
+	 * @param dockerProcess  The docker process.
+	 * @param runningState   The callback for processor running state.
+	 * @param standardOutput The callback for standard output. It is called by the
+	 *                       concurrent shards.
+	 * @param standardError  The callback for standard error. It is called by the
+	 *                       concurrent shards.
+	 * @param pageProgress   The callback for the page progress of the processor
+	 *                       output. Null if not required.
+	 * @return Null if the processor was executed successfully. Otherwise, the
+	 *         processor execution state.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State execute(Framework framework, boolean isResources,
+			Object arguments, MetsUtils.FrameworkFileGroup metsFileGroup, String dockerName,
+			List<List<String>> shards, List<CoreAllocator.Allocation> allocations,
+			OCRDProcessorServiceProvider.DockerProcess dockerProcess,
+			ProcessorRunningState runningState, Message standardOutput, Message standardError,
+			Message pageProgress) {
+		final ProcessorEngine engine = getProcessorEngine();
+		final Path metsPath = getProcessorMets(framework, metsFileGroup);
+		final Path mountFolder = getMountFolder(framework, metsFileGroup);
+		final Path dataFolder = mountFolder == null ? framework.getProcessorWorkspace() : mountFolder;
+		final List<Path> metsCopies = new ArrayList<>();
+		final List<DockerContainerPool.Container> containers = new ArrayList<>();
+		final List<String> dockerNames = new ArrayList<>();
+		final List<List<String>> shardArguments = new ArrayList<>();
+
+		ProcessServiceProvider.Processor.State state = null;
+		Watchdog watchdog = null;
+
+		try {
+			for (int i = 0; i < shards.size(); i++) {
+				String shardName = dockerName + "-" + (i + 1);
+
+				Path metsCopy = metsPath.resolveSibling("." + shardName + "-" + metsPath.getFileName().toString());
+				Files.copy(metsPath, metsCopy);
+				metsCopies.add(metsCopy);
+
+				// The pooled containers execute the processor in the processor workspace
+				List<String> options = Arrays.asList("-m",
+						(engine.isContainer() && !isDockerContainerPool(framework, metsFileGroup) ? "/data/" : "")
+								+ dataFolder.relativize(metsCopy).toString(),
+						"--page-id", MetsPages.toPageIdentifierOption(shards.get(i)));
+
+				if (!engine.isContainer()) {
+					dockerNames.add(shardName);
+					shardArguments.add(getNativeArguments(arguments, metsFileGroup, options));
+				} else if (isDockerContainerPool(framework, metsFileGroup)) {
+					DockerContainerPool.Container container = acquireDockerContainer(framework, isResources,
+							getCpuset(allocations, i));
+					containers.add(container);
+
+					dockerNames.add(container.getName());
+					shardArguments
+							.add(getProcessorExecArguments(framework, container, arguments, metsFileGroup, options));
+				} else {
+					dockerNames.add(shardName);
+					shardArguments.add(getProcessorArguments(framework, isResources, shardName, arguments,
+							metsFileGroup, options, getCpuset(allocations, i)));
+				}
+			}
 		} catch (IOException e) {
-			standardError
-					.update("troubles updating " + getProcessorDescription() + " mets file - " + e.getMessage() + ".");
+			standardError.update("troubles running " + getProcessorDescription() + " - " + e.getMessage() + ".");
 
-			if (state == null)
+			state = ProcessServiceProvider.Processor.State.interrupted;
+		}
+
+		if (state == null) {
+			final List<StreamingProcess> processes = new ArrayList<>();
+			for (int i = 0; i < shards.size(); i++)
+				processes.add(getProcessorStreamingProcess(engine, framework, isResources));
+
+			if (containers.isEmpty())
+				configure(engine, dockerProcess, processes, dockerNames);
+			else
+				configure(dockerProcess, processes, containers);
+
+			final Watchdog shardWatchdog = getWatchdog(framework, metsFileGroup,
+					() -> processes.stream().mapToLong(process -> process.getLastActivity()).max().orElse(0),
+					dockerProcess).start();
+			watchdog = shardWatchdog;
+
+			ExecutorService executor = Executors.newFixedThreadPool(shards.size(),
+					new DaemonThreadFactory("ocr4all-page-shard"));
+			List<Future<Boolean>> executions = new ArrayList<>();
+
+			// The first failed page shard stops the other ones
+			final AtomicBoolean isShardFailed = new AtomicBoolean(false);
+
+			for (int i = 0; i < shards.size(); i++) {
+				final String shard = "page shard " + (i + 1) + "/" + shards.size();
+				final List<String> processorArguments = shardArguments.get(i);
+				final StreamingProcess process = processes.get(i);
+
+				executions.add(executor.submit(() -> {
+					standardOutput.update("Execute " + engine.getName() + " process '" + process.getCommand() + "' for "
+							+ shard + " with parameters: " + processorArguments + ".");
+
+					try {
+						process.execute(processorArguments, track(standardOutput, pageProgress),
+								track(standardError, pageProgress));
+
+						if (process.getExitValue() == 0)
+							return true;
+						else if (!runningState.isCanceled() && shardWatchdog.getReason() == null
+								&& !isShardFailed.get())
+							standardError.update("Cannot run " + getProcessorDescription() + " for " + shard
+									+ ", exit code " + process.getExitValue() + ".");
+					} catch (IOException e) {
+						if (!isShardFailed.get())
+							standardError.update("troubles running " + getProcessorDescription() + " for " + shard
+									+ " - " + e.getMessage() + ".");
+					}
+
+					if (!runningState.isCanceled() && shardWatchdog.getReason() == null
+							&& isShardFailed.compareAndSet(false, true)) {
+						standardOutput.update("Stop the other page shards, since " + shard + " failed.");
+
+						dockerProcess.stop();
+					}
+
+					return false;
+				}));
+			}
+
+			executor.shutdown();
+
+			boolean isSuccessful = true;
+			for (Future<Boolean> execution : executions)
+				try {
+					isSuccessful &= execution.get();
+				} catch (InterruptedException | ExecutionException e) {
+					isSuccessful = false;
+				}
+
+			shardWatchdog.finish();
+
+			if (runningState.isCanceled())
+				state = ProcessServiceProvider.Processor.State.canceled;
+			else if (shardWatchdog.getReason() != null)
+				state = getWatchdogState(shardWatchdog, standardError);
+			else if (!isSuccessful)
 				state = ProcessServiceProvider.Processor.State.interrupted;
+
+			// Merge the results of the page shards, also the ones of a partial run
+			standardOutput.update("Merge the page shards into mets file.");
+			try {
+				MetsMerger.merge(metsPath, metsCopies, metsFileGroup.getOutput());
+			} catch (IOException e) {
+				standardError.update("troubles merging " + getProcessorDescription() + " page shards into mets file - "
+						+ e.getMessage() + ".");
+
+				if (state == null)
+					state = ProcessServiceProvider.Processor.State.interrupted;
+			}
 		}
 
-		return state == null ? execution.complete() : state;
+		final boolean isReusable = !runningState.isCanceled() && (watchdog == null || watchdog.getReason() == null)
+				&& state == null;
+		for (DockerContainerPool.Container container : containers)
+			DockerContainerPool.getInstance().release(container, isReusable);
+
+		for (Path metsCopy : metsCopies)
+			try {
+				Files.deleteIfExists(metsCopy);
+			} catch (IOException e) {
+				standardError.update("troubles deleting mets copy " + metsCopy.getFileName() + " - " + e.getMessage()
+						+ ".");
+			}
+
+		return state;
+	}
+
+	/**
+	 * Returns the number of threads, that update the paths in the xml files.
+	 * <p>
+	 * If it is <i>auto</i>, it is the number of available cores.
+	 * 
+	 * @return The number of threads, that update the paths in the xml files.
+	 * @since 1.8
+	 */
+	protected int getXmlParallelism() {
+		return getParallelism(ServiceProviderCollection.xmlParallelism);
+	}
+
+	/**
+	 * Returns the number of threads, that copy the output files into the snapshot
+	 * sandbox if it is on a different file system.
+	 * <p>
+	 * The output folder is renamed into the snapshot sandbox. If they are on
+	 * different file systems, the files are cloned with reflinks if supported
+	 * or copied by these threads. If it is <i>auto</i>, it is the number of
+	 * available cores.
+	 * 
+	 * @return The number of threads, that copy the output files.
+	 * @since 1.8
+	 */
+	protected int getMoveParallelism() {
+		return getParallelism(ServiceProviderCollection.moveParallelism);
+	}
+
+	/**
+	 * Waits until the containers of the processor run are admitted by the
+	 * process-wide admission scheduler. The queue position is reported while
+	 * waiting.
+	 * <p>
+	 * The admission cores and memory are the capacity of the node, that the
+	 * processor runs of all service providers share. The cost of a run is the
+	 * cost cores and memory of the processor times the number of containers. If
+	 * the admission cores are <i>auto</i>, they are the number of available
+	 * cores. The capacity is not limited if it is 0. The costs are set per
+	 * processor, e.g. <i>ocrd-calamari-recognize-cost-memory-megabytes</i>, and
+	 * the runs are queued per processor workspace.
+	 * 
+	 * @param framework      The framework.
+	 * @param containers     The number of concurrent containers.
+	 * @param runningState   The callback for processor running state.
+	 * @param standardOutput The callback for standard output.
+	 * @return The admission, that has to be closed after the run. Null if the
+	 *         admission control is disabled or the run was canceled while
+	 *         waiting.
+	 * @throws InterruptedException Throws if the current thread is interrupted
+	 *                              while waiting.
+	 * @since 1.8
+	 */
+	private AdmissionScheduler.Admission admit(Framework framework, int containers,
+			ProcessorRunningState runningState, Message standardOutput) throws InterruptedException {
+		String cores = ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.admissionCores);
+		final int coreCapacity = cores != null && "auto".equalsIgnoreCase(cores.trim())
+				? Runtime.getRuntime().availableProcessors()
+				: Math.max(0, getIntegerValue(ServiceProviderCollection.admissionCores, 0));
+		final long memoryCapacity = Math.max(0,
+				getIntegerValue(ServiceProviderCollection.admissionMemoryMegabytes, 0));
+
+		if (coreCapacity == 0 && memoryCapacity == 0)
+			return null;
+
+		final int costCores = containers * Math.max(0, getProcessorIntegerValue(ServiceProviderCollection.costCores,
+				getProcessorIntegerValue(ServiceProviderCollection.processorThreads, 1)));
+		final long costMemory = (long) containers
+				* Math.max(0, getProcessorIntegerValue(ServiceProviderCollection.costMemoryMegabytes, 0));
+
+		final long start = System.currentTimeMillis();
+		final boolean[] isWaiting = { false };
+
+		AdmissionScheduler.Admission admission = AdmissionScheduler.getInstance().admit(
+				framework.getProcessorWorkspace().toString(), costCores, costMemory, coreCapacity, memoryCapacity,
+				() -> runningState.isCanceled(), position -> {
+					isWaiting[0] = true;
+
+					standardOutput.update("Waiting for admission of " + containers + " container(s) with " + costCores
+							+ " core(s) and " + costMemory + " MB, " + (position == 0 ? "next in the queue"
+									: position + " run(s) ahead in the queue")
+							+ ".");
+				});
+
+		if (admission != null && isWaiting[0])
+			standardOutput.update(
+					"Admitted after waiting " + ((System.currentTimeMillis() - start) / 1000) + " seconds.");
+
+		return admission;
+	}
+
+	/**
+	 * Returns the number of threads of the parallelism key. If its value is
+	 * <i>auto</i>, it is the number of available cores.
+	 * 
+	 * @param key The parallelism key.
+	 * @return The number of threads.
+	 * @since 1.8
+	 */
+	private int getParallelism(ServiceProviderCollection key) {
+		String parallelism = ConfigurationServiceProvider.getValue(configuration, key);
+
+		return parallelism != null && "auto".equalsIgnoreCase(parallelism.trim())
+				? Runtime.getRuntime().availableProcessors()
+				: Math.max(1, getIntegerValue(key, 1));
+	}
+
+	/**
+	 * Rewrites the files concurrently.
+	 * 
+	 * @param files    The files.
+	 * @param rewriter The file rewriter.
+	 * @throws IOException Throws if files can not be rewritten. The message
+	 *                     contains the troubles of all files.
+	 * @since 1.8
+	 */
+	private void rewrite(List<Path> files, FileRewriter rewriter) throws IOException {
+		if (files.isEmpty())
+			return;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), getXmlParallelism()),
+				new DaemonThreadFactory("ocr4all-xml-rewrite"));
+
+		final List<Future<Integer>> rewrites = new ArrayList<>();
+		for (Path file : files)
+			rewrites.add(executor.submit(() -> rewriter.rewrite(file)));
+
+		executor.shutdown();
+
+		final List<String> troubles = new ArrayList<>();
+		for (int i = 0; i < files.size(); i++)
+			try {
+				rewrites.get(i).get();
+			} catch (ExecutionException e) {
+				troubles.add(files.get(i).getFileName() + ": " + e.getCause().getMessage());
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+
+				throw new IOException("the update was interrupted");
+			}
+
+		if (!troubles.isEmpty())
+			throw new IOException(troubles.size() + " of " + files.size() + " files failed ("
+					+ String.join(", ", troubles.subList(0, Math.min(10, troubles.size())))
+					+ (troubles.size() > 10 ? ", ..." : "") + ")");
+	}
+
+	/**
+	 * Returns the watchdog, that stops the docker containers if they exceed the
+	 * processor timeouts.
+	 * <p>
+	 * The timeouts are disabled if they are 0 and they can be set per
+	 * processor, e.g. <i>ocrd-eynollah-segment-inactivity-timeout-seconds</i>.
+	 * The inactivity is observed in the output folder, this means, in the
+	 * scratch folder if it is set.
+	 * 
+	 * @param framework      The framework.
+	 * @param metsFileGroup  The mets file group.
+	 * @param outputActivity The supplier for the time of the last processor
+	 *                       output.
+	 * @param dockerProcess  The docker process.
+	 * @return The watchdog.
+	 * @since 1.8
+	 */
+	private Watchdog getWatchdog(Framework framework, MetsUtils.FrameworkFileGroup metsFileGroup,
+			LongSupplier outputActivity, OCRDProcessorServiceProvider.DockerProcess dockerProcess) {
+		final Path scratchOutput = getScratchOutput(framework, metsFileGroup);
+
+		return new Watchdog(getProcessorIntegerValue(ServiceProviderCollection.timeoutSeconds, 0),
+				getProcessorIntegerValue(ServiceProviderCollection.inactivityTimeoutSeconds, 0), outputActivity,
+				scratchOutput == null
+						? Paths.get(framework.getProcessorWorkspace().toString(), metsFileGroup.getOutput())
+						: scratchOutput,
+				() -> dockerProcess.stop());
+	}
+
+	/**
+	 * Reports the reason, why the watchdog stopped the docker containers.
+	 * 
+	 * @param watchdog      The watchdog.
+	 * @param standardError The callback for standard error.
+	 * @return The processor execution state interrupted.
+	 * @since 1.8
+	 */
+	private ProcessServiceProvider.Processor.State getWatchdogState(Watchdog watchdog, Message standardError) {
+		if (Watchdog.Reason.wallClock.equals(watchdog.getReason()))
+			standardError.update("Stopped " + getProcessorDescription() + ", since it exceeded the timeout of "
+					+ watchdog.getWallClockSeconds() + " seconds.");
+		else
+			standardError.update("Stopped " + getProcessorDescription()
+					+ ", since it neither wrote output nor files for " + watchdog.getInactivitySeconds() + " seconds.");
+
+		return ProcessServiceProvider.Processor.State.interrupted;
+	}
+
+	/**
+	 * Returns the callback, that tracks the page progress of the processor output.
+	 * The progress is mapped onto the range between the base progress and the
+	 * post processing. The estimated remaining time is reported with the standard
+	 * output.
+	 * 
+	 * @param pages          The pages of the input file group. Null if unknown.
+	 * @param concurrency    The number of pages, that are processed concurrently.
+	 * @param standardOutput The callback for standard output.
+	 * @param progress       The callback for progress.
+	 * @param baseProgress   The base progress.
+	 * @return The callback for the page progress. Null if the pages are unknown.
+	 * @since 1.8
+	 */
+	private Message getPageProgress(List<String> pages, int concurrency, Message standardOutput,
+			Progress progress, float baseProgress) {
+		if (pages == null || pages.isEmpty())
+			return null;
+
+		final PageProgress pageProgress = new PageProgress(pages);
+
+		return content -> {
+			synchronized (pageProgress) {
+				if (pageProgress.update(content)) {
+					progress.update(baseProgress + (0.097F - baseProgress) * pageProgress.getFraction(concurrency));
+
+					final long remaining = pageProgress.getRemainingMilliseconds(concurrency);
+					if (remaining >= 0)
+						standardOutput.update("Processed " + pageProgress.getProcessed(concurrency) + " of "
+								+ pageProgress.getPages() + " pages, estimated remaining time "
+								+ PageProgress.format(remaining) + ".");
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the consumer for the processor output, that updates the message and
+	 * the page progress.
+	 * 
+	 * @param message      The callback for the message.
+	 * @param pageProgress The callback for the page progress. Null if not
+	 *                     required.
+	 * @return The consumer for the processor output.
+	 * @since 1.8
+	 */
+	private static Consumer<String> track(Message message, Message pageProgress) {
+		return pageProgress == null ? message::update : content -> {
+			message.update(content);
+			pageProgress.update(content);
+		};
+	}
+
+	/**
+	 * Returns the arguments for the docker process to stop the container.
+	 * 
+	 * @param dockerName The docker name. If null, the names have to be added.
+	 * @return The arguments for the docker process to stop the container.
+	 * @since 1.8
+	 */
+	private List<String> getStopContainerArguments(String dockerName) {
+		List<String> arguments = new ArrayList<>(Arrays.asList("stop", "--time="
+				+ ConfigurationServiceProvider.getValue(configuration, ServiceProviderCollection.dockerStopWaitKillSeconds)));
+
+		if (dockerName != null)
+			arguments.add(dockerName);
+
+		return arguments;
 	}
 
 	/**
@@ -890,6 +4188,77 @@ public abstract class OCRDServiceProviderWorker extends ServiceProviderCore {
 		}
 	}
 
+	/**
+	 * Defines lookups of the outputs, that were computed ahead by a fused
+	 * predecessor step or that are cached in the result cache.
+	 *
+	 * @author <a href="mailto:herbert.baier@uni-wuerzburg.de">Herbert Baier</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class OutputLookup {
+		/**
+		 * The targets and replacements of the references in the xml files of the
+		 * taken output to its former locations. Null if no output was taken.
+		 */
+		private final Map<String, String> takenReferences;
+
+		/**
+		 * The result cache. Null if not used.
+		 */
+		private final ResultCache resultCache;
+
+		/**
+		 * The result cache key of the output. Null if not cached.
+		 */
+		private final String resultCacheKey;
+
+		/**
+		 * The result cache keys of the pages. Null if the pages are not cached.
+		 */
+		private final Map<String, String> pageKeys;
+
+		/**
+		 * The result cache keys of the unchanged pages.
+		 */
+		private final Map<String, String> cachedPageKeys;
+
+		/**
+		 * Creates a lookup of the outputs.
+		 * 
+		 * @param takenReferences The targets and replacements of the references in
+		 *                        the xml files of the taken output to its former
+		 *                        locations. Null if no output was taken.
+		 * @param resultCache     The result cache. Null if not used.
+		 * @param resultCacheKey  The result cache key of the output. Null if not
+		 *                        cached.
+		 * @param pageKeys        The result cache keys of the pages. Null if the
+		 *                        pages are not cached.
+		 * @param cachedPageKeys  The result cache keys of the unchanged pages.
+		 * @since 1.8
+		 */
+		private OutputLookup(Map<String, String> takenReferences, ResultCache resultCache, String resultCacheKey,
+				Map<String, String> pageKeys, Map<String, String> cachedPageKeys) {
+			super();
+
+			this.takenReferences = takenReferences;
+			this.resultCache = resultCache;
+			this.resultCacheKey = resultCacheKey;
+			this.pageKeys = pageKeys;
+			this.cachedPageKeys = cachedPageKeys;
+		}
+
+		/**
+		 * Returns true if the output was taken.
+		 * 
+		 * @return True if the output was taken.
+		 * @since 1.8
+		 */
+		private boolean isTaken() {
+			return takenReferences != null;
+		}
+	}
+
 	/**
 	 * Defines callback for messages.
 	 *
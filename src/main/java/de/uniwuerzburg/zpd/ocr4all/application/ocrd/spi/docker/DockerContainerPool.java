@@ -0,0 +1,765 @@
+/**
+ * File:     DockerContainerPool.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.DaemonThreadFactory;
+import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
+
+/**
+ * Defines pools of long-lived docker containers. The containers are started
+ * with the command <code>sleep infinity</code> and the processors are run in
+ * them with <code>docker exec</code>, so that the container creation and the
+ * image start up is only paid once. The containers are pooled by their run
+ * arguments and docker image, this means, the user, the resource limits and
+ * the shared root folder, that is mounted for all processor workspaces below
+ * it. The processors are executed with the working directory of their
+ * processor workspace. Idle containers are evicted after a configurable time
+ * and checked for health before they are reused.
+ * <p>
+ * The executed commands write their process identifier to a file in the
+ * container, so that a canceled command can be killed without stopping the
+ * container. The container is evicted afterwards. The containers are managed
+ * with the docker command or with the docker engine api.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerContainerPool {
+	/**
+	 * The prefix of the pooled container names.
+	 */
+	private static final String containerNamePrefix = "ocr4all-pool-";
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final DockerContainerPool instance = new DockerContainerPool();
+
+	/**
+	 * The idle containers. The key is the pool key.
+	 */
+	private final Map<String, Deque<Container>> idle = new HashMap<>();
+
+	/**
+	 * The leased containers.
+	 */
+	private final Set<Container> leased = new HashSet<>();
+
+	/**
+	 * The scheduler for the maintenance of the idle containers. It is created on
+	 * demand.
+	 */
+	private ScheduledExecutorService maintenance = null;
+
+	/**
+	 * Default constructor for a docker container pool.
+	 * 
+	 * @since 1.8
+	 */
+	private DockerContainerPool() {
+		super();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> removeAll(), "ocr4all-docker-pool-shutdown"));
+	}
+
+	/**
+	 * Returns the docker container pool.
+	 * 
+	 * @return The docker container pool.
+	 * @since 1.8
+	 */
+	public static DockerContainerPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the pool key.
+	 * 
+	 * @param containerArguments The docker run arguments of the container.
+	 * @param image              The docker image.
+	 * @return The pool key.
+	 * @since 1.8
+	 */
+	private static String getKey(List<String> containerArguments, String image) {
+		return image + "\u0000" + String.join("\u0000", containerArguments);
+	}
+
+	/**
+	 * Acquires a running container. An idle container of the pool is reused if it
+	 * is healthy. Otherwise, a new container is started.
+	 * 
+	 * @param containerArguments The docker run arguments of the container, e.g.
+	 *                           user, shared root mount and limits.
+	 * @param image              The docker image.
+	 * @param client             The client, that manages the containers.
+	 * @param maximumIdle        The maximal number of idle containers for the key
+	 *                           that are retained on release.
+	 * @param idleSeconds        The number of seconds after which idle containers
+	 *                           are evicted.
+	 * @param checkSeconds       The interval in seconds for checking the idle
+	 *                           containers.
+	 * @return The container.
+	 * @throws IOException Throws if the container can not be started.
+	 * @since 1.8
+	 */
+	public Container acquire(List<String> containerArguments, String image, Client client, int maximumIdle,
+			long idleSeconds, long checkSeconds) throws IOException {
+		final String key = getKey(containerArguments, image);
+
+		Container container;
+		while ((container = poll(key)) != null) {
+			if (container.isExpired() || !container.isRunning())
+				container.remove();
+			else {
+				lease(container);
+
+				return container;
+			}
+		}
+
+		container = new Container(key, containerNamePrefix + UUID.randomUUID().toString(), client, maximumIdle,
+				idleSeconds);
+
+		List<String> arguments = new ArrayList<>(Arrays.asList("-d", "--rm", "--name", container.getName()));
+		arguments.addAll(containerArguments);
+		arguments.addAll(Arrays.asList("--entrypoint", "sleep", "--", image, "infinity"));
+
+		client.run(container.getName(), arguments);
+
+		lease(container);
+		startMaintenance(checkSeconds);
+
+		return container;
+	}
+
+	/**
+	 * Releases the container. If it is reusable and the pool for its key is not
+	 * full, it is retained as idle container. Otherwise, it is removed.
+	 * 
+	 * @param container  The container to release.
+	 * @param isReusable True if the container can be reused.
+	 * @since 1.8
+	 */
+	public void release(Container container, boolean isReusable) {
+		if (container == null)
+			return;
+
+		boolean isRetained = false;
+		synchronized (this) {
+			leased.remove(container);
+
+			if (isReusable) {
+				Deque<Container> containers = idle.computeIfAbsent(container.getKey(), key -> new ArrayDeque<>());
+
+				if (containers.size() < container.maximumIdle) {
+					container.lastUsed = System.currentTimeMillis();
+					containers.push(container);
+
+					isRetained = true;
+				}
+			}
+		}
+
+		if (!isRetained)
+			container.remove();
+	}
+
+	/**
+	 * Polls the most recently used idle container for given key.
+	 * 
+	 * @param key The pool key.
+	 * @return The idle container. Null if not available.
+	 * @since 1.8
+	 */
+	private synchronized Container poll(String key) {
+		Deque<Container> containers = idle.get(key);
+
+		return containers == null ? null : containers.poll();
+	}
+
+	/**
+	 * Marks the container as leased.
+	 * 
+	 * @param container The container.
+	 * @since 1.8
+	 */
+	private synchronized void lease(Container container) {
+		leased.add(container);
+	}
+
+	/**
+	 * Starts the maintenance of the idle containers if it is not already running.
+	 * 
+	 * @param checkSeconds The interval in seconds for checking the idle containers.
+	 * @since 1.8
+	 */
+	private synchronized void startMaintenance(long checkSeconds) {
+		if (maintenance == null) {
+			maintenance = Executors
+					.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ocr4all-docker-pool-maintenance"));
+
+			final long period = Math.max(1, checkSeconds);
+			maintenance.scheduleWithFixedDelay(() -> evict(), period, period, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Evicts the idle containers that are expired or not running anymore.
+	 * 
+	 * @since 1.8
+	 */
+	private void evict() {
+		List<Container> candidates = new ArrayList<>();
+
+		synchronized (this) {
+			for (Deque<Container> containers : idle.values())
+				candidates.addAll(containers);
+		}
+
+		for (Container container : candidates) {
+			final boolean isExpired = container.isExpired();
+
+			if (isExpired || !container.isRunning()) {
+				boolean isRemoved;
+				synchronized (this) {
+					Deque<Container> containers = idle.get(container.getKey());
+					isRemoved = containers != null && containers.remove(container);
+				}
+
+				if (isRemoved && isExpired)
+					container.remove();
+			}
+		}
+
+		synchronized (this) {
+			for (Iterator<Deque<Container>> iterator = idle.values().iterator(); iterator.hasNext();)
+				if (iterator.next().isEmpty())
+					iterator.remove();
+		}
+	}
+
+	/**
+	 * Removes all idle and leased containers.
+	 * 
+	 * @since 1.8
+	 */
+	private void removeAll() {
+		List<Container> containers = new ArrayList<>();
+
+		synchronized (this) {
+			for (Deque<Container> idleContainers : idle.values())
+				containers.addAll(idleContainers);
+
+			containers.addAll(leased);
+
+			idle.clear();
+			leased.clear();
+		}
+
+		for (Container container : containers)
+			container.remove();
+	}
+
+	/**
+	 * Defines clients, that manage the pooled containers.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public interface Client {
+		/**
+		 * Runs the container detached.
+		 * 
+		 * @param name      The container name.
+		 * @param arguments The docker run arguments without the command
+		 *                  <i>run</i>.
+		 * @throws IOException Throws if the container can not be started.
+		 * @since 1.8
+		 */
+		public void run(String name, List<String> arguments) throws IOException;
+
+		/**
+		 * Returns true if the container is running. Troubles are reported as not
+		 * running.
+		 * 
+		 * @param name The container name.
+		 * @return True if the container is running.
+		 * @since 1.8
+		 */
+		public boolean isRunning(String name);
+
+		/**
+		 * Restricts the container to the cpuset.
+		 * 
+		 * @param name   The container name.
+		 * @param cpuset The cpuset.
+		 * @throws IOException Throws if the container can not be updated.
+		 * @since 1.8
+		 */
+		public void updateCpuset(String name, String cpuset) throws IOException;
+
+		/**
+		 * Executes the command in the container and waits until it terminated.
+		 * 
+		 * @param name    The container name.
+		 * @param command The command.
+		 * @throws IOException Throws if the command can not be executed or it
+		 *                     failed.
+		 * @since 1.8
+		 */
+		public void execute(String name, List<String> command) throws IOException;
+
+		/**
+		 * Removes the container forcibly. Troubles are ignored.
+		 * 
+		 * @param name The container name.
+		 * @since 1.8
+		 */
+		public void remove(String name);
+	}
+
+	/**
+	 * Defines clients, that manage the pooled containers with the docker
+	 * command.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class CommandClient implements Client {
+		/**
+		 * The supplier for new docker processes.
+		 */
+		private final Supplier<SystemProcess> docker;
+
+		/**
+		 * Creates a client, that manages the pooled containers with the docker
+		 * command.
+		 * 
+		 * @param docker The supplier for new docker processes.
+		 * @since 1.8
+		 */
+		public CommandClient(Supplier<SystemProcess> docker) {
+			super();
+
+			this.docker = docker;
+		}
+
+		/**
+		 * Executes the docker command.
+		 * 
+		 * @param arguments The arguments.
+		 * @param action    The action for the error message, e.g. <i>start</i>.
+		 * @param name      The container name.
+		 * @return The docker process.
+		 * @throws IOException Throws if the docker command can not be executed or
+		 *                     it failed.
+		 * @since 1.8
+		 */
+		private SystemProcess execute(List<String> arguments, String action, String name) throws IOException {
+			SystemProcess process = docker.get();
+			process.execute(arguments);
+
+			if (process.getExitValue() != 0)
+				throw new IOException("cannot " + action + " pool container " + name + " - "
+						+ process.getStandardError().trim() + " (process exit code " + process.getExitValue() + ")");
+
+			return process;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#run(java.lang.String, java.util.List)
+		 */
+		@Override
+		public void run(String name, List<String> arguments) throws IOException {
+			List<String> runArguments = new ArrayList<>();
+			runArguments.add("run");
+			runArguments.addAll(arguments);
+
+			execute(runArguments, "start", name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#isRunning(java.lang.String)
+		 */
+		@Override
+		public boolean isRunning(String name) {
+			try {
+				return "true".equals(execute(Arrays.asList("inspect", "--format", "{{.State.Running}}", name),
+						"inspect", name).getStandardOutput().trim());
+			} catch (Exception e) {
+				return false;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#updateCpuset(java.lang.String, java.lang.String)
+		 */
+		@Override
+		public void updateCpuset(String name, String cpuset) throws IOException {
+			execute(Arrays.asList("update", "--cpuset-cpus", cpuset, name), "update the cpuset of", name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#execute(java.lang.String, java.util.List)
+		 */
+		@Override
+		public void execute(String name, List<String> command) throws IOException {
+			List<String> arguments = new ArrayList<>(Arrays.asList("exec", name));
+			arguments.addAll(command);
+
+			execute(arguments, "execute a command in", name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#remove(java.lang.String)
+		 */
+		@Override
+		public void remove(String name) {
+			try {
+				docker.get().execute(Arrays.asList("rm", "-f", name));
+			} catch (Exception e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Defines clients, that manage the pooled containers with the docker engine
+	 * api.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class EngineApiClient implements Client {
+		/**
+		 * The docker engine api client.
+		 */
+		private final DockerEngineClient client;
+
+		/**
+		 * Creates a client, that manages the pooled containers with the docker
+		 * engine api.
+		 * 
+		 * @param client The docker engine api client.
+		 * @since 1.8
+		 */
+		public EngineApiClient(DockerEngineClient client) {
+			super();
+
+			this.client = client;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#run(java.lang.String, java.util.List)
+		 */
+		@Override
+		public void run(String name, List<String> arguments) throws IOException {
+			final String identifier = DockerEngineProcess.createContainer(client, arguments);
+
+			try {
+				client.startContainer(identifier);
+			} catch (IOException e) {
+				try {
+					client.removeContainer(identifier);
+				} catch (IOException exception) {
+					// Nothing to do
+				}
+
+				throw new IOException("cannot start pool container " + name + " - " + e.getMessage());
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#isRunning(java.lang.String)
+		 */
+		@Override
+		public boolean isRunning(String name) {
+			try {
+				return client.isContainerRunning(name);
+			} catch (Exception e) {
+				return false;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#updateCpuset(java.lang.String, java.lang.String)
+		 */
+		@Override
+		public void updateCpuset(String name, String cpuset) throws IOException {
+			client.updateContainer(name, Map.of("CpusetCpus", cpuset));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#execute(java.lang.String, java.util.List)
+		 */
+		@Override
+		public void execute(String name, List<String> command) throws IOException {
+			final Consumer<String> ignore = line -> {
+			};
+
+			final String exec = client.createExec(name, command, null);
+			client.startExec(exec, ignore, ignore);
+
+			final int exitCode = client.getExecExitCode(exec);
+			if (exitCode != 0)
+				throw new IOException("cannot execute a command in pool container " + name + " (exit code "
+						+ exitCode + ")");
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerContainerPool.
+		 * Client#remove(java.lang.String)
+		 */
+		@Override
+		public void remove(String name) {
+			try {
+				client.removeContainer(name);
+			} catch (Exception e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Defines pooled docker containers.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Container {
+		/**
+		 * The pool key.
+		 */
+		private final String key;
+
+		/**
+		 * The container name.
+		 */
+		private final String name;
+
+		/**
+		 * The client, that manages the container.
+		 */
+		private final Client client;
+
+		/**
+		 * The maximal number of idle containers for the key that are retained on
+		 * release.
+		 */
+		private final int maximumIdle;
+
+		/**
+		 * The number of milliseconds after which the idle container is evicted.
+		 */
+		private final long idleMilliseconds;
+
+		/**
+		 * The time the container was used the last time.
+		 */
+		private volatile long lastUsed;
+
+		/**
+		 * The process identifier file of the executed command in the container.
+		 * Null if no command was executed.
+		 */
+		private volatile String processFile = null;
+
+		/**
+		 * Creates a pooled docker container.
+		 * 
+		 * @param key         The pool key.
+		 * @param name        The container name.
+		 * @param client      The client, that manages the container.
+		 * @param maximumIdle The maximal number of idle containers for the key that
+		 *                    are retained on release.
+		 * @param idleSeconds The number of seconds after which the idle container is
+		 *                    evicted.
+		 * @since 1.8
+		 */
+		private Container(String key, String name, Client client, int maximumIdle, long idleSeconds) {
+			super();
+
+			this.key = key;
+			this.name = name;
+			this.client = client;
+			this.maximumIdle = maximumIdle;
+
+			idleMilliseconds = 1000 * Math.max(0, idleSeconds);
+			lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Returns the pool key.
+		 * 
+		 * @return The pool key.
+		 * @since 1.8
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns the container name.
+		 * 
+		 * @return The container name.
+		 * @since 1.8
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns true if the idle time of the container is expired.
+		 * 
+		 * @return True if the idle time of the container is expired.
+		 * @since 1.8
+		 */
+		private boolean isExpired() {
+			return System.currentTimeMillis() - lastUsed > idleMilliseconds;
+		}
+
+		/**
+		 * Returns the docker exec arguments to execute the command in the
+		 * container. The command writes its process identifier to a file in the
+		 * container, so that it can be killed.
+		 * 
+		 * @param workingDirectory The working directory in the container.
+		 * @param command          The command.
+		 * @return The docker exec arguments.
+		 * @since 1.8
+		 */
+		public List<String> getExecArguments(String workingDirectory, List<String> command) {
+			processFile = "/tmp/" + containerNamePrefix + UUID.randomUUID().toString() + ".pid";
+
+			List<String> arguments = new ArrayList<>(Arrays.asList("exec", "-w", workingDirectory, name, "sh", "-c",
+					"echo $$ > " + processFile + " && exec \"$@\"", "sh"));
+			arguments.addAll(command);
+
+			return arguments;
+		}
+
+		/**
+		 * Restricts the container to the cpuset.
+		 * 
+		 * @param cpuset The cpuset.
+		 * @throws IOException Throws if the container can not be updated.
+		 * @since 1.8
+		 */
+		public void updateCpuset(String cpuset) throws IOException {
+			client.updateCpuset(name, cpuset);
+		}
+
+		/**
+		 * Kills the executed command without stopping the container. It is
+		 * terminated first and killed if it is still running after the wait time.
+		 * If the command can not be killed, the container is removed. The
+		 * container has to be released as not reusable afterwards.
+		 * 
+		 * @param waitSeconds The number of seconds to wait before the command is
+		 *                    killed.
+		 * @since 1.8
+		 */
+		public void kill(int waitSeconds) {
+			final String file = processFile;
+			if (file == null)
+				return;
+
+			try {
+				client.execute(name, Arrays.asList("sh", "-c",
+						"if [ -f " + file + " ]; then p=$(cat " + file + "); kill -TERM \"$p\" 2>/dev/null; i=0; "
+								+ "while [ $i -lt " + Math.max(0, waitSeconds) + " ] && kill -0 \"$p\" 2>/dev/null; "
+								+ "do sleep 1; i=$((i+1)); done; kill -KILL \"$p\" 2>/dev/null; fi; true"));
+			} catch (IOException e) {
+				remove();
+			}
+		}
+
+		/**
+		 * Returns true if the container is running. This is the health check of the
+		 * pooled containers.
+		 * 
+		 * @return True if the container is running.
+		 * @since 1.8
+		 */
+		private boolean isRunning() {
+			return client.isRunning(name);
+		}
+
+		/**
+		 * Removes the container. Troubles are ignored, since the container is started
+		 * with the option to remove it when it stops.
+		 * 
+		 * @since 1.8
+		 */
+		private void remove() {
+			client.remove(name);
+		}
+	}
+}
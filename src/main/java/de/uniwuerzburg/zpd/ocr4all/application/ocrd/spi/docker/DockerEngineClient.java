@@ -0,0 +1,788 @@
+/**
+ * File:     DockerEngineClient.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Defines clients of the docker engine api, that talk http directly to the
+ * unix socket of the docker daemon, instead of forking the docker command line
+ * interface. Every request uses its own connection. The output of containers
+ * and execs is streamed over the hijacked attach connection, whose frames are
+ * demultiplexed into the lines of the standard output and error.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerEngineClient {
+	/**
+	 * The default docker socket.
+	 */
+	public static final String defaultSocket = "/var/run/docker.sock";
+
+	/**
+	 * The stream type of the standard output in the multiplexed frames.
+	 */
+	private static final int standardOutputStream = 1;
+
+	/**
+	 * The stream type of the standard error in the multiplexed frames.
+	 */
+	private static final int standardErrorStream = 2;
+
+	/**
+	 * The time in milliseconds between the inspections of an exec instance, that
+	 * is still running.
+	 */
+	private static final long execPollMilliseconds = 50;
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The docker socket.
+	 */
+	private final Path socket;
+
+	/**
+	 * Creates a docker engine api client.
+	 * 
+	 * @param socket The docker socket.
+	 * @since 1.8
+	 */
+	public DockerEngineClient(Path socket) {
+		super();
+
+		this.socket = socket;
+	}
+
+	/**
+	 * Returns the docker socket.
+	 * 
+	 * @return The docker socket.
+	 * @since 1.8
+	 */
+	public Path getSocket() {
+		return socket;
+	}
+
+	/**
+	 * Creates a container.
+	 * 
+	 * @param name        The container name. Null if the name is generated by
+	 *                    docker.
+	 * @param image       The docker image.
+	 * @param command     The command.
+	 * @param user        The user. Null if not required.
+	 * @param workingDir  The working directory. Null if not required.
+	 * @param environment The environment variables in the form
+	 *                    <i>name=value</i>. Null if not required.
+	 * @param binds       The bind mounts in the form
+	 *                    <i>source:target[:options]</i>. Null if not required.
+	 * @param resources   The resource limits of the host configuration by field
+	 *                    name of the docker engine api, e.g. <i>NanoCpus</i>,
+	 *                    <i>Memory</i> and <i>CpusetCpus</i>. Null if not
+	 *                    required.
+	 * @param entrypoint  The entrypoint. Null if the entrypoint of the image is
+	 *                    used.
+	 * @return The container identifier.
+	 * @throws IOException Throws if the container can not be created.
+	 * @since 1.8
+	 */
+	public String createContainer(String name, String image, List<String> command, String user, String workingDir,
+			List<String> environment, List<String> binds, Map<String, Object> resources, String entrypoint)
+			throws IOException {
+		ObjectNode body = objectMapper.createObjectNode();
+
+		body.put("Image", image);
+		body.put("AttachStdout", true);
+		body.put("AttachStderr", true);
+		body.put("Tty", false);
+		body.set("Cmd", toArray(command));
+
+		if (entrypoint != null)
+			body.set("Entrypoint", toArray(List.of(entrypoint)));
+		if (user != null)
+			body.put("User", user);
+		if (workingDir != null)
+			body.put("WorkingDir", workingDir);
+		if (environment != null && !environment.isEmpty())
+			body.set("Env", toArray(environment));
+
+		ObjectNode hostConfig = body.putObject("HostConfig");
+		if (binds != null && !binds.isEmpty())
+			hostConfig.set("Binds", toArray(binds));
+		if (resources != null)
+			for (Map.Entry<String, Object> resource : resources.entrySet())
+				hostConfig.set(resource.getKey(), objectMapper.valueToTree(resource.getValue()));
+
+		JsonNode response = request("POST",
+				"/containers/create" + (name == null ? "" : "?name=" + encode(name)), body);
+
+		return getText(response, "Id");
+	}
+
+	/**
+	 * Attaches to the standard output and error of the container and starts it.
+	 * Attaching before starting ensures, that no output is lost. The method
+	 * returns when the container closed its output, this means, it terminated.
+	 * 
+	 * @param container      The container identifier or name.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @throws IOException Throws if the container can not be attached or
+	 *                     started.
+	 * @since 1.8
+	 */
+	public void attachAndStart(String container, Consumer<String> standardOutput, Consumer<String> standardError)
+			throws IOException {
+		try (SocketChannel channel = open()) {
+			InputStream inputStream = hijack(channel, "POST",
+					"/containers/" + encode(container) + "/attach?stream=1&stdout=1&stderr=1", null);
+
+			request("POST", "/containers/" + encode(container) + "/start", null);
+
+			demultiplex(inputStream, standardOutput, standardError);
+		}
+	}
+
+	/**
+	 * Starts the container without attaching to its output, e.g. a detached
+	 * container of the docker container pool.
+	 * 
+	 * @param container The container identifier or name.
+	 * @throws IOException Throws if the container can not be started.
+	 * @since 1.8
+	 */
+	public void startContainer(String container) throws IOException {
+		request("POST", "/containers/" + encode(container) + "/start", null);
+	}
+
+	/**
+	 * Returns true if the container is running.
+	 * 
+	 * @param container The container identifier or name.
+	 * @return True if the container is running.
+	 * @throws IOException Throws if the container can not be inspected.
+	 * @since 1.8
+	 */
+	public boolean isContainerRunning(String container) throws IOException {
+		return request("GET", "/containers/" + encode(container) + "/json", null).path("State").path("Running")
+				.asBoolean(false);
+	}
+
+	/**
+	 * Updates the resource limits of the container.
+	 * 
+	 * @param container The container identifier or name.
+	 * @param resources The resource limits by field name of the docker engine
+	 *                  api, e.g. <i>CpusetCpus</i>.
+	 * @throws IOException Throws if the container can not be updated.
+	 * @since 1.8
+	 */
+	public void updateContainer(String container, Map<String, Object> resources) throws IOException {
+		request("POST", "/containers/" + encode(container) + "/update", objectMapper.valueToTree(resources));
+	}
+
+	/**
+	 * Waits until the container is not running anymore.
+	 * 
+	 * @param container The container identifier or name.
+	 * @return The exit code of the container.
+	 * @throws IOException Throws if the container can not be waited for.
+	 * @since 1.8
+	 */
+	public int waitContainer(String container) throws IOException {
+		JsonNode response = request("POST", "/containers/" + encode(container) + "/wait?condition=not-running",
+				null);
+
+		JsonNode error = response.get("Error");
+		if (error != null && error.hasNonNull("Message") && !error.get("Message").asText().isBlank())
+			throw new IOException("cannot wait for container " + container + " - " + error.get("Message").asText());
+
+		return response.path("StatusCode").asInt(-1);
+	}
+
+	/**
+	 * Stops the container. The container is killed if it does not stop in the
+	 * wait time.
+	 * 
+	 * @param container   The container identifier or name.
+	 * @param waitSeconds The number of seconds to wait before killing the
+	 *                    container.
+	 * @throws IOException Throws if the container can not be stopped.
+	 * @since 1.8
+	 */
+	public void stopContainer(String container, int waitSeconds) throws IOException {
+		request("POST", "/containers/" + encode(container) + "/stop?t=" + Math.max(0, waitSeconds), null);
+	}
+
+	/**
+	 * Removes the container forcibly, this means, a running container is killed.
+	 * 
+	 * @param container The container identifier or name.
+	 * @throws IOException Throws if the container can not be removed.
+	 * @since 1.8
+	 */
+	public void removeContainer(String container) throws IOException {
+		request("DELETE", "/containers/" + encode(container) + "?force=1", null);
+	}
+
+	/**
+	 * Creates an exec instance in the running container.
+	 * 
+	 * @param container  The container identifier or name.
+	 * @param command    The command.
+	 * @param workingDir The working directory. Null if not required.
+	 * @return The exec identifier.
+	 * @throws IOException Throws if the exec instance can not be created.
+	 * @since 1.8
+	 */
+	public String createExec(String container, List<String> command, String workingDir) throws IOException {
+		ObjectNode body = objectMapper.createObjectNode();
+
+		body.put("AttachStdout", true);
+		body.put("AttachStderr", true);
+		body.put("Tty", false);
+		body.set("Cmd", toArray(command));
+
+		if (workingDir != null)
+			body.put("WorkingDir", workingDir);
+
+		return getText(request("POST", "/containers/" + encode(container) + "/exec", body), "Id");
+	}
+
+	/**
+	 * Starts the exec instance and streams its standard output and error. The
+	 * method returns when the exec instance terminated.
+	 * 
+	 * @param exec           The exec identifier.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @throws IOException Throws if the exec instance can not be started.
+	 * @since 1.8
+	 */
+	public void startExec(String exec, Consumer<String> standardOutput, Consumer<String> standardError)
+			throws IOException {
+		ObjectNode body = objectMapper.createObjectNode();
+		body.put("Detach", false);
+		body.put("Tty", false);
+
+		try (SocketChannel channel = open()) {
+			demultiplex(hijack(channel, "POST", "/exec/" + encode(exec) + "/start", body), standardOutput,
+					standardError);
+		}
+	}
+
+	/**
+	 * Returns the exit code of the exec instance. Since the exec instance can be
+	 * reported as running for a short time after its streams were closed, it is
+	 * inspected until it terminated.
+	 * 
+	 * @param exec The exec identifier.
+	 * @return The exit code of the exec instance. -1 if it is not available.
+	 * @throws IOException Throws if the exec instance can not be inspected or the
+	 *                     thread was interrupted.
+	 * @since 1.8
+	 */
+	public int getExecExitCode(String exec) throws IOException {
+		while (true) {
+			JsonNode response = request("GET", "/exec/" + encode(exec) + "/json", null);
+
+			if (!response.path("Running").asBoolean(false))
+				return response.path("ExitCode").asInt(-1);
+
+			try {
+				Thread.sleep(execPollMilliseconds);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+
+				throw new IOException("interrupted inspecting the docker exec instance " + exec);
+			}
+		}
+	}
+
+	/**
+	 * Opens a connection to the docker socket.
+	 * 
+	 * @return The connection.
+	 * @throws IOException Throws if the connection can not be opened.
+	 * @since 1.8
+	 */
+	private SocketChannel open() throws IOException {
+		try {
+			return SocketChannel.open(UnixDomainSocketAddress.of(socket));
+		} catch (IOException e) {
+			throw new IOException("cannot connect to docker socket " + socket + " - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Performs the request and returns the JSON response.
+	 * 
+	 * @param method The http method.
+	 * @param path   The path with the query.
+	 * @param body   The JSON body. Null if not required.
+	 * @return The JSON response. An empty object if the response has no body.
+	 * @throws IOException Throws if the request failed or the response status is
+	 *                     not successful.
+	 * @since 1.8
+	 */
+	private JsonNode request(String method, String path, JsonNode body) throws IOException {
+		try (SocketChannel channel = open()) {
+			InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel));
+
+			write(channel, method, path, body, false);
+
+			Response response = readResponse(inputStream);
+			response.check(inputStream, method, path);
+
+			byte[] content = response.readBody(inputStream);
+
+			return content.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(content);
+		}
+	}
+
+	/**
+	 * Performs the request and returns the hijacked raw stream.
+	 * 
+	 * @param channel The connection.
+	 * @param method  The http method.
+	 * @param path    The path with the query.
+	 * @param body    The JSON body. Null if not required.
+	 * @return The hijacked raw stream.
+	 * @throws IOException Throws if the request failed or the response status is
+	 *                     not successful.
+	 * @since 1.8
+	 */
+	private static InputStream hijack(SocketChannel channel, String method, String path, JsonNode body)
+			throws IOException {
+		InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel));
+
+		write(channel, method, path, body, true);
+
+		Response response = readResponse(inputStream);
+		if (response.status != 101)
+			response.check(inputStream, method, path);
+
+		return inputStream;
+	}
+
+	/**
+	 * Writes the request.
+	 * 
+	 * @param channel  The connection.
+	 * @param method   The http method.
+	 * @param path     The path with the query.
+	 * @param body     The JSON body. Null if not required.
+	 * @param isUpgrade True if the connection is upgraded to a raw stream.
+	 * @throws IOException Throws if the request can not be written.
+	 * @since 1.8
+	 */
+	private static void write(SocketChannel channel, String method, String path, JsonNode body, boolean isUpgrade)
+			throws IOException {
+		byte[] content = body == null ? new byte[0] : objectMapper.writeValueAsBytes(body);
+
+		StringBuilder header = new StringBuilder();
+		header.append(method).append(" ").append(path).append(" HTTP/1.1\r\n");
+		header.append("Host: docker\r\n");
+		if (isUpgrade)
+			header.append("Connection: Upgrade\r\nUpgrade: tcp\r\n");
+		else
+			header.append("Connection: close\r\n");
+		if (body != null)
+			header.append("Content-Type: application/json\r\n");
+		header.append("Content-Length: ").append(content.length).append("\r\n\r\n");
+
+		OutputStream outputStream = Channels.newOutputStream(channel);
+		outputStream.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+		outputStream.write(content);
+		outputStream.flush();
+	}
+
+	/**
+	 * Reads the status line and headers of the response.
+	 * 
+	 * @param inputStream The input stream.
+	 * @return The response.
+	 * @throws IOException Throws if the response can not be read.
+	 * @since 1.8
+	 */
+	private static Response readResponse(InputStream inputStream) throws IOException {
+		String statusLine = readLine(inputStream);
+		if (statusLine == null)
+			throw new IOException("the docker daemon closed the connection");
+
+		String[] status = statusLine.split(" ", 3);
+		if (status.length < 2 || !status[0].startsWith("HTTP/"))
+			throw new IOException("invalid response status line '" + statusLine + "' of the docker daemon");
+
+		Response response;
+		try {
+			response = new Response(Integer.parseInt(status[1]));
+		} catch (NumberFormatException e) {
+			throw new IOException("invalid response status line '" + statusLine + "' of the docker daemon");
+		}
+
+		String line;
+		while ((line = readLine(inputStream)) != null && !line.isEmpty()) {
+			int index = line.indexOf(':');
+			if (index > 0)
+				response.headers.put(line.substring(0, index).trim().toLowerCase(Locale.ROOT),
+						line.substring(index + 1).trim());
+		}
+
+		return response;
+	}
+
+	/**
+	 * Reads a line terminated by CRLF or LF.
+	 * 
+	 * @param inputStream The input stream.
+	 * @return The line without terminator. Null if the end of the stream is
+	 *         reached.
+	 * @throws IOException Throws if the line can not be read.
+	 * @since 1.8
+	 */
+	private static String readLine(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+		int value;
+		while ((value = inputStream.read()) != -1 && value != '\n')
+			line.write(value);
+
+		if (value == -1 && line.size() == 0)
+			return null;
+
+		String text = line.toString(StandardCharsets.UTF_8);
+		return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+	}
+
+	/**
+	 * Demultiplexes the raw stream of a container without tty. Every frame has a
+	 * header of 8 bytes, this means, the stream type, three zero bytes and the
+	 * payload size as big-endian integer, followed by the payload. The payloads
+	 * are split into lines. The payloads are read through a buffer of fixed size,
+	 * so that the frame size does not determine the allocated memory.
+	 * 
+	 * @param inputStream    The raw stream.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @throws IOException Throws if the stream can not be read.
+	 * @since 1.8
+	 */
+	private static void demultiplex(InputStream inputStream, Consumer<String> standardOutput,
+			Consumer<String> standardError) throws IOException {
+		final Lines output = new Lines(standardOutput);
+		final Lines error = new Lines(standardError);
+
+		final byte[] header = new byte[8];
+		final byte[] payload = new byte[8 * 1024];
+
+		boolean isComplete = true;
+		while (isComplete && inputStream.readNBytes(header, 0, header.length) == header.length) {
+			int size = ((header[4] & 0xff) << 24) | ((header[5] & 0xff) << 16) | ((header[6] & 0xff) << 8)
+					| (header[7] & 0xff);
+
+			if (size < 0)
+				throw new IOException("invalid frame size " + size + " in the docker stream");
+
+			// The payload is copied through the fixed buffer, so that large frames are not allocated
+			final Lines lines = header[0] == standardErrorStream ? error
+					: (header[0] == standardOutputStream ? output : null);
+			while (size > 0) {
+				final int length = inputStream.readNBytes(payload, 0, Math.min(size, payload.length));
+				if (length == 0) {
+					isComplete = false;
+
+					break;
+				}
+
+				if (lines != null)
+					lines.append(payload, length);
+
+				size -= length;
+			}
+		}
+
+		output.flush();
+		error.flush();
+	}
+
+	/**
+	 * Returns the strings as JSON array.
+	 * 
+	 * @param values The strings.
+	 * @return The JSON array.
+	 * @since 1.8
+	 */
+	private static ArrayNode toArray(List<String> values) {
+		ArrayNode array = objectMapper.createArrayNode();
+
+		for (String value : values)
+			array.add(value);
+
+		return array;
+	}
+
+	/**
+	 * Returns the text of the field of the JSON response.
+	 * 
+	 * @param response The JSON response.
+	 * @param field    The field.
+	 * @return The text of the field.
+	 * @throws IOException Throws if the field is not available.
+	 * @since 1.8
+	 */
+	private static String getText(JsonNode response, String field) throws IOException {
+		JsonNode value = response.get(field);
+		if (value == null || value.asText().isBlank())
+			throw new IOException("the docker daemon response misses the field " + field);
+
+		return value.asText();
+	}
+
+	/**
+	 * Returns the value encoded for a path or query of an url.
+	 * 
+	 * @param value The value.
+	 * @return The encoded value.
+	 * @since 1.8
+	 */
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+
+	/**
+	 * Defines responses of the docker daemon.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Response {
+		/**
+		 * The status code.
+		 */
+		private final int status;
+
+		/**
+		 * The headers. The keys are in lower case.
+		 */
+		private final Map<String, String> headers = new HashMap<>();
+
+		/**
+		 * Creates a response.
+		 * 
+		 * @param status The status code.
+		 * @since 1.8
+		 */
+		private Response(int status) {
+			super();
+
+			this.status = status;
+		}
+
+		/**
+		 * Reads the body of the response. Chunked bodies are decoded.
+		 * 
+		 * @param inputStream The input stream.
+		 * @return The body.
+		 * @throws IOException Throws if the body can not be read.
+		 * @since 1.8
+		 */
+		private byte[] readBody(InputStream inputStream) throws IOException {
+			if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+				String line;
+				while ((line = readLine(inputStream)) != null) {
+					final int index = line.indexOf(';');
+
+					int size;
+					try {
+						size = Integer.parseInt((index < 0 ? line : line.substring(0, index)).trim(), 16);
+					} catch (NumberFormatException e) {
+						throw new IOException("invalid chunk size '" + line + "' in the docker daemon response");
+					}
+
+					if (size == 0)
+						break;
+
+					byte[] chunk = inputStream.readNBytes(size);
+					if (chunk.length != size)
+						throw new IOException("truncated chunk in the docker daemon response");
+
+					body.write(chunk);
+
+					readLine(inputStream);
+				}
+
+				return body.toByteArray();
+			}
+
+			String length = headers.get("content-length");
+			if (length != null)
+				try {
+					return inputStream.readNBytes(Integer.parseInt(length));
+				} catch (NumberFormatException e) {
+					throw new IOException("invalid content length '" + length + "' in the docker daemon response");
+				}
+
+			return inputStream.readAllBytes();
+		}
+
+		/**
+		 * Checks the status code of the response.
+		 * 
+		 * @param inputStream The input stream.
+		 * @param method      The http method of the request.
+		 * @param path        The path of the request.
+		 * @throws IOException Throws if the status code is not successful. The
+		 *                     message of the docker daemon is reported if
+		 *                     available.
+		 * @since 1.8
+		 */
+		private void check(InputStream inputStream, String method, String path) throws IOException {
+			if (status >= 200 && status < 300)
+				return;
+
+			String message = null;
+			try {
+				message = objectMapper.readTree(readBody(inputStream)).path("message").asText(null);
+			} catch (Exception e) {
+				// Nothing to do, only the status is reported
+			}
+
+			throw new IOException("docker engine api " + method + " " + path + " failed with status " + status
+					+ (message == null || message.isBlank() ? "" : " - " + message.trim()));
+		}
+	}
+
+	/**
+	 * Defines assemblers of the lines of a stream, whose payloads can split lines
+	 * and multi-byte characters. Like {@link java.io.BufferedReader#readLine()},
+	 * a line is terminated by a line feed, a carriage return or a carriage return
+	 * followed by a line feed, so that progress bars, that only return the
+	 * carriage, yield lines. Longer lines than the maximal line size are split.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Lines {
+		/**
+		 * The maximal line size in bytes.
+		 */
+		private static final int maximalLineSize = 64 * 1024;
+
+		/**
+		 * The consumer for the lines.
+		 */
+		private final Consumer<String> consumer;
+
+		/**
+		 * The bytes of the incomplete line.
+		 */
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+		/**
+		 * True if the last line was terminated by a carriage return, so that a
+		 * following line feed is skipped.
+		 */
+		private boolean isCarriageReturn = false;
+
+		/**
+		 * Creates an assembler of lines.
+		 * 
+		 * @param consumer The consumer for the lines.
+		 * @since 1.8
+		 */
+		private Lines(Consumer<String> consumer) {
+			super();
+
+			this.consumer = consumer;
+		}
+
+		/**
+		 * Appends the payload and passes the completed lines to the consumer.
+		 * 
+		 * @param payload The payload.
+		 * @param size    The payload size.
+		 * @since 1.8
+		 */
+		private void append(byte[] payload, int size) {
+			int start = 0;
+			for (int i = 0; i < size; i++) {
+				if (payload[i] == '\n' && isCarriageReturn) {
+					// The line feed of a carriage return
+					start = i + 1;
+				} else if (payload[i] == '\n' || payload[i] == '\r') {
+					line.write(payload, start, i - start);
+					start = i + 1;
+
+					accept();
+				} else if (line.size() + i - start >= maximalLineSize) {
+					line.write(payload, start, i - start);
+					start = i;
+
+					accept();
+				}
+
+				isCarriageReturn = payload[i] == '\r';
+			}
+
+			line.write(payload, start, size - start);
+		}
+
+		/**
+		 * Passes the incomplete line to the consumer if it is not empty.
+		 * 
+		 * @since 1.8
+		 */
+		private void flush() {
+			if (line.size() > 0)
+				accept();
+		}
+
+		/**
+		 * Passes the line to the consumer.
+		 * 
+		 * @since 1.8
+		 */
+		private void accept() {
+			String text = line.toString(StandardCharsets.UTF_8);
+			line.reset();
+
+			consumer.accept(text);
+		}
+	}
+}
@@ -0,0 +1,341 @@
+/**
+ * File:     DockerEngineProcess.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines docker processes, that are executed with the docker engine api
+ * instead of the docker command line interface. The arguments are the ones of
+ * the docker command line interface, so that the processes can replace the
+ * forked docker processes. The supported commands are:
+ * <ul>
+ * <li>run [--rm] [--name name] [-u user] [-v bind] [-w folder] [-e variable]
+ * [--cpus cpus] [--memory bytes] [--cpuset-cpus cpuset] [--entrypoint
+ * entrypoint] [--] image [command...]: the container is created, attached,
+ * started, waited for and removed.</li>
+ * <li>exec [-w folder] container command...: the command is executed in the
+ * running container.</li>
+ * </ul>
+ * <p>
+ * On cancellation, the container of the run command is stopped. The command
+ * executed in a pooled container is not stopped, since this would stop the
+ * whole container. It is killed by the docker container pool instead.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerEngineProcess extends StreamingProcess {
+	/**
+	 * The pattern of the docker memory values.
+	 */
+	private static final Pattern memoryPattern = Pattern.compile("(\\d+(?:\\.\\d+)?) ?([kmgtp]?)i?b?",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * The docker engine api client.
+	 */
+	private final DockerEngineClient client;
+
+	/**
+	 * The number of seconds to wait before a stopped container is killed.
+	 */
+	private final int stopWaitSeconds;
+
+	/**
+	 * The running container. Null if not running.
+	 */
+	private volatile String container = null;
+
+	/**
+	 * The running exec instance. Null if not running.
+	 */
+	private volatile String exec = null;
+
+	/**
+	 * Creates a docker process, that is executed with the docker engine api.
+	 * 
+	 * @param client          The docker engine api client.
+	 * @param stopWaitSeconds The number of seconds to wait before a stopped
+	 *                        container is killed.
+	 * @since 1.8
+	 */
+	public DockerEngineProcess(DockerEngineClient client, int stopWaitSeconds) {
+		super(null, "unix://" + client.getSocket());
+
+		this.client = client;
+		this.stopWaitSeconds = stopWaitSeconds;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess#run(
+	 * java.util.List, java.util.function.Consumer, java.util.function.Consumer)
+	 */
+	@Override
+	protected int run(List<String> arguments, Consumer<String> standardOutput, Consumer<String> standardError)
+			throws IOException {
+		if (arguments == null || arguments.isEmpty())
+			throw new IOException("missing docker command");
+
+		switch (arguments.get(0)) {
+		case "run":
+			return runContainer(arguments.subList(1, arguments.size()), standardOutput, standardError);
+		case "exec":
+			return execContainer(arguments.subList(1, arguments.size()), standardOutput, standardError);
+		default:
+			throw new IOException("unsupported docker command '" + arguments.get(0) + "' for the docker engine api");
+		}
+	}
+
+	/**
+	 * Creates, attaches, starts and waits for the container. It is removed
+	 * afterwards.
+	 * 
+	 * @param arguments      The arguments of the docker run command.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @return The exit code of the container.
+	 * @throws IOException Throws if the arguments are not supported or the
+	 *                     container can not be executed.
+	 * @since 1.8
+	 */
+	private int runContainer(List<String> arguments, Consumer<String> standardOutput,
+			Consumer<String> standardError) throws IOException {
+		final String identifier = createContainer(client, arguments);
+		try {
+			container = identifier;
+
+			if (isCanceled())
+				throw new IOException("the process was canceled");
+
+			client.attachAndStart(identifier, standardOutput, standardError);
+
+			return client.waitContainer(identifier);
+		} finally {
+			container = null;
+
+			try {
+				client.removeContainer(identifier);
+			} catch (IOException e) {
+				// Nothing to do, the container was removed by the stop
+			}
+		}
+	}
+
+	/**
+	 * Creates the container of the docker run arguments. The options
+	 * <i>--rm</i> and <i>-d</i> are ignored, since the callers remove and
+	 * attach the container themselves.
+	 * 
+	 * @param client    The docker engine api client.
+	 * @param arguments The arguments of the docker run command.
+	 * @return The container identifier.
+	 * @throws IOException Throws if the arguments are not supported or the
+	 *                     container can not be created.
+	 * @since 1.8
+	 */
+	static String createContainer(DockerEngineClient client, List<String> arguments) throws IOException {
+		String name = null;
+		String user = null;
+		String workingDir = null;
+		String entrypoint = null;
+		List<String> environment = new ArrayList<>();
+		List<String> binds = new ArrayList<>();
+		Map<String, Object> resources = new HashMap<>();
+
+		int index = 0;
+		for (; index < arguments.size(); index++) {
+			final String argument = arguments.get(index);
+
+			if ("--".equals(argument)) {
+				index++;
+				break;
+			} else if (!argument.startsWith("-"))
+				break;
+			else if ("--rm".equals(argument) || "-d".equals(argument))
+				continue;
+
+			final String value = getOptionValue(arguments, index++);
+			switch (argument) {
+			case "--name":
+				name = value;
+				break;
+			case "-u":
+				user = value;
+				break;
+			case "-w":
+				workingDir = value;
+				break;
+			case "-e":
+				environment.add(value);
+				break;
+			case "-v":
+				binds.add(value);
+				break;
+			case "--entrypoint":
+				entrypoint = value;
+				break;
+			case "--cpus":
+				try {
+					resources.put("NanoCpus", Math.round(1e9 * Double.parseDouble(value)));
+				} catch (NumberFormatException e) {
+					throw new IOException("invalid docker cpus '" + value + "'");
+				}
+				break;
+			case "--memory":
+				resources.put("Memory", getBytes(value));
+				break;
+			case "--cpuset-cpus":
+				resources.put("CpusetCpus", value);
+				break;
+			default:
+				throw new IOException("unsupported docker run option '" + argument + "' for the docker engine api");
+			}
+		}
+
+		if (index >= arguments.size())
+			throw new IOException("missing docker image");
+
+		final String image = arguments.get(index);
+		final List<String> command = new ArrayList<>(arguments.subList(index + 1, arguments.size()));
+
+		return client.createContainer(name, image, command, user, workingDir, environment, binds, resources,
+				entrypoint);
+	}
+
+	/**
+	 * Executes the command in the running container.
+	 * 
+	 * @param arguments      The arguments of the docker exec command.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @return The exit code of the command.
+	 * @throws IOException Throws if the arguments are not supported or the
+	 *                     command can not be executed.
+	 * @since 1.8
+	 */
+	private int execContainer(List<String> arguments, Consumer<String> standardOutput,
+			Consumer<String> standardError) throws IOException {
+		String workingDir = null;
+
+		int index = 0;
+		for (; index < arguments.size() && arguments.get(index).startsWith("-"); index++)
+			if ("-w".equals(arguments.get(index)))
+				workingDir = getOptionValue(arguments, index++);
+			else
+				throw new IOException(
+						"unsupported docker exec option '" + arguments.get(index) + "' for the docker engine api");
+
+		if (index + 1 >= arguments.size())
+			throw new IOException("missing docker container or command");
+
+		final String name = arguments.get(index);
+
+		final String identifier = client.createExec(name,
+				new ArrayList<>(arguments.subList(index + 1, arguments.size())), workingDir);
+		try {
+			exec = identifier;
+
+			if (isCanceled())
+				throw new IOException("the process was canceled");
+
+			client.startExec(identifier, standardOutput, standardError);
+
+			return client.getExecExitCode(identifier);
+		} finally {
+			exec = null;
+		}
+	}
+
+	/**
+	 * Returns the value of the option.
+	 * 
+	 * @param arguments The arguments.
+	 * @param index     The index of the option.
+	 * @return The value of the option.
+	 * @throws IOException Throws if the value is missing.
+	 * @since 1.8
+	 */
+	private static String getOptionValue(List<String> arguments, int index) throws IOException {
+		if (index + 1 >= arguments.size())
+			throw new IOException("missing value of the docker option '" + arguments.get(index) + "'");
+
+		return arguments.get(index + 1);
+	}
+
+	/**
+	 * Returns the number of bytes of the docker memory value, this means, a
+	 * decimal number with an optional unit <i>k</i>, <i>m</i>, <i>g</i>,
+	 * <i>t</i> or <i>p</i> and an optional suffix <i>b</i> or <i>ib</i>, e.g.
+	 * <i>512mb</i> or <i>1.5g</i>. The units are binary and case insensitive,
+	 * like the ones of the docker command.
+	 * 
+	 * @param value The docker memory value.
+	 * @return The number of bytes.
+	 * @throws IOException Throws if the value is invalid.
+	 * @since 1.8
+	 */
+	private static long getBytes(String value) throws IOException {
+		Matcher matcher = memoryPattern.matcher(value.trim());
+		if (!matcher.matches())
+			throw new IOException("invalid docker memory '" + value + "'");
+
+		final String unit = matcher.group(2).toLowerCase(Locale.ROOT);
+		final int exponent = unit.isEmpty() ? 0 : "kmgtp".indexOf(unit) + 1;
+
+		// The fraction of a byte is truncated like by the docker command
+		return new BigDecimal(matcher.group(1)).multiply(BigDecimal.valueOf(1024).pow(exponent)).longValue();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess#
+	 * cancel()
+	 */
+	@Override
+	public void cancel() {
+		super.cancel();
+
+		final String running = container;
+		if (running != null)
+			try {
+				client.stopContainer(running, stopWaitSeconds);
+			} catch (IOException e) {
+				// Nothing to do, the container terminated
+			}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess#
+	 * isRunning()
+	 */
+	@Override
+	public boolean isRunning() {
+		return container != null || exec != null;
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * File:     ProcessorDescriptionCache.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FileUtils;
+import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
+
+/**
+ * Defines persistent caches of the JSON descriptions of ocr-d processors. The
+ * descriptions are stored in the cache folder by docker image identifier and
+ * processor identifier, this means, they are only valid as long as the docker
+ * image is not changed.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorDescriptionCache {
+	/**
+	 * The suffix of the description files.
+	 */
+	private static final String fileSuffix = ".json";
+
+	/**
+	 * The cache folder.
+	 */
+	private final Path folder;
+
+	/**
+	 * Creates a persistent cache of the JSON processor descriptions.
+	 * 
+	 * @param folder The cache folder.
+	 * @since 1.8
+	 */
+	public ProcessorDescriptionCache(Path folder) {
+		super();
+
+		this.folder = folder;
+	}
+
+	/**
+	 * Returns the cache folder.
+	 * 
+	 * @return The cache folder.
+	 * @since 1.8
+	 */
+	public Path getFolder() {
+		return folder;
+	}
+
+	/**
+	 * Returns the identifier of the local docker image, this means, its content
+	 * digest.
+	 * 
+	 * @param docker The docker process.
+	 * @param image  The docker image.
+	 * @return The docker image identifier.
+	 * @throws IOException Throws if the docker image can not be inspected.
+	 * @since 1.8
+	 */
+	public static String getImageIdentifier(SystemProcess docker, String image) throws IOException {
+		docker.execute(Arrays.asList("image", "inspect", "--format", "{{.Id}}", image));
+
+		if (docker.getExitValue() != 0)
+			throw new IOException("cannot inspect docker image " + image + " - " + docker.getStandardError().trim()
+					+ " (process exit code " + docker.getExitValue() + ")");
+
+		String identifier = docker.getStandardOutput().trim();
+		if (identifier.isEmpty())
+			throw new IOException("missed identifier of docker image " + image);
+
+		return identifier;
+	}
+
+	/**
+	 * Returns the description file.
+	 * 
+	 * @param image     The docker image identifier.
+	 * @param processor The processor identifier.
+	 * @return The description file.
+	 * @since 1.8
+	 */
+	private Path getFile(String image, String processor) {
+		return folder.resolve(image.replaceAll("[^A-Za-z0-9._-]", "-"))
+				.resolve(processor.replaceAll("[^A-Za-z0-9._-]", "-") + fileSuffix);
+	}
+
+	/**
+	 * Returns the cached JSON processor description.
+	 * 
+	 * @param image     The docker image identifier.
+	 * @param processor The processor identifier.
+	 * @return The JSON processor description. Null if it is not cached or can not
+	 *         be read.
+	 * @since 1.8
+	 */
+	public String get(String image, String processor) {
+		Path file = getFile(image, processor);
+
+		try {
+			if (Files.isRegularFile(file)) {
+				String json = Files.readString(file, StandardCharsets.UTF_8);
+
+				return json.isBlank() ? null : json;
+			}
+		} catch (IOException e) {
+			// Nothing to do, the description is not cached
+		}
+
+		return null;
+	}
+
+	/**
+	 * Caches the JSON processor description. The file is replaced atomically, so
+	 * that concurrent readers never see partial descriptions.
+	 * 
+	 * @param image     The docker image identifier.
+	 * @param processor The processor identifier.
+	 * @param json      The JSON processor description.
+	 * @throws IOException Throws if the description can not be written.
+	 * @since 1.8
+	 */
+	public void put(String image, String processor, String json) throws IOException {
+		Path file = getFile(image, processor);
+
+		Files.createDirectories(file.getParent());
+
+		Path temporary = FileUtils.createSibling(file);
+		try {
+			Files.writeString(temporary, json, StandardCharsets.UTF_8);
+
+			FileUtils.replace(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+}
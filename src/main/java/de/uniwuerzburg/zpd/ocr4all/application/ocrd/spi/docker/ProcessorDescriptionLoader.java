@@ -0,0 +1,325 @@
+/**
+ * File:     ProcessorDescriptionLoader.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.DaemonThreadFactory;
+import de.uniwuerzburg.zpd.ocr4all.application.spi.util.SystemProcess;
+
+/**
+ * Defines loaders of the JSON descriptions of all ocr-d processors of a docker
+ * image. The descriptions are read in one pass from the aggregated file
+ * <code>ocrd-all-tool.json</code>, that is shipped with the ocr-d images, so
+ * that only one container is started for all processors instead of one per
+ * processor. The descriptions are retained for the docker image identifier,
+ * this means, they are read again if the docker image changes.
+ * <p>
+ * The descriptions of a docker image are loaded once for all concurrent
+ * requests, that wait at most for their timeout. The docker processes of the
+ * load are canceled on timeout and the loader container is removed, so that a
+ * hung docker image or pull does not occupy the threads of the requests.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorDescriptionLoader {
+	/**
+	 * The default location of the aggregated processor descriptions, this means,
+	 * the folder of the ocr-d python package.
+	 */
+	private static final String defaultLocation = "\"$(python3 -c 'import os, ocrd; print(os.path.join("
+			+ "os.path.dirname(ocrd.__file__), \"ocrd-all-tool.json\"))' 2>/dev/null)\"";
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final ProcessorDescriptionLoader instance = new ProcessorDescriptionLoader();
+
+	/**
+	 * The JSON object mapper.
+	 */
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The descriptions of the latest docker image identifier. The key is the
+	 * docker image.
+	 */
+	private final Map<String, Descriptions> descriptions = new ConcurrentHashMap<>();
+
+	/**
+	 * The running loads of the descriptions, so that they are loaded only once
+	 * per docker image. The key is the docker image.
+	 */
+	private final Map<String, CompletableFuture<Descriptions>> loads = new ConcurrentHashMap<>();
+
+	/**
+	 * The executor to cancel the docker processes of the loads on timeout.
+	 */
+	private final ScheduledExecutorService timeouts = Executors
+			.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ocr4all-ocrd-json-loader-timeout"));
+
+	/**
+	 * Default constructor for a processor description loader.
+	 * 
+	 * @since 1.8
+	 */
+	private ProcessorDescriptionLoader() {
+		super();
+	}
+
+	/**
+	 * Returns the processor description loader.
+	 * 
+	 * @return The processor description loader.
+	 * @since 1.8
+	 */
+	public static ProcessorDescriptionLoader getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the JSON description of the processor. The descriptions of all
+	 * processors of the docker image are loaded on the first request and when the
+	 * docker image changed. A request, that finds a running load of the docker
+	 * image, waits for it at most for the timeout.
+	 * 
+	 * @param docker        The supplier for new docker processes.
+	 * @param image         The docker image.
+	 * @param location      The location of the aggregated processor descriptions
+	 *                      in the docker image. If null, it is the folder of the
+	 *                      ocr-d python package.
+	 * @param processor     The processor identifier.
+	 * @param timeoutMillis The timeout in milliseconds. The docker processes of a
+	 *                      load, that is started by the request, are canceled on
+	 *                      timeout.
+	 * @return The JSON processor description. Null if it is not available or the
+	 *         request timed out or was interrupted.
+	 * @since 1.8
+	 */
+	public String getDescription(Supplier<SystemProcess> docker, String image, String location, String processor,
+			long timeoutMillis) {
+		final long deadline = System.currentTimeMillis() + Math.max(1, timeoutMillis);
+
+		final CompletableFuture<Descriptions> created = new CompletableFuture<>();
+		CompletableFuture<Descriptions> load = loads.putIfAbsent(image, created);
+
+		if (load == null) {
+			load = created;
+
+			try {
+				created.complete(refresh(docker, image, location, deadline));
+			} catch (RuntimeException e) {
+				created.completeExceptionally(e);
+			} finally {
+				loads.remove(image, created);
+			}
+		}
+
+		try {
+			return load.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS).descriptions
+					.get(processor);
+		} catch (TimeoutException | ExecutionException | CancellationException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the descriptions of the docker image. They are loaded if the docker
+	 * image changed.
+	 * 
+	 * @param docker   The supplier for new docker processes.
+	 * @param image    The docker image.
+	 * @param location The location of the aggregated processor descriptions in the
+	 *                 docker image. If null, it is the folder of the ocr-d python
+	 *                 package.
+	 * @param deadline The time in milliseconds, at which the docker processes are
+	 *                 canceled.
+	 * @return The descriptions of the docker image.
+	 * @since 1.8
+	 */
+	private Descriptions refresh(Supplier<SystemProcess> docker, String image, String location, long deadline) {
+		String identifier = getImageIdentifier(docker, image, deadline);
+
+		Descriptions current = descriptions.get(image);
+		if (identifier == null || current == null || !identifier.equals(current.identifier)) {
+			Map<String, String> loaded = load(docker, image, location, deadline);
+
+			// The image is pulled on first run
+			if (identifier == null)
+				identifier = getImageIdentifier(docker, image, deadline);
+
+			current = new Descriptions(identifier, loaded);
+			if (identifier != null)
+				descriptions.put(image, current);
+		}
+
+		return current;
+	}
+
+	/**
+	 * Schedules the cancellation of the docker process at the deadline. The
+	 * container is removed as well, since it is not stopped by the cancellation
+	 * of the docker client.
+	 * 
+	 * @param docker    The supplier for new docker processes.
+	 * @param process   The docker process.
+	 * @param container The container name. Null if the process does not run a
+	 *                  container.
+	 * @param deadline  The time in milliseconds, at which the process is canceled.
+	 * @return The scheduled cancellation.
+	 * @since 1.8
+	 */
+	private ScheduledFuture<?> scheduleCancel(Supplier<SystemProcess> docker, SystemProcess process,
+			String container, long deadline) {
+		return timeouts.schedule(() -> {
+			process.cancel();
+
+			if (container != null)
+				try {
+					docker.get().execute(Arrays.asList("rm", "-f", container));
+				} catch (Exception e) {
+					// Nothing to do, the container terminated
+				}
+		}, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the identifier of the local docker image.
+	 * 
+	 * @param docker   The supplier for new docker processes.
+	 * @param image    The docker image.
+	 * @param deadline The time in milliseconds, at which the docker process is
+	 *                 canceled.
+	 * @return The docker image identifier. Null if it can not be determined.
+	 * @since 1.8
+	 */
+	private String getImageIdentifier(Supplier<SystemProcess> docker, String image, long deadline) {
+		final SystemProcess process = docker.get();
+		final ScheduledFuture<?> cancel = scheduleCancel(docker, process, null, deadline);
+
+		try {
+			return ProcessorDescriptionCache.getImageIdentifier(process, image);
+		} catch (Exception e) {
+			return null;
+		} finally {
+			cancel.cancel(false);
+		}
+	}
+
+	/**
+	 * Loads the JSON descriptions of all processors of the docker image.
+	 * 
+	 * @param docker   The supplier for new docker processes.
+	 * @param image    The docker image.
+	 * @param location The location of the aggregated processor descriptions in the
+	 *                 docker image. If null, it is the folder of the ocr-d python
+	 *                 package.
+	 * @param deadline The time in milliseconds, at which the docker process is
+	 *                 canceled and its container is removed.
+	 * @return The JSON processor descriptions. The key is the processor
+	 *         identifier. Empty if the descriptions are not available.
+	 * @since 1.8
+	 */
+	private Map<String, String> load(Supplier<SystemProcess> docker, String image, String location, long deadline) {
+		final String file = location == null || location.isBlank() ? defaultLocation
+				: "'" + location.trim().replace("'", "'\\''") + "'";
+
+		// The named container is removed on timeout
+		final String container = "ocr4all-json-" + UUID.randomUUID().toString();
+
+		final SystemProcess process = docker.get();
+		final ScheduledFuture<?> cancel = scheduleCancel(docker, process, container, deadline);
+		try {
+			process.execute(Arrays.asList("run", "--rm", "--name", container, "--entrypoint", "sh", "--", image, "-c",
+					"file=" + file + "; test -f \"$file\" && exec cat \"$file\""));
+		} catch (Exception e) {
+			return Collections.emptyMap();
+		} finally {
+			cancel.cancel(false);
+		}
+
+		if (process.getExitValue() != 0 || System.currentTimeMillis() >= deadline)
+			return Collections.emptyMap();
+
+		Map<String, String> loaded = new HashMap<>();
+		try {
+			JsonNode root = objectMapper.readTree(process.getStandardOutput());
+
+			if (root != null)
+				for (Iterator<Map.Entry<String, JsonNode>> iterator = root.fields(); iterator.hasNext();) {
+					Map.Entry<String, JsonNode> entry = iterator.next();
+
+					if (entry.getValue().isObject())
+						loaded.put(entry.getKey(), entry.getValue().toPrettyString());
+				}
+		} catch (IOException e) {
+			return Collections.emptyMap();
+		}
+
+		return loaded;
+	}
+
+	/**
+	 * Defines JSON processor descriptions of a docker image.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Descriptions {
+		/**
+		 * The docker image identifier. Null if unknown.
+		 */
+		private final String identifier;
+
+		/**
+		 * The JSON processor descriptions. The key is the processor identifier.
+		 */
+		private final Map<String, String> descriptions;
+
+		/**
+		 * Creates JSON processor descriptions of a docker image.
+		 * 
+		 * @param identifier   The docker image identifier. Null if unknown.
+		 * @param descriptions The JSON processor descriptions. The key is the
+		 *                     processor identifier.
+		 * @since 1.8
+		 */
+		private Descriptions(String identifier, Map<String, String> descriptions) {
+			super();
+
+			this.identifier = identifier;
+			this.descriptions = descriptions;
+		}
+	}
+}
@@ -0,0 +1,307 @@
+/**
+ * File:     ProcessorServerClient.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Defines clients of ocr-d processor servers, this means, processors started
+ * with <code>--type server --address host:port</code>, that keep their models
+ * loaded and process jobs submitted over http. The following endpoints of the
+ * processor server are used:
+ * <ul>
+ * <li>GET /: the processor information, that is used to check the
+ * availability and, if known, the processor.</li>
+ * <li>POST /run: submits a job and returns its identifier.</li>
+ * <li>GET /{job}: returns the job state.</li>
+ * <li>GET /{job}/log: returns the job log.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorServerClient {
+	/**
+	 * Defines job states.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public enum State {
+		/**
+		 * The job is queued or running.
+		 */
+		running,
+		/**
+		 * The job was processed successfully.
+		 */
+		success,
+		/**
+		 * The job failed.
+		 */
+		failed;
+
+		/**
+		 * Returns the state of the processor server job state. The unknown states,
+		 * e.g. <i>deleted</i> or a missing state, are failed, so that the polling
+		 * ends.
+		 * 
+		 * @param state The processor server job state.
+		 * @return The state.
+		 * @since 1.8
+		 */
+		private static State getState(String state) {
+			switch (state == null ? "" : state.trim().toLowerCase()) {
+			case "queued":
+			case "running":
+				return running;
+			case "success":
+			case "cached":
+				return success;
+			default:
+				return failed;
+			}
+		}
+	}
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The timeout of the requests.
+	 */
+	private static final Duration timeout = Duration.ofSeconds(30);
+
+	/**
+	 * The http client.
+	 */
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).build();
+
+	/**
+	 * The address of the processor server, e.g. <i>http://127.0.0.1:8080</i>.
+	 */
+	private final URI address;
+
+	/**
+	 * The processor identifier, that the processor server has to report. Null if
+	 * it is not checked.
+	 */
+	private final String processor;
+
+	/**
+	 * Creates a processor server client, that does not check the processor.
+	 * 
+	 * @param address The address of the processor server, e.g.
+	 *                <i>http://127.0.0.1:8080</i>.
+	 * @since 1.8
+	 */
+	public ProcessorServerClient(URI address) {
+		this(address, null);
+	}
+
+	/**
+	 * Creates a processor server client.
+	 * 
+	 * @param address   The address of the processor server, e.g.
+	 *                  <i>http://127.0.0.1:8080</i>.
+	 * @param processor The processor identifier, that the processor server has to
+	 *                  report, so that another server on the port is not taken
+	 *                  for it. Null if it is not checked.
+	 * @since 1.8
+	 */
+	public ProcessorServerClient(URI address, String processor) {
+		super();
+
+		this.address = address;
+		this.processor = processor;
+	}
+
+	/**
+	 * Returns the address of the processor server.
+	 * 
+	 * @return The address of the processor server.
+	 * @since 1.8
+	 */
+	public URI getAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns true if the processor server is available. If the processor is set,
+	 * the processor information has to report it as executable.
+	 * 
+	 * @return True if the processor server is available.
+	 * @since 1.8
+	 */
+	public boolean isAvailable() {
+		try {
+			HttpResponse<String> response = client.send(
+					HttpRequest.newBuilder(resolve("/")).timeout(timeout).GET().build(),
+					HttpResponse.BodyHandlers.ofString());
+
+			if (response.statusCode() < 200 || response.statusCode() >= 300)
+				return false;
+
+			return processor == null
+					|| processor.equals(objectMapper.readTree(response.body()).path("executable").asText(null));
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Submits a job.
+	 * 
+	 * @param mets       The mets file, as it is seen by the processor server.
+	 * @param input      The input file groups separated by comma.
+	 * @param output     The output file groups separated by comma.
+	 * @param pages      The page identifiers separated by comma. Null if all
+	 *                   pages are processed.
+	 * @param parameters The processor parameters. Null if not required.
+	 * @return The job identifier.
+	 * @throws IOException Throws if the job can not be submitted.
+	 * @since 1.8
+	 */
+	public String submit(String mets, String input, String output, String pages, Object parameters)
+			throws IOException {
+		ObjectNode body = objectMapper.createObjectNode();
+
+		body.put("path_to_mets", mets);
+		body.set("input_file_grps", toArray(input));
+		body.set("output_file_grps", toArray(output));
+		if (pages != null)
+			body.put("page_id", pages);
+		body.set("parameters",
+				parameters == null ? objectMapper.createObjectNode() : objectMapper.valueToTree(parameters));
+		body.put("agent_type", "processor");
+
+		JsonNode response = objectMapper.readTree(send(HttpRequest.newBuilder(resolve("/run"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))));
+
+		JsonNode job = response.get("job_id");
+		if (job == null || job.asText().isBlank())
+			throw new IOException("the processor server response misses the job identifier");
+
+		return job.asText();
+	}
+
+	/**
+	 * Returns the state of the job.
+	 * 
+	 * @param job The job identifier.
+	 * @return The state of the job.
+	 * @throws IOException Throws if the job state can not be requested.
+	 * @since 1.8
+	 */
+	public State getState(String job) throws IOException {
+		return State.getState(objectMapper.readTree(send(HttpRequest.newBuilder(resolve("/" + encode(job))).GET()))
+				.path("state").asText(null));
+	}
+
+	/**
+	 * Returns the log of the job.
+	 * 
+	 * @param job The job identifier.
+	 * @return The log of the job.
+	 * @throws IOException Throws if the job log can not be requested.
+	 * @since 1.8
+	 */
+	public String getLog(String job) throws IOException {
+		return send(HttpRequest.newBuilder(resolve("/" + encode(job) + "/log")).GET());
+	}
+
+	/**
+	 * Sends the request and returns the response body.
+	 * 
+	 * @param request The request builder.
+	 * @return The response body.
+	 * @throws IOException Throws if the request failed or the response status is
+	 *                     not successful.
+	 * @since 1.8
+	 */
+	private String send(HttpRequest.Builder request) throws IOException {
+		try {
+			HttpResponse<String> response = client.send(request.timeout(timeout).build(),
+					HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+
+			if (response.statusCode() < 200 || response.statusCode() >= 300)
+				throw new IOException("processor server " + address + " responded with status "
+						+ response.statusCode() + (response.body() == null || response.body().isBlank() ? ""
+								: " - " + response.body().trim()));
+
+			return response.body();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new IOException("the request to processor server " + address + " was interrupted");
+		}
+	}
+
+	/**
+	 * Returns the uri of the path on the processor server.
+	 * 
+	 * @param path The path.
+	 * @return The uri.
+	 * @since 1.8
+	 */
+	private URI resolve(String path) {
+		String base = address.toString();
+
+		return URI.create((base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + path);
+	}
+
+	/**
+	 * Returns the file groups as JSON array.
+	 * 
+	 * @param fileGroups The file groups separated by comma.
+	 * @return The JSON array.
+	 * @since 1.8
+	 */
+	private static ArrayNode toArray(String fileGroups) {
+		ArrayNode array = objectMapper.createArrayNode();
+
+		for (String fileGroup : List.of(fileGroups.split(",")))
+			if (!fileGroup.isBlank())
+				array.add(fileGroup.trim());
+
+		return array;
+	}
+
+	/**
+	 * Returns the value encoded for a path of an url.
+	 * 
+	 * @param value The value.
+	 * @return The encoded value.
+	 * @since 1.8
+	 */
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+}
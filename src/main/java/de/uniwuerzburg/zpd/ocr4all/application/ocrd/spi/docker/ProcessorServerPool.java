@@ -0,0 +1,470 @@
+/**
+ * File:     ProcessorServerPool.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.DaemonThreadFactory;
+
+/**
+ * Defines pools of resident ocr-d processor servers. There is at most one
+ * server per pool key, e.g. the processor and its model set, that is shared by
+ * the processor runs, so that the models are only loaded once. The servers are
+ * checked for availability before they are reused and they are shut down after
+ * a configurable idle time. A server, that terminates before it is available,
+ * e.g. since its port was taken in the meantime, is started once more.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorServerPool {
+	/**
+	 * Defines starters of processor servers.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	@FunctionalInterface
+	public interface Starter {
+		/**
+		 * Starts a processor server.
+		 * 
+		 * @return The client of the started processor server and the callback to
+		 *         shut it down.
+		 * @throws IOException Throws if the processor server can not be started.
+		 * @since 1.8
+		 */
+		public Instance start() throws IOException;
+	}
+
+	/**
+	 * The interval in milliseconds for checking the availability of a starting
+	 * processor server.
+	 */
+	private static final long startCheckMilliseconds = 500;
+
+	/**
+	 * The maximal number of attempts to start a processor server, that terminates
+	 * before it is available.
+	 */
+	private static final int startAttempts = 3;
+
+	/**
+	 * The interval in seconds for checking the idle processor servers.
+	 */
+	private static final long checkSeconds = 30;
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final ProcessorServerPool instance = new ProcessorServerPool();
+
+	/**
+	 * The processor servers. The key is the pool key.
+	 */
+	private final Map<String, Server> servers = new HashMap<>();
+
+	/**
+	 * The locks for starting the processor servers. The key is the pool key.
+	 */
+	private final Map<String, Object> locks = new HashMap<>();
+
+	/**
+	 * The scheduler for the shut down of the idle processor servers. It is
+	 * created on demand.
+	 */
+	private ScheduledExecutorService maintenance = null;
+
+	/**
+	 * Default constructor for a processor server pool.
+	 * 
+	 * @since 1.8
+	 */
+	private ProcessorServerPool() {
+		super();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownAll(), "ocr4all-processor-server-shutdown"));
+	}
+
+	/**
+	 * Returns the processor server pool.
+	 * 
+	 * @return The processor server pool.
+	 * @since 1.8
+	 */
+	public static ProcessorServerPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Acquires an available processor server. The processor server of the pool
+	 * key is reused if it is available. Otherwise, a new processor server is
+	 * started and it is waited until it is available.
+	 * 
+	 * @param key          The pool key.
+	 * @param idleSeconds  The number of seconds after which the idle processor
+	 *                     server is shut down.
+	 * @param startSeconds The maximal number of seconds to wait until a started
+	 *                     processor server is available.
+	 * @param starter      The starter for a new processor server.
+	 * @return The processor server, that has to be released after the run.
+	 * @throws IOException Throws if the processor server can not be started or
+	 *                     it is not available in time.
+	 * @since 1.8
+	 */
+	public Server acquire(String key, long idleSeconds, long startSeconds, Starter starter) throws IOException {
+		final Object lock;
+		synchronized (this) {
+			lock = locks.computeIfAbsent(key, k -> new Object());
+		}
+
+		synchronized (lock) {
+			Server server;
+			synchronized (this) {
+				server = servers.get(key);
+				if (server != null)
+					server.leases++;
+			}
+
+			if (server != null) {
+				if (server.instance.getClient().isAvailable())
+					return server;
+
+				release(server, false);
+			}
+
+			final Instance instance = start(startSeconds, starter);
+
+			server = new Server(key, instance, idleSeconds);
+
+			synchronized (this) {
+				servers.put(key, server);
+			}
+
+			startMaintenance();
+
+			return server;
+		}
+	}
+
+	/**
+	 * Releases the processor server. A processor server, that is not reusable,
+	 * e.g. because its job was canceled, is shut down as soon as it is not used
+	 * by other runs anymore.
+	 * 
+	 * @param server     The processor server. If null, nothing is done.
+	 * @param isReusable True if the processor server is reusable.
+	 * @since 1.8
+	 */
+	public void release(Server server, boolean isReusable) {
+		if (server == null)
+			return;
+
+		boolean isShutdown = false;
+		synchronized (this) {
+			server.leases = Math.max(0, server.leases - 1);
+			server.lastUsed = System.currentTimeMillis();
+
+			if (!isReusable) {
+				server.isStale = true;
+
+				// New runs start a new processor server
+				if (servers.get(server.key) == server)
+					servers.remove(server.key);
+			}
+
+			isShutdown = server.isStale && server.leases == 0 && !server.isShutdown;
+			if (isShutdown)
+				server.isShutdown = true;
+		}
+
+		if (isShutdown)
+			server.instance.shutdown();
+	}
+
+	/**
+	 * Starts the maintenance of the idle processor servers if it is not already
+	 * running.
+	 * 
+	 * @since 1.8
+	 */
+	private synchronized void startMaintenance() {
+		if (maintenance == null) {
+			maintenance = Executors
+					.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ocr4all-processor-server-maintenance"));
+
+			maintenance.scheduleWithFixedDelay(() -> evict(), checkSeconds, checkSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Shuts down the processor servers, that are idle for longer than their idle
+	 * time.
+	 * 
+	 * @since 1.8
+	 */
+	private void evict() {
+		List<Server> expired = new ArrayList<>();
+
+		synchronized (this) {
+			for (Server server : new ArrayList<>(servers.values()))
+				if (server.leases == 0
+						&& System.currentTimeMillis() - server.lastUsed > server.idleMilliseconds) {
+					servers.remove(server.key);
+
+					server.isShutdown = true;
+					expired.add(server);
+				}
+		}
+
+		for (Server server : expired)
+			server.instance.shutdown();
+	}
+
+	/**
+	 * Shuts down all processor servers.
+	 * 
+	 * @since 1.8
+	 */
+	private void shutdownAll() {
+		List<Server> all;
+
+		synchronized (this) {
+			all = new ArrayList<>(servers.values());
+			servers.clear();
+		}
+
+		for (Server server : all)
+			server.instance.shutdown();
+	}
+
+	/**
+	 * Starts a processor server and waits until it is available. If it terminates
+	 * before, it is started once more, at most the start attempts.
+	 * 
+	 * @param startSeconds The maximal number of seconds to wait until a started
+	 *                     processor server is available.
+	 * @param starter      The starter for a new processor server.
+	 * @return The available processor server instance.
+	 * @throws IOException Throws if the processor server can not be started or
+	 *                     it is not available in time.
+	 * @since 1.8
+	 */
+	private Instance start(long startSeconds, Starter starter) throws IOException {
+		final long deadline = System.currentTimeMillis() + 1000 * Math.max(1, startSeconds);
+
+		for (int attempt = 1;; attempt++) {
+			final Instance instance = starter.start();
+			try {
+				while (!instance.getClient().isAvailable()) {
+					if (!instance.isAlive()) {
+						if (attempt < startAttempts && System.currentTimeMillis() <= deadline)
+							break;
+
+						throw new IOException("the processor server " + instance.getClient().getAddress()
+								+ " terminated before it was available");
+					}
+
+					if (System.currentTimeMillis() > deadline)
+						throw new IOException("the processor server " + instance.getClient().getAddress()
+								+ " is not available after " + startSeconds + " seconds");
+
+					Thread.sleep(startCheckMilliseconds);
+				}
+			} catch (IOException e) {
+				instance.shutdown();
+
+				throw e;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				instance.shutdown();
+
+				throw new IOException("the start of the processor server was interrupted");
+			}
+
+			if (instance.isAlive())
+				return instance;
+
+			instance.shutdown();
+		}
+	}
+
+	/**
+	 * Defines instances of processor servers.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Instance {
+		/**
+		 * The client of the processor server.
+		 */
+		private final ProcessorServerClient client;
+
+		/**
+		 * The callback to shut down the processor server.
+		 */
+		private final Runnable shutdown;
+
+		/**
+		 * The callback to check if the processor server is running.
+		 */
+		private final BooleanSupplier alive;
+
+		/**
+		 * Creates an instance of a processor server, that is considered running
+		 * until it is shut down.
+		 * 
+		 * @param client   The client of the processor server.
+		 * @param shutdown The callback to shut down the processor server.
+		 * @since 1.8
+		 */
+		public Instance(ProcessorServerClient client, Runnable shutdown) {
+			this(client, shutdown, () -> true);
+		}
+
+		/**
+		 * Creates an instance of a processor server.
+		 * 
+		 * @param client   The client of the processor server.
+		 * @param shutdown The callback to shut down the processor server.
+		 * @param alive    The callback to check if the processor server is
+		 *                 running.
+		 * @since 1.8
+		 */
+		public Instance(ProcessorServerClient client, Runnable shutdown, BooleanSupplier alive) {
+			super();
+
+			this.client = client;
+			this.shutdown = shutdown;
+			this.alive = alive;
+		}
+
+		/**
+		 * Returns the client of the processor server.
+		 * 
+		 * @return The client of the processor server.
+		 * @since 1.8
+		 */
+		public ProcessorServerClient getClient() {
+			return client;
+		}
+
+		/**
+		 * Returns true if the processor server is running.
+		 * 
+		 * @return True if the processor server is running.
+		 * @since 1.8
+		 */
+		private boolean isAlive() {
+			try {
+				return alive.getAsBoolean();
+			} catch (RuntimeException e) {
+				return true;
+			}
+		}
+
+		/**
+		 * Shuts down the processor server. Troubles are ignored.
+		 * 
+		 * @since 1.8
+		 */
+		private void shutdown() {
+			try {
+				shutdown.run();
+			} catch (RuntimeException e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Defines pooled processor servers.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Server {
+		/**
+		 * The pool key.
+		 */
+		private final String key;
+
+		/**
+		 * The instance of the processor server.
+		 */
+		private final Instance instance;
+
+		/**
+		 * The number of milliseconds after which the idle processor server is shut
+		 * down.
+		 */
+		private final long idleMilliseconds;
+
+		/**
+		 * The number of runs, that use the processor server.
+		 */
+		private int leases = 1;
+
+		/**
+		 * The time the processor server was used the last time.
+		 */
+		private long lastUsed;
+
+		/**
+		 * True if the processor server is not reused anymore.
+		 */
+		private boolean isStale = false;
+
+		/**
+		 * True if the processor server was shut down.
+		 */
+		private boolean isShutdown = false;
+
+		/**
+		 * Creates a pooled processor server.
+		 * 
+		 * @param key         The pool key.
+		 * @param instance    The instance of the processor server.
+		 * @param idleSeconds The number of seconds after which the idle processor
+		 *                    server is shut down.
+		 * @since 1.8
+		 */
+		private Server(String key, Instance instance, long idleSeconds) {
+			super();
+
+			this.key = key;
+			this.instance = instance;
+
+			idleMilliseconds = 1000 * Math.max(0, idleSeconds);
+			lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Returns the client of the processor server.
+		 * 
+		 * @return The client of the processor server.
+		 * @since 1.8
+		 */
+		public ProcessorServerClient getClient() {
+			return instance.getClient();
+		}
+	}
+}
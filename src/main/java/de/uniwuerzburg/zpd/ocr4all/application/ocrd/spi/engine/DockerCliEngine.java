@@ -0,0 +1,134 @@
+/**
+ * File:     DockerCliEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines engines, that execute the processors in containers forking the docker
+ * command line interface. The containers are stopped with the docker command.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerCliEngine implements ProcessorEngine {
+	/**
+	 * The docker command.
+	 */
+	private final String command;
+
+	/**
+	 * The availability of the docker command.
+	 */
+	private final BooleanSupplier availability;
+
+	/**
+	 * The number of seconds to wait before a stopped container is killed.
+	 */
+	private final int stopWaitSeconds;
+
+	/**
+	 * Creates an engine, that forks the docker command line interface.
+	 * 
+	 * @param command         The docker command.
+	 * @param availability    The availability of the docker command.
+	 * @param stopWaitSeconds The number of seconds to wait before a stopped
+	 *                        container is killed.
+	 * @since 1.8
+	 */
+	public DockerCliEngine(String command, BooleanSupplier availability, int stopWaitSeconds) {
+		super();
+
+		this.command = command;
+		this.availability = availability;
+		this.stopWaitSeconds = stopWaitSeconds;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getName()
+	 */
+	@Override
+	public String getName() {
+		return "docker";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getCommand()
+	 */
+	@Override
+	public String getCommand() {
+		return command;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isAvailable()
+	 */
+	@Override
+	public boolean isAvailable() {
+		return availability.getAsBoolean();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isContainer()
+	 */
+	@Override
+	public boolean isContainer() {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * newProcess(java.nio.file.Path, java.util.Map)
+	 */
+	@Override
+	public StreamingProcess newProcess(Path workspace, Map<String, String> environment) {
+		return new StreamingProcess(workspace, command);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getStopArguments(java.util.List)
+	 */
+	@Override
+	public List<String> getStopArguments(List<String> containers) {
+		List<String> arguments = new ArrayList<>(Arrays.asList("stop", "--time=" + stopWaitSeconds));
+		arguments.addAll(containers);
+
+		return arguments;
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * File:     DockerEngineApiEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerEngineClient;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker.DockerEngineProcess;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines engines, that execute the processors in containers with the docker
+ * engine api over the docker socket. The processes stop their containers, when
+ * they are canceled.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerEngineApiEngine implements ProcessorEngine {
+	/**
+	 * The docker socket.
+	 */
+	private final Path socket;
+
+	/**
+	 * The number of seconds to wait before a stopped container is killed.
+	 */
+	private final int stopWaitSeconds;
+
+	/**
+	 * Creates an engine, that uses the docker engine api.
+	 * 
+	 * @param socket          The docker socket.
+	 * @param stopWaitSeconds The number of seconds to wait before a stopped
+	 *                        container is killed.
+	 * @since 1.8
+	 */
+	public DockerEngineApiEngine(Path socket, int stopWaitSeconds) {
+		super();
+
+		this.socket = socket;
+		this.stopWaitSeconds = stopWaitSeconds;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getName()
+	 */
+	@Override
+	public String getName() {
+		return "docker engine api";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getCommand()
+	 */
+	@Override
+	public String getCommand() {
+		return socket.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isAvailable()
+	 */
+	@Override
+	public boolean isAvailable() {
+		return Files.exists(socket);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isContainer()
+	 */
+	@Override
+	public boolean isContainer() {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * newProcess(java.nio.file.Path, java.util.Map)
+	 */
+	@Override
+	public StreamingProcess newProcess(Path workspace, Map<String, String> environment) {
+		return new DockerEngineProcess(new DockerEngineClient(socket), stopWaitSeconds);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getStopArguments(java.util.List)
+	 */
+	@Override
+	public List<String> getStopArguments(List<String> containers) {
+		return null;
+	}
+}
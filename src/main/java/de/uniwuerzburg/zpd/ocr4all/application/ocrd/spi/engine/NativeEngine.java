@@ -0,0 +1,129 @@
+/**
+ * File:     NativeEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FileUtils;
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines engines, that execute the native processor executables, that are
+ * installed on the host. The processes run in their own process group, that is
+ * killed, when they are canceled.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class NativeEngine implements ProcessorEngine {
+	/**
+	 * The native processor executable.
+	 */
+	private final String executable;
+
+	/**
+	 * The time in milliseconds to wait before the process group is killed.
+	 */
+	private final long killWaitMilliseconds;
+
+	/**
+	 * Creates an engine, that executes the native processor executable.
+	 * 
+	 * @param executable           The native processor executable. It is looked
+	 *                             up on the path, if it is not a path.
+	 * @param killWaitMilliseconds The time in milliseconds to wait before the
+	 *                             process group is killed.
+	 * @since 1.8
+	 */
+	public NativeEngine(String executable, long killWaitMilliseconds) {
+		super();
+
+		this.executable = executable;
+		this.killWaitMilliseconds = killWaitMilliseconds;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getName()
+	 */
+	@Override
+	public String getName() {
+		return "native";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getCommand()
+	 */
+	@Override
+	public String getCommand() {
+		return executable;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isAvailable()
+	 */
+	@Override
+	public boolean isAvailable() {
+		return FileUtils.isExecutable(executable);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isContainer()
+	 */
+	@Override
+	public boolean isContainer() {
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * newProcess(java.nio.file.Path, java.util.Map)
+	 */
+	@Override
+	public StreamingProcess newProcess(Path workspace, Map<String, String> environment) {
+		StreamingProcess process = new StreamingProcess(workspace, executable).processGroup(killWaitMilliseconds);
+
+		if (environment != null && !environment.isEmpty())
+			process.environment(environment);
+
+		return process;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getStopArguments(java.util.List)
+	 */
+	@Override
+	public List<String> getStopArguments(List<String> containers) {
+		return null;
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * File:     PodmanEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.FileUtils;
+
+/**
+ * Defines engines, that execute the processors in containers forking the podman
+ * command, whose command line interface is compatible with the docker one.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class PodmanEngine extends DockerCliEngine {
+	/**
+	 * Creates an engine, that forks the podman command.
+	 * 
+	 * @param command         The podman command. It is looked up on the path, if
+	 *                        it is not a path.
+	 * @param stopWaitSeconds The number of seconds to wait before a stopped
+	 *                        container is killed.
+	 * @since 1.8
+	 */
+	public PodmanEngine(String command, int stopWaitSeconds) {
+		super(command, () -> FileUtils.isExecutable(command), stopWaitSeconds);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.DockerCliEngine#
+	 * getName()
+	 */
+	@Override
+	public String getName() {
+		return "podman";
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * File:     ProcessorEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines engines, that execute the ocr-d processors, this means, the docker
+ * command line interface, the docker engine api, podman, the native processor
+ * executables and the resident processor servers. The engine creates the
+ * processes, that run the processors, and knows how they are stopped and
+ * whether its command is available.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public interface ProcessorEngine {
+	/**
+	 * Returns the engine name, that is reported in the messages.
+	 * 
+	 * @return The engine name.
+	 * @since 1.8
+	 */
+	public String getName();
+
+	/**
+	 * Returns the command of the engine, this means, the container engine command
+	 * or the native processor executable.
+	 * 
+	 * @return The command of the engine.
+	 * @since 1.8
+	 */
+	public String getCommand();
+
+	/**
+	 * Returns true if the engine is available, this means, its command or
+	 * socket.
+	 * 
+	 * @return True if the engine is available.
+	 * @since 1.8
+	 */
+	public boolean isAvailable();
+
+	/**
+	 * Returns true if the processors are executed in containers.
+	 * 
+	 * @return True if the processors are executed in containers.
+	 * @since 1.8
+	 */
+	public boolean isContainer();
+
+	/**
+	 * Returns true if the processors are executed by a resident processor
+	 * server.
+	 * 
+	 * @return True if the processors are executed by a resident processor
+	 *         server.
+	 * @since 1.8
+	 */
+	public default boolean isProcessorServer() {
+		return false;
+	}
+
+	/**
+	 * Returns a new process, that executes a processor. Its output is streamed
+	 * while it is running.
+	 * 
+	 * @param workspace   The working directory. If null, uses the working
+	 *                    directory of the current Java process.
+	 * @param environment The additional environment variables of native
+	 *                    processes. Null if not required.
+	 * @return The new process.
+	 * @since 1.8
+	 */
+	public StreamingProcess newProcess(Path workspace, Map<String, String> environment);
+
+	/**
+	 * Returns the arguments for the container engine command to stop the
+	 * containers.
+	 * 
+	 * @param containers The container names.
+	 * @return The arguments for the container engine command to stop the
+	 *         containers. Null if the processes are stopped by canceling them.
+	 * @since 1.8
+	 */
+	public List<String> getStopArguments(List<String> containers);
+}
@@ -0,0 +1,137 @@
+/**
+ * File:     ProcessorServerEngine.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util.StreamingProcess;
+
+/**
+ * Defines engines, that execute the processors by resident ocr-d processor
+ * servers. The processor servers are started with the engine, that runs the
+ * processors otherwise, this means, natively or in a container.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorServerEngine implements ProcessorEngine {
+	/**
+	 * The engine, that runs the processor servers.
+	 */
+	private final ProcessorEngine engine;
+
+	/**
+	 * Creates an engine, that executes the processors by resident processor
+	 * servers.
+	 * 
+	 * @param engine The engine, that runs the processor servers.
+	 * @since 1.8
+	 */
+	public ProcessorServerEngine(ProcessorEngine engine) {
+		super();
+
+		this.engine = engine;
+	}
+
+	/**
+	 * Returns the engine, that runs the processor servers.
+	 * 
+	 * @return The engine, that runs the processor servers.
+	 * @since 1.8
+	 */
+	public ProcessorEngine getEngine() {
+		return engine;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getName()
+	 */
+	@Override
+	public String getName() {
+		return engine.getName() + " processor server";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getCommand()
+	 */
+	@Override
+	public String getCommand() {
+		return engine.getCommand();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isAvailable()
+	 */
+	@Override
+	public boolean isAvailable() {
+		return engine.isAvailable();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isContainer()
+	 */
+	@Override
+	public boolean isContainer() {
+		return engine.isContainer();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * isProcessorServer()
+	 */
+	@Override
+	public boolean isProcessorServer() {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * newProcess(java.nio.file.Path, java.util.Map)
+	 */
+	@Override
+	public StreamingProcess newProcess(Path workspace, Map<String, String> environment) {
+		return engine.newProcess(workspace, environment);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.engine.ProcessorEngine#
+	 * getStopArguments(java.util.List)
+	 */
+	@Override
+	public List<String> getStopArguments(List<String> containers) {
+		return engine.getStopArguments(containers);
+	}
+}
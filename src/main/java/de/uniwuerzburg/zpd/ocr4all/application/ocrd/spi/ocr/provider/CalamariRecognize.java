@@ -25,7 +25,6 @@ import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.ConfigurationServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Premise;
-import de.uniwuerzburg.zpd.ocr4all.application.spi.env.SystemCommand;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Target;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.DecimalField;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.Model;
@@ -373,8 +372,7 @@ public class CalamariRecognize extends OCRDServiceProviderWorker implements Opti
 				? new Premise(Premise.State.warn,
 						locale -> getString(locale, "no.models.available",
 								new Object[] { getOptResources(configuration, target).toString() }))
-				: (configuration.isSystemCommandAvailable(SystemCommand.Type.docker) ? new Premise()
-						: new Premise(Premise.State.block, locale -> getMessage(locale, "no.command.docker")));
+				: getEnginePremise();
 	}
 
 	/*
@@ -28,7 +28,6 @@ import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.ConfigurationServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Premise;
-import de.uniwuerzburg.zpd.ocr4all.application.spi.env.SystemCommand;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Target;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.BooleanField;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.IntegerField;
@@ -428,8 +427,7 @@ public class TesserocrRecognize extends OCRDServiceProviderWorker
 				? new Premise(Premise.State.warn,
 						locale -> getString(locale, "no.models.available",
 								new Object[] { getOptResources(configuration, target).toString() }))
-				: (configuration.isSystemCommandAvailable(SystemCommand.Type.docker) ? new Premise()
-						: new Premise(Premise.State.block, locale -> getMessage(locale, "no.command.docker")));
+				: getEnginePremise();
 	}
 
 	/*
@@ -23,7 +23,6 @@ import de.uniwuerzburg.zpd.ocr4all.application.spi.core.ProcessServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.ConfigurationServiceProvider;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Framework;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Premise;
-import de.uniwuerzburg.zpd.ocr4all.application.spi.env.SystemCommand;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.env.Target;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.BooleanField;
 import de.uniwuerzburg.zpd.ocr4all.application.spi.model.IntegerField;
@@ -297,8 +296,7 @@ public class TesserocrSegmentLine extends OCRDServiceProviderWorker implements O
 	 */
 	@Override
 	public Premise getPremise(Target target) {
-		return configuration.isSystemCommandAvailable(SystemCommand.Type.docker) ? new Premise()
-				: new Premise(Premise.State.block, locale -> getMessage(locale, "no.command.docker"));
+		return getEnginePremise();
 	}
 
 	/*
@@ -0,0 +1,350 @@
+/**
+ * File:     AdmissionScheduler.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Defines process-wide schedulers, that admit the processor runs with a
+ * weighted semaphore over the cores and the memory of the node. Every run
+ * declares its cost and waits until the cost fits into the free capacity. A
+ * cost, that exceeds the capacity, is reduced to the capacity, so that it runs
+ * alone.
+ * <p>
+ * The waiting runs are queued per queue key, e.g. the processor workspace of a
+ * workflow, in FIFO order. The queues are served round-robin, this means, a
+ * workflow with many steps or page shards can not starve the other workflows.
+ * Only the next run in round-robin order is admitted, so that expensive runs
+ * are not overtaken by cheaper ones.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class AdmissionScheduler {
+	/**
+	 * The maximal time in milliseconds to wait before the cancellation of a
+	 * waiting run is checked.
+	 */
+	private static final long checkMilliseconds = 1000;
+
+	/**
+	 * The singleton instance.
+	 */
+	private static final AdmissionScheduler instance = new AdmissionScheduler();
+
+	/**
+	 * The waiting requests by queue key in round-robin order, this means, the
+	 * queue to be served next is the first one.
+	 */
+	private final LinkedHashMap<String, Deque<Request>> queues = new LinkedHashMap<>();
+
+	/**
+	 * The capacity of cores. 0 if the cores are not limited.
+	 */
+	private int cores = 0;
+
+	/**
+	 * The capacity of memory in megabytes. 0 if the memory is not limited.
+	 */
+	private long memory = 0;
+
+	/**
+	 * The used cores of the admitted runs.
+	 */
+	private int usedCores = 0;
+
+	/**
+	 * The used memory in megabytes of the admitted runs.
+	 */
+	private long usedMemory = 0;
+
+	/**
+	 * Default constructor for an admission scheduler.
+	 * 
+	 * @since 1.8
+	 */
+	private AdmissionScheduler() {
+		super();
+	}
+
+	/**
+	 * Returns the admission scheduler.
+	 * 
+	 * @return The admission scheduler.
+	 * @since 1.8
+	 */
+	public static AdmissionScheduler getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Admits a run with given cost. The method waits until the cost fits into the
+	 * free capacity and the run is the next one in round-robin order, or until the
+	 * run is canceled.
+	 * 
+	 * @param queue          The queue key, e.g. the processor workspace.
+	 * @param cores          The cost in cores.
+	 * @param memory         The cost in memory megabytes.
+	 * @param coreCapacity   The capacity of cores. 0 if the cores are not
+	 *                       limited.
+	 * @param memoryCapacity The capacity of memory in megabytes. 0 if the memory
+	 *                       is not limited.
+	 * @param isCanceled     The supplier, that returns true if the run is
+	 *                       canceled.
+	 * @param position       The consumer of the queue position, this means, the
+	 *                       number of runs, that are admitted before the run. It
+	 *                       is called if the position changes while waiting. Null
+	 *                       if not required.
+	 * @return The admission, that has to be released after the run. Null if the
+	 *         run was canceled while waiting.
+	 * @throws InterruptedException Throws if the current thread is interrupted
+	 *                              while waiting.
+	 * @since 1.8
+	 */
+	public Admission admit(String queue, int cores, long memory, int coreCapacity, long memoryCapacity,
+			BooleanSupplier isCanceled, IntConsumer position) throws InterruptedException {
+		final Request request;
+
+		synchronized (this) {
+			this.cores = Math.max(0, coreCapacity);
+			this.memory = Math.max(0, memoryCapacity);
+
+			request = new Request(this.cores == 0 ? 0 : Math.min(Math.max(0, cores), this.cores),
+					this.memory == 0 ? 0 : Math.min(Math.max(0, memory), this.memory));
+
+			queues.computeIfAbsent(queue, key -> new ArrayDeque<>()).addLast(request);
+
+			admit();
+		}
+
+		int reported = -1;
+		try {
+			while (true) {
+				int current;
+				synchronized (this) {
+					if (request.isAdmitted)
+						return new Admission(request);
+
+					if (isCanceled.getAsBoolean()) {
+						remove(queue, request);
+
+						return null;
+					}
+
+					current = getPosition(queue, request);
+				}
+
+				if (position != null && current != reported) {
+					reported = current;
+					position.accept(current);
+				}
+
+				synchronized (this) {
+					if (!request.isAdmitted)
+						wait(checkMilliseconds);
+				}
+			}
+		} catch (InterruptedException e) {
+			synchronized (this) {
+				if (request.isAdmitted)
+					release(request);
+				else
+					remove(queue, request);
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Removes the waiting request from its queue.
+	 * 
+	 * @param queue   The queue key.
+	 * @param request The request.
+	 * @since 1.8
+	 */
+	private synchronized void remove(String queue, Request request) {
+		Deque<Request> requests = queues.get(queue);
+		if (requests != null) {
+			requests.remove(request);
+
+			if (requests.isEmpty())
+				queues.remove(queue);
+		}
+
+		// The removed request can block the next ones
+		admit();
+	}
+
+	/**
+	 * Admits the waiting requests in round-robin order as long as they fit into
+	 * the free capacity.
+	 * 
+	 * @since 1.8
+	 */
+	private synchronized void admit() {
+		boolean isAdmitted = false;
+
+		while (!queues.isEmpty()) {
+			final Map.Entry<String, Deque<Request>> next = queues.entrySet().iterator().next();
+			final Request request = next.getValue().peekFirst();
+
+			if ((cores > 0 && usedCores + request.cores > cores)
+					|| (memory > 0 && usedMemory + request.memory > memory))
+				break;
+
+			usedCores += request.cores;
+			usedMemory += request.memory;
+			request.isAdmitted = true;
+			isAdmitted = true;
+
+			// The served queue is moved to the end of the round-robin order
+			final Deque<Request> requests = queues.remove(next.getKey());
+			requests.removeFirst();
+			if (!requests.isEmpty())
+				queues.put(next.getKey(), requests);
+		}
+
+		if (isAdmitted)
+			notifyAll();
+	}
+
+	/**
+	 * Releases the capacity of the admitted request.
+	 * 
+	 * @param request The request.
+	 * @since 1.8
+	 */
+	private synchronized void release(Request request) {
+		if (request.isReleased)
+			return;
+
+		request.isReleased = true;
+
+		usedCores -= request.cores;
+		usedMemory -= request.memory;
+
+		admit();
+
+		// The positions of the waiting requests changed
+		notifyAll();
+	}
+
+	/**
+	 * Returns the queue position of the waiting request, this means, the number of
+	 * requests, that are admitted before it in round-robin order.
+	 * 
+	 * @param queue   The queue key.
+	 * @param request The request.
+	 * @return The queue position.
+	 * @since 1.8
+	 */
+	private synchronized int getPosition(String queue, Request request) {
+		final List<String> keys = new ArrayList<>(queues.keySet());
+		final int index = keys.indexOf(queue);
+		if (index < 0)
+			return 0;
+
+		final int rank = new ArrayList<>(queues.get(queue)).indexOf(request);
+
+		int position = rank;
+		for (int i = 0; i < keys.size(); i++)
+			if (i != index)
+				position += Math.min(queues.get(keys.get(i)).size(), rank + (i < index ? 1 : 0));
+
+		return position;
+	}
+
+	/**
+	 * Defines requests for admission.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Request {
+		/**
+		 * The cost in cores.
+		 */
+		private final int cores;
+
+		/**
+		 * The cost in memory megabytes.
+		 */
+		private final long memory;
+
+		/**
+		 * True if the request was admitted.
+		 */
+		private boolean isAdmitted = false;
+
+		/**
+		 * True if the capacity of the request was released.
+		 */
+		private boolean isReleased = false;
+
+		/**
+		 * Creates a request for admission.
+		 * 
+		 * @param cores  The cost in cores.
+		 * @param memory The cost in memory megabytes.
+		 * @since 1.8
+		 */
+		private Request(int cores, long memory) {
+			super();
+
+			this.cores = cores;
+			this.memory = memory;
+		}
+	}
+
+	/**
+	 * Defines admissions of runs.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public class Admission implements AutoCloseable {
+		/**
+		 * The admitted request.
+		 */
+		private final Request request;
+
+		/**
+		 * Creates an admission.
+		 * 
+		 * @param request The admitted request.
+		 * @since 1.8
+		 */
+		private Admission(Request request) {
+			super();
+
+			this.request = request;
+		}
+
+		/**
+		 * Releases the capacity of the admitted run, so that the next waiting runs
+		 * can be admitted. Further calls have no effect.
+		 * 
+		 * @since 1.8
+		 */
+		@Override
+		public void close() {
+			release(request);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * File:     CoreAllocator.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Defines process-wide allocators, that partition the cores of the host among
+ * the concurrently running containers, so that they get disjoint cpusets. If
+ * not enough free cores are available, the least used cores are shared, so
+ * that the overlap is minimal. Only the cores, that the process is allowed to
+ * run on, are allocated, this means, the cores of the affinity list
+ * <i>Cpus_allowed_list</i> in <i>/proc/self/status</i> or the effective
+ * cpuset of the cgroup, so that the cpusets are correct if the process is
+ * itself restricted to a cpuset, e.g. in a container or with taskset. If none
+ * of them is available, the cores are numbered from 0 to the number of
+ * available cores minus 1.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class CoreAllocator {
+	/**
+	 * The singleton instance.
+	 */
+	private static final CoreAllocator instance = new CoreAllocator(getAllowedCores());
+
+	/**
+	 * The cores in ascending order.
+	 */
+	private final int[] cores;
+
+	/**
+	 * The number of allocations per core. The index is the one of the cores.
+	 */
+	private final int[] usage;
+
+	/**
+	 * Creates a core allocator.
+	 * 
+	 * @param cores The cores in ascending order.
+	 * @since 1.8
+	 */
+	private CoreAllocator(List<Integer> cores) {
+		super();
+
+		this.cores = cores.stream().mapToInt(core -> core).toArray();
+		usage = new int[this.cores.length];
+	}
+
+	/**
+	 * Returns the cores, that the process is allowed to run on.
+	 * 
+	 * @return The allowed cores in ascending order.
+	 * @since 1.8
+	 */
+	private static List<Integer> getAllowedCores() {
+		List<Integer> cores = null;
+
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc/self/status")))
+				if (line.startsWith("Cpus_allowed_list:")) {
+					cores = parse(line.substring(line.indexOf(':') + 1));
+
+					break;
+				}
+		} catch (IOException | RuntimeException e) {
+			// Nothing to do, the cgroup is considered
+		}
+
+		if (cores == null || cores.isEmpty())
+			try {
+				final Path effective = Paths.get("/sys/fs/cgroup/cpuset.cpus.effective");
+				if (Files.isReadable(effective))
+					cores = parse(Files.readString(effective));
+			} catch (IOException | RuntimeException e) {
+				// Nothing to do, the available cores are numbered
+			}
+
+		return cores == null || cores.isEmpty()
+				? IntStream.range(0, Math.max(1, Runtime.getRuntime().availableProcessors())).boxed()
+						.collect(Collectors.toList())
+				: cores;
+	}
+
+	/**
+	 * Parses the cpu list, e.g. <i>0-3,8,10-11</i>.
+	 * 
+	 * @param list The cpu list.
+	 * @return The cores in ascending order without duplicates.
+	 * @throws NumberFormatException Throws if the cpu list is invalid.
+	 * @since 1.8
+	 */
+	static List<Integer> parse(String list) throws NumberFormatException {
+		final List<Integer> cores = new ArrayList<>();
+
+		for (String range : list.trim().split(",")) {
+			if (range.isBlank())
+				continue;
+
+			final int index = range.indexOf('-');
+			final int first = Integer.parseInt((index < 0 ? range : range.substring(0, index)).trim());
+			final int last = index < 0 ? first : Integer.parseInt(range.substring(index + 1).trim());
+
+			for (int core = first; core <= last; core++)
+				cores.add(core);
+		}
+
+		return cores.stream().distinct().sorted().collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the core allocator.
+	 * 
+	 * @return The core allocator.
+	 * @since 1.8
+	 */
+	public static CoreAllocator getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Allocates the cores. The least used cores are allocated and among them the
+	 * ones with the lowest numbers, so that the cpusets are mostly contiguous.
+	 * 
+	 * @param cores The number of cores. It is limited to the number of allowed
+	 *              cores.
+	 * @return The allocation, that has to be released after the container
+	 *         terminated.
+	 * @since 1.8
+	 */
+	public synchronized Allocation allocate(int cores) {
+		final int number = Math.min(Math.max(1, cores), usage.length);
+
+		final List<Integer> allocated = IntStream.range(0, usage.length).boxed()
+				.sorted(Comparator.comparingInt((Integer index) -> usage[index]).thenComparingInt(index -> index))
+				.limit(number).sorted().collect(Collectors.toList());
+
+		for (int index : allocated)
+			usage[index]++;
+
+		return new Allocation(allocated);
+	}
+
+	/**
+	 * Releases the allocated cores.
+	 * 
+	 * @param indices The indices of the allocated cores.
+	 * @since 1.8
+	 */
+	private synchronized void release(List<Integer> indices) {
+		for (int index : indices)
+			if (usage[index] > 0)
+				usage[index]--;
+	}
+
+	/**
+	 * Defines allocations of cores.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public class Allocation implements AutoCloseable {
+		/**
+		 * The indices of the allocated cores in ascending order.
+		 */
+		private final List<Integer> indices;
+
+		/**
+		 * True if the cores were released.
+		 */
+		private boolean isReleased = false;
+
+		/**
+		 * Creates an allocation of cores.
+		 * 
+		 * @param indices The indices of the allocated cores in ascending order.
+		 * @since 1.8
+		 */
+		private Allocation(List<Integer> indices) {
+			super();
+
+			this.indices = indices;
+		}
+
+		/**
+		 * Returns the allocated cores as cpuset in the docker format, e.g.
+		 * <i>0-3,6</i>.
+		 * 
+		 * @return The cpuset.
+		 * @since 1.8
+		 */
+		public String getCpuset() {
+			List<String> ranges = new ArrayList<>();
+
+			for (int i = 0; i < indices.size();) {
+				int j = i;
+				while (j + 1 < indices.size() && cores[indices.get(j + 1)] == cores[indices.get(j)] + 1)
+					j++;
+
+				ranges.add(i == j ? "" + cores[indices.get(i)]
+						: cores[indices.get(i)] + "-" + cores[indices.get(j)]);
+				i = j + 1;
+			}
+
+			return String.join(",", ranges);
+		}
+
+		/**
+		 * Releases the allocated cores. Further calls have no effect.
+		 * 
+		 * @since 1.8
+		 */
+		@Override
+		public synchronized void close() {
+			if (!isReleased) {
+				isReleased = true;
+
+				release(indices);
+			}
+		}
+	}
+}
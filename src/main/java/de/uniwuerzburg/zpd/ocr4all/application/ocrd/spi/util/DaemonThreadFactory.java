@@ -0,0 +1,56 @@
+/**
+ * File:     DaemonThreadFactory.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Defines thread factories for named daemon threads, so that the executors of
+ * the service providers never prevent the application from shutting down.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+	/**
+	 * The thread name prefix.
+	 */
+	private final String prefix;
+
+	/**
+	 * The number of created threads.
+	 */
+	private final AtomicInteger number = new AtomicInteger();
+
+	/**
+	 * Creates a thread factory for named daemon threads.
+	 * 
+	 * @param prefix The thread name prefix.
+	 * @since 1.8
+	 */
+	public DaemonThreadFactory(String prefix) {
+		super();
+
+		this.prefix = prefix;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+	 */
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + "-" + number.incrementAndGet());
+		thread.setDaemon(true);
+
+		return thread;
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * File:     FileRewriter.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Defines rewriters, that replace all occurrences of a target in files. The
+ * files are streamed in fixed buffers, so that the memory does not depend on
+ * the file size. Since the target and replacement are encoded in UTF-8 and
+ * UTF-8 is self-synchronizing, the bytes can be replaced without decoding the
+ * files. All other bytes, including the line endings, are retained.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class FileRewriter {
+	/**
+	 * The buffer size.
+	 */
+	private static final int bufferSize = 64 * 1024;
+
+	/**
+	 * The target bytes.
+	 */
+	private final byte[] target;
+
+	/**
+	 * The replacement bytes.
+	 */
+	private final byte[] replacement;
+
+	/**
+	 * The failure function of the target, this means, the length of the longest
+	 * proper prefix of the target, that is also a suffix of the first i+1 bytes.
+	 */
+	private final int[] failure;
+
+	/**
+	 * Creates a file rewriter.
+	 * 
+	 * @param target      The target. It can not be empty.
+	 * @param replacement The replacement.
+	 * @since 1.8
+	 */
+	public FileRewriter(String target, String replacement) {
+		super();
+
+		this.target = target.getBytes(StandardCharsets.UTF_8);
+		this.replacement = replacement.getBytes(StandardCharsets.UTF_8);
+
+		if (this.target.length == 0)
+			throw new IllegalArgumentException("the target can not be empty");
+
+		failure = new int[this.target.length];
+		for (int i = 1, length = 0; i < this.target.length; i++) {
+			while (length > 0 && this.target[i] != this.target[length])
+				length = failure[length - 1];
+
+			if (this.target[i] == this.target[length])
+				length++;
+
+			failure[i] = length;
+		}
+	}
+
+	/**
+	 * Replaces all occurrences of the target in the file. The file is rewritten
+	 * to a new file in the same folder, that atomically replaces the file. If the
+	 * target does not occur, the file is not changed.
+	 * 
+	 * @param file The file.
+	 * @return The number of replacements.
+	 * @throws IOException Throws if the file can not be read or written.
+	 * @since 1.8
+	 */
+	public int rewrite(Path file) throws IOException {
+		int replacements = 0;
+
+		Path temporary = FileUtils.createSibling(file);
+		try {
+			try (InputStream inputStream = Files.newInputStream(file);
+					OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary),
+							bufferSize)) {
+				byte[] buffer = new byte[bufferSize];
+				int matched = 0;
+
+				int length;
+				while ((length = inputStream.read(buffer)) != -1)
+					for (int i = 0; i < length; i++) {
+						final byte value = buffer[i];
+
+						// Writes the matched bytes, that can not start an occurrence anymore
+						while (matched > 0 && value != target[matched]) {
+							final int next = failure[matched - 1];
+
+							outputStream.write(target, 0, matched - next);
+							matched = next;
+						}
+
+						if (value == target[matched]) {
+							if (++matched == target.length) {
+								outputStream.write(replacement);
+
+								replacements++;
+								matched = 0;
+							}
+						} else
+							outputStream.write(value);
+					}
+
+				outputStream.write(target, 0, matched);
+			}
+
+			if (replacements > 0)
+				FileUtils.replace(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+
+		return replacements;
+	}
+}
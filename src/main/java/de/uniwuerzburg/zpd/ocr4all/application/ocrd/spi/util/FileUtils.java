@@ -0,0 +1,88 @@
+/**
+ * File:     FileUtils.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Defines file utilities.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class FileUtils {
+	/**
+	 * Creates a new empty hidden file in the folder of the given file. Unlike
+	 * temporary files, it is created with the default permissions, so that it can
+	 * replace the given file.
+	 * 
+	 * @param file The file.
+	 * @return The new empty file.
+	 * @throws IOException Throws if the file can not be created.
+	 * @since 1.8
+	 */
+	public static Path createSibling(Path file) throws IOException {
+		return Files.createFile(file.toAbsolutePath()
+				.resolveSibling("." + file.getFileName().toString() + "." + UUID.randomUUID().toString() + ".tmp"));
+	}
+
+	/**
+	 * Replaces the file with the source file. The file is replaced atomically if
+	 * it is supported by the file system.
+	 * 
+	 * @param source The source file.
+	 * @param file   The file to replace.
+	 * @throws IOException Throws if the file can not be replaced.
+	 * @since 1.8
+	 */
+	public static void replace(Path source, Path file) throws IOException {
+		try {
+			Files.move(source, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Returns true if the command is an executable file. A command without folder
+	 * is looked up in the folders of the environment variable <i>PATH</i>.
+	 * 
+	 * @param command The command.
+	 * @return True if the command is an executable file.
+	 * @since 1.8
+	 */
+	public static boolean isExecutable(String command) {
+		if (command == null || command.isBlank())
+			return false;
+
+		try {
+			final Path path = Paths.get(command.trim());
+			if (path.getParent() != null)
+				return Files.isExecutable(path);
+
+			final String folders = System.getenv("PATH");
+			if (folders != null)
+				for (String folder : folders.split(File.pathSeparator))
+					if (!folder.isBlank() && Files.isExecutable(Paths.get(folder, path.toString())))
+						return true;
+		} catch (InvalidPathException e) {
+			// The command is not a file
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,374 @@
+/**
+ * File:     FolderMover.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Defines movers of folders, that are aware of file system boundaries. A
+ * folder is renamed if the source and target are on the same file system.
+ * Otherwise, its files are cloned with reflinks if the file systems support
+ * them, e.g. btrfs or xfs, or they are copied concurrently. Hard links are not
+ * attempted, since they fail across file systems like the rename.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class FolderMover {
+	/**
+	 * Defines methods to move folders.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public enum Method {
+		/**
+		 * The folder was renamed.
+		 */
+		rename,
+		/**
+		 * The files were cloned with reflinks.
+		 */
+		reflink,
+		/**
+		 * The files were copied.
+		 */
+		copy
+	}
+
+	/**
+	 * The copy command.
+	 */
+	private static final String copyCommand = "cp";
+
+	/**
+	 * The number of threads, that copy the files.
+	 */
+	private final int parallelism;
+
+	/**
+	 * Creates a folder mover.
+	 * 
+	 * @param parallelism The number of threads, that copy the files.
+	 * @since 1.8
+	 */
+	public FolderMover(int parallelism) {
+		super();
+
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Moves the source folder to the target folder. If the target folder exists,
+	 * it must be empty.
+	 * 
+	 * @param source The source folder.
+	 * @param target The target folder.
+	 * @return The result.
+	 * @throws IOException Throws if the folder can not be moved.
+	 * @since 1.8
+	 */
+	public Result move(Path source, Path target) throws IOException {
+		final long start = System.currentTimeMillis();
+
+		try {
+			// An empty target folder is replaced
+			Files.deleteIfExists(target);
+
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+
+			// The size is not determined, since the rename does not depend on it
+			return new Result(Method.rename, -1, -1, System.currentTimeMillis() - start);
+		} catch (AtomicMoveNotSupportedException e) {
+			// The source and target are on different file systems
+		} catch (DirectoryNotEmptyException e) {
+			throw new IOException("the target folder " + target + " is not empty");
+		}
+
+		final long[] size = getSize(source);
+
+		Files.createDirectories(target);
+
+		Method method = Method.reflink;
+		if (!isReflink(source, target)) {
+			method = Method.copy;
+			copy(source, target);
+		}
+
+		delete(source);
+
+		return new Result(method, size[0], size[1], System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Returns the number of files and bytes in the folder.
+	 * 
+	 * @param folder The folder.
+	 * @return The number of files and bytes.
+	 * @throws IOException Throws if the folder can not be walked.
+	 * @since 1.8
+	 */
+	private static long[] getSize(Path folder) throws IOException {
+		final long[] size = new long[] { 0, 0 };
+
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.nio.file.SimpleFileVisitor#visitFile(java.lang.Object,
+			 * java.nio.file.attribute.BasicFileAttributes)
+			 */
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				size[0]++;
+				size[1] += attributes.size();
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		return size;
+	}
+
+	/**
+	 * Clones the content of the source folder into the target folder with
+	 * reflinks.
+	 * 
+	 * @param source The source folder.
+	 * @param target The target folder.
+	 * @return True if the content was cloned. False if the file systems do not
+	 *         support reflinks.
+	 * @since 1.8
+	 */
+	private static boolean isReflink(Path source, Path target) {
+		try {
+			Process process = new ProcessBuilder(copyCommand, "-R", "--preserve=mode,timestamps", "--reflink=always",
+					"--", source.toString() + "/.", target.toString()).redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+
+			return process.waitFor() == 0;
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Copies the content of the source folder concurrently into the target
+	 * folder.
+	 * 
+	 * @param source The source folder.
+	 * @param target The target folder.
+	 * @throws IOException Throws if the content can not be copied.
+	 * @since 1.8
+	 */
+	private void copy(Path source, Path target) throws IOException {
+		final List<Path> files = new ArrayList<>();
+
+		try (Stream<Path> walk = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) walk::iterator) {
+				Path destination = target.resolve(source.relativize(path).toString());
+
+				if (Files.isDirectory(path))
+					Files.createDirectories(destination);
+				else
+					files.add(path);
+			}
+		}
+
+		if (files.isEmpty())
+			return;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.size()),
+				new DaemonThreadFactory("ocr4all-folder-copy"));
+
+		try {
+			List<Future<Path>> copies = new ArrayList<>();
+			for (Path file : files)
+				copies.add(executor.submit(() -> Files.copy(file, target.resolve(source.relativize(file).toString()),
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES)));
+
+			for (Future<Path> copy : copies)
+				copy.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+					: new IOException(e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new IOException("the copy was interrupted");
+		} finally {
+			executor.shutdownNow();
+
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the folder recursively.
+	 * 
+	 * @param folder The folder.
+	 * @throws IOException Throws if the folder can not be deleted.
+	 * @since 1.8
+	 */
+	static void delete(Path folder) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.nio.file.SimpleFileVisitor#visitFile(java.lang.Object,
+			 * java.nio.file.attribute.BasicFileAttributes)
+			 */
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				Files.delete(file);
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.nio.file.SimpleFileVisitor#postVisitDirectory(java.lang.Object,
+			 * java.io.IOException)
+			 */
+			@Override
+			public FileVisitResult postVisitDirectory(Path directory, IOException exception) throws IOException {
+				if (exception != null)
+					throw exception;
+
+				Files.delete(directory);
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Defines results of folder moves.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Result {
+		/**
+		 * The method.
+		 */
+		private final Method method;
+
+		/**
+		 * The number of files. -1 if the folder was renamed.
+		 */
+		private final long files;
+
+		/**
+		 * The number of bytes. -1 if the folder was renamed.
+		 */
+		private final long bytes;
+
+		/**
+		 * The duration in milliseconds.
+		 */
+		private final long milliseconds;
+
+		/**
+		 * Creates a result of a folder move.
+		 * 
+		 * @param method       The method.
+		 * @param files        The number of files. -1 if the folder was renamed.
+		 * @param bytes        The number of bytes. -1 if the folder was renamed.
+		 * @param milliseconds The duration in milliseconds.
+		 * @since 1.8
+		 */
+		private Result(Method method, long files, long bytes, long milliseconds) {
+			super();
+
+			this.method = method;
+			this.files = files;
+			this.bytes = bytes;
+			this.milliseconds = milliseconds;
+		}
+
+		/**
+		 * Returns the method.
+		 * 
+		 * @return The method.
+		 * @since 1.8
+		 */
+		public Method getMethod() {
+			return method;
+		}
+
+		/**
+		 * Returns the number of files.
+		 * 
+		 * @return The number of files. -1 if the folder was renamed.
+		 * @since 1.8
+		 */
+		public long getFiles() {
+			return files;
+		}
+
+		/**
+		 * Returns the number of bytes.
+		 * 
+		 * @return The number of bytes. -1 if the folder was renamed.
+		 * @since 1.8
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Returns the duration in milliseconds.
+		 * 
+		 * @return The duration in milliseconds.
+		 * @since 1.8
+		 */
+		public long getMilliseconds() {
+			return milliseconds;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return (files < 0 ? "" : files + " files with " + String.format("%.1f", bytes / (1024.0 * 1024.0)) + " MB ")
+					+ "by " + method + " in " + milliseconds + " ms";
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/**
+ * File:     MetsFileLocations.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Defines utilities for the file locations of mets files. The mets files are
+ * streamed event by event, so that the memory does not depend on the mets file
+ * size.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class MetsFileLocations {
+	/**
+	 * The xlink namespace.
+	 */
+	private static final String xlinkNamespace = "http://www.w3.org/1999/xlink";
+
+	/**
+	 * The buffer size.
+	 */
+	private static final int bufferSize = 64 * 1024;
+
+	/**
+	 * Replaces the prefix of the file locations of the file group, this means,
+	 * the attributes <code>xlink:href</code> of the elements
+	 * <code>mets:FLocat</code>. All other events are copied unchanged. The mets
+	 * file is rewritten to a new file in the same folder, that atomically
+	 * replaces the mets file. If no file location is replaced, the mets file is
+	 * not changed.
+	 * 
+	 * @param mets        The mets file.
+	 * @param fileGroup   The file group.
+	 * @param prefix      The prefix to replace.
+	 * @param replacement The replacement.
+	 * @return The number of replaced file locations.
+	 * @throws IOException Throws if the mets file can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static int replacePrefix(Path mets, String fileGroup, String prefix, String replacement)
+			throws IOException {
+		int replacements = 0;
+
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+		XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+		XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+		Path temporary = FileUtils.createSibling(mets);
+		try {
+			try (InputStream inputStream = Files.newInputStream(mets);
+					OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary),
+							bufferSize)) {
+				XMLEventReader reader = inputFactory.createXMLEventReader(inputStream);
+				XMLEventWriter writer = null;
+
+				try {
+					boolean isFileGroup = false;
+
+					while (reader.hasNext()) {
+						XMLEvent event = reader.nextEvent();
+
+						if (writer == null) {
+							// The mets file is written with its encoding
+							String encoding = event.isStartDocument() && ((StartDocument) event).encodingSet()
+									? ((StartDocument) event).getCharacterEncodingScheme()
+									: StandardCharsets.UTF_8.name();
+
+							writer = outputFactory.createXMLEventWriter(outputStream, encoding);
+						}
+
+						if (event.isStartElement()) {
+							StartElement element = event.asStartElement();
+
+							switch (element.getName().getLocalPart()) {
+							case "fileGrp":
+								Attribute use = element.getAttributeByName(new QName("USE"));
+								isFileGroup = use != null && fileGroup.equals(use.getValue());
+								break;
+							case "FLocat":
+								if (isFileGroup) {
+									StartElement location = replacePrefix(eventFactory, element, prefix, replacement);
+
+									if (location != null) {
+										event = location;
+										replacements++;
+									}
+								}
+								break;
+							default:
+								break;
+							}
+						} else if (event.isEndElement()
+								&& "fileGrp".equals(event.asEndElement().getName().getLocalPart()))
+							isFileGroup = false;
+
+						writer.add(event);
+					}
+
+					if (writer != null)
+						writer.flush();
+				} finally {
+					reader.close();
+
+					if (writer != null)
+						writer.close();
+				}
+			} catch (XMLStreamException e) {
+				throw new IOException("cannot update mets file - " + e.getMessage());
+			}
+
+			if (replacements > 0)
+				FileUtils.replace(temporary, mets);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+
+		return replacements;
+	}
+
+	/**
+	 * Returns the file location element with replaced prefix of its
+	 * <code>xlink:href</code> attribute.
+	 * 
+	 * @param eventFactory The event factory.
+	 * @param element      The file location element.
+	 * @param prefix       The prefix to replace.
+	 * @param replacement  The replacement.
+	 * @return The file location element with replaced prefix. Null if the
+	 *         <code>xlink:href</code> attribute does not start with the prefix.
+	 * @since 1.8
+	 */
+	private static StartElement replacePrefix(XMLEventFactory eventFactory, StartElement element, String prefix,
+			String replacement) {
+		boolean isReplaced = false;
+		List<Attribute> attributes = new ArrayList<>();
+
+		for (Iterator<Attribute> iterator = element.getAttributes(); iterator.hasNext();) {
+			Attribute attribute = iterator.next();
+
+			if (xlinkNamespace.equals(attribute.getName().getNamespaceURI())
+					&& "href".equals(attribute.getName().getLocalPart()) && attribute.getValue().startsWith(prefix)) {
+				attribute = eventFactory.createAttribute(attribute.getName(),
+						replacement + attribute.getValue().substring(prefix.length()));
+				isReplaced = true;
+			}
+
+			attributes.add(attribute);
+		}
+
+		if (!isReplaced)
+			return null;
+
+		eventFactory.setLocation(element.getLocation());
+
+		return eventFactory.createStartElement(element.getName().getPrefix(), element.getName().getNamespaceURI(),
+				element.getName().getLocalPart(), attributes.iterator(), element.getNamespaces(),
+				element.getNamespaceContext());
+	}
+}
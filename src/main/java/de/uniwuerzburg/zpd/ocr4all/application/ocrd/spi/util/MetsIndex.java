@@ -0,0 +1,476 @@
+/**
+ * File:     MetsIndex.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Defines indexes of mets files, this means, the files of the file groups and
+ * the physical pages with their files. The indexes are parsed once and shared
+ * by the steps of a workflow. They are validated against the modification
+ * time, size and file key of the mets file, so that they are parsed again if
+ * the mets file changed.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class MetsIndex {
+	/**
+	 * The maximal number of cached indexes.
+	 */
+	private static final int cacheSize = 16;
+
+	/**
+	 * The cached indexes. The key is the normalized absolute mets file path.
+	 */
+	private static final Map<Path, MetsIndex> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * The attributes of the mets file, that were indexed.
+	 */
+	private final BasicFileAttributes attributes;
+
+	/**
+	 * The files of the file groups in document order. The key is the file group.
+	 */
+	private final Map<String, List<File>> fileGroups = new LinkedHashMap<>();
+
+	/**
+	 * The file identifiers of the physical pages in the order of the physical
+	 * structure map. The key is the page identifier.
+	 */
+	private final Map<String, List<String>> pages = new LinkedHashMap<>();
+
+	/**
+	 * The time the index was used last.
+	 */
+	private volatile long lastUsed = System.currentTimeMillis();
+
+	/**
+	 * Creates an index of the mets file.
+	 * 
+	 * @param mets       The mets file.
+	 * @param attributes The attributes of the mets file.
+	 * @throws IOException Throws if the mets file can not be read or parsed.
+	 * @since 1.8
+	 */
+	private MetsIndex(Path mets, BasicFileAttributes attributes) throws IOException {
+		super();
+
+		this.attributes = attributes;
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+		try (InputStream inputStream = Files.newInputStream(mets)) {
+			XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+
+			try {
+				List<File> fileGroup = null;
+				File file = null;
+				boolean isPhysical = false;
+				List<String> page = null;
+
+				while (reader.hasNext())
+					switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						switch (reader.getLocalName()) {
+						case "fileGrp":
+							fileGroup = fileGroups.computeIfAbsent(
+									Objects.toString(reader.getAttributeValue(null, "USE"), ""),
+									key -> new ArrayList<>());
+							break;
+						case "file":
+							if (fileGroup != null) {
+								file = new File(reader.getAttributeValue(null, "ID"),
+										reader.getAttributeValue(null, "MIMETYPE"));
+								fileGroup.add(file);
+							}
+							break;
+						case "FLocat":
+							if (file != null && file.location == null)
+								file.location = reader.getAttributeValue("http://www.w3.org/1999/xlink", "href");
+							break;
+						case "structMap":
+							isPhysical = "PHYSICAL".equals(reader.getAttributeValue(null, "TYPE"));
+							break;
+						case "div":
+							if (isPhysical && "page".equals(reader.getAttributeValue(null, "TYPE")))
+								page = pages.computeIfAbsent(
+										Objects.toString(reader.getAttributeValue(null, "ID"), ""),
+										key -> new ArrayList<>());
+							break;
+						case "fptr":
+							if (page != null)
+								page.add(reader.getAttributeValue(null, "FILEID"));
+							break;
+						default:
+							break;
+						}
+
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						switch (reader.getLocalName()) {
+						case "fileGrp":
+							fileGroup = null;
+							break;
+						case "file":
+							file = null;
+							break;
+						case "structMap":
+							isPhysical = false;
+							break;
+						case "div":
+							page = null;
+							break;
+						default:
+							break;
+						}
+
+						break;
+					default:
+						break;
+					}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("cannot parse mets file - " + e.getMessage());
+		}
+
+		// The pages of the files
+		Map<String, String> filePages = new HashMap<>();
+		for (Map.Entry<String, List<String>> entry : pages.entrySet())
+			for (String identifier : entry.getValue())
+				filePages.putIfAbsent(identifier, entry.getKey());
+
+		for (List<File> files : fileGroups.values())
+			for (File file : files)
+				file.page = filePages.get(file.identifier);
+	}
+
+	/**
+	 * Creates a copy of the index, whose prefix of the file locations of the file
+	 * group is replaced.
+	 * 
+	 * @param index       The index.
+	 * @param attributes  The attributes of the updated mets file.
+	 * @param fileGroup   The file group.
+	 * @param prefix      The prefix to replace.
+	 * @param replacement The replacement.
+	 * @since 1.8
+	 */
+	private MetsIndex(MetsIndex index, BasicFileAttributes attributes, String fileGroup, String prefix,
+			String replacement) {
+		super();
+
+		this.attributes = attributes;
+
+		fileGroups.putAll(index.fileGroups);
+		pages.putAll(index.pages);
+
+		List<File> files = new ArrayList<>();
+		for (File file : index.getFiles(fileGroup)) {
+			File copy = new File(file.identifier, file.mimeType);
+			copy.page = file.page;
+			copy.location = file.location != null && file.location.startsWith(prefix)
+					? replacement + file.location.substring(prefix.length())
+					: file.location;
+
+			files.add(copy);
+		}
+
+		if (fileGroups.containsKey(fileGroup))
+			fileGroups.put(fileGroup, files);
+	}
+
+	/**
+	 * Returns the index of the mets file. If the mets file did not change since
+	 * it was indexed, the cached index is returned.
+	 * 
+	 * @param mets The mets file.
+	 * @return The index of the mets file.
+	 * @throws IOException Throws if the mets file can not be read or parsed.
+	 * @since 1.8
+	 */
+	public static MetsIndex getInstance(Path mets) throws IOException {
+		final Path key = mets.toAbsolutePath().normalize();
+
+		MetsIndex index;
+		try {
+			index = cache.compute(key, (path, cached) -> {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+					return cached != null && cached.isValid(attributes) ? cached : new MetsIndex(path, attributes);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			cache.remove(key);
+
+			throw e.getCause();
+		}
+
+		index.lastUsed = System.currentTimeMillis();
+
+		// Evicts the least recently used index
+		if (cache.size() > cacheSize)
+			cache.entrySet().stream().min((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed))
+					.ifPresent(entry -> cache.remove(entry.getKey(), entry.getValue()));
+
+		return index;
+	}
+
+	/**
+	 * Returns the index of the mets file, after the prefix of the file locations
+	 * of the file group was replaced with {@link MetsFileLocations}. The index is
+	 * derived from this index without parsing the mets file again, this means,
+	 * this index must be the index of the mets file before the replacement.
+	 * 
+	 * @param mets        The updated mets file.
+	 * @param fileGroup   The file group.
+	 * @param prefix      The replaced prefix.
+	 * @param replacement The replacement.
+	 * @return The index of the updated mets file.
+	 * @throws IOException Throws if the mets file attributes can not be read.
+	 * @since 1.8
+	 */
+	public MetsIndex replaceLocationPrefix(Path mets, String fileGroup, String prefix, String replacement)
+			throws IOException {
+		final Path key = mets.toAbsolutePath().normalize();
+
+		MetsIndex index = new MetsIndex(this, Files.readAttributes(key, BasicFileAttributes.class), fileGroup,
+				prefix, replacement);
+
+		cache.put(key, index);
+
+		return index;
+	}
+
+	/**
+	 * Returns true if the index is valid for the mets file attributes.
+	 * 
+	 * @param attributes The mets file attributes.
+	 * @return True if the index is valid for the mets file attributes.
+	 * @since 1.8
+	 */
+	private boolean isValid(BasicFileAttributes attributes) {
+		return this.attributes.lastModifiedTime().equals(attributes.lastModifiedTime())
+				&& this.attributes.size() == attributes.size()
+				&& Objects.equals(this.attributes.fileKey(), attributes.fileKey());
+	}
+
+	/**
+	 * Returns the file groups in document order.
+	 * 
+	 * @return The file groups.
+	 * @since 1.8
+	 */
+	public Set<String> getFileGroups() {
+		return Collections.unmodifiableSet(fileGroups.keySet());
+	}
+
+	/**
+	 * Returns the files of the file group in document order.
+	 * 
+	 * @param fileGroup The file group.
+	 * @return The files of the file group. Empty if the file group does not
+	 *         exist.
+	 * @since 1.8
+	 */
+	public List<File> getFiles(String fileGroup) {
+		return Collections.unmodifiableList(fileGroups.getOrDefault(fileGroup, Collections.emptyList()));
+	}
+
+	/**
+	 * Returns the identifiers of the physical pages that contain files of the
+	 * given file groups in the order of the physical structure map.
+	 * 
+	 * @param fileGroups The file groups.
+	 * @return The page identifiers.
+	 * @since 1.8
+	 */
+	public List<String> getPageIdentifiers(List<String> fileGroups) {
+		final Set<String> files = new HashSet<>();
+		for (String fileGroup : fileGroups)
+			for (File file : getFiles(fileGroup))
+				files.add(file.getIdentifier());
+
+		List<String> identifiers = new ArrayList<>();
+		for (Map.Entry<String, List<String>> page : pages.entrySet())
+			for (String identifier : page.getValue())
+				if (files.contains(identifier)) {
+					identifiers.add(page.getKey());
+
+					break;
+				}
+
+		return identifiers;
+	}
+
+	/**
+	 * Returns the files of all file groups, that are assigned to the pages.
+	 * 
+	 * @param pages The page identifiers.
+	 * @return The files of the pages in document order.
+	 * @since 1.8
+	 */
+	public List<File> getPageFiles(Collection<String> pages) {
+		final Set<String> identifiers = new HashSet<>(pages);
+
+		List<File> files = new ArrayList<>();
+		for (List<File> fileGroup : fileGroups.values())
+			for (File file : fileGroup)
+				if (file.getPage() != null && identifiers.contains(file.getPage()))
+					files.add(file);
+
+		return files;
+	}
+
+	/**
+	 * Returns true if a file location of the file group starts with the prefix.
+	 * 
+	 * @param fileGroup The file group.
+	 * @param prefix    The prefix.
+	 * @return True if a file location of the file group starts with the prefix.
+	 * @since 1.8
+	 */
+	public boolean isLocationPrefix(String fileGroup, String prefix) {
+		for (File file : getFiles(fileGroup))
+			if (file.getLocation() != null && file.getLocation().startsWith(prefix))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Defines files of mets files.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class File {
+		/**
+		 * The identifier.
+		 */
+		private final String identifier;
+
+		/**
+		 * The mime type. Null if not set.
+		 */
+		private final String mimeType;
+
+		/**
+		 * The location, this means, the first <code>xlink:href</code>. Null if not
+		 * set.
+		 */
+		private String location = null;
+
+		/**
+		 * The physical page identifier. Null if the file is not assigned to a page.
+		 */
+		private String page = null;
+
+		/**
+		 * Creates a file.
+		 * 
+		 * @param identifier The identifier.
+		 * @param mimeType   The mime type. Null if not set.
+		 * @since 1.8
+		 */
+		private File(String identifier, String mimeType) {
+			super();
+
+			this.identifier = identifier;
+			this.mimeType = mimeType;
+		}
+
+		/**
+		 * Creates a file.
+		 * 
+		 * @param identifier The identifier.
+		 * @param mimeType   The mime type. Null if not set.
+		 * @param location   The location. Null if not set.
+		 * @param page       The physical page identifier. Null if the file is not
+		 *                   assigned to a page.
+		 * @since 1.8
+		 */
+		public File(String identifier, String mimeType, String location, String page) {
+			this(identifier, mimeType);
+
+			this.location = location;
+			this.page = page;
+		}
+
+		/**
+		 * Returns the identifier.
+		 * 
+		 * @return The identifier.
+		 * @since 1.8
+		 */
+		public String getIdentifier() {
+			return identifier;
+		}
+
+		/**
+		 * Returns the mime type.
+		 * 
+		 * @return The mime type. Null if not set.
+		 * @since 1.8
+		 */
+		public String getMimeType() {
+			return mimeType;
+		}
+
+		/**
+		 * Returns the location.
+		 * 
+		 * @return The location. Null if not set.
+		 * @since 1.8
+		 */
+		public String getLocation() {
+			return location;
+		}
+
+		/**
+		 * Returns the physical page identifier.
+		 * 
+		 * @return The physical page identifier. Null if the file is not assigned to
+		 *         a page.
+		 * @since 1.8
+		 */
+		public String getPage() {
+			return page;
+		}
+	}
+}
@@ -0,0 +1,512 @@
+/**
+ * File:     MetsMerger.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Defines mergers of mets files. The files of a file group, that were added to
+ * copies of a mets file, for example by processors that worked on disjoint
+ * pages, are merged back into the mets file.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class MetsMerger {
+	/**
+	 * The mets namespace.
+	 */
+	public static final String metsNamespace = "http://www.loc.gov/METS/";
+
+	/**
+	 * The xlink namespace.
+	 */
+	private static final String xlinkNamespace = "http://www.w3.org/1999/xlink";
+
+	/**
+	 * Merges the files of the file group and the respective physical page pointers
+	 * of the mets copies into the mets file. The software agents, that were added
+	 * to the first copy, are merged too.
+	 * 
+	 * @param mets      The mets file.
+	 * @param copies    The mets copies.
+	 * @param fileGroup The file group.
+	 * @throws IOException Throws if the mets files can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static void merge(Path mets, List<Path> copies, String fileGroup) throws IOException {
+		try {
+			DocumentBuilder builder = getDocumentBuilder();
+
+			final Document document = builder.parse(mets.toFile());
+
+			final Element group = getFileGroup(document, fileGroup, true);
+			final Map<String, Element> pages = getPhysicalPages(document);
+
+			final Set<String> files = new HashSet<>();
+			for (Element file : getChildElements(group, "file"))
+				files.add(file.getAttribute("ID"));
+
+			boolean isAgents = true;
+			for (Path copy : copies) {
+				final Document copyDocument = builder.parse(copy.toFile());
+
+				if (isAgents) {
+					mergeAgents(document, copyDocument);
+
+					isAgents = false;
+				}
+
+				Element copyGroup = getFileGroup(copyDocument, fileGroup, false);
+				if (copyGroup == null)
+					continue;
+
+				final Set<String> merged = new HashSet<>();
+				for (Element file : getChildElements(copyGroup, "file"))
+					if (files.add(file.getAttribute("ID"))) {
+						group.appendChild(document.importNode(file, true));
+
+						merged.add(file.getAttribute("ID"));
+					}
+
+				for (Map.Entry<String, Element> copyPage : getPhysicalPages(copyDocument).entrySet()) {
+					final Element page = pages.get(copyPage.getKey());
+
+					if (page != null)
+						for (Element pointer : getChildElements(copyPage.getValue(), "fptr"))
+							if (merged.contains(pointer.getAttribute("FILEID")))
+								page.appendChild(document.importNode(pointer, true));
+				}
+			}
+
+			write(document, mets);
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("cannot merge mets file - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Merges the files of the file group and the respective physical page pointers
+	 * of the mets copy into the target file group of the mets file. The file
+	 * identifiers, that start with the file group, are renamed to start with the
+	 * target file group, and they are made unique in the mets file. The locations
+	 * of the merged files, that start with the prefix, are updated.
+	 * 
+	 * @param mets            The mets file.
+	 * @param copy            The mets copy.
+	 * @param fileGroup       The file group of the mets copy.
+	 * @param targetFileGroup The target file group of the mets file.
+	 * @param prefix          The location prefix to replace.
+	 * @param replacement     The replacement of the location prefix.
+	 * @throws IOException Throws if the mets files can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static void merge(Path mets, Path copy, String fileGroup, String targetFileGroup, String prefix,
+			String replacement) throws IOException {
+		try {
+			DocumentBuilder builder = getDocumentBuilder();
+
+			final Document document = builder.parse(mets.toFile());
+			final Document copyDocument = builder.parse(copy.toFile());
+
+			final Element copyGroup = getFileGroup(copyDocument, fileGroup, false);
+			if (copyGroup == null)
+				return;
+
+			final Element group = getFileGroup(document, targetFileGroup, true);
+			final Map<String, Element> pages = getPhysicalPages(document);
+
+			final Set<String> files = new HashSet<>();
+			final NodeList elements = document.getElementsByTagNameNS(metsNamespace, "file");
+			for (int i = 0; i < elements.getLength(); i++)
+				files.add(((Element) elements.item(i)).getAttribute("ID"));
+
+			// The merged file identifiers by the ones of the copy
+			final Map<String, String> merged = new HashMap<>();
+			for (Element file : getChildElements(copyGroup, "file")) {
+				final String identifier = file.getAttribute("ID");
+
+				final String renamedIdentifier = identifier.startsWith(fileGroup)
+						? targetFileGroup + identifier.substring(fileGroup.length())
+						: identifier;
+
+				String mergedIdentifier = renamedIdentifier;
+				for (int i = 1; files.contains(mergedIdentifier); i++)
+					mergedIdentifier = renamedIdentifier + "-" + i;
+
+				final Element imported = (Element) document.importNode(file, true);
+				imported.setAttribute("ID", mergedIdentifier);
+
+				for (Element location : getChildElements(imported, "FLocat")) {
+					final Attr href = location.getAttributeNodeNS(xlinkNamespace, "href");
+
+					if (href != null && href.getValue().startsWith(prefix))
+						href.setValue(replacement + href.getValue().substring(prefix.length()));
+				}
+
+				group.appendChild(imported);
+
+				files.add(mergedIdentifier);
+				merged.put(identifier, mergedIdentifier);
+			}
+
+			for (Map.Entry<String, Element> copyPage : getPhysicalPages(copyDocument).entrySet()) {
+				final Element page = pages.get(copyPage.getKey());
+
+				if (page != null)
+					for (Element pointer : getChildElements(copyPage.getValue(), "fptr"))
+						if (merged.containsKey(pointer.getAttribute("FILEID"))) {
+							final Element imported = (Element) document.importNode(pointer, true);
+							imported.setAttribute("FILEID", merged.get(pointer.getAttribute("FILEID")));
+
+							page.appendChild(imported);
+						}
+			}
+
+			write(document, mets);
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("cannot merge mets file - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Adds the files to the file group of the mets file and the pointers to them
+	 * to their physical pages. The file identifiers, that start with their
+	 * source file group, are renamed to start with the file group, and they are
+	 * made unique in the mets file. The files, whose physical page is not
+	 * available in the mets file, are not added. The mets file is parsed and
+	 * written only once for all files.
+	 * 
+	 * @param mets      The mets file.
+	 * @param fileGroup The file group.
+	 * @param files     The files by the source file group, under which they were
+	 *                  identified.
+	 * @throws IOException Throws if the mets file can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static void add(Path mets, String fileGroup, Map<String, List<MetsIndex.File>> files)
+			throws IOException {
+		try {
+			final Document document = getDocumentBuilder().parse(mets.toFile());
+
+			final Element group = getFileGroup(document, fileGroup, true);
+			final Map<String, Element> pages = getPhysicalPages(document);
+
+			final Set<String> identifiers = new HashSet<>();
+			final NodeList elements = document.getElementsByTagNameNS(metsNamespace, "file");
+			for (int i = 0; i < elements.getLength(); i++)
+				identifiers.add(((Element) elements.item(i)).getAttribute("ID"));
+
+			for (Map.Entry<String, List<MetsIndex.File>> source : files.entrySet())
+				for (MetsIndex.File file : source.getValue()) {
+					final String sourceFileGroup = source.getKey();
+
+					final Element page = pages.get(file.getPage());
+					if (page == null)
+						continue;
+
+					final String renamedIdentifier = file.getIdentifier().startsWith(sourceFileGroup)
+							? fileGroup + file.getIdentifier().substring(sourceFileGroup.length())
+							: file.getIdentifier();
+
+					String identifier = renamedIdentifier;
+					for (int i = 1; identifiers.contains(identifier); i++)
+						identifier = renamedIdentifier + "-" + i;
+
+					final Element element = document.createElementNS(metsNamespace, "mets:file");
+					element.setAttribute("ID", identifier);
+					if (file.getMimeType() != null)
+						element.setAttribute("MIMETYPE", file.getMimeType());
+
+					final Element location = document.createElementNS(metsNamespace, "mets:FLocat");
+					location.setAttribute("LOCTYPE", "OTHER");
+					location.setAttribute("OTHERLOCTYPE", "FILE");
+					location.setAttributeNS(xlinkNamespace, "xlink:href", file.getLocation());
+					element.appendChild(location);
+
+					group.appendChild(element);
+
+					final Element pointer = document.createElementNS(metsNamespace, "mets:fptr");
+					pointer.setAttribute("FILEID", identifier);
+					page.appendChild(pointer);
+
+					identifiers.add(identifier);
+				}
+
+			write(document, mets);
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("cannot add files to mets file - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the file groups and the physical page pointers to their files from
+	 * the mets file.
+	 * 
+	 * @param mets       The mets file.
+	 * @param fileGroups The file groups.
+	 * @throws IOException Throws if the mets file can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static void remove(Path mets, Collection<String> fileGroups) throws IOException {
+		try {
+			final Document document = getDocumentBuilder().parse(mets.toFile());
+
+			final Set<String> files = new HashSet<>();
+			for (String fileGroup : fileGroups) {
+				Element group = getFileGroup(document, fileGroup, false);
+
+				if (group != null) {
+					for (Element file : getChildElements(group, "file"))
+						files.add(file.getAttribute("ID"));
+
+					group.getParentNode().removeChild(group);
+				}
+			}
+
+			for (Element page : getPhysicalPages(document).values())
+				for (Element pointer : getChildElements(page, "fptr"))
+					if (files.contains(pointer.getAttribute("FILEID")))
+						page.removeChild(pointer);
+
+			write(document, mets);
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("cannot remove file groups from mets file - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the files of the file group and the physical page pointers to them
+	 * from the mets file.
+	 * 
+	 * @param mets        The mets file.
+	 * @param fileGroup   The file group.
+	 * @param identifiers The identifiers of the files to remove.
+	 * @throws IOException Throws if the mets file can not be read, parsed or
+	 *                     written.
+	 * @since 1.8
+	 */
+	public static void remove(Path mets, String fileGroup, Collection<String> identifiers) throws IOException {
+		try {
+			final Document document = getDocumentBuilder().parse(mets.toFile());
+
+			final Element group = getFileGroup(document, fileGroup, false);
+			if (group == null)
+				return;
+
+			final Set<String> files = new HashSet<>();
+			for (Element file : getChildElements(group, "file"))
+				if (identifiers.contains(file.getAttribute("ID"))) {
+					files.add(file.getAttribute("ID"));
+
+					group.removeChild(file);
+				}
+
+			for (Element page : getPhysicalPages(document).values())
+				for (Element pointer : getChildElements(page, "fptr"))
+					if (files.contains(pointer.getAttribute("FILEID")))
+						page.removeChild(pointer);
+
+			write(document, mets);
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("cannot remove files from mets file - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns a namespace aware document builder.
+	 * 
+	 * @return The document builder.
+	 * @throws ParserConfigurationException Throws if the document builder can not
+	 *                                      be created.
+	 * @since 1.8
+	 */
+	static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+
+		return factory.newDocumentBuilder();
+	}
+
+	/**
+	 * Writes the document to the file. The document is written to a new file in
+	 * the same folder, that atomically replaces the file.
+	 * 
+	 * @param document The document.
+	 * @param file     The file.
+	 * @throws IOException          Throws if the file can not be written.
+	 * @throws TransformerException Throws if the document can not be serialized.
+	 * @since 1.8
+	 */
+	static void write(Document document, Path file) throws IOException, TransformerException {
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+
+		Path temporary = FileUtils.createSibling(file);
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+				transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+			}
+
+			FileUtils.replace(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Merges the software agents of the mets header of the copy, that are not
+	 * available in the mets header of the document.
+	 * 
+	 * @param document The document.
+	 * @param copy     The copy.
+	 * @since 1.8
+	 */
+	private static void mergeAgents(Document document, Document copy) {
+		Element header = getFirstElement(document.getDocumentElement(), "metsHdr");
+		Element copyHeader = getFirstElement(copy.getDocumentElement(), "metsHdr");
+
+		if (header == null || copyHeader == null)
+			return;
+
+		List<Element> agents = getChildElements(header, "agent");
+		List<Element> copyAgents = getChildElements(copyHeader, "agent");
+
+		Node reference = agents.isEmpty() ? header.getFirstChild() : agents.get(agents.size() - 1).getNextSibling();
+		for (int i = agents.size(); i < copyAgents.size(); i++)
+			header.insertBefore(document.importNode(copyAgents.get(i), true), reference);
+	}
+
+	/**
+	 * Returns the file group element.
+	 * 
+	 * @param document The document.
+	 * @param use      The file group.
+	 * @param isCreate True if the file group element should be created, if it is
+	 *                 not available.
+	 * @return The file group element. Null if not available and it should not be
+	 *         created.
+	 * @since 1.8
+	 */
+	static Element getFileGroup(Document document, String use, boolean isCreate) {
+		Element fileSection = getFirstElement(document.getDocumentElement(), "fileSec");
+		if (fileSection != null)
+			for (Element group : getChildElements(fileSection, "fileGrp"))
+				if (use.equals(group.getAttribute("USE")))
+					return group;
+
+		if (!isCreate)
+			return null;
+
+		if (fileSection == null) {
+			fileSection = document.createElementNS(metsNamespace, "mets:fileSec");
+
+			Element structureMap = getFirstElement(document.getDocumentElement(), "structMap");
+			document.getDocumentElement().insertBefore(fileSection, structureMap);
+		}
+
+		Element group = document.createElementNS(metsNamespace, "mets:fileGrp");
+		group.setAttribute("USE", use);
+		fileSection.appendChild(group);
+
+		return group;
+	}
+
+	/**
+	 * Returns the page elements of the physical structure map.
+	 * 
+	 * @param document The document.
+	 * @return The page elements. The key is the page identifier.
+	 * @since 1.8
+	 */
+	static Map<String, Element> getPhysicalPages(Document document) {
+		Map<String, Element> pages = new HashMap<>();
+
+		for (Element structureMap : getChildElements(document.getDocumentElement(), "structMap"))
+			if ("PHYSICAL".equals(structureMap.getAttribute("TYPE"))) {
+				NodeList divisions = structureMap.getElementsByTagNameNS(metsNamespace, "div");
+
+				for (int i = 0; i < divisions.getLength(); i++) {
+					Element division = (Element) divisions.item(i);
+
+					if ("page".equals(division.getAttribute("TYPE")))
+						pages.put(division.getAttribute("ID"), division);
+				}
+			}
+
+		return pages;
+	}
+
+	/**
+	 * Returns the first child element with given local name in the mets
+	 * namespace.
+	 * 
+	 * @param parent    The parent element.
+	 * @param localName The local name.
+	 * @return The first child element. Null if not available.
+	 * @since 1.8
+	 */
+	static Element getFirstElement(Element parent, String localName) {
+		List<Element> elements = getChildElements(parent, localName);
+
+		return elements.isEmpty() ? null : elements.get(0);
+	}
+
+	/**
+	 * Returns the child elements with given local name in the mets namespace.
+	 * 
+	 * @param parent    The parent element.
+	 * @param localName The local name.
+	 * @return The child elements.
+	 * @since 1.8
+	 */
+	static List<Element> getChildElements(Element parent, String localName) {
+		List<Element> elements = new ArrayList<>();
+
+		for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+			if (node instanceof Element && metsNamespace.equals(node.getNamespaceURI())
+					&& localName.equals(node.getLocalName()))
+				elements.add((Element) node);
+
+		return elements;
+	}
+}
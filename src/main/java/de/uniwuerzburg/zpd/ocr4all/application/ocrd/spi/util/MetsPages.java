@@ -0,0 +1,84 @@
+/**
+ * File:     MetsPages.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defines utilities for the pages of mets files.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class MetsPages {
+	/**
+	 * Returns the file groups of an ocr-d file group argument, this means, the
+	 * comma separated file groups.
+	 * 
+	 * @param fileGroups The ocr-d file group argument.
+	 * @return The file groups.
+	 * @since 1.8
+	 */
+	public static List<String> getFileGroups(String fileGroups) {
+		List<String> groups = new ArrayList<>();
+
+		if (fileGroups != null)
+			for (String group : fileGroups.split(","))
+				if (!group.isBlank())
+					groups.add(group.trim());
+
+		return groups;
+	}
+
+	/**
+	 * Returns the identifiers of the physical pages that contain files of the
+	 * given file groups in the order of the physical structure map.
+	 * 
+	 * @param mets       The mets file.
+	 * @param fileGroups The file groups.
+	 * @return The page identifiers.
+	 * @throws IOException Throws if the mets file can not be read or parsed.
+	 * @since 1.8
+	 */
+	public static List<String> getPageIdentifiers(Path mets, List<String> fileGroups) throws IOException {
+		return MetsIndex.getInstance(mets).getPageIdentifiers(fileGroups);
+	}
+
+	/**
+	 * Splits the pages into contiguous shards of balanced sizes.
+	 * 
+	 * @param pages  The pages.
+	 * @param number The desired number of shards.
+	 * @return The shards. There are not more shards than pages.
+	 * @since 1.8
+	 */
+	public static List<List<String>> split(List<String> pages, int number) {
+		final int shards = Math.max(1, Math.min(number, pages.size()));
+
+		List<List<String>> split = new ArrayList<>();
+		for (int i = 0; i < shards; i++)
+			split.add(new ArrayList<>(pages.subList(i * pages.size() / shards, (i + 1) * pages.size() / shards)));
+
+		return split;
+	}
+
+	/**
+	 * Returns the pages as value for the ocr-d page identifier option.
+	 * 
+	 * @param pages The pages.
+	 * @return The value for the ocr-d page identifier option.
+	 * @since 1.8
+	 */
+	public static String toPageIdentifierOption(List<String> pages) {
+		return String.join(",", pages);
+	}
+}
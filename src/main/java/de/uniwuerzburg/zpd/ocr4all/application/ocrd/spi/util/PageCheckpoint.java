@@ -0,0 +1,250 @@
+/**
+ * File:     PageCheckpoint.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Defines checkpoints of the completed pages of a processor run, that processes
+ * the pages in batches, so that an interrupted run can be resumed. The
+ * checkpoint is kept in the folder <i>.ocr4all-resume</i> of the processor
+ * workspace beside the output folder and the mets file, that the batches
+ * update. It records the key of the run, this means, the processor, the docker
+ * image, the parameters and the input file group, and the pages of the
+ * completed batches.
+ * <p>
+ * When the run is resumed, the output folder and the output file group of the
+ * mets file are reconciled with the checkpoint. A page is complete if it is
+ * recorded in the checkpoint and all its files of the output file group exist.
+ * The files and the mets entries of the other pages, e.g. the partial output
+ * of the interrupted batch, are removed, so that these pages can be processed
+ * again. A checkpoint of another run discards the whole output.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class PageCheckpoint {
+	/**
+	 * The folder of the checkpoints in the processor workspace.
+	 */
+	public static final String folderName = ".ocr4all-resume";
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The checkpoint file.
+	 */
+	private final Path file;
+
+	/**
+	 * The key of the run.
+	 */
+	private final String key;
+
+	/**
+	 * The completed pages.
+	 */
+	private final Set<String> pages = new LinkedHashSet<>();
+
+	/**
+	 * Creates a checkpoint of the completed pages.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param fileGroup The output file group.
+	 * @param key       The key of the run.
+	 * @since 1.8
+	 */
+	public PageCheckpoint(Path workspace, String fileGroup, String key) {
+		super();
+
+		file = getFile(workspace, fileGroup);
+		this.key = key;
+	}
+
+	/**
+	 * Returns the checkpoint file.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param fileGroup The output file group.
+	 * @return The checkpoint file.
+	 * @since 1.8
+	 */
+	private static Path getFile(Path workspace, String fileGroup) {
+		return workspace.resolve(folderName).resolve(fileGroup + ".json");
+	}
+
+	/**
+	 * Returns true if a checkpoint of the output file group exists, this means,
+	 * a former run of the step was interrupted.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param fileGroup The output file group.
+	 * @return True if a checkpoint exists.
+	 * @since 1.8
+	 */
+	public static boolean exists(Path workspace, String fileGroup) {
+		return Files.isRegularFile(getFile(workspace, fileGroup));
+	}
+
+	/**
+	 * Returns the completed pages.
+	 * 
+	 * @return The completed pages.
+	 * @since 1.8
+	 */
+	public Set<String> getPages() {
+		return pages;
+	}
+
+	/**
+	 * Reconciles the output of the interrupted run with the checkpoint. The files
+	 * and the mets entries of the output file group, that do not belong to a
+	 * complete page, are removed. If the checkpoint is of another run, the whole
+	 * output is removed.
+	 * 
+	 * @param mets         The mets file.
+	 * @param fileGroup    The output file group.
+	 * @param outputFolder The output folder.
+	 * @return The complete pages.
+	 * @throws IOException Throws if the output can not be reconciled.
+	 * @since 1.8
+	 */
+	public Set<String> reconcile(Path mets, String fileGroup, Path outputFolder) throws IOException {
+		pages.clear();
+
+		final Set<String> checkpointed = new HashSet<>();
+		if (Files.isRegularFile(file)) {
+			final JsonNode checkpoint = objectMapper.readTree(file.toFile());
+
+			if (key != null && key.equals(checkpoint.path("key").asText()))
+				for (JsonNode page : checkpoint.path("pages"))
+					checkpointed.add(page.asText());
+		}
+
+		// The files of the output file group by page
+		final Path base = mets.toAbsolutePath().getParent();
+		final Map<String, List<MetsIndex.File>> pageFiles = new HashMap<>();
+		final List<MetsIndex.File> files = MetsIndex.getInstance(mets).getFiles(fileGroup);
+		for (MetsIndex.File metsFile : files)
+			if (metsFile.getPage() != null)
+				pageFiles.computeIfAbsent(metsFile.getPage(), page -> new ArrayList<>()).add(metsFile);
+
+		for (Map.Entry<String, List<MetsIndex.File>> entry : pageFiles.entrySet())
+			if (checkpointed.contains(entry.getKey()) && entry.getValue().stream()
+					.allMatch(metsFile -> Files.isRegularFile(base.resolve(metsFile.getLocation()))))
+				pages.add(entry.getKey());
+
+		// The complete pages without files of the output file group
+		for (String page : checkpointed)
+			if (!pageFiles.containsKey(page))
+				pages.add(page);
+
+		final Set<String> kept = new HashSet<>();
+		final Set<String> removed = new HashSet<>();
+		for (MetsIndex.File metsFile : files)
+			if (metsFile.getPage() != null && pages.contains(metsFile.getPage()))
+				kept.add(base.resolve(metsFile.getLocation()).normalize().toString());
+			else
+				removed.add(metsFile.getIdentifier());
+
+		if (!removed.isEmpty())
+			MetsMerger.remove(mets, fileGroup, removed);
+
+		if (Files.isDirectory(outputFolder, LinkOption.NOFOLLOW_LINKS))
+			try (Stream<Path> walk = Files.walk(outputFolder)) {
+				for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+					if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+						if (!path.equals(outputFolder))
+							try (Stream<Path> entries = Files.list(path)) {
+								if (!entries.findAny().isPresent())
+									Files.delete(path);
+							}
+					} else if (!kept.contains(path.toAbsolutePath().normalize().toString()))
+						Files.delete(path);
+			}
+
+		return pages;
+	}
+
+	/**
+	 * Discards the output of an interrupted run, whose checkpoint exists, and the
+	 * checkpoint, e.g. if the run is not resumed.
+	 * 
+	 * @param workspace    The processor workspace.
+	 * @param mets         The mets file.
+	 * @param fileGroup    The output file group.
+	 * @param outputFolder The output folder.
+	 * @throws IOException Throws if the output can not be discarded.
+	 * @since 1.8
+	 */
+	public static void discard(Path workspace, Path mets, String fileGroup, Path outputFolder) throws IOException {
+		final PageCheckpoint checkpoint = new PageCheckpoint(workspace, fileGroup, null);
+
+		checkpoint.reconcile(mets, fileGroup, outputFolder);
+		checkpoint.delete();
+	}
+
+	/**
+	 * Saves the checkpoint with the completed pages.
+	 * 
+	 * @param completed The pages, that were completed in addition.
+	 * @throws IOException Throws if the checkpoint can not be written.
+	 * @since 1.8
+	 */
+	public void save(Collection<String> completed) throws IOException {
+		pages.addAll(completed);
+
+		final ObjectNode checkpoint = objectMapper.createObjectNode();
+		checkpoint.put("key", key);
+
+		pages.forEach(checkpoint.putArray("pages")::add);
+
+		Files.createDirectories(file.getParent());
+
+		final Path temporary = FileUtils.createSibling(file);
+		try {
+			objectMapper.writeValue(temporary.toFile(), checkpoint);
+
+			FileUtils.replace(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Deletes the checkpoint, e.g. when the run is completed.
+	 * 
+	 * @throws IOException Throws if the checkpoint can not be deleted.
+	 * @since 1.8
+	 */
+	public void delete() throws IOException {
+		Files.deleteIfExists(file);
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * File:     PageProgress.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Defines page progresses of processors, that are derived from their log
+ * output. The ocr-d processors log the identifier of the page they start
+ * processing, e.g. <i>INPUT FILE 3 / PHYS_0003</i>. A page is processed when
+ * the processor starts with the next page or when it terminates. A line starts
+ * at most one page, the lines with several page identifiers, e.g. echoed page
+ * lists or tracebacks, are ignored.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class PageProgress {
+	/**
+	 * The pattern for the line ends.
+	 */
+	private static final Pattern linePattern = Pattern.compile("\\r\\n|\\r|\\n");
+
+	/**
+	 * The pattern for the tokens of the log lines, that can be page identifiers.
+	 */
+	private static final Pattern tokenPattern = Pattern.compile("[^\\s'\"`\\[\\](){}<>,;=]+");
+
+	/**
+	 * The page identifiers.
+	 */
+	private final Set<String> pages;
+
+	/**
+	 * The started pages.
+	 */
+	private final Set<String> started = new HashSet<>();
+
+	/**
+	 * The start time.
+	 */
+	private final long start = System.currentTimeMillis();
+
+	/**
+	 * Creates a page progress.
+	 * 
+	 * @param pages The page identifiers.
+	 * @since 1.8
+	 */
+	public PageProgress(List<String> pages) {
+		super();
+
+		this.pages = new HashSet<>(pages);
+	}
+
+	/**
+	 * Updates the page progress with the log lines.
+	 * 
+	 * @param lines The log lines.
+	 * @return True if the processor started new pages.
+	 * @since 1.8
+	 */
+	public synchronized boolean update(String lines) {
+		boolean isUpdated = false;
+
+		if (lines != null && started.size() < pages.size())
+			for (String line : linePattern.split(lines)) {
+				final String page = getPage(line);
+
+				if (page != null && started.add(page))
+					isUpdated = true;
+			}
+
+		return isUpdated;
+	}
+
+	/**
+	 * Returns the page identifier of the log line.
+	 * 
+	 * @param line The log line.
+	 * @return The page identifier. Null if the line does not contain exactly one
+	 *         page identifier.
+	 * @since 1.8
+	 */
+	private String getPage(String line) {
+		String page = null;
+
+		Matcher matcher = tokenPattern.matcher(line);
+		while (matcher.find()) {
+			String token = matcher.group();
+
+			// Tokens can end with sentence punctuation
+			while (!token.isEmpty() && !pages.contains(token)
+					&& (token.endsWith(".") || token.endsWith(":") || token.endsWith("!")))
+				token = token.substring(0, token.length() - 1);
+
+			if (pages.contains(token)) {
+				if (page != null && !page.equals(token))
+					return null;
+
+				page = token;
+			}
+		}
+
+		return page;
+	}
+
+	/**
+	 * Returns the number of pages.
+	 * 
+	 * @return The number of pages.
+	 * @since 1.8
+	 */
+	public int getPages() {
+		return pages.size();
+	}
+
+	/**
+	 * Returns the number of processed pages. These are the started pages except
+	 * the pages, that are currently processed.
+	 * 
+	 * @param concurrency The number of pages, that are processed concurrently.
+	 * @return The number of processed pages.
+	 * @since 1.8
+	 */
+	public synchronized int getProcessed(int concurrency) {
+		return Math.max(0, started.size() - Math.max(1, concurrency));
+	}
+
+	/**
+	 * Returns the fraction of processed pages.
+	 * 
+	 * @param concurrency The number of pages, that are processed concurrently.
+	 * @return The fraction of processed pages between 0 and 1.
+	 * @since 1.8
+	 */
+	public float getFraction(int concurrency) {
+		return pages.isEmpty() ? 0 : (float) getProcessed(concurrency) / pages.size();
+	}
+
+	/**
+	 * Returns the estimated remaining time in milliseconds, this means, the
+	 * average processing time of the processed pages multiplied by the number of
+	 * pages, that are not processed.
+	 * 
+	 * @param concurrency The number of pages, that are processed concurrently.
+	 * @return The estimated remaining time in milliseconds. -1 if no page was
+	 *         processed yet.
+	 * @since 1.8
+	 */
+	public long getRemainingMilliseconds(int concurrency) {
+		final int processed = getProcessed(concurrency);
+
+		return processed == 0 ? -1
+				: (System.currentTimeMillis() - start) * (pages.size() - processed) / processed;
+	}
+
+	/**
+	 * Returns the duration formatted as hours, minutes and seconds.
+	 * 
+	 * @param milliseconds The duration in milliseconds.
+	 * @return The formatted duration.
+	 * @since 1.8
+	 */
+	public static String format(long milliseconds) {
+		final long seconds = Math.max(0, milliseconds) / 1000;
+
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+}
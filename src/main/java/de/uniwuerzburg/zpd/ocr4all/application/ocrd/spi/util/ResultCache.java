@@ -0,0 +1,856 @@
+/**
+ * File:     ResultCache.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Defines content-addressed caches of processor results. An entry is addressed
+ * by the hash of the inputs of a processor step, this means, the processor,
+ * the docker image identifier, the parameters, the files of the input file
+ * groups and the model files. It contains the files of the output file group,
+ * a copy of the mets file and the output file group and location, under which
+ * the files were cached.
+ * <p>
+ * The files are hard linked, so that the cache only needs space for the
+ * outputs, that were deleted in the snapshot sandboxes. The xml files are
+ * copied, since they can be edited in the snapshot sandboxes. All files are
+ * copied, if the cache is on another file system. The size of the cache is
+ * bounded, the least recently used entries are evicted. The sizes and the
+ * usage order of the entries are kept in an index in memory, that is built by
+ * scanning the cache folder on the first eviction and again after the rescan
+ * interval, so that the entries of other processes are considered.
+ * <p>
+ * Page entries are addressed by the hash of the inputs of a processor step on
+ * a single page. They contain the output files of the page and their mets
+ * descriptions, so that the unchanged pages of a step can be carried forward,
+ * when only some pages have to be processed again.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ResultCache {
+	/**
+	 * The entry file name.
+	 */
+	private static final String entryFileName = "entry.json";
+
+	/**
+	 * The mets file name.
+	 */
+	private static final String metsFileName = "mets.xml";
+
+	/**
+	 * The folder name of the files.
+	 */
+	private static final String filesFolderName = "files";
+
+	/**
+	 * The age in milliseconds, after which temporary entry folders are
+	 * considered as left behind.
+	 */
+	private static final long staleTemporaryMilliseconds = 24L * 60 * 60 * 1000;
+
+	/**
+	 * The interval in milliseconds, after which the index is rebuilt by scanning
+	 * the cache folder.
+	 */
+	private static final long rescanMilliseconds = 60L * 60 * 1000;
+
+	/**
+	 * The maximal number of memorized file hashes.
+	 */
+	private static final int fileHashesSize = 100000;
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The result caches. The key is the normalized absolute cache folder.
+	 */
+	private static final Map<Path, ResultCache> caches = new HashMap<>();
+
+	/**
+	 * The memorized file hashes. The key contains the file, its key, size and
+	 * modification time, so that changed files are hashed again. The least
+	 * recently used hashes are dropped, when the maximal number is exceeded.
+	 */
+	private static final Map<String, String> fileHashes = Collections
+			.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+				 */
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > fileHashesSize;
+				}
+			});
+
+	/**
+	 * The cache folder.
+	 */
+	private final Path folder;
+
+	/**
+	 * The capacity in bytes.
+	 */
+	private volatile long capacity;
+
+	/**
+	 * The index of the entries in the order of their usage, the least recently
+	 * used first. The value is the entry size in bytes. Null if it was not built.
+	 */
+	private LinkedHashMap<String, Long> index = null;
+
+	/**
+	 * The size of the indexed entries in bytes.
+	 */
+	private long size = 0;
+
+	/**
+	 * The time the index was built.
+	 */
+	private long indexed = 0;
+
+	/**
+	 * Creates a result cache.
+	 * 
+	 * @param folder   The cache folder.
+	 * @param capacity The capacity in bytes.
+	 * @since 1.8
+	 */
+	private ResultCache(Path folder, long capacity) {
+		super();
+
+		this.folder = folder;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the result cache of the folder.
+	 * 
+	 * @param folder   The cache folder.
+	 * @param capacity The capacity in bytes.
+	 * @return The result cache.
+	 * @since 1.8
+	 */
+	public static ResultCache getInstance(Path folder, long capacity) {
+		final Path key = folder.toAbsolutePath().normalize();
+
+		synchronized (caches) {
+			final ResultCache cache = caches.computeIfAbsent(key, path -> new ResultCache(path, capacity));
+			cache.capacity = capacity;
+
+			return cache;
+		}
+	}
+
+	/**
+	 * Returns the cache folder.
+	 * 
+	 * @return The cache folder.
+	 * @since 1.8
+	 */
+	public Path getFolder() {
+		return folder;
+	}
+
+	/**
+	 * Returns the hash of the file content. The hashes are memorized by the file,
+	 * its key, size and modification time, so that unchanged files, e.g. model
+	 * files, are only read once.
+	 * 
+	 * @param file The file.
+	 * @return The hash of the file content.
+	 * @throws IOException Throws if the file can not be read.
+	 * @since 1.8
+	 */
+	public static String getFileHash(Path file) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final String key = file.toAbsolutePath().normalize() + "\u0000" + attributes.fileKey() + "\u0000"
+				+ attributes.size() + "\u0000" + attributes.lastModifiedTime().toMillis();
+
+		String hash = fileHashes.get(key);
+		if (hash == null) {
+			final MessageDigest digest = getDigest();
+
+			try (InputStream inputStream = Files.newInputStream(file)) {
+				byte[] buffer = new byte[65536];
+
+				int length;
+				while ((length = inputStream.read(buffer)) != -1)
+					digest.update(buffer, 0, length);
+			}
+
+			hash = HexFormat.of().formatHex(digest.digest());
+
+			fileHashes.put(key, hash);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Returns a SHA-256 message digest.
+	 * 
+	 * @return The message digest.
+	 * @since 1.8
+	 */
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is available in every java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the entry folder.
+	 * 
+	 * @param key The cache key.
+	 * @return The entry folder.
+	 * @since 1.8
+	 */
+	private Path getEntry(String key) {
+		return folder.resolve(key);
+	}
+
+	/**
+	 * Takes the cached result. Its files are linked into the output folder and
+	 * they are merged into the output file group of the mets file with locations
+	 * in the output folder.
+	 * 
+	 * @param key       The cache key.
+	 * @param mets      The mets file.
+	 * @param fileGroup The output file group.
+	 * @param output    The output folder, this means, the folder of the output
+	 *                  file group in the processor workspace. It must not exist.
+	 * @return The location, under which the files were cached, this means, the
+	 *         prefix of the references in the xml files to the output, that has
+	 *         to be replaced by the output file group. Null if the result is not
+	 *         cached.
+	 * @throws IOException Throws if the cached result can not be taken. In this
+	 *                     case, neither the output folder nor the mets file are
+	 *                     changed.
+	 * @since 1.8
+	 */
+	public String take(String key, Path mets, String fileGroup, Path output) throws IOException {
+		final Path entry = getEntry(key);
+
+		final JsonNode node;
+		try {
+			node = objectMapper.readTree(entry.resolve(entryFileName).toFile());
+		} catch (IOException e) {
+			// The result is not cached or it was evicted
+			unindex(key);
+
+			return null;
+		}
+
+		final String cachedFileGroup = node.path("file-group").asText();
+		final String location = node.path("location").asText();
+
+		if (Files.exists(output))
+			throw new IOException("the output folder " + output + " already exists");
+
+		try {
+			link(entry.resolve(filesFolderName), output);
+
+			MetsMerger.merge(mets, entry.resolve(metsFileName), cachedFileGroup, fileGroup, location + "/",
+					fileGroup + "/");
+		} catch (IOException e) {
+			if (Files.exists(output))
+				FolderMover.delete(output);
+
+			throw e;
+		}
+
+		// The entry was used recently
+		touch(key);
+
+		return location;
+	}
+
+	/**
+	 * Caches the result. The files are linked into the cache and the least
+	 * recently used entries are evicted afterwards, if the capacity is exceeded.
+	 * An existing entry is retained.
+	 * 
+	 * @param key       The cache key.
+	 * @param mets      The mets file.
+	 * @param fileGroup The output file group.
+	 * @param output    The folder of the output files, this means, the snapshot
+	 *                  sandbox.
+	 * @param location  The location of the output relative to the processor
+	 *                  workspace, this means, the prefix of the locations in the
+	 *                  mets file and the references in the xml files.
+	 * @throws IOException Throws if the result can not be cached.
+	 * @since 1.8
+	 */
+	public void put(String key, Path mets, String fileGroup, Path output, String location) throws IOException {
+		final Path entry = getEntry(key);
+		if (Files.exists(entry))
+			return;
+
+		Files.createDirectories(folder);
+
+		final Path temporary = folder.resolve("." + key + "." + UUID.randomUUID().toString() + ".tmp");
+		try {
+			Files.createDirectories(temporary);
+
+			link(output, temporary.resolve(filesFolderName));
+			Files.copy(mets, temporary.resolve(metsFileName), StandardCopyOption.COPY_ATTRIBUTES);
+
+			final ObjectNode node = objectMapper.createObjectNode();
+			node.put("file-group", fileGroup);
+			node.put("location", location);
+			node.put("size", getSize(temporary));
+
+			objectMapper.writeValue(temporary.resolve(entryFileName).toFile(), node);
+
+			if (publish(temporary, entry))
+				index(key, node.path("size").asLong());
+		} finally {
+			if (Files.exists(temporary))
+				FolderMover.delete(temporary);
+		}
+
+		evict();
+	}
+
+	/**
+	 * Returns true if the entry is cached. A cached entry is marked as recently
+	 * used, so that it is not evicted before it is taken.
+	 * 
+	 * @param key The cache key.
+	 * @return True if the entry is cached.
+	 * @since 1.8
+	 */
+	public boolean isCached(String key) {
+		return touch(key);
+	}
+
+	/**
+	 * Marks the entry as recently used by its modification time and in the
+	 * index.
+	 * 
+	 * @param key The cache key.
+	 * @return True if the entry is cached.
+	 * @since 1.8
+	 */
+	private boolean touch(String key) {
+		try {
+			Files.setLastModifiedTime(getEntry(key).resolve(entryFileName),
+					FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			unindex(key);
+
+			return false;
+		}
+
+		synchronized (this) {
+			if (index != null)
+				index.get(key);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Takes the cached pages. Their files are linked into the output folder and
+	 * they are added to the output file group of the mets file with locations in
+	 * the output folder. The mets file is only written once, after all files of
+	 * the pages were linked.
+	 * 
+	 * @param keys      The cache keys of the page entries.
+	 * @param mets      The mets file.
+	 * @param fileGroup The output file group.
+	 * @param output    The output folder, this means, the folder of the output
+	 *                  file group in the processor workspace. It is created if
+	 *                  it does not exist.
+	 * @return The locations, under which the files of the pages were cached, this
+	 *         means, the prefixes of the references in the xml files to the
+	 *         output, that have to be replaced by the output file group.
+	 * @throws IOException Throws if a page is not cached anymore or the cached
+	 *                     pages can not be taken. In this case, the linked files
+	 *                     are deleted and the mets file is not changed.
+	 * @since 1.8
+	 */
+	public Set<String> takePages(Collection<String> keys, Path mets, String fileGroup, Path output)
+			throws IOException {
+		final Set<String> locations = new LinkedHashSet<>();
+		final Map<String, List<MetsIndex.File>> files = new LinkedHashMap<>();
+		final List<Path> linked = new ArrayList<>();
+
+		try {
+			for (String key : keys) {
+				final Path entry = getEntry(key);
+
+				final JsonNode node;
+				try {
+					node = objectMapper.readTree(entry.resolve(entryFileName).toFile());
+				} catch (IOException e) {
+					unindex(key);
+
+					throw new IOException("the page entry " + key + " is not cached anymore");
+				}
+
+				final String cachedFileGroup = node.path("file-group").asText();
+				locations.add(node.path("location").asText());
+
+				for (JsonNode file : node.path("files")) {
+					final String name = file.path("name").asText();
+
+					final Path destination = output.resolve(name);
+					Files.createDirectories(destination.getParent());
+					link(entry.resolve(filesFolderName).resolve(name), destination);
+					linked.add(destination);
+
+					files.computeIfAbsent(cachedFileGroup, group -> new ArrayList<>())
+							.add(new MetsIndex.File(file.path("id").asText(), file.path("mimetype").asText(null),
+									fileGroup + "/" + name, file.path("page").asText()));
+				}
+			}
+
+			MetsMerger.add(mets, fileGroup, files);
+		} catch (IOException e) {
+			for (Path file : linked)
+				Files.deleteIfExists(file);
+
+			throw e;
+		}
+
+		// The entries were used recently
+		for (String key : keys)
+			touch(key);
+
+		return locations;
+	}
+
+	/**
+	 * Caches the pages. The files of every page are linked into a page entry and
+	 * the least recently used entries are evicted afterwards, if the capacity is
+	 * exceeded. Existing entries are retained. The pages with files outside the
+	 * location or files, that are not available in the output folder, are not
+	 * cached.
+	 * 
+	 * @param keys      The cache keys of the page entries. The key is the
+	 *                  physical page identifier.
+	 * @param fileGroup The output file group.
+	 * @param output    The folder of the output files, this means, the snapshot
+	 *                  sandbox.
+	 * @param location  The location of the output relative to the processor
+	 *                  workspace, this means, the prefix of the locations in the
+	 *                  mets file and the references in the xml files.
+	 * @param files     The files of the output file group in the mets file.
+	 * @throws IOException Throws if the pages can not be cached.
+	 * @since 1.8
+	 */
+	public void putPages(Map<String, String> keys, String fileGroup, Path output, String location,
+			List<MetsIndex.File> files) throws IOException {
+		final String prefix = location + "/";
+
+		final Map<String, List<MetsIndex.File>> pages = new HashMap<>();
+		for (MetsIndex.File file : files)
+			if (file.getPage() != null)
+				pages.computeIfAbsent(file.getPage(), page -> new ArrayList<>()).add(file);
+
+		Files.createDirectories(folder);
+
+		for (Map.Entry<String, String> key : keys.entrySet()) {
+			final List<MetsIndex.File> pageFiles = pages.getOrDefault(key.getKey(), Collections.emptyList());
+
+			final Path entry = getEntry(key.getValue());
+			if (Files.exists(entry) || pageFiles.stream()
+					.anyMatch(file -> file.getLocation() == null || !file.getLocation().startsWith(prefix)
+							|| !Files.isRegularFile(output.resolve(file.getLocation().substring(prefix.length())))))
+				continue;
+
+			final Path temporary = folder.resolve("." + key.getValue() + "." + UUID.randomUUID().toString() + ".tmp");
+			try {
+				final ArrayNode array = objectMapper.createArrayNode();
+				for (MetsIndex.File file : pageFiles) {
+					final String name = file.getLocation().substring(prefix.length());
+
+					final Path destination = temporary.resolve(filesFolderName).resolve(name);
+					Files.createDirectories(destination.getParent());
+					link(output.resolve(name), destination);
+
+					final ObjectNode node = array.addObject();
+					node.put("id", file.getIdentifier());
+					node.put("mimetype", file.getMimeType());
+					node.put("name", name);
+					node.put("page", file.getPage());
+				}
+
+				Files.createDirectories(temporary);
+
+				final ObjectNode node = objectMapper.createObjectNode();
+				node.put("file-group", fileGroup);
+				node.put("location", location);
+				node.set("files", array);
+				node.put("size", getSize(temporary));
+
+				objectMapper.writeValue(temporary.resolve(entryFileName).toFile(), node);
+
+				if (publish(temporary, entry))
+					index(key.getValue(), node.path("size").asLong());
+			} finally {
+				if (Files.exists(temporary))
+					FolderMover.delete(temporary);
+			}
+		}
+
+		evict();
+	}
+
+	/**
+	 * Publishes the temporary entry folder by moving it atomically to the entry
+	 * folder. An existing entry is retained.
+	 * 
+	 * @param temporary The temporary entry folder.
+	 * @param entry     The entry folder.
+	 * @return True if the entry was published. False if it was cached
+	 *         concurrently.
+	 * @throws IOException Throws if the entry can not be published.
+	 * @since 1.8
+	 */
+	private static boolean publish(Path temporary, Path entry) throws IOException {
+		try {
+			Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+
+			return true;
+		} catch (FileAlreadyExistsException e) {
+			// The result was cached concurrently
+			return false;
+		} catch (IOException e) {
+			// The result was cached concurrently if the entry exists
+			if (!Files.exists(entry))
+				throw e;
+
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the published entry to the index as most recently used one, if the
+	 * index was built.
+	 * 
+	 * @param key  The cache key.
+	 * @param size The entry size in bytes.
+	 * @since 1.8
+	 */
+	private synchronized void index(String key, long size) {
+		if (index != null) {
+			final Long former = index.put(key, size);
+
+			this.size += size - (former == null ? 0 : former);
+		}
+	}
+
+	/**
+	 * Removes the entry from the index, e.g. if it was evicted by another
+	 * process.
+	 * 
+	 * @param key The cache key.
+	 * @since 1.8
+	 */
+	private synchronized void unindex(String key) {
+		if (index != null) {
+			final Long former = index.remove(key);
+
+			if (former != null)
+				size -= former;
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries of the index, until the size of the
+	 * cache does not exceed the capacity. The index is rebuilt if it was not
+	 * built yet or the rescan interval elapsed.
+	 * 
+	 * @throws IOException Throws if the cache folder can not be read.
+	 * @since 1.8
+	 */
+	private synchronized void evict() throws IOException {
+		if (index == null || System.currentTimeMillis() - indexed > rescanMilliseconds)
+			scan();
+
+		for (Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator(); size > capacity
+				&& iterator.hasNext();) {
+			final Map.Entry<String, Long> entry = iterator.next();
+
+			try {
+				FolderMover.delete(getEntry(entry.getKey()));
+			} catch (IOException e) {
+				// Nothing to do, the entry was evicted concurrently
+			}
+
+			size -= entry.getValue();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Builds the index by scanning the cache folder. The entries are ordered by
+	 * their modification time, that is updated when they are used. The
+	 * temporary entry folders, that were left behind by interrupted runs, are
+	 * deleted.
+	 * 
+	 * @throws IOException Throws if the cache folder can not be read.
+	 * @since 1.8
+	 */
+	private void scan() throws IOException {
+		final List<Path> entries = new ArrayList<>();
+		final long staleTime = System.currentTimeMillis() - staleTemporaryMilliseconds;
+		try (Stream<Path> list = Files.list(folder)) {
+			for (Path path : (Iterable<Path>) list::iterator)
+				if (Files.isRegularFile(path.resolve(entryFileName)))
+					entries.add(path);
+				else if (path.getFileName().toString().endsWith(".tmp"))
+					try {
+						if (Files.getLastModifiedTime(path).toMillis() < staleTime)
+							FolderMover.delete(path);
+					} catch (IOException e) {
+						// Nothing to do, the temporary entry folder was deleted concurrently
+					}
+		}
+
+		final Map<Path, Long> used = new HashMap<>();
+		final Map<Path, Long> sizes = new HashMap<>();
+		for (Path entry : entries)
+			try {
+				used.put(entry, Files.getLastModifiedTime(entry.resolve(entryFileName)).toMillis());
+				sizes.put(entry, objectMapper.readTree(entry.resolve(entryFileName).toFile()).path("size").asLong());
+			} catch (IOException e) {
+				// The entry was evicted concurrently
+				used.put(entry, 0L);
+				sizes.put(entry, 0L);
+			}
+
+		// The least recently used entries first
+		entries.sort(Comparator.comparingLong((Path entry) -> used.get(entry)));
+
+		index = new LinkedHashMap<>(16, 0.75f, true);
+		size = 0;
+		for (Path entry : entries) {
+			index.put(entry.getFileName().toString(), sizes.get(entry));
+			size += sizes.get(entry);
+		}
+
+		indexed = System.currentTimeMillis();
+	}
+
+	/**
+	 * Links the files of the source folder into the target folder. The xml files
+	 * and the files, that can not be linked, e.g. across file systems, are
+	 * copied.
+	 * 
+	 * @param source The source folder. If it is a file, it is linked to the
+	 *               target file.
+	 * @param target The target folder. It is created.
+	 * @throws IOException Throws if the files can not be linked or copied.
+	 * @since 1.8
+	 */
+	private static void link(Path source, Path target) throws IOException {
+		if (Files.isRegularFile(source)) {
+			linkFile(source, target);
+
+			return;
+		}
+
+		Files.createDirectories(target);
+
+		boolean isLink = true;
+		try (Stream<Path> walk = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) walk::iterator) {
+				final Path destination = target.resolve(source.relativize(path).toString());
+
+				if (Files.isDirectory(path))
+					Files.createDirectories(destination);
+				else {
+					if (isLink && !path.getFileName().toString().toLowerCase().endsWith(".xml"))
+						try {
+							Files.createLink(destination, path);
+
+							continue;
+						} catch (UnsupportedOperationException | IOException e) {
+							// The remaining files are copied
+							isLink = false;
+						}
+
+					Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Links the source file to the target file. The xml files and the files, that
+	 * can not be linked, are copied.
+	 * 
+	 * @param source The source file.
+	 * @param target The target file. It must not exist.
+	 * @throws IOException Throws if the file can not be linked or copied.
+	 * @since 1.8
+	 */
+	private static void linkFile(Path source, Path target) throws IOException {
+		if (!source.getFileName().toString().toLowerCase().endsWith(".xml"))
+			try {
+				Files.createLink(target, source);
+
+				return;
+			} catch (FileAlreadyExistsException e) {
+				throw e;
+			} catch (UnsupportedOperationException | IOException e) {
+				// The file is copied
+			}
+
+		Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+	}
+
+	/**
+	 * Returns the number of bytes in the folder.
+	 * 
+	 * @param folder The folder.
+	 * @return The number of bytes.
+	 * @throws IOException Throws if the folder can not be walked.
+	 * @since 1.8
+	 */
+	private static long getSize(Path folder) throws IOException {
+		try (Stream<Path> walk = Files.walk(folder)) {
+			long size = 0;
+			for (Path path : (Iterable<Path>) walk::iterator)
+				if (Files.isRegularFile(path))
+					size += Files.size(path);
+
+			return size;
+		}
+	}
+
+	/**
+	 * Defines keys of the result cache, this means, SHA-256 hashes of the step
+	 * inputs.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Key {
+		/**
+		 * The message digest.
+		 */
+		private final MessageDigest digest = getDigest();
+
+		/**
+		 * Default constructor for a key of the result cache.
+		 * 
+		 * @since 1.8
+		 */
+		public Key() {
+			super();
+		}
+
+		/**
+		 * Adds the value to the key.
+		 * 
+		 * @param value The value. Null is added as empty value.
+		 * @return The key.
+		 * @since 1.8
+		 */
+		public Key add(String value) {
+			digest.update(Objects.toString(value, "").getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+
+			return this;
+		}
+
+		/**
+		 * Adds the hash of the file content to the key.
+		 * 
+		 * @param file The file.
+		 * @return The key.
+		 * @throws IOException Throws if the file can not be read.
+		 * @since 1.8
+		 */
+		public Key addFile(Path file) throws IOException {
+			return add(getFileHash(file));
+		}
+
+		/**
+		 * Adds the relative paths and the hashes of the contents of the files in
+		 * the folder to the key in the order of the paths.
+		 * 
+		 * @param folder The folder.
+		 * @return The key.
+		 * @throws IOException Throws if the files can not be read.
+		 * @since 1.8
+		 */
+		public Key addFolder(Path folder) throws IOException {
+			final List<Path> files = new ArrayList<>();
+			try (Stream<Path> walk = Files.walk(folder)) {
+				walk.filter(path -> Files.isRegularFile(path)).forEach(files::add);
+			}
+
+			files.sort(Comparator.comparing(file -> folder.relativize(file).toString()));
+
+			for (Path file : files)
+				add(folder.relativize(file).toString()).addFile(file);
+
+			return this;
+		}
+
+		/**
+		 * Returns the key.
+		 * 
+		 * @return The key as hexadecimal string.
+		 * @since 1.8
+		 */
+		public String get() {
+			return HexFormat.of().formatHex(digest.digest());
+		}
+	}
+}
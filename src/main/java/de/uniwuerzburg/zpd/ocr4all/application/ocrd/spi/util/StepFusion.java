@@ -0,0 +1,813 @@
+/**
+ * File:     StepFusion.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Defines fusions of consecutive workflow steps, that are executed with a
+ * single <i>ocrd process</i> invocation. The outputs of the fused successor
+ * steps are computed ahead under the file groups <i>&lt;output&gt;-FUSED1</i>,
+ * <i>&lt;output&gt;-FUSED2</i>, ... and they are kept as chain in the folder
+ * <i>.ocr4all-fusion/&lt;output&gt;</i> of the processor workspace, together
+ * with a copy of the mets file, that contains their files. The file groups are
+ * removed from the mets file of the processor workspace.
+ * <p>
+ * When the successor step is executed, it takes the output computed ahead
+ * instead of running the processor if the processor, the docker image, the
+ * input file group and the parameters match. The parameters are compared
+ * after they were normalized with the parameter descriptions of the
+ * processor, so that omitted defaults and values of other types, e.g. the
+ * string "0.5" for a number, do not prevent the match. Otherwise, the chain is
+ * discarded. The output is renamed to the output file group of the step, so
+ * that it is moved to the snapshot sandbox like the output of a processor.
+ * <p>
+ * The steps, that find a chain, record their processor with their normalized
+ * parameters in the file <i>steps.json</i> of the chain folder. A successor
+ * step is only fused again if it matches the recorded step of its processor,
+ * so that a successor, whose actual parameters differ, is not computed ahead
+ * in vain. The chains are removed, when they are not used within their time
+ * to live.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class StepFusion {
+	/**
+	 * The folder of the chains in the processor workspace.
+	 */
+	public static final String folderName = ".ocr4all-fusion";
+
+	/**
+	 * The chain file name.
+	 */
+	private static final String chainFileName = "chain.json";
+
+	/**
+	 * The mets file name.
+	 */
+	private static final String metsFileName = "mets.xml";
+
+	/**
+	 * The file name of the recorded steps.
+	 */
+	private static final String stepsFileName = "steps.json";
+
+	/**
+	 * The prefix of the ocr-d processor identifiers, that is omitted in the tasks
+	 * of <i>ocrd process</i>.
+	 */
+	private static final String processorPrefix = "ocrd-";
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Default constructor for a step fusion.
+	 * 
+	 * @since 1.8
+	 */
+	private StepFusion() {
+		super();
+	}
+
+	/**
+	 * Returns the fused successor steps, that are configured as JSON array of
+	 * objects with the fields <i>processor</i> and <i>parameters</i>. Their input
+	 * and output file groups are linked to the output file group of the step.
+	 * 
+	 * @param configuration The configuration, e.g.
+	 *                      <i>[{"processor":"ocrd-cis-ocropy-deskew",
+	 *                      "parameters":{"level-of-operation":"page"}}]</i>.
+	 * @param fileGroup     The output file group of the step.
+	 * @return The fused successor steps.
+	 * @throws IOException Throws if the configuration is not valid.
+	 * @since 1.8
+	 */
+	public static List<Step> getSteps(String configuration, String fileGroup) throws IOException {
+		final JsonNode array = objectMapper.readTree(configuration);
+		if (!array.isArray())
+			throw new IOException("the fused steps are not a JSON array");
+
+		final List<Step> steps = new ArrayList<>();
+		String input = fileGroup;
+		for (JsonNode node : array) {
+			final String processor = node.path("processor").asText("").trim();
+			if (!processor.startsWith(processorPrefix))
+				throw new IOException("the fused step " + node + " misses the ocr-d processor");
+
+			final JsonNode parameters = node.path("parameters");
+
+			final Step step = new Step(processor,
+					parameters.isObject() ? parameters : objectMapper.createObjectNode(), input,
+					fileGroup + "-FUSED" + (steps.size() + 1), null);
+			steps.add(step);
+
+			input = step.getFileGroup();
+		}
+
+		return steps;
+	}
+
+	/**
+	 * Returns the task of <i>ocrd process</i>, this means, the processor
+	 * identifier without the prefix <i>ocrd-</i> followed by the file groups and
+	 * the parameters.
+	 * 
+	 * @param processor  The processor identifier.
+	 * @param input      The input file groups.
+	 * @param output     The output file group.
+	 * @param parameters The parameters as JSON.
+	 * @return The task.
+	 * @since 1.8
+	 */
+	public static String getTask(String processor, String input, String output, String parameters) {
+		return (processor.startsWith(processorPrefix) ? processor.substring(processorPrefix.length()) : processor)
+				+ " -I " + quote(input) + " -O " + quote(output) + " -p " + quote(parameters);
+	}
+
+	/**
+	 * Returns the value quoted for the shell like syntax of the tasks.
+	 * 
+	 * @param value The value.
+	 * @return The quoted value.
+	 * @since 1.8
+	 */
+	private static String quote(String value) {
+		return "'" + value.replace("'", "'\\''") + "'";
+	}
+
+	/**
+	 * Keeps the outputs of the fused successor steps as chain. Their folders are
+	 * moved from the processor workspace to the chain folder and their file
+	 * groups are removed from the mets file. A former chain of the file group is
+	 * replaced.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param mets      The mets file.
+	 * @param image     The docker image, that executed the steps.
+	 * @param fileGroup The output file group of the step.
+	 * @param location  The location of the output of the step relative to the
+	 *                  processor workspace, this means, its snapshot sandbox.
+	 * @param steps     The fused successor steps.
+	 * @throws IOException Throws if the chain can not be kept.
+	 * @since 1.8
+	 */
+	public static void keep(Path workspace, Path mets, String image, String fileGroup, String location,
+			List<Step> steps) throws IOException {
+		final Path folder = workspace.resolve(folderName).resolve(fileGroup);
+		if (Files.exists(folder))
+			FolderMover.delete(folder);
+
+		Files.createDirectories(folder);
+
+		try {
+			for (Step step : steps) {
+				Path output = workspace.resolve(step.getFileGroup());
+
+				if (Files.exists(output))
+					Files.move(output, folder.resolve(step.getFileGroup()));
+			}
+
+			Files.copy(mets, folder.resolve(metsFileName), StandardCopyOption.REPLACE_EXISTING);
+
+			new Chain(folder, image, fileGroup, location, steps).save();
+
+			MetsMerger.remove(mets, steps.stream().map(step -> step.getFileGroup()).collect(Collectors.toList()));
+		} catch (IOException e) {
+			discard(workspace, mets, steps);
+			FolderMover.delete(folder);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Discards the outputs of the fused successor steps in the processor
+	 * workspace, e.g. if the execution failed. Troubles are ignored.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param mets      The mets file.
+	 * @param steps     The fused successor steps.
+	 * @since 1.8
+	 */
+	public static void discard(Path workspace, Path mets, List<Step> steps) {
+		for (Step step : steps)
+			try {
+				Path output = workspace.resolve(step.getFileGroup());
+
+				if (Files.exists(output))
+					FolderMover.delete(output);
+			} catch (IOException e) {
+				// Nothing to do
+			}
+
+		try {
+			MetsMerger.remove(mets, steps.stream().map(step -> step.getFileGroup()).collect(Collectors.toList()));
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * Returns the chain, whose next step has the input file group.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param input     The input file groups of the step.
+	 * @return The chain. Null if not available.
+	 * @throws IOException Throws if the chains can not be read.
+	 * @since 1.8
+	 */
+	public static Chain find(Path workspace, String input) throws IOException {
+		final Path folder = workspace.resolve(folderName);
+		if (!Files.isDirectory(folder))
+			return null;
+
+		try (Stream<Path> chains = Files.list(folder)) {
+			for (Path chainFolder : chains.filter(path -> Files.isRegularFile(path.resolve(chainFileName)))
+					.collect(Collectors.toList())) {
+				Chain chain = Chain.load(chainFolder);
+
+				if (chain.getNext() != null && chain.getNext().getInput().equals(input))
+					return chain;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the chains, that were not kept or updated within their time to
+	 * live. Troubles are ignored.
+	 * 
+	 * @param workspace       The processor workspace.
+	 * @param ttlMilliseconds The time to live of the chains in milliseconds.
+	 * @since 1.8
+	 */
+	public static void cleanup(Path workspace, long ttlMilliseconds) {
+		final Path folder = workspace.resolve(folderName);
+		if (!Files.isDirectory(folder))
+			return;
+
+		final long expired = System.currentTimeMillis() - Math.max(0, ttlMilliseconds);
+		try (Stream<Path> chains = Files.list(folder)) {
+			for (Path chainFolder : chains.filter(path -> Files.isDirectory(path)).collect(Collectors.toList()))
+				try {
+					final Path chainFile = chainFolder.resolve(chainFileName);
+
+					if (!Files.isRegularFile(chainFile)
+							|| Files.getLastModifiedTime(chainFile).toMillis() < expired)
+						FolderMover.delete(chainFolder);
+				} catch (IOException e) {
+					// Nothing to do
+				}
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * Records the processor of a step, that found a chain, with its parameters
+	 * normalized with its parameter descriptions. A former record of the
+	 * processor is replaced.
+	 * 
+	 * @param workspace    The processor workspace.
+	 * @param processor    The processor identifier.
+	 * @param parameters   The parameters. Null if not required.
+	 * @param descriptions The parameter descriptions of the processor. Null if not
+	 *                     available.
+	 * @throws IOException Throws if the step can not be recorded.
+	 * @since 1.8
+	 */
+	public static void record(Path workspace, String processor, Object parameters, JsonNode descriptions)
+			throws IOException {
+		final Path folder = workspace.resolve(folderName);
+		Files.createDirectories(folder);
+
+		final Path file = folder.resolve(stepsFileName);
+		final JsonNode recorded = Files.isRegularFile(file) ? objectMapper.readTree(file.toFile()) : null;
+		final ObjectNode steps = recorded != null && recorded.isObject() ? (ObjectNode) recorded
+				: objectMapper.createObjectNode();
+
+		final ObjectNode step = steps.putObject(processor);
+		step.set("parameters", Step.normalize(
+				parameters == null ? objectMapper.createObjectNode() : objectMapper.valueToTree(parameters),
+				descriptions));
+		if (descriptions != null)
+			step.set("descriptions", descriptions);
+
+		final Path temporary = FileUtils.createSibling(file);
+		try {
+			objectMapper.writeValue(temporary.toFile(), steps);
+
+			FileUtils.replace(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Returns the mismatches of the fused successor step with the recorded step
+	 * of its processor.
+	 * 
+	 * @param workspace The processor workspace.
+	 * @param step      The fused successor step.
+	 * @return The mismatches. Empty if the step matches or its processor was not
+	 *         recorded.
+	 * @throws IOException Throws if the recorded steps can not be read.
+	 * @since 1.8
+	 */
+	public static List<String> getRecordedMismatches(Path workspace, Step step) throws IOException {
+		final Path file = workspace.resolve(folderName).resolve(stepsFileName);
+		if (!Files.isRegularFile(file))
+			return new ArrayList<>();
+
+		final JsonNode recorded = objectMapper.readTree(file.toFile()).get(step.getProcessor());
+
+		return recorded == null || !recorded.isObject() ? new ArrayList<>()
+				: step.getMismatches(step.getProcessor(), recorded.path("parameters"), recorded.get("descriptions"));
+	}
+
+	/**
+	 * Defines chains of fused successor steps.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Chain {
+		/**
+		 * The chain folder.
+		 */
+		private final Path folder;
+
+		/**
+		 * The docker image, that executed the steps.
+		 */
+		private final String image;
+
+		/**
+		 * The output file group of the step, that executed the fused steps.
+		 */
+		private final String fileGroup;
+
+		/**
+		 * The location of the output of the step, that executed the fused steps.
+		 */
+		private final String location;
+
+		/**
+		 * The fused successor steps.
+		 */
+		private final List<Step> steps;
+
+		/**
+		 * Creates a chain of fused successor steps.
+		 * 
+		 * @param folder    The chain folder.
+		 * @param image     The docker image, that executed the steps.
+		 * @param fileGroup The output file group of the step, that executed the
+		 *                  fused steps.
+		 * @param location  The location of the output of the step, that executed
+		 *                  the fused steps.
+		 * @param steps     The fused successor steps.
+		 * @since 1.8
+		 */
+		private Chain(Path folder, String image, String fileGroup, String location, List<Step> steps) {
+			super();
+
+			this.folder = folder;
+			this.image = image;
+			this.fileGroup = fileGroup;
+			this.location = location;
+			this.steps = steps;
+		}
+
+		/**
+		 * Loads the chain.
+		 * 
+		 * @param folder The chain folder.
+		 * @return The chain.
+		 * @throws IOException Throws if the chain can not be read.
+		 * @since 1.8
+		 */
+		private static Chain load(Path folder) throws IOException {
+			final JsonNode chain = objectMapper.readTree(folder.resolve(chainFileName).toFile());
+
+			final List<Step> steps = new ArrayList<>();
+			for (JsonNode step : chain.path("steps"))
+				steps.add(new Step(step.path("processor").asText(), step.path("parameters"),
+						step.path("input").asText(), step.path("file-group").asText(),
+						step.path("location").asText(null)));
+
+			return new Chain(folder, chain.path("image").asText(), chain.path("file-group").asText(),
+					chain.path("location").asText(), steps);
+		}
+
+		/**
+		 * Saves the chain.
+		 * 
+		 * @throws IOException Throws if the chain can not be written.
+		 * @since 1.8
+		 */
+		private void save() throws IOException {
+			final ObjectNode chain = objectMapper.createObjectNode();
+
+			chain.put("image", image);
+			chain.put("file-group", fileGroup);
+			chain.put("location", location);
+
+			final ArrayNode array = chain.putArray("steps");
+			for (Step step : steps) {
+				ObjectNode node = array.addObject();
+
+				node.put("processor", step.getProcessor());
+				node.set("parameters", step.getParameters());
+				node.put("input", step.getInput());
+				node.put("file-group", step.getFileGroup());
+				node.put("location", step.location);
+			}
+
+			final Path file = folder.resolve(chainFileName);
+			final Path temporary = Files.createTempFile(folder, ".chain", ".tmp");
+			try {
+				objectMapper.writeValue(temporary.toFile(), chain);
+
+				FileUtils.replace(temporary, file);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		}
+
+		/**
+		 * Returns the docker image, that executed the steps.
+		 * 
+		 * @return The docker image.
+		 * @since 1.8
+		 */
+		public String getImage() {
+			return image;
+		}
+
+		/**
+		 * Returns the next step, whose output was not taken.
+		 * 
+		 * @return The next step. Null if all outputs were taken.
+		 * @since 1.8
+		 */
+		public Step getNext() {
+			for (Step step : steps)
+				if (step.location == null)
+					return step;
+
+			return null;
+		}
+
+		/**
+		 * Takes the output of the next step. Its folder is moved to the output
+		 * folder in the processor workspace and its files are merged into the output
+		 * file group of the mets file. The chain is removed after its last output
+		 * was taken.
+		 * 
+		 * @param workspace The processor workspace.
+		 * @param mets      The mets file.
+		 * @param output    The output file group of the step.
+		 * @param location  The location of the output of the step relative to the
+		 *                  processor workspace, this means, its snapshot sandbox.
+		 * @return The targets and replacements of the references in the xml files
+		 *         of the output, that refer to the outputs of the former steps by
+		 *         the file groups of the fused execution.
+		 * @throws IOException Throws if the output can not be taken. In this case,
+		 *                     neither the output folder nor the mets file are
+		 *                     changed.
+		 * @since 1.8
+		 */
+		public Map<String, String> take(Path workspace, Path mets, String output, String location)
+				throws IOException {
+			final Step next = getNext();
+			if (next == null)
+				throw new IOException("the fused steps are exhausted");
+
+			final Path source = folder.resolve(next.getFileGroup());
+			final Path target = workspace.resolve(output);
+			if (Files.exists(target))
+				throw new IOException("the output folder " + target + " already exists");
+
+			if (Files.exists(source))
+				Files.move(source, target);
+			else
+				Files.createDirectories(target);
+
+			try {
+				MetsMerger.merge(mets, folder.resolve(metsFileName), next.getFileGroup(), output,
+						next.getFileGroup() + "/", output + "/");
+			} catch (IOException e) {
+				// The step is executed without the output
+				FolderMover.delete(target);
+				discard();
+
+				throw e;
+			}
+
+			final Map<String, String> references = new LinkedHashMap<>();
+			references.put("=\"" + fileGroup + "/", "=\"" + this.location + "/");
+			for (Step step : steps)
+				if (step == next)
+					break;
+				else
+					references.put("=\"" + step.getFileGroup() + "/", "=\"" + step.location + "/");
+			references.put("=\"" + next.getFileGroup() + "/", "=\"" + output + "/");
+
+			next.location = location;
+
+			final int index = steps.indexOf(next);
+			if (index + 1 < steps.size()) {
+				Step successor = steps.get(index + 1);
+
+				steps.set(index + 1, new Step(successor.getProcessor(), successor.getParameters(), output,
+						successor.getFileGroup(), null));
+			}
+
+			// The output was taken, hence the chain is discarded if it can not be updated
+			try {
+				if (getNext() == null)
+					discard();
+				else
+					save();
+			} catch (IOException e) {
+				try {
+					discard();
+				} catch (IOException exception) {
+					// Nothing to do
+				}
+			}
+
+			return references;
+		}
+
+		/**
+		 * Discards the chain.
+		 * 
+		 * @throws IOException Throws if the chain folder can not be deleted.
+		 * @since 1.8
+		 */
+		public void discard() throws IOException {
+			if (Files.exists(folder))
+				FolderMover.delete(folder);
+		}
+	}
+
+	/**
+	 * Defines fused successor steps.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public static class Step {
+		/**
+		 * The processor identifier.
+		 */
+		private final String processor;
+
+		/**
+		 * The parameters.
+		 */
+		private final JsonNode parameters;
+
+		/**
+		 * The input file group.
+		 */
+		private final String input;
+
+		/**
+		 * The output file group of the fused execution.
+		 */
+		private final String fileGroup;
+
+		/**
+		 * The location of the output relative to the processor workspace, after it
+		 * was taken. Null if it was not taken.
+		 */
+		private String location;
+
+		/**
+		 * Creates a fused successor step.
+		 * 
+		 * @param processor  The processor identifier.
+		 * @param parameters The parameters.
+		 * @param input      The input file group.
+		 * @param fileGroup  The output file group of the fused execution.
+		 * @param location   The location of the output relative to the processor
+		 *                   workspace, after it was taken. Null if it was not taken.
+		 * @since 1.8
+		 */
+		private Step(String processor, JsonNode parameters, String input, String fileGroup, String location) {
+			super();
+
+			this.processor = processor;
+			this.parameters = parameters;
+			this.input = input;
+			this.fileGroup = fileGroup;
+			this.location = location;
+		}
+
+		/**
+		 * Returns the processor identifier.
+		 * 
+		 * @return The processor identifier.
+		 * @since 1.8
+		 */
+		public String getProcessor() {
+			return processor;
+		}
+
+		/**
+		 * Returns the parameters.
+		 * 
+		 * @return The parameters.
+		 * @since 1.8
+		 */
+		public JsonNode getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Returns the input file group.
+		 * 
+		 * @return The input file group.
+		 * @since 1.8
+		 */
+		public String getInput() {
+			return input;
+		}
+
+		/**
+		 * Returns the output file group of the fused execution.
+		 * 
+		 * @return The output file group of the fused execution.
+		 * @since 1.8
+		 */
+		public String getFileGroup() {
+			return fileGroup;
+		}
+
+		/**
+		 * Returns true if the step matches the processor and its parameters.
+		 * 
+		 * @param processor    The processor identifier.
+		 * @param parameters   The parameters. Null if not required.
+		 * @param descriptions The parameter descriptions of the processor, this
+		 *                     means, the <i>parameters</i> of its ocr-d tool JSON
+		 *                     description. Null if not available.
+		 * @return True if the step matches the processor and its parameters.
+		 * @since 1.8
+		 */
+		public boolean isMatching(String processor, Object parameters, JsonNode descriptions) {
+			return getMismatches(processor, parameters, descriptions).isEmpty();
+		}
+
+		/**
+		 * Returns the mismatches of the step with the processor and its
+		 * parameters. The parameters are compared after they were normalized with
+		 * the parameter descriptions.
+		 * 
+		 * @param processor    The processor identifier.
+		 * @param parameters   The parameters. Null if not required.
+		 * @param descriptions The parameter descriptions of the processor, this
+		 *                     means, the <i>parameters</i> of its ocr-d tool JSON
+		 *                     description. Null if not available.
+		 * @return The mismatches, e.g. <i>parameter 'level-of-operation': "page"
+		 *         != "region"</i>. Empty if the step matches.
+		 * @since 1.8
+		 */
+		public List<String> getMismatches(String processor, Object parameters, JsonNode descriptions) {
+			final List<String> mismatches = new ArrayList<>();
+			if (!this.processor.equals(processor)) {
+				mismatches.add("processor " + this.processor + " != " + processor);
+
+				return mismatches;
+			}
+
+			final ObjectNode fused = normalize(this.parameters, descriptions);
+			final ObjectNode step = normalize(
+					parameters == null ? objectMapper.createObjectNode() : objectMapper.valueToTree(parameters),
+					descriptions);
+
+			final TreeSet<String> names = new TreeSet<>();
+			fused.fieldNames().forEachRemaining(names::add);
+			step.fieldNames().forEachRemaining(names::add);
+
+			for (String name : names)
+				if (!fused.path(name).equals(step.path(name)))
+					mismatches.add("parameter '" + name + "': "
+							+ (fused.has(name) ? fused.get(name).toString() : "unset") + " != "
+							+ (step.has(name) ? step.get(name).toString() : "unset"));
+
+			return mismatches;
+		}
+
+		/**
+		 * Returns the parameters normalized with the parameter descriptions. The
+		 * omitted parameters are set to their defaults and the values are
+		 * converted to the described types, if possible.
+		 * 
+		 * @param parameters   The parameters.
+		 * @param descriptions The parameter descriptions. Null if not available.
+		 * @return The normalized parameters.
+		 * @since 1.8
+		 */
+		private static ObjectNode normalize(JsonNode parameters, JsonNode descriptions) {
+			final ObjectNode normalized = objectMapper.createObjectNode();
+			if (parameters != null && parameters.isObject())
+				normalized.setAll((ObjectNode) parameters);
+
+			if (descriptions == null || !descriptions.isObject())
+				return normalized;
+
+			for (Iterator<Map.Entry<String, JsonNode>> fields = descriptions.fields(); fields.hasNext();) {
+				final Map.Entry<String, JsonNode> field = fields.next();
+
+				JsonNode value = normalized.get(field.getKey());
+				if (value == null || value.isNull())
+					value = field.getValue().get("default");
+
+				if (value == null)
+					normalized.remove(field.getKey());
+				else
+					normalized.set(field.getKey(), convert(value, field.getValue().path("type").asText("")));
+			}
+
+			return normalized;
+		}
+
+		/**
+		 * Returns the value converted to the type. Numbers are converted to their
+		 * decimal value, so that e.g. 1 and 1.0 are equal.
+		 * 
+		 * @param value The value.
+		 * @param type  The type of the JSON schema, e.g. <i>number</i>.
+		 * @return The converted value. The value itself if it can not be converted.
+		 * @since 1.8
+		 */
+		private static JsonNode convert(JsonNode value, String type) {
+			try {
+				switch (type) {
+				case "number":
+				case "integer":
+					if (value.isNumber())
+						return JsonNodeFactory.instance.numberNode(value.decimalValue().stripTrailingZeros());
+					else if (value.isTextual() && !value.asText().isBlank())
+						return JsonNodeFactory.instance
+								.numberNode(new BigDecimal(value.asText().trim()).stripTrailingZeros());
+
+					break;
+				case "boolean":
+					if (value.isTextual()
+							&& ("true".equalsIgnoreCase(value.asText().trim())
+									|| "false".equalsIgnoreCase(value.asText().trim())))
+						return JsonNodeFactory.instance.booleanNode(Boolean.parseBoolean(value.asText().trim()));
+
+					break;
+				case "string":
+					if (value.isValueNode() && !value.isTextual())
+						return JsonNodeFactory.instance.textNode(value.asText());
+
+					break;
+				default:
+					break;
+				}
+			} catch (NumberFormatException e) {
+				// The value is compared as is
+			}
+
+			return value;
+		}
+	}
+}
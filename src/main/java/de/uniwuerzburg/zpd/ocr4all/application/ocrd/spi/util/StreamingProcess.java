@@ -0,0 +1,659 @@
+/**
+ * File:     StreamingProcess.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Defines system processes, whose standard output and error are streamed line
+ * by line to consumers while the process is running. The lines are coalesced
+ * into batches, that are passed to the consumers if they are full or if the
+ * batch time elapsed. Only the tail of the output is retained, so that verbose
+ * processes do not exhaust the memory.
+ * <p>
+ * The processes can be started in their own process group with
+ * <code>setsid</code>, so that they are canceled with all their child
+ * processes by killing the process group.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class StreamingProcess {
+	/**
+	 * The scheduler to flush the batches, whose batch time elapsed.
+	 */
+	private static final ScheduledExecutorService flusher = Executors
+			.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ocr4all-process-flusher"));
+
+	/**
+	 * The maximal line length in characters. Longer lines are split, so that a
+	 * process writing without line breaks does not exhaust the memory.
+	 */
+	private static final int maximalLineLength = 64 * 1024;
+
+	/**
+	 * The working directory. If null, uses the working directory of the current
+	 * Java process.
+	 */
+	private final Path directory;
+
+	/**
+	 * The command.
+	 */
+	private final String command;
+
+	/**
+	 * The maximal number of lines of a batch.
+	 */
+	private int batchLines = 100;
+
+	/**
+	 * The maximal time in milliseconds, that lines are retained in a batch.
+	 */
+	private long batchMilliseconds = 1000;
+
+	/**
+	 * The maximal number of retained characters of the output tails.
+	 */
+	private int tailCharacters = 64 * 1024;
+
+	/**
+	 * The additional environment variables. Null if not required.
+	 */
+	private Map<String, String> environment = null;
+
+	/**
+	 * The time in milliseconds to wait before the process group is killed
+	 * forcibly on cancellation. Negative if the process is not started in its own
+	 * process group.
+	 */
+	private long processGroupKillMilliseconds = -1;
+
+	/**
+	 * The running process. Null if not running.
+	 */
+	private volatile Process process = null;
+
+	/**
+	 * True if the process was canceled.
+	 */
+	private volatile boolean isCanceled = false;
+
+	/**
+	 * The lock for starting and canceling the process, so that a process is not
+	 * started after it was canceled.
+	 */
+	private final Object processLock = new Object();
+
+	/**
+	 * The standard output tail.
+	 */
+	private Tail standardOutput = null;
+
+	/**
+	 * The standard error tail.
+	 */
+	private Tail standardError = null;
+
+	/**
+	 * The exit value.
+	 */
+	private int exitValue = -1;
+
+	/**
+	 * The time of the last output.
+	 */
+	private volatile long lastActivity = 0;
+
+	/**
+	 * Creates a streaming process.
+	 * 
+	 * @param directory The working directory. If null, uses the working directory
+	 *                  of the current Java process.
+	 * @param command   The command.
+	 * @since 1.8
+	 */
+	public StreamingProcess(Path directory, String command) {
+		super();
+
+		this.directory = directory;
+		this.command = command;
+	}
+
+	/**
+	 * Returns the command.
+	 * 
+	 * @return The command.
+	 * @since 1.8
+	 */
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * Configures the batches and output tails.
+	 * 
+	 * @param batchLines        The maximal number of lines of a batch.
+	 * @param batchMilliseconds The maximal time in milliseconds, that lines are
+	 *                          retained in a batch.
+	 * @param tailCharacters    The maximal number of retained characters of the
+	 *                          output tails.
+	 * @return The streaming process.
+	 * @since 1.8
+	 */
+	public StreamingProcess configure(int batchLines, long batchMilliseconds, int tailCharacters) {
+		this.batchLines = Math.max(1, batchLines);
+		this.batchMilliseconds = Math.max(1, batchMilliseconds);
+		this.tailCharacters = Math.max(0, tailCharacters);
+
+		return this;
+	}
+
+	/**
+	 * Sets additional environment variables for the process.
+	 * 
+	 * @param environment The additional environment variables. Null if not
+	 *                    required.
+	 * @return The streaming process.
+	 * @since 1.8
+	 */
+	public StreamingProcess environment(Map<String, String> environment) {
+		this.environment = environment;
+
+		return this;
+	}
+
+	/**
+	 * Starts the process in its own process group, that is killed on
+	 * cancellation. The process group is terminated first and killed forcibly
+	 * after the wait time.
+	 * 
+	 * @param killWaitMilliseconds The time in milliseconds to wait before the
+	 *                             process group is killed forcibly.
+	 * @return The streaming process.
+	 * @since 1.8
+	 */
+	public StreamingProcess processGroup(long killWaitMilliseconds) {
+		processGroupKillMilliseconds = Math.max(0, killWaitMilliseconds);
+
+		return this;
+	}
+
+	/**
+	 * Executes the process with given arguments and waits until it terminates.
+	 * The output lines are passed in batches to the consumers while the process
+	 * is running.
+	 * 
+	 * @param arguments      The arguments.
+	 * @param standardOutput The consumer for the standard output batches. Null if
+	 *                       not required.
+	 * @param standardError  The consumer for the standard error batches. Null if
+	 *                       not required.
+	 * @throws IOException Throws if the process can not be started or if it was
+	 *                     interrupted.
+	 * @since 1.8
+	 */
+	public void execute(List<String> arguments, Consumer<String> standardOutput, Consumer<String> standardError)
+			throws IOException {
+		final Tail outputTail = new Tail(tailCharacters);
+		final Tail errorTail = new Tail(tailCharacters);
+
+		this.standardOutput = outputTail;
+		this.standardError = errorTail;
+		exitValue = -1;
+
+		if (isCanceled)
+			throw new IOException("the process was canceled");
+
+		lastActivity = System.currentTimeMillis();
+
+		final Batch outputBatch = new Batch(standardOutput);
+		final Batch errorBatch = new Batch(standardError);
+
+		ScheduledFuture<?> flush = flusher.scheduleWithFixedDelay(() -> {
+			outputBatch.flush(false);
+			errorBatch.flush(false);
+		}, batchMilliseconds, batchMilliseconds, TimeUnit.MILLISECONDS);
+
+		try {
+			exitValue = run(arguments, line -> receive(line, outputTail, outputBatch),
+					line -> receive(line, errorTail, errorBatch));
+		} finally {
+			flush.cancel(false);
+
+			outputBatch.flush(true);
+			errorBatch.flush(true);
+		}
+	}
+
+	/**
+	 * Receives an output line, this means, it is appended to the tail and batch.
+	 * 
+	 * @param line  The line.
+	 * @param tail  The tail.
+	 * @param batch The batch.
+	 * @since 1.8
+	 */
+	private void receive(String line, Tail tail, Batch batch) {
+		lastActivity = System.currentTimeMillis();
+
+		tail.append(line);
+		batch.add(line);
+	}
+
+	/**
+	 * Runs the process with given arguments and waits until it terminates and
+	 * its output is consumed. Subclasses can run the processes differently, e.g.
+	 * with a remote api.
+	 * 
+	 * @param arguments      The arguments.
+	 * @param standardOutput The consumer for the standard output lines.
+	 * @param standardError  The consumer for the standard error lines.
+	 * @return The exit value.
+	 * @throws IOException Throws if the process can not be started or if it was
+	 *                     interrupted.
+	 * @since 1.8
+	 */
+	protected int run(List<String> arguments, Consumer<String> standardOutput, Consumer<String> standardError)
+			throws IOException {
+		List<String> processCommand = new ArrayList<>();
+		if (processGroupKillMilliseconds >= 0)
+			processCommand.add("setsid");
+		processCommand.add(command);
+		if (arguments != null)
+			processCommand.addAll(arguments);
+
+		ProcessBuilder builder = new ProcessBuilder(processCommand);
+		if (directory != null)
+			builder.directory(directory.toFile());
+
+		if (environment != null)
+			builder.environment().putAll(environment);
+
+		synchronized (processLock) {
+			if (isCanceled)
+				throw new IOException("the process was canceled");
+
+			process = builder.start();
+		}
+
+		Thread outputPump = pump(process.getInputStream(), standardOutput, "stdout");
+		Thread errorPump = pump(process.getErrorStream(), standardError, "stderr");
+
+		try {
+			final int exitValue = process.waitFor();
+
+			outputPump.join();
+			errorPump.join();
+
+			return exitValue;
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+
+			throw new IOException("the process was interrupted");
+		} finally {
+			synchronized (processLock) {
+				process = null;
+			}
+		}
+	}
+
+	/**
+	 * Starts a daemon thread, that pumps the lines of the input stream to the
+	 * consumer. Like {@link BufferedReader#readLine()}, a line is terminated by a
+	 * line feed, a carriage return or a carriage return followed by a line feed.
+	 * Longer lines than the maximal line length are split.
+	 * 
+	 * @param inputStream The input stream.
+	 * @param consumer    The consumer for the lines.
+	 * @param name        The stream name.
+	 * @return The started thread.
+	 * @since 1.8
+	 */
+	private Thread pump(InputStream inputStream, Consumer<String> consumer, String name) {
+		Thread thread = new Thread(() -> {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+				final StringBuilder line = new StringBuilder();
+				boolean isCarriageReturn = false;
+
+				int character;
+				while ((character = reader.read()) != -1) {
+					if (character == '\n' && isCarriageReturn) {
+						// The line feed of a carriage return
+					} else if (character == '\n' || character == '\r') {
+						consumer.accept(line.toString());
+						line.setLength(0);
+					} else {
+						if (line.length() >= maximalLineLength) {
+							consumer.accept(line.toString());
+							line.setLength(0);
+						}
+
+						line.append((char) character);
+					}
+
+					isCarriageReturn = character == '\r';
+				}
+
+				if (line.length() > 0)
+					consumer.accept(line.toString());
+			} catch (IOException e) {
+				// Nothing to do, the stream was closed
+			}
+		}, "ocr4all-process-" + name);
+
+		thread.setDaemon(true);
+		thread.start();
+
+		return thread;
+	}
+
+	/**
+	 * Returns true if the process was canceled.
+	 * 
+	 * @return True if the process was canceled.
+	 * @since 1.8
+	 */
+	protected boolean isCanceled() {
+		return isCanceled;
+	}
+
+	/**
+	 * Cancels the process.
+	 * 
+	 * @since 1.8
+	 */
+	public void cancel() {
+		final Process running;
+		synchronized (processLock) {
+			isCanceled = true;
+
+			running = process;
+		}
+
+		if (running == null)
+			return;
+
+		if (processGroupKillMilliseconds < 0)
+			running.destroy();
+		else {
+			// The process group identifier is the process identifier of setsid
+			final long group = running.pid();
+
+			killProcessGroup("TERM", group);
+			flusher.schedule(() -> {
+				if (running.isAlive())
+					killProcessGroup("KILL", group);
+			}, processGroupKillMilliseconds, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sends the signal to the process group. If the process group can not be
+	 * signaled, the process and its descendants are destroyed.
+	 * 
+	 * @param signal The signal.
+	 * @param group  The process group identifier.
+	 * @since 1.8
+	 */
+	private void killProcessGroup(String signal, long group) {
+		try {
+			if (new ProcessBuilder("kill", "-" + signal, "--", "-" + group)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.DISCARD)
+					.start().waitFor() == 0)
+				return;
+		} catch (IOException e) {
+			// Nothing to do, the process is destroyed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		Process running = process;
+		if (running != null) {
+			running.descendants().forEach(descendant -> descendant.destroyForcibly());
+			running.destroyForcibly();
+		}
+	}
+
+	/**
+	 * Returns true if the process is running.
+	 * 
+	 * @return True if the process is running.
+	 * @since 1.8
+	 */
+	public boolean isRunning() {
+		Process running = process;
+
+		return running != null && running.isAlive();
+	}
+
+	/**
+	 * Returns the time of the last output, this means, the time the last line
+	 * was read or the process was started.
+	 * 
+	 * @return The time of the last output. 0 if the process was not started.
+	 * @since 1.8
+	 */
+	public long getLastActivity() {
+		return lastActivity;
+	}
+
+	/**
+	 * Returns the tail of the standard output.
+	 * 
+	 * @return The tail of the standard output.
+	 * @since 1.8
+	 */
+	public String getStandardOutput() {
+		return standardOutput == null ? "" : standardOutput.toString();
+	}
+
+	/**
+	 * Returns the tail of the standard error.
+	 * 
+	 * @return The tail of the standard error.
+	 * @since 1.8
+	 */
+	public String getStandardError() {
+		return standardError == null ? "" : standardError.toString();
+	}
+
+	/**
+	 * Returns the exit value.
+	 * 
+	 * @return The exit value. -1 if the process was not executed.
+	 * @since 1.8
+	 */
+	public int getExitValue() {
+		return exitValue;
+	}
+
+	/**
+	 * Defines batches of output lines.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private class Batch {
+		/**
+		 * The consumer. Null if not required.
+		 */
+		private final Consumer<String> consumer;
+
+		/**
+		 * The lines.
+		 */
+		private final List<String> lines = new ArrayList<>();
+
+		/**
+		 * The time the first line was added to the batch.
+		 */
+		private long start = 0;
+
+		/**
+		 * Creates a batch of output lines.
+		 * 
+		 * @param consumer The consumer. Null if not required.
+		 * @since 1.8
+		 */
+		private Batch(Consumer<String> consumer) {
+			super();
+
+			this.consumer = consumer;
+		}
+
+		/**
+		 * Adds the line to the batch. The batch is flushed if it is full.
+		 * 
+		 * @param line The line.
+		 * @since 1.8
+		 */
+		private void add(String line) {
+			if (consumer == null)
+				return;
+
+			boolean isFull;
+			synchronized (lines) {
+				if (lines.isEmpty())
+					start = System.currentTimeMillis();
+
+				lines.add(line);
+
+				isFull = lines.size() >= batchLines;
+			}
+
+			if (isFull)
+				flush(true);
+		}
+
+		/**
+		 * Flushes the batch to the consumer.
+		 * 
+		 * @param isForce True if the batch is flushed, even if its batch time did not
+		 *                elapse.
+		 * @since 1.8
+		 */
+		private void flush(boolean isForce) {
+			if (consumer == null)
+				return;
+
+			// The consumer is called in order of the batches
+			synchronized (this) {
+				String content;
+				synchronized (lines) {
+					if (lines.isEmpty() || (!isForce && System.currentTimeMillis() - start < batchMilliseconds))
+						return;
+
+					content = String.join("\n", lines);
+					lines.clear();
+				}
+
+				if (!content.isBlank())
+					consumer.accept(content.strip());
+			}
+		}
+	}
+
+	/**
+	 * Defines tails of outputs, this means, bounded ring buffers of the last
+	 * characters.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Tail {
+		/**
+		 * The buffer.
+		 */
+		private final char[] buffer;
+
+		/**
+		 * The next write position in the buffer.
+		 */
+		private int position = 0;
+
+		/**
+		 * True if the buffer wrapped around.
+		 */
+		private boolean isWrapped = false;
+
+		/**
+		 * Creates a tail.
+		 * 
+		 * @param capacity The maximal number of retained characters.
+		 * @since 1.8
+		 */
+		private Tail(int capacity) {
+			super();
+
+			buffer = new char[capacity];
+		}
+
+		/**
+		 * Appends the line.
+		 * 
+		 * @param line The line.
+		 * @since 1.8
+		 */
+		private synchronized void append(String line) {
+			if (buffer.length == 0)
+				return;
+
+			if (position > 0 || isWrapped)
+				append('\n');
+
+			// Only the last characters of long lines fit in the buffer
+			for (int i = Math.max(0, line.length() - buffer.length); i < line.length(); i++)
+				append(line.charAt(i));
+		}
+
+		/**
+		 * Appends the character.
+		 * 
+		 * @param character The character.
+		 * @since 1.8
+		 */
+		private void append(char character) {
+			buffer[position++] = character;
+
+			if (position == buffer.length) {
+				position = 0;
+				isWrapped = true;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public synchronized String toString() {
+			return isWrapped ? new String(buffer, position, buffer.length - position) + new String(buffer, 0, position)
+					: new String(buffer, 0, position);
+		}
+	}
+}
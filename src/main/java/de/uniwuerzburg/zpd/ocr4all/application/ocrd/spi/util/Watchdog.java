@@ -0,0 +1,262 @@
+/**
+ * File:     Watchdog.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.util;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Defines watchdogs for processes, that stop them if they exceed their
+ * wall-clock time or if they are inactive, this means, they neither write
+ * output nor files into the output folder. The output folder can be a symbolic
+ * link.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class Watchdog {
+	/**
+	 * Defines reasons for stopping processes.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	public enum Reason {
+		/**
+		 * The wall-clock time was exceeded.
+		 */
+		wallClock,
+		/**
+		 * The process was inactive.
+		 */
+		inactivity
+	}
+
+	/**
+	 * The scheduler for the checks of the watchdogs.
+	 */
+	private static final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ocr4all-watchdog"));
+
+	/**
+	 * The executor for stopping the processes, so that the checks of the other
+	 * watchdogs are not blocked while a process is stopped.
+	 */
+	private static final ExecutorService stopper = Executors
+			.newCachedThreadPool(new DaemonThreadFactory("ocr4all-watchdog-stop"));
+
+	/**
+	 * The maximal interval between two checks in milliseconds.
+	 */
+	private static final long maximalCheckMilliseconds = 30000;
+
+	/**
+	 * The wall-clock timeout in milliseconds. 0 if disabled.
+	 */
+	private final long wallClockMilliseconds;
+
+	/**
+	 * The inactivity timeout in milliseconds. 0 if disabled.
+	 */
+	private final long inactivityMilliseconds;
+
+	/**
+	 * The supplier for the time of the last output of the process.
+	 */
+	private final LongSupplier outputActivity;
+
+	/**
+	 * The output folder. Null if not watched.
+	 */
+	private final Path folder;
+
+	/**
+	 * The callback to stop the process.
+	 */
+	private final Runnable stop;
+
+	/**
+	 * The start time.
+	 */
+	private long start = 0;
+
+	/**
+	 * The scheduled checks. Null if not started.
+	 */
+	private ScheduledFuture<?> checks = null;
+
+	/**
+	 * The reason for stopping the process. Null if it was not stopped.
+	 */
+	private volatile Reason reason = null;
+
+	/**
+	 * Creates a watchdog.
+	 * 
+	 * @param wallClockSeconds  The wall-clock timeout in seconds. 0 if disabled.
+	 * @param inactivitySeconds The inactivity timeout in seconds. 0 if disabled.
+	 * @param outputActivity    The supplier for the time of the last output of the
+	 *                          process.
+	 * @param folder            The output folder. Null if not watched.
+	 * @param stop              The callback to stop the process.
+	 * @since 1.8
+	 */
+	public Watchdog(long wallClockSeconds, long inactivitySeconds, LongSupplier outputActivity, Path folder,
+			Runnable stop) {
+		super();
+
+		wallClockMilliseconds = 1000 * Math.max(0, wallClockSeconds);
+		inactivityMilliseconds = 1000 * Math.max(0, inactivitySeconds);
+		this.outputActivity = outputActivity;
+		this.folder = folder;
+		this.stop = stop;
+	}
+
+	/**
+	 * Returns true if the watchdog is enabled.
+	 * 
+	 * @return True if the watchdog is enabled.
+	 * @since 1.8
+	 */
+	public boolean isEnabled() {
+		return wallClockMilliseconds > 0 || inactivityMilliseconds > 0;
+	}
+
+	/**
+	 * Starts the watchdog if it is enabled.
+	 * 
+	 * @return The watchdog.
+	 * @since 1.8
+	 */
+	public synchronized Watchdog start() {
+		if (isEnabled() && checks == null) {
+			start = System.currentTimeMillis();
+
+			long interval = maximalCheckMilliseconds;
+			for (long timeout : new long[] { wallClockMilliseconds, inactivityMilliseconds })
+				if (timeout > 0)
+					interval = Math.min(interval, Math.max(1000, timeout / 10));
+
+			checks = scheduler.scheduleWithFixedDelay(() -> check(), interval, interval, TimeUnit.MILLISECONDS);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Finishes the watchdog.
+	 * 
+	 * @since 1.8
+	 */
+	public synchronized void finish() {
+		if (checks != null) {
+			checks.cancel(false);
+			checks = null;
+		}
+	}
+
+	/**
+	 * Returns the reason for stopping the process.
+	 * 
+	 * @return The reason for stopping the process. Null if it was not stopped.
+	 * @since 1.8
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * Returns the wall-clock timeout in seconds.
+	 * 
+	 * @return The wall-clock timeout in seconds. 0 if disabled.
+	 * @since 1.8
+	 */
+	public long getWallClockSeconds() {
+		return wallClockMilliseconds / 1000;
+	}
+
+	/**
+	 * Returns the inactivity timeout in seconds.
+	 * 
+	 * @return The inactivity timeout in seconds. 0 if disabled.
+	 * @since 1.8
+	 */
+	public long getInactivitySeconds() {
+		return inactivityMilliseconds / 1000;
+	}
+
+	/**
+	 * Checks the process and stops it if a timeout is exceeded.
+	 * 
+	 * @since 1.8
+	 */
+	private void check() {
+		if (reason != null)
+			return;
+
+		final long now = System.currentTimeMillis();
+
+		if (wallClockMilliseconds > 0 && now - start > wallClockMilliseconds)
+			stop(Reason.wallClock);
+		else if (inactivityMilliseconds > 0) {
+			final long activity = Math.max(start, Math.max(outputActivity.getAsLong(), getFolderActivity()));
+
+			if (now - activity > inactivityMilliseconds)
+				stop(Reason.inactivity);
+		}
+	}
+
+	/**
+	 * Returns the time the last file was modified in the output folder.
+	 * 
+	 * @return The time the last file was modified in the output folder. 0 if not
+	 *         available.
+	 * @since 1.8
+	 */
+	private long getFolderActivity() {
+		if (folder == null || !Files.isDirectory(folder))
+			return 0;
+
+		try (Stream<Path> files = Files.walk(folder, 2, FileVisitOption.FOLLOW_LINKS)) {
+			return files.mapToLong(file -> {
+				try {
+					return Files.getLastModifiedTime(file).toMillis();
+				} catch (IOException e) {
+					return 0;
+				}
+			}).max().orElse(0);
+		} catch (IOException | RuntimeException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Stops the process asynchronously.
+	 * 
+	 * @param reason The reason.
+	 * @since 1.8
+	 */
+	private void stop(Reason reason) {
+		this.reason = reason;
+
+		finish();
+
+		stopper.execute(stop);
+	}
+}
@@ -0,0 +1,521 @@
+/**
+ * File:     DockerEngineClientTest.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the docker engine client against a fake docker daemon, that listens on
+ * a unix domain socket and answers the requests with prepared responses.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class DockerEngineClientTest {
+	/**
+	 * The temporary folder of the socket.
+	 */
+	@TempDir
+	Path folder;
+
+	/**
+	 * The fake docker daemon.
+	 */
+	private FakeDaemon daemon;
+
+	/**
+	 * The client.
+	 */
+	private DockerEngineClient client;
+
+	/**
+	 * Starts the fake docker daemon.
+	 * 
+	 * @throws IOException Throws if the socket can not be bound.
+	 * @since 1.8
+	 */
+	@BeforeEach
+	void start() throws IOException {
+		daemon = new FakeDaemon(folder.resolve("docker.sock"));
+		client = new DockerEngineClient(daemon.socket);
+	}
+
+	/**
+	 * Stops the fake docker daemon.
+	 * 
+	 * @throws IOException Throws if the socket can not be closed.
+	 * @since 1.8
+	 */
+	@AfterEach
+	void stop() throws IOException {
+		daemon.close();
+	}
+
+	/**
+	 * Tests, that the output of the hijacked attach stream is demultiplexed into
+	 * lines, also if the lines are split across frames.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void attachAndStartDemultiplexesFrames() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+
+		daemon.handle("POST /containers/test/attach", (request, outputStream) -> {
+			outputStream.write(ascii("HTTP/1.1 101 UPGRADED\r\nContent-Type: application/vnd.docker.raw-stream\r\n"
+					+ "Connection: Upgrade\r\nUpgrade: tcp\r\n\r\n"));
+			outputStream.flush();
+
+			// The output is only written after the container was started
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+
+			outputStream.write(frame(1, "first li"));
+			outputStream.write(frame(2, "error\r\n"));
+			outputStream.write(frame(1, "ne\nsecond line\n"));
+			outputStream.write(frame(3, "ignored stdin\n"));
+			outputStream.write(frame(1, "unterminated"));
+		});
+		daemon.handle("POST /containers/test/start", (request, outputStream) -> {
+			started.countDown();
+
+			outputStream.write(ascii("HTTP/1.1 204 No Content\r\nContent-Length: 0\r\n\r\n"));
+		});
+
+		final List<String> output = Collections.synchronizedList(new ArrayList<>());
+		final List<String> error = Collections.synchronizedList(new ArrayList<>());
+		client.attachAndStart("test", output::add, error::add);
+
+		assertEquals(List.of("first line", "second line", "unterminated"), output);
+		assertEquals(List.of("error"), error);
+	}
+
+	/**
+	 * Tests, that frames larger than the buffer are demultiplexed and that
+	 * overlong lines are split.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void startExecDemultiplexesLargeFrames() throws Exception {
+		final String line = "a".repeat(100 * 1024);
+
+		daemon.handle("POST /exec/abc/start", (request, outputStream) -> {
+			outputStream.write(ascii("HTTP/1.1 101 UPGRADED\r\nConnection: Upgrade\r\nUpgrade: tcp\r\n\r\n"));
+			outputStream.write(frame(1, line + "\nend\n"));
+		});
+
+		final List<String> output = new ArrayList<>();
+		client.startExec("abc", output::add, text -> {
+		});
+
+		assertEquals(3, output.size());
+		assertEquals(line, output.get(0) + output.get(1));
+		assertEquals(64 * 1024, output.get(0).length());
+		assertEquals("end", output.get(2));
+	}
+
+	/**
+	 * Tests, that a truncated frame ends the stream without failure.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void startExecStopsAtTruncatedFrame() throws Exception {
+		daemon.handle("POST /exec/abc/start", (request, outputStream) -> {
+			outputStream.write(ascii("HTTP/1.1 101 UPGRADED\r\nConnection: Upgrade\r\nUpgrade: tcp\r\n\r\n"));
+			outputStream.write(frame(1, "complete\n"));
+
+			// The header announces more bytes than are sent
+			outputStream.write(new byte[] { 1, 0, 0, 0, 0x7f, 0, 0, 0 });
+			outputStream.write(ascii("partial"));
+		});
+
+		final List<String> output = new ArrayList<>();
+		client.startExec("abc", output::add, text -> {
+		});
+
+		assertEquals(List.of("complete", "partial"), output);
+	}
+
+	/**
+	 * Tests, that a response with chunked transfer encoding is read.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void createContainerReadsChunkedResponse() throws Exception {
+		daemon.handle("POST /containers/create", (request, outputStream) -> {
+			assertTrue(request.body.contains("\"Image\":\"ocrd/all\""));
+			assertTrue(request.path.endsWith("?name=worker-1"));
+
+			outputStream.write(ascii("HTTP/1.1 201 Created\r\nContent-Type: application/json\r\n"
+					+ "Transfer-Encoding: chunked\r\n\r\n" + "7\r\n{\"Id\":\"\r\n" + "9\r\nc0ffee42\"\r\n"
+					+ "e\r\n,\"Warnings\":[]\r\n" + "1\r\n}\r\n" + "0\r\n\r\n"));
+		});
+
+		assertEquals("c0ffee42", client.createContainer("worker-1", "ocrd/all", List.of("sleep", "infinity"), null,
+				null, null, null, null, null));
+	}
+
+	/**
+	 * Tests, that the error message of an unsuccessful response is reported.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void requestReportsErrorMessage() throws Exception {
+		daemon.handle("DELETE /containers/missing", (request, outputStream) -> {
+			outputStream.write(json(404, "{\"message\":\"No such container: missing\"}"));
+		});
+
+		IOException exception = null;
+		try {
+			client.removeContainer("missing");
+		} catch (IOException e) {
+			exception = e;
+		}
+
+		assertTrue(exception != null && exception.getMessage().contains("No such container: missing"),
+				String.valueOf(exception));
+	}
+
+	/**
+	 * Tests, that the exit code of an exec instance is only returned, when it is
+	 * not running anymore.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void getExecExitCodeWaitsUntilNotRunning() throws Exception {
+		final AtomicInteger inspections = new AtomicInteger();
+
+		daemon.handle("GET /exec/abc/json", (request, outputStream) -> {
+			outputStream.write(inspections.incrementAndGet() < 3 ? json(200, "{\"Running\":true,\"ExitCode\":0}")
+					: json(200, "{\"Running\":false,\"ExitCode\":3}"));
+		});
+
+		assertEquals(3, client.getExecExitCode("abc"));
+		assertEquals(3, inspections.get());
+	}
+
+	/**
+	 * Tests, that the pooled containers are inspected and updated with the
+	 * docker engine api instead of the docker command.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void poolClientInspectsAndUpdatesContainer() throws Exception {
+		daemon.handle("GET /containers/pooled/json", (request, outputStream) -> {
+			outputStream.write(json(200, "{\"State\":{\"Running\":true}}"));
+		});
+		daemon.handle("POST /containers/pooled/update", (request, outputStream) -> {
+			assertTrue(request.body.contains("\"CpusetCpus\":\"0-3\""), request.body);
+
+			outputStream.write(json(200, "{\"Warnings\":[]}"));
+		});
+
+		final DockerContainerPool.Client poolClient = new DockerContainerPool.EngineApiClient(client);
+
+		assertTrue(poolClient.isRunning("pooled"));
+		assertFalse(poolClient.isRunning("missing"));
+
+		poolClient.updateCpuset("pooled", "0-3");
+	}
+
+	/**
+	 * Returns the text as ASCII bytes.
+	 * 
+	 * @param text The text.
+	 * @return The ASCII bytes.
+	 * @since 1.8
+	 */
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Returns the complete response with the JSON body.
+	 * 
+	 * @param status The response status.
+	 * @param body   The JSON body.
+	 * @return The response.
+	 * @since 1.8
+	 */
+	private static byte[] json(int status, String body) {
+		final byte[] content = body.getBytes(StandardCharsets.UTF_8);
+
+		return ascii("HTTP/1.1 " + status + " Status\r\nContent-Type: application/json\r\nContent-Length: "
+				+ content.length + "\r\n\r\n" + body);
+	}
+
+	/**
+	 * Returns the multiplexed frame with the payload.
+	 * 
+	 * @param stream  The stream type.
+	 * @param payload The payload.
+	 * @return The frame.
+	 * @since 1.8
+	 */
+	private static byte[] frame(int stream, String payload) {
+		final byte[] content = payload.getBytes(StandardCharsets.UTF_8);
+		final byte[] frame = new byte[8 + content.length];
+
+		frame[0] = (byte) stream;
+		frame[4] = (byte) (content.length >>> 24);
+		frame[5] = (byte) (content.length >>> 16);
+		frame[6] = (byte) (content.length >>> 8);
+		frame[7] = (byte) content.length;
+		System.arraycopy(content, 0, frame, 8, content.length);
+
+		return frame;
+	}
+
+	/**
+	 * Defines handlers of requests of the fake docker daemon.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	@FunctionalInterface
+	private interface Handler {
+		/**
+		 * Handles the request writing the response.
+		 * 
+		 * @param request      The request.
+		 * @param outputStream The output stream of the connection.
+		 * @throws Exception Throws if the request can not be handled.
+		 * @since 1.8
+		 */
+		void handle(Request request, OutputStream outputStream) throws Exception;
+	}
+
+	/**
+	 * Defines requests to the fake docker daemon.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class Request {
+		/**
+		 * The http method.
+		 */
+		private final String method;
+
+		/**
+		 * The path with the query.
+		 */
+		private final String path;
+
+		/**
+		 * The body.
+		 */
+		private final String body;
+
+		/**
+		 * Creates a request.
+		 * 
+		 * @param method The http method.
+		 * @param path   The path with the query.
+		 * @param body   The body.
+		 * @since 1.8
+		 */
+		private Request(String method, String path, String body) {
+			super();
+
+			this.method = method;
+			this.path = path;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Defines fake docker daemons, that listen on a unix domain socket. Every
+	 * connection is served by its own thread, so that hijacked streams can wait
+	 * for other requests.
+	 *
+	 * @author <a href="mailto:agent@local">agent</a>
+	 * @version 1.0
+	 * @since 1.8
+	 */
+	private static class FakeDaemon implements AutoCloseable {
+		/**
+		 * The socket.
+		 */
+		private final Path socket;
+
+		/**
+		 * The server channel.
+		 */
+		private final ServerSocketChannel server;
+
+		/**
+		 * The handlers. The key is the method and the path without query.
+		 */
+		private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+		/**
+		 * Creates a fake docker daemon and starts accepting connections.
+		 * 
+		 * @param socket The socket.
+		 * @throws IOException Throws if the socket can not be bound.
+		 * @since 1.8
+		 */
+		private FakeDaemon(Path socket) throws IOException {
+			super();
+
+			this.socket = socket;
+
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			server.bind(UnixDomainSocketAddress.of(socket));
+
+			final Thread thread = new Thread(this::accept, "fake-docker-daemon");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Sets the handler of the requests.
+		 * 
+		 * @param request The method and the path without query.
+		 * @param handler The handler.
+		 * @since 1.8
+		 */
+		private void handle(String request, Handler handler) {
+			handlers.put(request, handler);
+		}
+
+		/**
+		 * Accepts the connections until the server is closed.
+		 * 
+		 * @since 1.8
+		 */
+		private void accept() {
+			try {
+				while (true) {
+					final SocketChannel channel = server.accept();
+
+					final Thread thread = new Thread(() -> serve(channel), "fake-docker-connection");
+					thread.setDaemon(true);
+					thread.start();
+				}
+			} catch (IOException e) {
+				// The server was closed
+			}
+		}
+
+		/**
+		 * Serves the request of the connection and closes it.
+		 * 
+		 * @param channel The connection.
+		 * @since 1.8
+		 */
+		private void serve(SocketChannel channel) {
+			try (channel) {
+				final InputStream inputStream = Channels.newInputStream(channel);
+				final OutputStream outputStream = Channels.newOutputStream(channel);
+
+				final Request request = read(inputStream);
+				final String path = request.path.contains("?")
+						? request.path.substring(0, request.path.indexOf('?'))
+						: request.path;
+
+				final Handler handler = handlers.get(request.method + " " + path);
+				if (handler == null)
+					outputStream.write(json(404, "{\"message\":\"unexpected request " + path + "\"}"));
+				else
+					handler.handle(request, outputStream);
+
+				outputStream.flush();
+			} catch (Exception e) {
+				// The connection is closed
+			}
+		}
+
+		/**
+		 * Reads the request.
+		 * 
+		 * @param inputStream The input stream.
+		 * @return The request.
+		 * @throws IOException Throws if the request can not be read.
+		 * @since 1.8
+		 */
+		private static Request read(InputStream inputStream) throws IOException {
+			final ByteArrayOutputStream header = new ByteArrayOutputStream();
+			int value;
+			while ((value = inputStream.read()) != -1) {
+				header.write(value);
+
+				final String text = header.toString(StandardCharsets.US_ASCII);
+				if (text.endsWith("\r\n\r\n"))
+					break;
+			}
+
+			final String[] lines = header.toString(StandardCharsets.US_ASCII).split("\r\n");
+			final String[] requestLine = lines[0].split(" ");
+
+			int length = 0;
+			for (String line : lines)
+				if (line.toLowerCase().startsWith("content-length:"))
+					length = Integer.parseInt(line.substring(line.indexOf(':') + 1).trim());
+
+			return new Request(requestLine[0], requestLine[1],
+					new String(inputStream.readNBytes(length), StandardCharsets.UTF_8));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			server.close();
+
+			Files.deleteIfExists(socket);
+		}
+	}
+}
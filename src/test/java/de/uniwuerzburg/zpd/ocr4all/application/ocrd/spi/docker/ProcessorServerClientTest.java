@@ -0,0 +1,233 @@
+/**
+ * File:     ProcessorServerClientTest.java
+ * Package:  de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker
+ * 
+ * Author:   agent (agent@local)
+ * Date:     18.10.2026
+ */
+package de.uniwuerzburg.zpd.ocr4all.application.ocrd.spi.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the processor server client against a stub http server, that answers
+ * like an ocr-d processor server.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version 1.0
+ * @since 1.8
+ */
+public class ProcessorServerClientTest {
+	/**
+	 * The processor identifier.
+	 */
+	private static final String processor = "ocrd-tesserocr-recognize";
+
+	/**
+	 * The object mapper.
+	 */
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * The stub http server.
+	 */
+	private HttpServer server;
+
+	/**
+	 * The responses of the stub server. The key is the request path and the value
+	 * the response body.
+	 */
+	private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+	/**
+	 * The body of the last submitted job.
+	 */
+	private volatile String submitted = null;
+
+	/**
+	 * Starts the stub http server on a free port of the loopback interface.
+	 * 
+	 * @throws IOException Throws if the server can not be started.
+	 * @since 1.8
+	 */
+	@BeforeEach
+	void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	/**
+	 * Stops the stub http server.
+	 * 
+	 * @since 1.8
+	 */
+	@AfterEach
+	void stop() {
+		server.stop(0);
+	}
+
+	/**
+	 * Answers the request with the prepared response. Unknown paths are answered
+	 * with status 404.
+	 * 
+	 * @param exchange The http exchange.
+	 * @throws IOException Throws if the response can not be written.
+	 * @since 1.8
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		final String path = exchange.getRequestURI().getPath();
+
+		if ("POST".equals(exchange.getRequestMethod()))
+			submitted = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+		final String response = responses.get(path);
+		final byte[] body = (response == null ? "{\"detail\":\"not found\"}" : response)
+				.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(response == null ? 404 : 200, body.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(body);
+		}
+	}
+
+	/**
+	 * Returns a client of the stub server.
+	 * 
+	 * @param processor The processor identifier, that the server has to report.
+	 *                  Null if it is not checked.
+	 * @return The client.
+	 * @since 1.8
+	 */
+	private ProcessorServerClient getClient(String processor) {
+		return new ProcessorServerClient(URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+				+ ":" + server.getAddress().getPort()), processor);
+	}
+
+	/**
+	 * Tests, that the availability requires the expected processor.
+	 * 
+	 * @since 1.8
+	 */
+	@Test
+	void isAvailableChecksProcessor() {
+		assertFalse(getClient(processor).isAvailable());
+
+		responses.put("/", "{\"executable\":\"ocrd-other-processor\"}");
+		assertTrue(getClient(null).isAvailable());
+		assertFalse(getClient(processor).isAvailable());
+
+		responses.put("/", "{\"executable\":\"" + processor + "\"}");
+		assertTrue(getClient(processor).isAvailable());
+
+		server.stop(0);
+		assertFalse(getClient(processor).isAvailable());
+	}
+
+	/**
+	 * Tests, that a job is submitted with the ocr-d job fields.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void submitPostsJob() throws Exception {
+		responses.put("/run", "{\"job_id\":\"job-1\",\"state\":\"queued\"}");
+
+		assertEquals("job-1", getClient(processor).submit("/data/mets.xml", "OCR-D-IMG", "OCR-D-OCR",
+				"PHYS_0001,PHYS_0002", Map.of("model", "deu")));
+
+		final JsonNode body = objectMapper.readTree(submitted);
+		assertEquals("/data/mets.xml", body.path("path_to_mets").asText());
+		assertEquals("OCR-D-IMG", body.path("input_file_grps").get(0).asText());
+		assertEquals("OCR-D-OCR", body.path("output_file_grps").get(0).asText());
+		assertEquals("PHYS_0001,PHYS_0002", body.path("page_id").asText());
+		assertEquals("deu", body.path("parameters").path("model").asText());
+	}
+
+	/**
+	 * Tests, that a submission without job identifier fails.
+	 * 
+	 * @since 1.8
+	 */
+	@Test
+	void submitRequiresJobIdentifier() {
+		responses.put("/run", "{\"state\":\"queued\"}");
+
+		assertThrows(IOException.class,
+				() -> getClient(processor).submit("/data/mets.xml", "OCR-D-IMG", "OCR-D-OCR", null, null));
+	}
+
+	/**
+	 * Tests the mapping of the job states, that ends the polling for unknown
+	 * states.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void getStateMapsJobStates() throws Exception {
+		final ProcessorServerClient client = getClient(processor);
+
+		final Map<String, ProcessorServerClient.State> states = Map.of("queued", ProcessorServerClient.State.running,
+				"RUNNING", ProcessorServerClient.State.running, "success", ProcessorServerClient.State.success,
+				"cached", ProcessorServerClient.State.success, "failed", ProcessorServerClient.State.failed,
+				"deleted", ProcessorServerClient.State.failed, "", ProcessorServerClient.State.failed);
+
+		for (Map.Entry<String, ProcessorServerClient.State> state : states.entrySet()) {
+			responses.put("/job-1", "{\"job_id\":\"job-1\",\"state\":\"" + state.getKey() + "\"}");
+
+			assertEquals(state.getValue(), client.getState("job-1"), state.getKey());
+		}
+
+		responses.put("/job-1", "{\"job_id\":\"job-1\"}");
+		assertEquals(ProcessorServerClient.State.failed, client.getState("job-1"));
+	}
+
+	/**
+	 * Tests, that an unsuccessful response status is reported.
+	 * 
+	 * @since 1.8
+	 */
+	@Test
+	void getStateReportsStatus() {
+		final IOException exception = assertThrows(IOException.class, () -> getClient(processor).getState("job-2"));
+
+		assertTrue(exception.getMessage().contains("404"), exception.getMessage());
+	}
+
+	/**
+	 * Tests, that the job log is returned.
+	 * 
+	 * @throws Exception Throws on test failure.
+	 * @since 1.8
+	 */
+	@Test
+	void getLogReturnsLog() throws Exception {
+		responses.put("/job-1/log", "processed page PHYS_0001");
+
+		assertEquals("processed page PHYS_0001", getClient(processor).getLog("job-1"));
+	}
+}